@@ -0,0 +1,90 @@
+package com.tnqtech.builder;
+
+import com.tnqtech.docx.BenchmarkSupport;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code RulesReportBuilder.compareRecords}. The comparison scans
+ * the current records for every expected record, so the record counts stop
+ * at 10000 to keep a run within minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RulesReportBuilderBenchmark {
+
+    private static final double DIFFERENCE_RATE = 0.05d;
+    private static final MethodHandle READ_CSV = handle("readCSV", String.class);
+    private static final MethodHandle COMPARE_RECORDS = handle("compareRecords", List.class, List.class);
+
+    @Param({"1000", "10000"})
+    public int recordCount;
+
+    private Path directory;
+    private List<?> expectedRecords;
+    private List<?> currentRecords;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        directory = Files.createTempDirectory("rules-report-benchmark");
+        final Path expectedCsvPath = directory.resolve("expected.csv");
+        final Path currentCsvPath = directory.resolve("current.csv");
+        Files.writeString(
+            expectedCsvPath,
+            BenchmarkSupport.expectedCsv(recordCount, BenchmarkSupport.SEED),
+            StandardCharsets.UTF_8
+        );
+        Files.writeString(
+            currentCsvPath,
+            BenchmarkSupport.actualCsv(recordCount, BenchmarkSupport.SEED, DIFFERENCE_RATE),
+            StandardCharsets.UTF_8
+        );
+        expectedRecords = (List<?>) READ_CSV.invokeExact(expectedCsvPath.toString());
+        currentRecords = (List<?>) READ_CSV.invokeExact(currentCsvPath.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(directory.resolve("expected.csv"));
+        Files.deleteIfExists(directory.resolve("current.csv"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Object compareRecords() throws Throwable {
+        return COMPARE_RECORDS.invoke(expectedRecords, currentRecords);
+    }
+
+    private static MethodHandle handle(final String name, final Class<?>... parameterTypes) {
+        try {
+            final Method method = RulesReportBuilder.class.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (final ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unable to access RulesReportBuilder." + name, ex);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.wml.ObjectFactory;
+import org.docx4j.wml.P;
+import org.docx4j.wml.R;
+import org.docx4j.wml.Tbl;
+import org.docx4j.wml.Tc;
+import org.docx4j.wml.Text;
+import org.docx4j.wml.Tr;
+
+/**
+ * Deterministic inputs and private-member access shared by the benchmarks.
+ * Like the unit tests, the benchmarks reach the generator internals through
+ * reflection so that production visibility stays unchanged.
+ */
+public final class BenchmarkSupport {
+
+    /** Seed used by every benchmark so that runs are comparable. */
+    public static final long SEED = 20240601L;
+
+    private static final String SEPARATOR = "$";
+    private static final String HEADER = String.join(
+        SEPARATOR,
+        "FileName", "Rule", "Highlight", "ParaStyle", "CharStyle", "Find", "Replace",
+        "Input", "Output", "Stage", "Status", "Suggestion", "InstanceText", "BookMarkName"
+    );
+    private static final int RECORDS_PER_FILE = 25;
+    private static final int RULE_COUNT = 60;
+    private static final double DUPLICATE_RATE = 0.02d;
+    private static final String[] WORDS = {
+        "European", "Union", "analysis", "protein", "cell", "journal", "figure", "table", "equation",
+        "et al.", "i.e.", "e.g.", "Fig.", "data", "sample", "colour", "behaviour", "per cent", "versus",
+    };
+    private static final String[] DECORATIONS = {
+        "", "", "\u00A0", "  ", "\r\n", "\"", "\u2009", "<unlink>", "</unlink>",
+    };
+
+    private BenchmarkSupport() {
+        // utility class
+    }
+
+    /**
+     * Returns a method handle for a declared, possibly private, method.
+     */
+    static MethodHandle handle(final Class<?> owner, final String name, final Class<?>... parameterTypes) {
+        try {
+            final Method method = owner.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (final ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unable to access " + owner.getSimpleName() + "." + name, ex);
+        }
+    }
+
+    static DecisionCsvGeneratorApp newApp(final Path inputDirectory, final Path expectedCsvPath) {
+        try {
+            final Constructor<DecisionCsvGeneratorApp> constructor = DecisionCsvGeneratorApp.class
+                .getDeclaredConstructor(Path.class, Path.class, boolean.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(inputDirectory, expectedCsvPath, false);
+        } catch (final ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unable to create DecisionCsvGeneratorApp", ex);
+        }
+    }
+
+    /**
+     * Builds an expected CSV with {@code recordCount} rows, including a small
+     * share of exact duplicates as produced by real runs.
+     */
+    public static String expectedCsv(final int recordCount, final long seed) {
+        return toCsv(baseRows(recordCount, seed));
+    }
+
+    /**
+     * Builds the actual CSV that pairs with {@link #expectedCsv(int, long)}.
+     * Roughly {@code differenceRate} of the rows are changed: most get a new
+     * output, the rest are dropped or replaced by a new row.
+     */
+    public static String actualCsv(final int recordCount, final long seed, final double differenceRate) {
+        final List<String[]> rows = baseRows(recordCount, seed);
+        final Random random = new Random(seed ^ 0x5DEECE66DL);
+        final List<String[]> actual = new ArrayList<>(rows.size());
+        for (final String[] row : rows) {
+            if (random.nextDouble() >= differenceRate) {
+                actual.add(row);
+                continue;
+            }
+            final double kind = random.nextDouble();
+            if (kind < 0.6d) {
+                final String[] modified = row.clone();
+                modified[8] = modified[8] + " " + word(random);
+                actual.add(modified);
+            } else if (kind < 0.8d) {
+                continue;
+            } else {
+                final String[] added = row.clone();
+                added[1] = String.format(Locale.ROOT, "Rule_%03d", RULE_COUNT + random.nextInt(RULE_COUNT));
+                actual.add(added);
+            }
+        }
+        return toCsv(actual);
+    }
+
+    /**
+     * Returns raw field values with the quoting and whitespace noise that
+     * the sanitizers have to clean up.
+     */
+    public static String[] fieldValues(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = noisySentence(random, 4 + random.nextInt(12));
+        }
+        return values;
+    }
+
+    /**
+     * Writes a DOCX document with {@code paragraphs} body paragraphs and a
+     * three by three table after every 25 paragraphs.
+     */
+    static Path createDocx(final Path target, final int paragraphs, final long seed) throws Docx4JException {
+        final Random random = new Random(seed);
+        final ObjectFactory factory = new ObjectFactory();
+        final WordprocessingMLPackage pkg = WordprocessingMLPackage.createPackage();
+        final MainDocumentPart mainPart = pkg.getMainDocumentPart();
+        for (int i = 0; i < paragraphs; i++) {
+            mainPart.addParagraphOfText(sentence(random, 8 + random.nextInt(24)));
+            if (i % 25 == 24) {
+                final Tbl table = factory.createTbl();
+                for (int rowIndex = 0; rowIndex < 3; rowIndex++) {
+                    final Tr row = factory.createTr();
+                    for (int cellIndex = 0; cellIndex < 3; cellIndex++) {
+                        row.getContent().add(createCell(factory, sentence(random, 3)));
+                    }
+                    table.getContent().add(row);
+                }
+                mainPart.getContent().add(table);
+            }
+        }
+        pkg.save(target.toFile());
+        return target;
+    }
+
+    static void deleteRecursively(final Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(directory)) {
+            final List<Path> paths = new ArrayList<>();
+            stream.sorted(Comparator.reverseOrder()).forEach(paths::add);
+            for (final Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static Tc createCell(final ObjectFactory factory, final String value) {
+        final Text text = factory.createText();
+        text.setValue(value);
+        final R run = factory.createR();
+        run.getContent().add(text);
+        final P paragraph = factory.createP();
+        paragraph.getContent().add(run);
+        final Tc cell = factory.createTc();
+        cell.getContent().add(paragraph);
+        return cell;
+    }
+
+    private static List<String[]> baseRows(final int recordCount, final long seed) {
+        final Random random = new Random(seed);
+        final List<String[]> rows = new ArrayList<>(recordCount);
+        while (rows.size() < recordCount) {
+            if (!rows.isEmpty() && random.nextDouble() < DUPLICATE_RATE) {
+                rows.add(rows.get(random.nextInt(rows.size())).clone());
+                continue;
+            }
+            final int index = rows.size();
+            final String find = word(random);
+            final String replace = word(random);
+            rows.add(new String[] {
+                String.format(Locale.ROOT, "JOURNAL_%05d", index / RECORDS_PER_FILE),
+                String.format(Locale.ROOT, "Rule_%03d", random.nextInt(RULE_COUNT)),
+                random.nextBoolean() ? "yes" : "",
+                random.nextBoolean() ? "Para" : "Heading1",
+                "normal",
+                find,
+                replace,
+                sentence(random, 6) + " " + find + " " + sentence(random, 6),
+                sentence(random, 6) + " " + replace + " " + sentence(random, 6),
+                random.nextInt(4) == 0 ? "midprocess" : "mainprocess",
+                random.nextBoolean() ? "Applied" : "Suggested",
+                random.nextInt(5) == 0 ? sentence(random, 4) : "",
+                find,
+                String.format(Locale.ROOT, "BM_%d", index),
+            });
+        }
+        return rows;
+    }
+
+    private static String toCsv(final List<String[]> rows) {
+        final StringBuilder builder = new StringBuilder(HEADER.length() + rows.size() * 160);
+        builder.append(HEADER).append('\n');
+        for (final String[] row : rows) {
+            builder.append(String.join(SEPARATOR, row)).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String sentence(final Random random, final int words) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(word(random));
+        }
+        return builder.toString();
+    }
+
+    private static String noisySentence(final Random random, final int words) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(DECORATIONS[random.nextInt(DECORATIONS.length)]);
+        for (int i = 0; i < words; i++) {
+            builder.append(word(random));
+            builder.append(random.nextInt(6) == 0 ? DECORATIONS[random.nextInt(DECORATIONS.length)] : " ");
+        }
+        builder.append(DECORATIONS[random.nextInt(DECORATIONS.length)]);
+        return builder.toString();
+    }
+
+    private static String word(final Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
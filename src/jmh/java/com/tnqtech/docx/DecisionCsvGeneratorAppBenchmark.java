@@ -0,0 +1,122 @@
+package com.tnqtech.docx;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures CSV I/O, deduplication, comparison and HTML rendering of the
+ * regression generator on paired expected/actual CSVs with a 5% difference
+ * rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionCsvGeneratorAppBenchmark {
+
+    private static final double DIFFERENCE_RATE = 0.05d;
+    private static final MethodHandle READ_CSV =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "readCsv", Path.class);
+    private static final MethodHandle WRITE_CSV =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "writeCsv", Path.class, List.class);
+    private static final MethodHandle DEDUPLICATE_RECORDS =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "deduplicateRecords", List.class);
+    private static final MethodHandle COMPARE_RECORDS =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "compareRecords", List.class, List.class);
+    private static final MethodHandle WRITE_HTML_REPORT = BenchmarkSupport.handle(
+        DecisionCsvGeneratorApp.class,
+        "writeHtmlReport",
+        Path.class,
+        List.class,
+        Path.class,
+        Path.class
+    );
+
+    @Param({"1000", "10000", "100000"})
+    public int recordCount;
+
+    private Path directory;
+    private Path expectedCsvPath;
+    private Path actualCsvPath;
+    private Path outputCsvPath;
+    private Path reportPath;
+    private DecisionCsvGeneratorApp app;
+    private List<?> expectedRecords;
+    private List<?> uniqueExpectedRecords;
+    private List<?> uniqueActualRecords;
+    private List<?> differences;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        directory = Files.createTempDirectory("decision-app-benchmark");
+        expectedCsvPath = directory.resolve("expected.csv");
+        actualCsvPath = directory.resolve("actual.csv");
+        outputCsvPath = directory.resolve("output.csv");
+        reportPath = directory.resolve("ACE_regression_report.html");
+        Files.writeString(
+            expectedCsvPath,
+            BenchmarkSupport.expectedCsv(recordCount, BenchmarkSupport.SEED),
+            StandardCharsets.UTF_8
+        );
+        Files.writeString(
+            actualCsvPath,
+            BenchmarkSupport.actualCsv(recordCount, BenchmarkSupport.SEED, DIFFERENCE_RATE),
+            StandardCharsets.UTF_8
+        );
+        app = BenchmarkSupport.newApp(directory, expectedCsvPath);
+        expectedRecords = (List<?>) READ_CSV.invokeExact(app, expectedCsvPath);
+        uniqueExpectedRecords = (List<?>) DEDUPLICATE_RECORDS.invokeExact((List<?>) expectedRecords);
+        final List<?> actualRecords = (List<?>) READ_CSV.invokeExact(app, actualCsvPath);
+        uniqueActualRecords = (List<?>) DEDUPLICATE_RECORDS.invokeExact((List<?>) actualRecords);
+        differences = (List<?>) COMPARE_RECORDS.invokeExact(app, uniqueExpectedRecords, uniqueActualRecords);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<?> readCsv() throws Throwable {
+        return (List<?>) READ_CSV.invokeExact(app, expectedCsvPath);
+    }
+
+    @Benchmark
+    public void writeCsv() throws Throwable {
+        WRITE_CSV.invokeExact(outputCsvPath, (List<?>) uniqueExpectedRecords);
+    }
+
+    @Benchmark
+    public List<?> deduplicateRecords() throws Throwable {
+        return (List<?>) DEDUPLICATE_RECORDS.invokeExact((List<?>) expectedRecords);
+    }
+
+    @Benchmark
+    public List<?> compareRecords() throws Throwable {
+        return (List<?>) COMPARE_RECORDS.invokeExact(app, uniqueExpectedRecords, uniqueActualRecords);
+    }
+
+    @Benchmark
+    public void writeHtmlReport() throws Throwable {
+        WRITE_HTML_REPORT.invokeExact(app, reportPath, (List<?>) differences, expectedCsvPath, actualCsvPath);
+    }
+}
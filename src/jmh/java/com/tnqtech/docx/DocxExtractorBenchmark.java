@@ -0,0 +1,73 @@
+package com.tnqtech.docx;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DocxExtractor#extract(Path)} on generated documents of
+ * increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocxExtractorBenchmark {
+
+    /** Body paragraphs: small 50, medium 1000, large 10000. */
+    @Param({"small", "medium", "large"})
+    public String documentSize;
+
+    private Path directory;
+    private Path docxPath;
+    private DocxExtractor extractor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("docx-extractor-benchmark");
+        docxPath = BenchmarkSupport.createDocx(
+            directory.resolve(documentSize + ".docx"),
+            paragraphCount(documentSize),
+            BenchmarkSupport.SEED
+        );
+        extractor = new DocxExtractor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public DocxExtractor.ExtractionResult extract() throws DocxExtractorException {
+        return extractor.extract(docxPath);
+    }
+
+    private static int paragraphCount(final String size) {
+        switch (size) {
+            case "small":
+                return 50;
+            case "medium":
+                return 1_000;
+            case "large":
+                return 10_000;
+            default:
+                throw new IllegalArgumentException("Unknown document size: " + size);
+        }
+    }
+}
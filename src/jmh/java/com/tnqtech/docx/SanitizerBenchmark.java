@@ -0,0 +1,77 @@
+package com.tnqtech.docx;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the per-field text normalization of the CSV generator over
+ * {@code recordCount} noisy field values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SanitizerBenchmark {
+
+    private static final MethodHandle SANITIZE_TEXT =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "sanitizeText", String.class);
+    private static final MethodHandle NORMALIZE_WHITESPACE =
+        BenchmarkSupport.handle(FieldSanitizer.class, "normalizeWhitespace", String.class);
+    private static final MethodHandle SANITIZE_FILE_REFERENCE =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "sanitizeFileReference", String.class);
+    private static final MethodHandle NORMALIZE_KEY_PART =
+        BenchmarkSupport.handle(DecisionCsvGeneratorApp.class, "normalizeKeyPart", String.class);
+
+    @Param({"1000", "10000", "100000"})
+    public int recordCount;
+
+    private String[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = BenchmarkSupport.fieldValues(recordCount, BenchmarkSupport.SEED);
+    }
+
+    @Benchmark
+    public void sanitizeText(final Blackhole blackhole) throws Throwable {
+        for (final String value : values) {
+            blackhole.consume((String) SANITIZE_TEXT.invokeExact(value));
+        }
+    }
+
+    @Benchmark
+    public void sanitizeFileReference(final Blackhole blackhole) throws Throwable {
+        for (final String value : values) {
+            blackhole.consume((String) SANITIZE_FILE_REFERENCE.invokeExact(value));
+        }
+    }
+
+    @Benchmark
+    public void normalizeWhitespace(final Blackhole blackhole) throws Throwable {
+        for (final String value : values) {
+            blackhole.consume((String) NORMALIZE_WHITESPACE.invokeExact(value));
+        }
+    }
+
+    @Benchmark
+    public void normalizeKeyPart(final Blackhole blackhole) throws Throwable {
+        for (final String value : values) {
+            blackhole.consume((String) NORMALIZE_KEY_PART.invokeExact(value));
+        }
+    }
+}
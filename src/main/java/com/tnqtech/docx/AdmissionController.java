@@ -0,0 +1,237 @@
+package com.tnqtech.docx;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Admits file groups into extraction according to their estimated memory
+ * cost and the pressure on the heap.
+ *
+ * <p>A docx4j package costs a large multiple of its file size, so each
+ * group is estimated from the sizes of its files. Groups are admitted while
+ * the estimates of the groups in flight fit into a share of the maximum heap
+ * and their number stays under a concurrency limit; a single group is always
+ * admitted so that no group waits forever. Groups whose extraction was
+ * abandoned keep their memory share until it returns, but no longer count
+ * against the limit, so stuck extractions cannot block admission for good.
+ * The limit starts at the
+ * configured worker count. Usage and collection usage thresholds on the
+ * tenured heap pools halve it whenever the heap runs short, and it grows by
+ * one group at a time, up to the maximum, while groups are waiting and the
+ * heap has recovered.</p>
+ *
+ * <p>The thresholds belong to the JVM, and concurrent runs such as service
+ * jobs each have a controller. They are therefore installed when the first
+ * controller opens and restored when the last one closes, and each pressure
+ * notification reaches every open controller.</p>
+ */
+final class AdmissionController implements Closeable {
+
+    /** Heap used by a loaded docx4j package per byte of DOCX file. */
+    static final long DOCX_EXPANSION = 40L;
+    /** Heap used by a parsed DOM per byte of decision XML. */
+    static final long DOM_EXPANSION = 10L;
+
+    private static final double USAGE_THRESHOLD = 0.85d;
+    private static final double COLLECTION_USAGE_THRESHOLD = 0.70d;
+
+    private static final Object THRESHOLD_LOCK = new Object();
+    private static final Set<AdmissionController> OPEN_CONTROLLERS = new CopyOnWriteArraySet<>();
+    private static final Map<MemoryPoolMXBean, long[]> WATCHED_POOLS = new LinkedHashMap<>();
+    private static final NotificationListener LISTENER = AdmissionController::handleNotification;
+
+    private final long budgetBytes;
+    private final int maxInFlight;
+    private final RunMetrics metrics;
+    private int limit;
+    private int inFlight;
+    private int abandoned;
+    private long inFlightBytes;
+    private int waiting;
+
+    /**
+     * Creates a controller that lets up to {@code initialInFlight} groups in
+     * at first, and up to {@code maxInFlight} once the heap allows, within
+     * {@code heapPercent} percent of the maximum heap.
+     */
+    AdmissionController(final int initialInFlight, final int maxInFlight, final int heapPercent, final RunMetrics metrics) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.limit = Math.max(1, Math.min(initialInFlight, this.maxInFlight));
+        this.budgetBytes = Runtime.getRuntime().maxMemory() / 100L * heapPercent;
+        this.metrics = metrics;
+        synchronized (THRESHOLD_LOCK) {
+            if (OPEN_CONTROLLERS.isEmpty()) {
+                installThresholds();
+            }
+            OPEN_CONTROLLERS.add(this);
+        }
+    }
+
+    /**
+     * Returns the estimated heap needed to extract a group with the given
+     * file sizes. Its two documents are extracted one after the other, so
+     * only the larger counts.
+     */
+    static long estimate(final long preAceBytes, final long midAceBytes, final long decisionBytes) {
+        return Math.max(preAceBytes, midAceBytes) * DOCX_EXPANSION + decisionBytes * DOM_EXPANSION;
+    }
+
+    /**
+     * Waits until a group of the given cost may start, and returns its
+     * permit, which is released once the group is done.
+     */
+    synchronized Permit acquire(final long cost) throws InterruptedException {
+        final long started = System.nanoTime();
+        boolean throttled = false;
+        waiting++;
+        try {
+            while (inFlight > abandoned && (inFlight - abandoned >= limit || inFlightBytes + cost > budgetBytes)) {
+                throttled = true;
+                wait();
+            }
+        } finally {
+            waiting--;
+        }
+        inFlight++;
+        inFlightBytes += cost;
+        metrics.recordAdmission(throttled ? System.nanoTime() - started : 0L);
+        return new Permit(cost);
+    }
+
+    private synchronized void abandon() {
+        abandoned++;
+        notifyAll();
+    }
+
+    private synchronized void release(final long cost, final boolean wasAbandoned) {
+        if (wasAbandoned) {
+            abandoned--;
+        }
+        inFlight--;
+        inFlightBytes -= cost;
+        if (waiting > 0 && limit < maxInFlight && !underPressure()) {
+            limit++;
+            metrics.recordAdmissionExpansion();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stops listening; the last controller to close restores the thresholds
+     * found on the pools.
+     */
+    @Override
+    public void close() {
+        synchronized (THRESHOLD_LOCK) {
+            if (OPEN_CONTROLLERS.remove(this) && OPEN_CONTROLLERS.isEmpty()) {
+                restoreThresholds();
+            }
+        }
+    }
+
+    private static void installThresholds() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            final long max = pool.getUsage() == null ? -1L : pool.getUsage().getMax();
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || max <= 0L) {
+                continue;
+            }
+            final long[] previous = {pool.getUsageThreshold(), -1L};
+            pool.setUsageThreshold((long) (max * USAGE_THRESHOLD));
+            if (pool.isCollectionUsageThresholdSupported()) {
+                previous[1] = pool.getCollectionUsageThreshold();
+                pool.setCollectionUsageThreshold((long) (max * COLLECTION_USAGE_THRESHOLD));
+            }
+            WATCHED_POOLS.put(pool, previous);
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(LISTENER, null, null);
+    }
+
+    private static void restoreThresholds() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(LISTENER);
+        } catch (final ListenerNotFoundException ex) {
+            // never registered
+        }
+        for (final Map.Entry<MemoryPoolMXBean, long[]> entry : WATCHED_POOLS.entrySet()) {
+            entry.getKey().setUsageThreshold(entry.getValue()[0]);
+            if (entry.getValue()[1] >= 0L) {
+                entry.getKey().setCollectionUsageThreshold(entry.getValue()[1]);
+            }
+        }
+        WATCHED_POOLS.clear();
+    }
+
+    private static void handleNotification(final Notification notification, final Object handback) {
+        final String type = notification.getType();
+        if (!MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+            && !MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            return;
+        }
+        for (final AdmissionController controller : OPEN_CONTROLLERS) {
+            controller.relieve();
+        }
+    }
+
+    private void relieve() {
+        synchronized (this) {
+            limit = Math.max(1, limit / 2);
+        }
+        metrics.recordHeapPressure();
+    }
+
+    /**
+     * The admission of one group.
+     */
+    final class Permit {
+
+        private final long cost;
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+
+        private Permit(final long cost) {
+            this.cost = cost;
+        }
+
+        /**
+         * Marks the group's extraction as abandoned, which keeps its
+         * memory share but frees its place under the concurrency limit.
+         */
+        void abandon() {
+            if (abandoned.compareAndSet(false, true)) {
+                AdmissionController.this.abandon();
+            }
+        }
+
+        /**
+         * Returns the capacity taken by the group once its extraction has
+         * returned.
+         */
+        void release() {
+            AdmissionController.this.release(cost, abandoned.get());
+        }
+    }
+
+    private static boolean underPressure() {
+        synchronized (THRESHOLD_LOCK) {
+            for (final MemoryPoolMXBean pool : WATCHED_POOLS.keySet()) {
+                if (pool.isCollectionUsageThresholdSupported()
+                    ? pool.isCollectionUsageThresholdExceeded()
+                    : pool.isUsageThresholdExceeded()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Zip archives accepted in place of an input directory. The archive is
+ * opened with the JDK zip filesystem provider, so groups are discovered from
+ * its central directory and entries are streamed straight out of it; nothing
+ * is unpacked and nothing is written into the archive. Outputs go to the
+ * directory that holds the archive.
+ */
+final class ArchiveInput {
+
+    private static final String ZIP_EXTENSION = ".zip";
+
+    private ArchiveInput() {
+    }
+
+    /**
+     * Returns whether {@code path} names a zip archive to read groups from.
+     */
+    static boolean isArchive(final Path path) {
+        if (path == null || path.getFileName() == null) {
+            return false;
+        }
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ZIP_EXTENSION)
+            && Files.isRegularFile(path);
+    }
+
+    /**
+     * Opens the archive; the caller closes the returned filesystem once the
+     * run is complete. Groups are read from {@code getPath("/")}.
+     */
+    static FileSystem open(final Path archive) throws IOException {
+        return FileSystems.newFileSystem(archive);
+    }
+
+    /**
+     * Returns the directory that receives the outputs of a run over
+     * {@code archive}.
+     */
+    static Path outputDirectory(final Path archive) {
+        final Path parent = archive.toAbsolutePath().getParent();
+        return parent == null ? Path.of(".").toAbsolutePath().normalize() : parent;
+    }
+}
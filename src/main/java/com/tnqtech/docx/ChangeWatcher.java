@@ -0,0 +1,128 @@
+package com.tnqtech.docx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory tree with a {@link WatchService} and reports changes
+ * in bursts: a burst ends once no further change has arrived for the
+ * debounce interval, so copying a group's files in one go is reported once.
+ *
+ * <p>Directories created below the root are watched as soon as their
+ * creation is seen, and the files already inside them are reported as
+ * changed, since they may have been written before the directory was
+ * registered.</p>
+ */
+final class ChangeWatcher implements Closeable {
+
+    private final WatchService service;
+    private final long debounceMillis;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+
+    ChangeWatcher(final Path root, final long debounceMillis) throws IOException {
+        this.service = root.getFileSystem().newWatchService();
+        this.debounceMillis = debounceMillis;
+        try {
+            registerTree(root, null);
+        } catch (final IOException ex) {
+            service.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Waits for the next burst of changes and returns the paths that were
+     * created, modified or deleted in it.
+     */
+    Changes awaitChanges() throws IOException, InterruptedException {
+        final Set<Path> paths = new TreeSet<>();
+        boolean overflow = false;
+        WatchKey key = service.take();
+        while (key != null) {
+            overflow |= drain(key, paths);
+            key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        return new Changes(paths, overflow);
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+
+    /**
+     * Collects the events of {@code key} and returns whether any were lost.
+     */
+    private boolean drain(final WatchKey key, final Set<Path> paths) throws IOException {
+        final Path directory = directories.get(key);
+        boolean overflow = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                overflow = true;
+                continue;
+            }
+            final Path changed = directory.resolve((Path) event.context());
+            paths.add(changed);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                && Files.isDirectory(changed, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    registerTree(changed, paths);
+                } catch (final NoSuchFileException ex) {
+                    // removed again before it could be watched; its deletion is reported too
+                }
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+        return overflow;
+    }
+
+    private void registerTree(final Path start, final Set<Path> files) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path directory, final BasicFileAttributes attributes)
+                throws IOException {
+                final WatchKey key = directory.register(
+                    service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY
+                );
+                directories.put(key, directory);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                if (files != null) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * The paths changed in one burst. {@code overflow} is set when the
+     * platform dropped events, in which case the paths are incomplete.
+     */
+    record Changes(Set<Path> paths, boolean overflow) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.tnqtech.docx;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Append-only journal of the groups a run has completed, so that a run that
+ * crashed or was killed can be resumed without processing them again.
+ *
+ * <p>Each entry holds a group key, a fingerprint of the group's files and
+ * the group's sorted records, deflated and framed by its length and CRC-32.
+ * Entries are written with a single append each, so a crash can at worst
+ * leave one torn entry at the end; reading stops there and the torn bytes
+ * are cut off before new entries are appended. Entries reach the operating
+ * system as soon as they are written, which survives a killed or crashed
+ * JVM; the file is forced to disk when the journal is closed.</p>
+ */
+final class CheckpointJournal implements Closeable {
+
+    private static final byte[] MAGIC = "ACEJRNL1".getBytes(StandardCharsets.US_ASCII);
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES * 2;
+    private static final int NULL_LENGTH = -1;
+
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+
+    private CheckpointJournal(final FileChannel channel, final Map<String, Entry> entries) {
+        this.channel = channel;
+        this.entries = entries;
+    }
+
+    /**
+     * Opens the journal at {@code path}. When {@code resume} is set, the
+     * entries already in the file are read and new entries are appended
+     * after them; otherwise the file is started afresh.
+     */
+    static CheckpointJournal open(final Path path, final boolean resume) throws IOException {
+        final Map<String, Entry> entries = new HashMap<>();
+        final FileChannel channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        try {
+            long validLength = 0L;
+            if (resume && channel.size() > 0L) {
+                validLength = readEntries(channel, entries);
+            }
+            if (validLength == 0L) {
+                entries.clear();
+                channel.truncate(0L);
+                writeFully(channel, ByteBuffer.wrap(MAGIC), 0L);
+                validLength = MAGIC.length;
+            }
+            channel.truncate(validLength);
+            channel.position(validLength);
+        } catch (final IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        return new CheckpointJournal(channel, entries);
+    }
+
+    /**
+     * Returns the number of groups read from an earlier run.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the rows journaled for {@code key} by an earlier run if the
+     * group's files still have the given fingerprint, or {@code null}.
+     */
+    List<Row> replay(final String key, final String fingerprint) {
+        final Entry entry = entries.get(key);
+        if (entry == null || fingerprint == null || !fingerprint.equals(entry.fingerprint())) {
+            return null;
+        }
+        return entry.rows();
+    }
+
+    /**
+     * Appends a completed group.
+     */
+    synchronized void append(final String key, final String fingerprint, final List<Row> rows) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(compressed, deflater))) {
+            writeString(output, key);
+            writeString(output, fingerprint);
+            output.writeInt(rows.size());
+            for (final Row row : rows) {
+                output.writeInt(row.bufferPosition());
+                output.writeInt(row.fields().length);
+                for (final String field : row.fields()) {
+                    writeString(output, field);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        final byte[] payload = compressed.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        final ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        writeFully(channel, frame, channel.position());
+        channel.position(channel.position() + frame.capacity());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads all intact entries and returns the length of the intact prefix,
+     * or {@code 0} when the file is not a journal.
+     */
+    private static long readEntries(final FileChannel channel, final Map<String, Entry> entries) throws IOException {
+        final ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+        if (readFully(channel, magic, 0L) < MAGIC.length || !Arrays.equals(magic.array(), MAGIC)) {
+            return 0L;
+        }
+        long position = MAGIC.length;
+        final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        while (true) {
+            header.clear();
+            if (readFully(channel, header, position) < FRAME_HEADER_BYTES) {
+                return position;
+            }
+            header.flip();
+            final int length = header.getInt();
+            final int expectedCrc = header.getInt();
+            if (length < 0 || length > channel.size() - position - FRAME_HEADER_BYTES) {
+                return position;
+            }
+            final ByteBuffer payload = ByteBuffer.allocate(length);
+            if (readFully(channel, payload, position + FRAME_HEADER_BYTES) < length) {
+                return position;
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != expectedCrc) {
+                return position;
+            }
+            try {
+                readEntry(payload.array(), entries);
+            } catch (final IOException ex) {
+                return position;
+            }
+            position += FRAME_HEADER_BYTES + length;
+        }
+    }
+
+    private static void readEntry(final byte[] payload, final Map<String, Entry> entries) throws IOException {
+        final Inflater inflater = new Inflater();
+        try (DataInputStream input = new DataInputStream(
+            new InflaterInputStream(new ByteArrayInputStream(payload), inflater))) {
+            final String key = readString(input);
+            final String fingerprint = readString(input);
+            final int rowCount = input.readInt();
+            final List<Row> rows = new ArrayList<>(Math.max(0, rowCount));
+            for (int i = 0; i < rowCount; i++) {
+                final int bufferPosition = input.readInt();
+                final String[] fields = new String[input.readInt()];
+                for (int j = 0; j < fields.length; j++) {
+                    fields[j] = readString(input);
+                }
+                rows.add(new Row(fields, bufferPosition));
+            }
+            entries.put(key, new Entry(fingerprint, List.copyOf(rows)));
+        } catch (final EOFException | NegativeArraySizeException ex) {
+            throw new IOException("Truncated journal entry", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+        throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+        throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * One record: its field values in CSV column order and its buffer
+     * position.
+     */
+    record Row(String[] fields, int bufferPosition) {
+    }
+
+    private record Entry(String fingerprint, List<Row> rows) {
+    }
+}
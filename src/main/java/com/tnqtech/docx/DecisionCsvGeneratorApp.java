@@ -2,16 +2,24 @@ package com.tnqtech.docx;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -21,13 +29,18 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import jdk.jfr.Recording;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -38,7 +51,7 @@ import org.xml.sax.SAXException;
  * Generates a CSV report from a DOM decision XML file after converting the
  * source DOCX file to plain text.
  */
-public final class DecisionCsvGeneratorAppOri {
+public final class DecisionCsvGeneratorApp {
 
     /** Canonicalize strings for comparison: normalize Unicode spaces to ASCII space,
      *  trim, and collapse multiple spaces. */
@@ -80,55 +93,112 @@ public final class DecisionCsvGeneratorAppOri {
             + "      Generate output.csv and expected.csv inside <input-directory>.\n"
             + "  java -cp <jar> com.tnqtech.docx.DecisionCsvGeneratorApp <expected.csv> <input-directory>\n"
             + "      Compare the expected CSV with new results and create a report.\n"
+            + "      <input-directory> may also be a .zip archive of file groups; outputs are written next to it.\n"
             + "  java -cp <jar> com.tnqtech.docx.DecisionCsvGeneratorApp <expected.csv> <actual.csv> compare\n"
-            + "      Compare two CSV files directly and create a report.";
+            + "      Compare two CSV files directly and create a report.\n"
+            + "  Options: [--threads <n>] [--queue-capacity <n>] [--jfr <recording.jfr>]"
+            + " [--schedule-history <timings.tsv>] [--discovery-threads <n>]\n"
+            + "           [--watch] [--watch-debounce-ms <n>] [--checkpoint] [--resume]\n"
+            + "           [--group-timeout-ms <n>] [--group-retries <n>] [--quarantine <quarantine.tsv>]"
+            + " [--retry-quarantined]\n"
+            + "           [--max-extraction-threads <n>] [--heap-budget-percent <n>]\n"
+            + "           [--shards <n> [--shard-heap <size>]] [--shard <index>/<count>] [--merge-shards <n>]\n"
+            + "  java -cp <jar> com.tnqtech.docx.DecisionCsvGeneratorApp --serve [--port <n>] [--workers <n>]"
+            + " [--queue <n>] [--cache-mb <n>]\n"
+            + "      Run a localhost HTTP service that accepts generate/compare jobs with warm caches.\n"
+            + "  java -cp <jar> com.tnqtech.docx.DecisionCsvGeneratorApp --perf-gate save|compare --baseline <file>"
+            + " [--jmh <jmh-result.json>] [--scaling <scaling.csv>] [--time-tolerance <pct>]"
+            + " [--memory-tolerance <pct>] [--report-dir <dir>]\n"
+            + "      Store benchmark and scaling results as a baseline or gate a fresh run against it.";
     private static final String INCOMPLETE_GROUP_MESSAGE = "Skipping incomplete file set for prefix '%s'%n";
     private static final String CREATED_CSV_MESSAGE = "Created CSV file: %s%n";
     private static final String CREATED_REPORT_MESSAGE = "Created HTML report: %s%n";
     private static final String CREATED_EXPECTED_MESSAGE = "Created expected CSV file: %s%n";
-    private static final String INPUT_DIRECTORY_ERROR = "Input path must be a directory: %s";
+    private static final String CREATED_METRICS_MESSAGE = "Created metrics files: %s, %s%n";
+    private static final String INPUT_DIRECTORY_ERROR = "Input path must be a directory or a zip archive: %s";
     private static final String EXPECTED_FILE_ERROR = "Expected CSV must be a regular file: %s";
     private static final String ACTUAL_FILE_ERROR = "Actual CSV must be a regular file: %s";
     private static final String OUTPUT_FILE_NAME = "output.csv";
+    private static final String JOURNAL_FILE_NAME = "output.csv.journal";
+    private static final String QUARANTINED_GROUP_MESSAGE =
+        "Skipping quarantined group '%s' (pass --retry-quarantined to process it)%n";
+    private static final String GROUP_QUARANTINED_MESSAGE = "Quarantined group '%s': %s%n";
+    private static final String CREATED_PARTIAL_MESSAGE = "Created shard partial: %s (%d records)%n";
+    private static final String STARTED_SHARD_MESSAGE = "Started shard %d of %d, logging to %s%n";
+    private static final String MERGED_SHARDS_MESSAGE = "Merged %d shard partial(s) from %s%n";
+    private static final String SHARD_FAILED_ERROR = "Shard %d of %d failed with exit code %d; see %s";
+    private static final String MISSING_PARTIAL_ERROR = "Shard partial not found: %s (run the shard with --shard %d/%d)";
+    private static final String WATCH_SHARD_ERROR = "--watch cannot be combined with --shards, --shard or --merge-shards";
+    private static final String RESUMED_GROUPS_MESSAGE = "Resuming from %s: %d completed group(s) journaled%n";
     private static final String MID_PROCESS_STAGE = "midprocess";
     private static final String MAIN_PROCESS_STAGE = "mainprocess";
     private static final String REPORT_FILE_NAME = "ACE_regression_report.html";
+    private static final String WATCHING_MESSAGE = "Watching %s for changes (Ctrl+C to stop)%n";
+    private static final String CHANGED_GROUPS_MESSAGE = "Reprocessing %d changed group(s)%n";
+    private static final String WATCH_COMPARE_ERROR = "--watch needs an input directory; it cannot watch a CSV comparison";
+    private static final String WATCH_ARCHIVE_ERROR = "--watch needs an input directory, not an archive: %s";
+    private static final long WATCH_CACHE_CHARS = 256L * 1024L * 1024L / Character.BYTES;
 
     private static final char COLUMN_SEPARATOR = '$';
 
-    private static final Comparator<String> STRING_COMPARATOR =
-        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
-
-    private static final Comparator<DecisionRecord> RECORD_COMPARATOR = Comparator
-        .comparing(DecisionRecord::fileName, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::rule, STRING_COMPARATOR)
-        .thenComparingInt(DecisionRecord::bufferPosition)
-        .thenComparing(DecisionRecord::input, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::find, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::stage, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::output, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::highlight, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::paraStyle, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::charStyle, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::replace, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::status, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::suggestion, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::instanceText, STRING_COMPARATOR)
-        .thenComparing(DecisionRecord::bookMarkName, STRING_COMPARATOR)
-        ;
+    /**
+     * Orders records by file name, rule, buffer position, input, find, stage,
+     * output, highlight, para style, char style, replace, status, suggestion,
+     * instance text and bookmark name, each compared case-insensitively with
+     * nulls first. The comparison runs on the {@link RecordSortKey} built when
+     * the record is created.
+     */
+    private static final Comparator<DecisionRecord> RECORD_COMPARATOR = Comparator.comparing(DecisionRecord::sortKey);
 
     private final Path expectedCsvPath;
     private final Path inputDirectory;
     private final boolean generateExpectedOnly;
     private final Path actualCsvPath;
     private final boolean compareOnly;
+    private final WarmCaches caches;
+    private final RunOptions options;
+    private final Path outputDirectory;
+    private FileIndex fileIndex;
 
-    private DecisionCsvGeneratorAppOri(
+    private DecisionCsvGeneratorApp(
         final Path inputDirectory,
         final Path expectedCsvPath,
         final boolean generateExpectedOnly,
         final Path actualCsvPath,
         final boolean compareOnly
+    ) {
+        this(
+            inputDirectory,
+            expectedCsvPath,
+            generateExpectedOnly,
+            actualCsvPath,
+            compareOnly,
+            new WarmCaches(0L),
+            RunOptions.defaults()
+        );
+    }
+
+    private DecisionCsvGeneratorApp(
+        final Path inputDirectory,
+        final Path expectedCsvPath,
+        final boolean generateExpectedOnly,
+        final Path actualCsvPath,
+        final boolean compareOnly,
+        final WarmCaches caches,
+        final RunOptions options
+    ) {
+        this(inputDirectory, expectedCsvPath, generateExpectedOnly, actualCsvPath, compareOnly, caches, options, null);
+    }
+
+    private DecisionCsvGeneratorApp(
+        final Path inputDirectory,
+        final Path expectedCsvPath,
+        final boolean generateExpectedOnly,
+        final Path actualCsvPath,
+        final boolean compareOnly,
+        final WarmCaches caches,
+        final RunOptions options,
+        final Path outputDirectory
     ) {
         if (!compareOnly && inputDirectory == null) {
             throw new IllegalArgumentException("inputDirectory must not be null when not running a comparison");
@@ -138,9 +208,29 @@ public final class DecisionCsvGeneratorAppOri {
         this.generateExpectedOnly = generateExpectedOnly;
         this.actualCsvPath = actualCsvPath;
         this.compareOnly = compareOnly;
+        this.caches = Objects.requireNonNull(caches, "caches");
+        this.options = Objects.requireNonNull(options, "options");
+        this.outputDirectory = outputDirectory == null ? this.inputDirectory : outputDirectory;
+    }
+
+    /**
+     * Returns a copy of this job that reads its groups from the root of an
+     * opened zip archive and writes its outputs next to the archive.
+     */
+    private DecisionCsvGeneratorApp readingFrom(final FileSystem archive) {
+        return new DecisionCsvGeneratorApp(
+            archive.getPath("/"),
+            expectedCsvPath,
+            generateExpectedOnly,
+            actualCsvPath,
+            compareOnly,
+            caches,
+            options,
+            ArchiveInput.outputDirectory(inputDirectory)
+        );
     }
 
-    private DecisionCsvGeneratorAppOri(
+    private DecisionCsvGeneratorApp(
         final Path inputDirectory,
         final Path expectedCsvPath,
         final boolean generateExpectedOnly
@@ -171,118 +261,697 @@ public final class DecisionCsvGeneratorAppOri {
     }
 
     public static void main(final String[] args) throws Exception {
-    	
-        if (args.length == 1) {
-            final Path inputDirectory = Path.of(args[0]);
-            final Path expectedCsvPath = inputDirectory.resolve("expected.csv");
-            final DecisionCsvGeneratorAppOri app =
-                new DecisionCsvGeneratorAppOri(inputDirectory, expectedCsvPath, true, null, false);
-            app.run();
+        if (args.length >= 1 && RegressionService.SERVE_OPTION.equals(args[0])) {
+            final RegressionService service;
+            try {
+                service = RegressionService.fromArguments(args);
+            } catch (final IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.err.println(USAGE_MESSAGE);
+                System.exit(1);
+                return;
+            }
+            service.start();
+            return;
+        }
+        if (args.length >= 1 && PerformanceGate.GATE_OPTION.equals(args[0])) {
+            final PerformanceGate gate;
+            try {
+                gate = PerformanceGate.fromArguments(args);
+            } catch (final IllegalArgumentException ex) {
+                System.err.println(ex.getMessage());
+                System.err.println(USAGE_MESSAGE);
+                System.exit(1);
+                return;
+            }
+            final int exitCode = gate.execute();
+            if (exitCode != 0) {
+                System.exit(exitCode);
+            }
+            return;
+        }
+        final List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        final RunOptions options;
+        try {
+            options = RunOptions.extract(arguments);
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
             return;
         }
-        if (args.length == 3) {
-            final String action = args[2];
+        final WarmCaches caches = new WarmCaches(options.watch() ? WATCH_CACHE_CHARS : 0L);
+        final DecisionCsvGeneratorApp app;
+        if (arguments.size() == 1) {
+            final Path inputDirectory = Path.of(arguments.get(0));
+            final Path expectedCsvPath = (ArchiveInput.isArchive(inputDirectory)
+                ? ArchiveInput.outputDirectory(inputDirectory)
+                : inputDirectory).resolve("expected.csv");
+            app = new DecisionCsvGeneratorApp(inputDirectory, expectedCsvPath, true, null, false, caches, options);
+        } else if (arguments.size() == 3) {
+            final String action = arguments.get(2);
             if (!"compare".equalsIgnoreCase(action)) {
                 System.err.println(USAGE_MESSAGE);
                 System.exit(1);
             }
-            final Path expectedCsvPath = Path.of(args[0]);
-            final Path actualCsvPath = Path.of(args[1]);
-            final DecisionCsvGeneratorAppOri app = new DecisionCsvGeneratorAppOri(
+            final Path expectedCsvPath = Path.of(arguments.get(0));
+            final Path actualCsvPath = Path.of(arguments.get(1));
+            app = new DecisionCsvGeneratorApp(
                 null,
                 expectedCsvPath,
                 false,
                 actualCsvPath,
-                true
+                true,
+                caches,
+                options
+            );
+        } else if (arguments.size() == 2) {
+            app = new DecisionCsvGeneratorApp(
+                Path.of(arguments.get(1)),
+                Path.of(arguments.get(0)),
+                false,
+                null,
+                false,
+                caches,
+                options
             );
-            app.run();
+        } else {
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+            return;
+        }
+
+        if (options.watch() && app.compareOnly) {
+            System.err.println(WATCH_COMPARE_ERROR);
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
             return;
         }
-        if (args.length != 2) {
+        if (options.watch() && options.shardCount() > 0) {
+            System.err.println(WATCH_SHARD_ERROR);
             System.err.println(USAGE_MESSAGE);
             System.exit(1);
+            return;
+        }
+
+        final Recording recording = options.recordingPath() == null
+            ? null
+            : PipelineEvents.startRecording(options.recordingPath());
+        try {
+            if (options.watch()) {
+                app.watch();
+            } else {
+                app.run();
+            }
+        } finally {
+            if (recording != null) {
+                PipelineEvents.stopRecording(recording);
+            }
         }
-        final DecisionCsvGeneratorAppOri app =
-            new DecisionCsvGeneratorAppOri(Path.of(args[1]), Path.of(args[0]), false, null, false);
-        app.run();
     }
 
-    private void run()
+    /**
+     * Runs a single generate or compare job against caches that outlive the
+     * job. Used by the service mode to keep extraction results and parsed
+     * baselines warm between jobs.
+     */
+    static RunResult execute(
+        final Path inputDirectory,
+        final Path expectedCsvPath,
+        final boolean generateExpectedOnly,
+        final Path actualCsvPath,
+        final boolean compareOnly,
+        final WarmCaches caches
+    ) throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        return execute(inputDirectory, expectedCsvPath, generateExpectedOnly, actualCsvPath, compareOnly, caches,
+            RunOptions.defaults());
+    }
+
+    /**
+     * Runs a single job like {@link #execute(Path, Path, boolean, Path, boolean, WarmCaches)}
+     * with the given run options.
+     */
+    static RunResult execute(
+        final Path inputDirectory,
+        final Path expectedCsvPath,
+        final boolean generateExpectedOnly,
+        final Path actualCsvPath,
+        final boolean compareOnly,
+        final WarmCaches caches,
+        final RunOptions options
+    ) throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        return new DecisionCsvGeneratorApp(
+            inputDirectory,
+            expectedCsvPath,
+            generateExpectedOnly,
+            actualCsvPath,
+            compareOnly,
+            caches,
+            options
+        ).run();
+    }
+
+    private RunResult run()
         throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
         final Instant overallStart = Instant.now();
         final long cpuStart = getCpuTime();
-        final long startingMemory = getUsedMemory();
+        final RunMetrics metrics = new RunMetrics();
 
         if (compareOnly) {
-            runCsvComparison(overallStart, cpuStart, startingMemory);
-            return;
+            return runCsvComparison(overallStart, cpuStart, metrics);
+        }
+        if (ArchiveInput.isArchive(inputDirectory)) {
+            try (FileSystem archive = ArchiveInput.open(inputDirectory)) {
+                return readingFrom(archive).run();
+            }
         }
 
-        if (!Files.isDirectory(inputDirectory)) {
-            throw new IOException(String.format(Locale.ROOT, INPUT_DIRECTORY_ERROR, inputDirectory));
+        validateGroupInputs();
+        if (options.shardIndex() >= 0) {
+            return writePartial(processGroups(metrics), metrics, overallStart, cpuStart);
         }
-        if (!generateExpectedOnly && !Files.isRegularFile(expectedCsvPath)) {
-            throw new IOException(String.format(Locale.ROOT, EXPECTED_FILE_ERROR, expectedCsvPath));
+        if (options.shardCount() > 0) {
+            if (options.launchShards()) {
+                launchShards();
+            }
+            return writeResults(mergeShards(metrics), metrics, overallStart, cpuStart);
         }
+        return writeResults(processGroups(metrics), metrics, overallStart, cpuStart);
+    }
 
-        final Map<String, FileGroup> fileGroups = collectFileGroups();
-        final List<DecisionRecord> allRecords = new ArrayList<>();
-        int incompleteGroups = 0;
-        int processedGroups = 0;
+    /**
+     * Writes the sorted, deduplicated records of this shard with the key of
+     * the group each came from, followed by the shard's metrics and run
+     * summary. Comparison and report are left to the merge.
+     */
+    private RunResult writePartial(
+        final GroupRunResult groupRun,
+        final RunMetrics metrics,
+        final Instant overallStart,
+        final long cpuStart
+    ) throws IOException {
+        final List<String> prefixes = new ArrayList<>(groupRun.sortedRecords().size());
+        final RunMetrics.Sample mergeSample = metrics.start(RunMetrics.Stage.SORT);
+        final List<DecisionRecord> sortedRecords = mergeSortedRuns(groupRun.runs(), prefixes);
+        mergeSample.stop();
+        final RunMetrics.Sample dedupeSample = metrics.start(RunMetrics.Stage.DEDUPE);
+        final List<DecisionRecord> uniqueRecords = deduplicateRecords(sortedRecords);
+        dedupeSample.stop();
+
+        final List<ShardPartial.Row> rows = new ArrayList<>(uniqueRecords.size());
+        int position = 0;
+        for (final DecisionRecord record : uniqueRecords) {
+            while (sortedRecords.get(position) != record) {
+                position++;
+            }
+            rows.add(new ShardPartial.Row(prefixes.get(position), toFields(record), record.bufferPosition()));
+        }
+        final List<GroupQuarantine.Entry> quarantined = new ArrayList<>();
+        for (final GroupQuarantine.Entry entry : groupRun.quarantined()) {
+            if (belongsToShard(entry.prefix())) {
+                quarantined.add(entry);
+            }
+        }
+        final Path shardDirectory = resultDirectory();
+        final Path partialPath = shardDirectory.resolve(ShardPartial.FILE_NAME);
+        final RunMetrics.Sample writeSample = metrics.start(RunMetrics.Stage.CSV_WRITE);
+        ShardPartial.write(
+            partialPath,
+            options.shardIndex(),
+            options.shardCount(),
+            new ShardPartial.Header(
+                groupRun.discoveredGroups(),
+                groupRun.processedGroups(),
+                groupRun.incompleteGroups(),
+                quarantined
+            ),
+            rows
+        );
+        writeSample.stop();
+        System.out.printf(Locale.ROOT, CREATED_PARTIAL_MESSAGE, partialPath, rows.size());
+        metrics.recordTotals(groupRun.processedGroups(), rows.size(), 0L);
+        writeMetrics(metrics, partialPath);
+        if (options.checkpoint()) {
+            Files.deleteIfExists(shardDirectory.resolve(JOURNAL_FILE_NAME));
+        }
+        printRunSummary(
+            groupRun.discoveredGroups(),
+            groupRun.processedGroups(),
+            groupRun.incompleteGroups(),
+            quarantined,
+            groupRun.stageStatistics(),
+            rows.size(),
+            List.of(),
+            overallStart,
+            Instant.now(),
+            cpuStart,
+            getCpuTime(),
+            metrics
+        );
+        return new RunResult(groupRun.discoveredGroups(), groupRun.processedGroups(), rows.size(), 0, partialPath, null);
+    }
 
-        for (final Map.Entry<String, FileGroup> entry : fileGroups.entrySet()) {
-            final String prefix = entry.getKey();
-            final FileGroup group = entry.getValue();
-            if (!group.isComplete()) {
-                System.err.printf(Locale.ROOT, INCOMPLETE_GROUP_MESSAGE, prefix);
-                incompleteGroups++;
-                continue;
+    /**
+     * Starts one worker process per shard with this run's arguments and
+     * waits for all of them. Each worker logs to its shard directory.
+     */
+    private void launchShards() throws IOException {
+        final int shardCount = options.shardCount();
+        final List<Process> processes = new ArrayList<>(shardCount);
+        final List<Path> logPaths = new ArrayList<>(shardCount);
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                final Path shardDirectory = ShardPartial.directory(outputDirectory, shard, shardCount);
+                Files.createDirectories(shardDirectory);
+                final List<String> command = new ArrayList<>();
+                command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+                if (options.shardHeap() != null) {
+                    command.add("-Xmx" + options.shardHeap());
+                }
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(DecisionCsvGeneratorApp.class.getName());
+                command.addAll(options.workerArguments());
+                command.add("--shard");
+                command.add(shard + "/" + shardCount);
+
+                final Path logPath = shardDirectory.resolve(ShardPartial.LOG_FILE_NAME);
+                final ProcessBuilder builder = new ProcessBuilder(command);
+                builder.redirectErrorStream(true);
+                builder.redirectOutput(logPath.toFile());
+                processes.add(builder.start());
+                logPaths.add(logPath);
+                System.out.printf(Locale.ROOT, STARTED_SHARD_MESSAGE, shard, shardCount, logPath);
+            }
+            for (int shard = 0; shard < shardCount; shard++) {
+                final int exitCode = processes.get(shard).waitFor();
+                if (exitCode != 0) {
+                    throw new IOException(String.format(
+                        Locale.ROOT,
+                        SHARD_FAILED_ERROR,
+                        shard,
+                        shardCount,
+                        exitCode,
+                        logPaths.get(shard)
+                    ));
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for shard workers", ex);
+        } finally {
+            for (final Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Merges the partials of all shards in record order, breaking ties by
+     * group key, which yields the order of an unsharded run. The quarantines
+     * reported by the shards replace the quarantine file.
+     */
+    private GroupRunResult mergeShards(final RunMetrics metrics) throws IOException {
+        final int shardCount = options.shardCount();
+        final List<ShardPartial.Reader> readers = new ArrayList<>(shardCount);
+        try {
+            int discoveredGroups = 0;
+            int processedGroups = 0;
+            int incompleteGroups = 0;
+            final List<GroupQuarantine.Entry> quarantined = new ArrayList<>();
+            for (int shard = 0; shard < shardCount; shard++) {
+                final Path partialPath = ShardPartial.directory(outputDirectory, shard, shardCount)
+                    .resolve(ShardPartial.FILE_NAME);
+                if (!Files.isRegularFile(partialPath)) {
+                    throw new IOException(String.format(Locale.ROOT, MISSING_PARTIAL_ERROR, partialPath, shard, shardCount));
+                }
+                final ShardPartial.Reader reader = ShardPartial.Reader.open(partialPath, shard, shardCount);
+                readers.add(reader);
+                discoveredGroups += reader.header().discoveredGroups();
+                processedGroups += reader.header().processedGroups();
+                incompleteGroups += reader.header().incompleteGroups();
+                quarantined.addAll(reader.header().quarantined());
+            }
+
+            final RunMetrics.Sample mergeSample = metrics.start(RunMetrics.Stage.SORT);
+            final List<DecisionRecord> sortedRecords = new ArrayList<>();
+            final PriorityQueue<ShardCursor> heads = new PriorityQueue<>(
+                Comparator.<ShardCursor, DecisionRecord>comparing(ShardCursor::record, RECORD_COMPARATOR)
+                    .thenComparing(ShardCursor::prefix)
+            );
+            for (final ShardPartial.Reader reader : readers) {
+                final ShardCursor cursor = ShardCursor.next(reader);
+                if (cursor != null) {
+                    heads.add(cursor);
+                }
+            }
+            while (!heads.isEmpty()) {
+                final ShardCursor cursor = heads.poll();
+                sortedRecords.add(cursor.record());
+                final ShardCursor next = ShardCursor.next(cursor.reader());
+                if (next != null) {
+                    heads.add(next);
+                }
+            }
+            mergeSample.stop();
+            System.out.printf(
+                Locale.ROOT,
+                MERGED_SHARDS_MESSAGE,
+                shardCount,
+                ShardPartial.directory(outputDirectory, 0, shardCount).getParent()
+            );
+
+            final GroupQuarantine quarantine = loadQuarantine();
+            quarantine.replaceWith(quarantined);
+            quarantine.save();
+            return new GroupRunResult(
+                discoveredGroups,
+                processedGroups,
+                incompleteGroups,
+                sortedRecords,
+                List.of(),
+                List.of(),
+                Map.of(),
+                quarantine.entries()
+            );
+        } finally {
+            for (final ShardPartial.Reader reader : readers) {
+                reader.close();
             }
-            allRecords.addAll(processFileGroup(prefix, group));
-            processedGroups++;
         }
+    }
+
+    /**
+     * Returns whether the group with the given key is processed by this
+     * process: always, unless it runs a single shard.
+     */
+    private boolean belongsToShard(final String prefix) {
+        return options.shardIndex() < 0 || shardOf(prefix, options.shardCount()) == options.shardIndex();
+    }
+
+    /**
+     * Returns the shard of the group with the given key. Groups are assigned
+     * by the file name their records are deduplicated on, sanitized and
+     * case-folded, so that groups whose records could be merged as
+     * duplicates always share a shard.
+     */
+    private static int shardOf(final String prefix, final int shardCount) {
+        return ShardPartial.shardOf(normalizeKeyPart(sanitizeFileReference(prefix)), shardCount);
+    }
+
+    /**
+     * Passes on only the groups of this process's shard.
+     */
+    private StagedPipeline.Emitter<GroupTask> inShard(final StagedPipeline.Emitter<GroupTask> emitter) {
+        if (options.shardIndex() < 0) {
+            return emitter;
+        }
+        return task -> {
+            if (belongsToShard(task.prefix())) {
+                emitter.emit(task);
+            }
+        };
+    }
 
-        allRecords.sort(RECORD_COMPARATOR);
-        final List<DecisionRecord> uniqueRecords = deduplicateRecords(allRecords);
+    /**
+     * Returns the directory for the journal and, in a shard worker, the
+     * partial and metrics: the shard's directory or the output directory.
+     */
+    private Path resultDirectory() {
+        return options.shardIndex() < 0
+            ? outputDirectory
+            : ShardPartial.directory(outputDirectory, options.shardIndex(), options.shardCount());
+    }
 
-        final Path csvPath = inputDirectory.resolve(OUTPUT_FILE_NAME);
+    private void validateGroupInputs() throws IOException {
+        if (!Files.isDirectory(inputDirectory)) {
+            throw new IOException(String.format(Locale.ROOT, INPUT_DIRECTORY_ERROR, inputDirectory));
+        }
+        if (!generateExpectedOnly && !Files.isRegularFile(expectedCsvPath)) {
+            throw new IOException(String.format(Locale.ROOT, EXPECTED_FILE_ERROR, expectedCsvPath));
+        }
+    }
+
+    /**
+     * Deduplicates the merged records of a group run, writes {@code output.csv}
+     * and either the expected CSV or the comparison report, then the metrics
+     * files and the run summary.
+     */
+    private RunResult writeResults(
+        final GroupRunResult groupRun,
+        final RunMetrics metrics,
+        final Instant overallStart,
+        final long cpuStart
+    ) throws IOException {
+        final RunMetrics.Sample dedupeSample = metrics.start(RunMetrics.Stage.DEDUPE);
+        final List<DecisionRecord> uniqueRecords = deduplicateRecords(groupRun.sortedRecords());
+        dedupeSample.stop();
+
+        final Path csvPath = outputDirectory.resolve(OUTPUT_FILE_NAME);
+        final RunMetrics.Sample csvSample = metrics.start(RunMetrics.Stage.CSV_WRITE);
         writeCsv(csvPath, uniqueRecords);
+        csvSample.stop();
         System.out.printf(Locale.ROOT, CREATED_CSV_MESSAGE, csvPath);
 
         List<Difference> differences = List.of();
+        Path reportPath = null;
         if (generateExpectedOnly) {
+            final RunMetrics.Sample expectedSample = metrics.start(RunMetrics.Stage.CSV_WRITE);
             writeCsv(expectedCsvPath, uniqueRecords);
+            expectedSample.stop();
             System.out.printf(Locale.ROOT, CREATED_EXPECTED_MESSAGE, expectedCsvPath);
         } else {
-            final List<DecisionRecord> expectedRecords = readCsv(expectedCsvPath);
-            expectedRecords.sort(RECORD_COMPARATOR);
-            final List<DecisionRecord> uniqueExpectedRecords = deduplicateRecords(expectedRecords);
+            final List<DecisionRecord> uniqueExpectedRecords = loadBaseline(expectedCsvPath, metrics);
+            final RunMetrics.Sample compareSample = metrics.start(RunMetrics.Stage.COMPARE);
             differences = compareRecords(uniqueExpectedRecords, uniqueRecords);
-            final Path reportPath = inputDirectory.resolve(REPORT_FILE_NAME);
-            writeHtmlReport(reportPath, differences, expectedCsvPath, csvPath);
+            compareSample.stop();
+            reportPath = outputDirectory.resolve(REPORT_FILE_NAME);
+            final RunMetrics.Sample htmlSample = metrics.start(RunMetrics.Stage.HTML_RENDER);
+            writeHtmlReport(reportPath, differences, expectedCsvPath, csvPath, groupRun.quarantined());
+            htmlSample.stop();
             System.out.printf(Locale.ROOT, CREATED_REPORT_MESSAGE, reportPath);
         }
+        metrics.recordTotals(groupRun.processedGroups(), uniqueRecords.size(), differences.size());
+        writeMetrics(metrics, csvPath);
+        if (options.checkpoint()) {
+            Files.deleteIfExists(outputDirectory.resolve(JOURNAL_FILE_NAME));
+        }
 
         final Instant overallEnd = Instant.now();
         final long cpuEnd = getCpuTime();
         printRunSummary(
-            fileGroups.size(),
-            processedGroups,
-            incompleteGroups,
+            groupRun.discoveredGroups(),
+            groupRun.processedGroups(),
+            groupRun.incompleteGroups(),
+            groupRun.quarantined(),
+            groupRun.stageStatistics(),
             uniqueRecords.size(),
             differences,
             overallStart,
             overallEnd,
             cpuStart,
             cpuEnd,
-            startingMemory
+            metrics
+        );
+        return new RunResult(
+            groupRun.discoveredGroups(),
+            groupRun.processedGroups(),
+            uniqueRecords.size(),
+            differences.size(),
+            csvPath,
+            reportPath
+        );
+    }
+
+    /**
+     * Runs once, then keeps watching the input directory and, after every
+     * burst of changes, re-derives only the groups whose files changed. The
+     * records of all other groups are kept from earlier rounds, so each round
+     * only merges the per-group runs again before rewriting {@code output.csv}
+     * and the report. A change to the expected CSV inside the input directory
+     * re-runs the comparison. When the platform drops change events, the
+     * whole directory is processed again. Runs until the process is stopped.
+     */
+    private void watch()
+        throws IOException, ParserConfigurationException, SAXException, DocxExtractorException, InterruptedException {
+        if (ArchiveInput.isArchive(inputDirectory)) {
+            throw new IOException(String.format(Locale.ROOT, WATCH_ARCHIVE_ERROR, inputDirectory));
+        }
+        validateGroupInputs();
+        try (ChangeWatcher watcher = new ChangeWatcher(inputDirectory, options.watchDebounceMillis())) {
+            Instant roundStart = Instant.now();
+            long cpuStart = getCpuTime();
+            RunMetrics metrics = new RunMetrics();
+            GroupRunResult groupRun = processGroups(metrics);
+            final WatchState state = new WatchState(groupRun);
+            writeResults(groupRun, metrics, roundStart, cpuStart);
+            final Path baselinePath = expectedCsvPath.toAbsolutePath().normalize();
+            while (true) {
+                System.out.printf(Locale.ROOT, WATCHING_MESSAGE, inputDirectory);
+                final ChangeWatcher.Changes changes = watcher.awaitChanges();
+                roundStart = Instant.now();
+                cpuStart = getCpuTime();
+                metrics = new RunMetrics();
+                if (changes.overflow()) {
+                    fileIndex = null;
+                    groupRun = processGroups(metrics);
+                    state.reset(groupRun);
+                } else {
+                    final Map<String, GroupLocation> affected = affectedGroups(changes.paths(), state);
+                    final boolean baselineChanged = !generateExpectedOnly
+                        && changes.paths().stream().anyMatch(path -> path.toAbsolutePath().normalize().equals(baselinePath));
+                    if (affected.isEmpty() && !baselineChanged) {
+                        continue;
+                    }
+                    updateFileIndex(changes.paths());
+                    System.out.printf(Locale.ROOT, CHANGED_GROUPS_MESSAGE, affected.size());
+                    groupRun = reprocessGroups(affected, state, metrics);
+                }
+                writeResults(groupRun, metrics, roundStart, cpuStart);
+            }
+        }
+    }
+
+    /**
+     * Maps changed paths to the groups they belong to. A changed path that is
+     * not a group member may be a directory that was created, deleted or
+     * renamed, so every known group below it is affected as well.
+     */
+    private Map<String, GroupLocation> affectedGroups(final Set<Path> changedPaths, final WatchState state) {
+        final Map<String, GroupLocation> affected = new TreeMap<>();
+        Set<Path> groupDirectories = null;
+        for (final Path path : changedPaths) {
+            final Path fileName = path.getFileName();
+            final GroupMember member = fileName == null ? null : GroupMember.match(fileName.toString());
+            if (member != null) {
+                final GroupLocation location = GroupLocation.of(path, member);
+                affected.put(groupKey(location), location);
+                continue;
+            }
+            if (groupDirectories == null) {
+                groupDirectories = groupDirectoriesAndAncestors(state);
+            }
+            final Path directory = path.toAbsolutePath().normalize();
+            if (!groupDirectories.contains(directory)) {
+                continue;
+            }
+            for (final Map.Entry<String, GroupLocation> entry : state.locations().entrySet()) {
+                if (entry.getValue().directory().toAbsolutePath().normalize().startsWith(directory)) {
+                    affected.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return affected;
+    }
+
+    private Set<Path> groupDirectoriesAndAncestors(final WatchState state) {
+        final Path root = inputDirectory.toAbsolutePath().normalize();
+        final Set<Path> directories = new HashSet<>();
+        for (final GroupLocation location : state.locations().values()) {
+            Path directory = location.directory().toAbsolutePath().normalize();
+            while (directory != null && !directory.equals(root) && directories.add(directory)) {
+                directory = directory.getParent();
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * Returns the key discovery gives the group at {@code location}.
+     */
+    private String groupKey(final GroupLocation location) {
+        final Path relativeParent = inputDirectory.relativize(location.directory());
+        return relativeParent.resolve(location.name()).toString().replace('\\', '/');
+    }
+
+    private void updateFileIndex(final Set<Path> changedPaths) {
+        if (fileIndex == null) {
+            return;
+        }
+        for (final Path path : changedPaths) {
+            if (Files.exists(path)) {
+                fileIndex.add(path);
+            } else {
+                fileIndex.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Looks the affected groups up on disk again, runs the complete ones
+     * through the pipeline and merges their records with the kept records of
+     * every other group.
+     */
+    private GroupRunResult reprocessGroups(
+        final Map<String, GroupLocation> affected,
+        final WatchState state,
+        final RunMetrics metrics
+    ) throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        final List<GroupTask> tasks = new ArrayList<>();
+        for (final Map.Entry<String, GroupLocation> entry : affected.entrySet()) {
+            final String prefix = entry.getKey();
+            state.forget(prefix);
+            final FileGroup group = entry.getValue().locate();
+            if (group == null) {
+                continue;
+            }
+            state.locations().put(prefix, entry.getValue());
+            if (group.isComplete()) {
+                tasks.add(new GroupTask(prefix, group));
+            } else {
+                System.err.printf(Locale.ROOT, INCOMPLETE_GROUP_MESSAGE, prefix);
+                state.incomplete().add(prefix);
+            }
+        }
+        final GroupCostModel costModel = GroupCostModel.load(options.scheduleHistoryPath());
+        final GroupQuarantine quarantine = loadQuarantine();
+        final List<GroupRecords> runs = new ArrayList<>();
+        final List<StagedPipeline.StageStatistics> stageStatistics;
+        try (GroupTimeBudget budget = new GroupTimeBudget(
+            options.groupTimeoutMillis(),
+            options.groupRetries(),
+            options.maxExtractionThreads()
+        )) {
+            stageStatistics = runGroupPipeline(
+                emitter -> {
+                    final StagedPipeline.Emitter<GroupTask> admitted = skippingQuarantined(quarantine, emitter);
+                    for (final GroupTask task : tasks) {
+                        admitted.emit(task);
+                    }
+                },
+                costModel,
+                budget,
+                quarantine,
+                runs,
+                groupRecords -> { },
+                metrics
+            );
+        } finally {
+            quarantine.save();
+        }
+        costModel.save();
+        for (final GroupRecords run : runs) {
+            state.runs().put(run.prefix(), run);
+        }
+        final RunMetrics.Sample mergeSample = metrics.start(RunMetrics.Stage.SORT);
+        final List<DecisionRecord> sortedRecords = mergeSortedRuns(new ArrayList<>(state.runs().values()));
+        mergeSample.stop();
+        return new GroupRunResult(
+            state.locations().size(),
+            runs.size(),
+            state.incomplete().size(),
+            sortedRecords,
+            stageStatistics,
+            runs,
+            Map.of(),
+            quarantine.entries()
         );
     }
 
-    private void runCsvComparison(
+    private RunResult runCsvComparison(
         final Instant overallStart,
         final long cpuStart,
-        final long startingMemory
+        final RunMetrics metrics
     ) throws IOException {
         if (!Files.isRegularFile(expectedCsvPath)) {
             throw new IOException(String.format(Locale.ROOT, EXPECTED_FILE_ERROR, expectedCsvPath));
@@ -291,23 +960,31 @@ public final class DecisionCsvGeneratorAppOri {
             throw new IOException(String.format(Locale.ROOT, ACTUAL_FILE_ERROR, actualCsvPath));
         }
 
-        final List<DecisionRecord> expectedRecords = readCsv(expectedCsvPath);
-        expectedRecords.sort(RECORD_COMPARATOR);
-        final List<DecisionRecord> uniqueExpectedRecords = deduplicateRecords(expectedRecords);
+        final List<DecisionRecord> uniqueExpectedRecords = loadBaseline(expectedCsvPath, metrics);
 
         final List<DecisionRecord> actualRecords = readCsv(actualCsvPath);
-        actualRecords.sort(RECORD_COMPARATOR);
+        final RunMetrics.Sample sortSample = metrics.start(RunMetrics.Stage.SORT);
+        sortRecords(actualRecords);
+        sortSample.stop();
+        final RunMetrics.Sample dedupeSample = metrics.start(RunMetrics.Stage.DEDUPE);
         final List<DecisionRecord> uniqueActualRecords = deduplicateRecords(actualRecords);
+        dedupeSample.stop();
 
+        final RunMetrics.Sample compareSample = metrics.start(RunMetrics.Stage.COMPARE);
         final List<Difference> differences = compareRecords(uniqueExpectedRecords, uniqueActualRecords);
+        compareSample.stop();
 
         Path reportDirectory = actualCsvPath.getParent();
         if (reportDirectory == null) {
             reportDirectory = Path.of(".");
         }
         final Path reportPath = reportDirectory.resolve(REPORT_FILE_NAME);
+        final RunMetrics.Sample htmlSample = metrics.start(RunMetrics.Stage.HTML_RENDER);
         writeHtmlReport(reportPath, differences, expectedCsvPath, actualCsvPath);
+        htmlSample.stop();
         System.out.printf(Locale.ROOT, CREATED_REPORT_MESSAGE, reportPath);
+        metrics.recordTotals(0L, uniqueActualRecords.size(), differences.size());
+        writeMetrics(metrics, actualCsvPath);
 
         final Instant overallEnd = Instant.now();
         final long cpuEnd = getCpuTime();
@@ -318,8 +995,48 @@ public final class DecisionCsvGeneratorAppOri {
             overallEnd,
             cpuStart,
             cpuEnd,
-            startingMemory
+            metrics
         );
+        return new RunResult(0, 0, uniqueActualRecords.size(), differences.size(), actualCsvPath, reportPath);
+    }
+
+    /**
+     * Reads, sorts and deduplicates an expected CSV. The result is cached by
+     * path, size and modification time so repeated jobs against the same
+     * baseline skip the parse.
+     */
+    private List<DecisionRecord> loadBaseline(final Path csvPath, final RunMetrics metrics) throws IOException {
+        final BaselineKey key = new BaselineKey(
+            csvPath.toAbsolutePath().normalize(),
+            Files.size(csvPath),
+            Files.getLastModifiedTime(csvPath).toMillis()
+        );
+        final List<DecisionRecord> cached = caches.baseline(key);
+        if (cached != null) {
+            return cached;
+        }
+        final List<DecisionRecord> records = readCsv(csvPath);
+        final RunMetrics.Sample sortSample = metrics.start(RunMetrics.Stage.SORT);
+        sortRecords(records);
+        sortSample.stop();
+        final RunMetrics.Sample dedupeSample = metrics.start(RunMetrics.Stage.DEDUPE);
+        final List<DecisionRecord> uniqueRecords = List.copyOf(deduplicateRecords(records));
+        dedupeSample.stop();
+        caches.storeBaseline(key, uniqueRecords);
+        return uniqueRecords;
+    }
+
+    /**
+     * Writes the run metrics next to the given CSV file.
+     */
+    private static void writeMetrics(final RunMetrics metrics, final Path csvPath) throws IOException {
+        Path directory = csvPath.toAbsolutePath().getParent();
+        if (directory == null) {
+            directory = Path.of(".");
+        }
+        metrics.write(directory);
+        System.out.printf(Locale.ROOT, CREATED_METRICS_MESSAGE, directory.resolve(RunMetrics.JSON_FILE_NAME),
+            directory.resolve(RunMetrics.PROMETHEUS_FILE_NAME));
     }
 
     private static Document parseXml(final Path xmlPath)
@@ -341,6 +1058,14 @@ public final class DecisionCsvGeneratorAppOri {
         final String fileName
     ) {
         final List<DecisionRecord> records = new ArrayList<>();
+        final StageContext midProcessContext = new StageContext(
+            MID_PROCESS_STAGE,
+            new TokenBoundaryIndex(preAceTextContent)
+        );
+        final StageContext mainProcessContext = new StageContext(
+            MAIN_PROCESS_STAGE,
+            new TokenBoundaryIndex(midAceTextContent)
+        );
         final NodeList decisionNodes = document.getElementsByTagName("Decision");
         for (int i = 0; i < decisionNodes.getLength(); i++) {
             final Node node = decisionNodes.item(i);
@@ -356,8 +1081,8 @@ public final class DecisionCsvGeneratorAppOri {
             final String instanceText = sanitizeText(getChildText(element, "InstanceText", false));
             final String bookMarkName = sanitizeText(getChildText(element, "BookMarkName", false));
             final String replace = sanitizeText(getChildText(element, "Replace", false));
-            final String suggestion = stripAllDoubleQuotes(
-                sanitizeText(getChildText(element, "Suggestion", false))
+            final String suggestion = sanitizeTextWithoutDoubleQuotes(
+                getChildText(element, "Suggestion", false)
             );
             final String status = sanitizeText(
                 element.hasAttribute("status") ? element.getAttribute("status").trim() : ""
@@ -367,9 +1092,9 @@ public final class DecisionCsvGeneratorAppOri {
             );
             final int bufferPosition = parseInteger(getChildText(element, "BufferPosition", true));
 
-            final StageContext stageContext = determineStageContext(stageAttribute, preAceTextContent, midAceTextContent);
+            final StageContext stageContext = determineStageContext(stageAttribute, midProcessContext, mainProcessContext);
 
-            final InputExtraction inputExtraction = deriveInput(stageContext.textContent(), bufferPosition, find);
+            final InputExtraction inputExtraction = deriveInput(stageContext.boundaries(), bufferPosition, find);
             final String rawInput = inputExtraction.text();
             final String rawOutput = deriveOutput(inputExtraction, find, replace, bufferPosition);
             final String input = stripAllDoubleQuotes(rawInput);
@@ -397,104 +1122,776 @@ public final class DecisionCsvGeneratorAppOri {
         return records;
     }
 
-    private List<DecisionRecord> processFileGroup(final String prefix, final FileGroup group)
-            throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
-            final Path preAceDocxPath = group.preAceDocxPath;
-            final Path midAceDocxPath = group.midAceDocxPath;
-            final Path decisionXmlPath = group.decisionXmlPath;
+    /**
+     * Discovers, extracts and parses every file group as a staged pipeline:
+     * discovery streams complete groups into the extraction workers, largest
+     * first, extracted texts flow into decision parsing and each group's
+     * records are sorted as they arrive. The sorted per-group runs are merged
+     * at the end in group order, which yields the same order as sorting all
+     * records with {@link #RECORD_COMPARATOR} whatever order the groups were
+     * dispatched in. Per-group timings are written to the schedule history
+     * when one is configured.
+     */
+    private GroupRunResult processGroups(final RunMetrics metrics)
+        throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        final Map<String, FileGroup> fileGroups = new ConcurrentHashMap<>();
+        final List<GroupRecords> runs = new ArrayList<>();
+        final GroupCostModel costModel = GroupCostModel.load(options.scheduleHistoryPath());
+        final GroupQuarantine quarantine = loadQuarantine();
+        final List<StagedPipeline.StageStatistics> stageStatistics;
+        try (GroupTimeBudget budget = new GroupTimeBudget(
+            options.groupTimeoutMillis(),
+            options.groupRetries(),
+            options.maxExtractionThreads()
+        )) {
+            if (options.checkpoint()) {
+                try (CheckpointJournal journal = openJournal()) {
+                    stageStatistics = runCheckpointedPipeline(fileGroups, journal, costModel, budget, quarantine, runs, metrics);
+                }
+            } else {
+                stageStatistics = runGroupPipeline(
+                    emitter -> discoverFileGroups(fileGroups, inShard(skippingQuarantined(quarantine, emitter)), costModel, metrics),
+                    costModel,
+                    budget,
+                    quarantine,
+                    runs,
+                    groupRecords -> { },
+                    metrics
+                );
+            }
+        } finally {
+            if (options.shardIndex() < 0) {
+                quarantine.save();
+            }
+        }
+        costModel.save();
 
-            final Path preAceTextPath = replaceExtension(preAceDocxPath, ".txt");
-            final Path midAceTextPath = replaceExtension(midAceDocxPath, ".txt");
+        int discoveredGroups = 0;
+        int incompleteGroups = 0;
+        for (final Map.Entry<String, FileGroup> entry : fileGroups.entrySet()) {
+            if (!belongsToShard(entry.getKey())) {
+                continue;
+            }
+            discoveredGroups++;
+            if (!entry.getValue().isComplete()) {
+                System.err.printf(Locale.ROOT, INCOMPLETE_GROUP_MESSAGE, entry.getKey());
+                incompleteGroups++;
+            }
+        }
+        final RunMetrics.Sample mergeSample = metrics.start(RunMetrics.Stage.SORT);
+        final List<DecisionRecord> sortedRecords = mergeSortedRuns(runs);
+        mergeSample.stop();
+        return new GroupRunResult(
+            discoveredGroups,
+            runs.size(),
+            incompleteGroups,
+            sortedRecords,
+            stageStatistics,
+            runs,
+            fileGroups,
+            quarantine.entries()
+        );
+    }
 
-            try {
-                DocxExtractorApp.main(new String[]{preAceDocxPath.toString(), preAceTextPath.toString()});
-            } catch (final DocxExtractorException ex) {
-                System.err.printf(Locale.ROOT, "Warning: Failed to extract text from %s: %s%n", preAceDocxPath, ex.getMessage());
-                // Create empty file so processing can continue
-                Files.writeString(preAceTextPath, "", StandardCharsets.UTF_8);
-            } catch (final Exception ex) {
-                System.err.printf(Locale.ROOT, "Warning: Error processing %s: %s%n", preAceDocxPath, ex.getMessage());
-                Files.writeString(preAceTextPath, "", StandardCharsets.UTF_8);
+    private CheckpointJournal openJournal() throws IOException {
+        final Path journalPath = resultDirectory().resolve(JOURNAL_FILE_NAME);
+        Files.createDirectories(journalPath.getParent());
+        final CheckpointJournal journal = CheckpointJournal.open(journalPath, options.resume());
+        if (options.resume()) {
+            System.out.printf(Locale.ROOT, RESUMED_GROUPS_MESSAGE, journalPath, journal.size());
+        }
+        return journal;
+    }
+
+    /**
+     * Runs the pipeline with every completed group appended to
+     * {@code journal}. Groups the journal already holds, with unchanged
+     * files, are not dispatched; their records are added to {@code runs} as
+     * they were journaled, so the merge sees the same runs as an
+     * uninterrupted run.
+     */
+    private List<StagedPipeline.StageStatistics> runCheckpointedPipeline(
+        final Map<String, FileGroup> fileGroups,
+        final CheckpointJournal journal,
+        final GroupCostModel costModel,
+        final GroupTimeBudget budget,
+        final GroupQuarantine quarantine,
+        final List<GroupRecords> runs,
+        final RunMetrics metrics
+    ) throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+        final List<GroupRecords> replayed = Collections.synchronizedList(new ArrayList<>());
+        final List<StagedPipeline.StageStatistics> stageStatistics = runGroupPipeline(
+            emitter -> discoverFileGroups(fileGroups, inShard(skippingQuarantined(quarantine, task -> {
+                final String fingerprint = groupFingerprint(task.group());
+                final List<DecisionRecord> records = fromJournalRows(journal.replay(task.prefix(), fingerprint));
+                if (records != null) {
+                    replayed.add(new GroupRecords(task.prefix(), records));
+                    return;
+                }
+                if (fingerprint != null) {
+                    fingerprints.put(task.prefix(), fingerprint);
+                }
+                emitter.emit(task);
+            })), costModel, metrics),
+            costModel,
+            budget,
+            quarantine,
+            runs,
+            groupRecords -> {
+                final String fingerprint = fingerprints.get(groupRecords.prefix());
+                if (fingerprint != null) {
+                    journal.append(groupRecords.prefix(), fingerprint, toJournalRows(groupRecords.records()));
+                }
+            },
+            metrics
+        );
+        runs.addAll(replayed);
+        return stageStatistics;
+    }
+
+    /**
+     * Identifies the contents of a group's files by name, size and
+     * modification time, or returns {@code null} when they cannot be read.
+     */
+    private static String groupFingerprint(final FileGroup group) {
+        final StringBuilder builder = new StringBuilder();
+        try {
+            for (final Path path : List.of(group.preAceDocxPath, group.midAceDocxPath, group.decisionXmlPath)) {
+                builder.append(path.getFileName())
+                    .append(':')
+                    .append(Files.size(path))
+                    .append(':')
+                    .append(Files.getLastModifiedTime(path).toMillis())
+                    .append('/');
             }
+        } catch (final IOException ex) {
+            return null;
+        }
+        return builder.toString();
+    }
 
-            try {
-                DocxExtractorApp.main(new String[]{midAceDocxPath.toString(), midAceTextPath.toString()});
-            } catch (final DocxExtractorException ex) {
-                System.err.printf(Locale.ROOT, "Warning: Failed to extract text from %s: %s%n", midAceDocxPath, ex.getMessage());
-                Files.writeString(midAceTextPath, "", StandardCharsets.UTF_8);
-            } catch (final Exception ex) {
-                System.err.printf(Locale.ROOT, "Warning: Error processing %s: %s%n", midAceDocxPath, ex.getMessage());
-                Files.writeString(midAceTextPath, "", StandardCharsets.UTF_8);
-            }
-
-            final String preAceTextContent = Files.readString(preAceTextPath, StandardCharsets.UTF_8);
-            final String midAceTextContent = Files.readString(midAceTextPath, StandardCharsets.UTF_8);
-            final Document document = parseXml(decisionXmlPath);
-            return extractRecords(document, preAceTextContent, midAceTextContent, prefix);
-        }
-
-    private Map<String, FileGroup> collectFileGroups() throws IOException {
-        final Map<String, FileGroup> groups = new HashMap<>();
-        try (Stream<Path> stream = Files.walk(inputDirectory)) {
-            stream.filter(Files::isRegularFile).forEach(path -> {
-                final String fileName = path.getFileName().toString();
-                if (fileName.endsWith(PRE_ACE_SUFFIX)) {
-                    final String prefix = createGroupKey(path, PRE_ACE_SUFFIX.length());
-                    groups.computeIfAbsent(prefix, key -> new FileGroup()).preAceDocxPath = path;
-                } else if (fileName.endsWith(MID_ACE_SUFFIX)) {
-                    final String prefix = createGroupKey(path, MID_ACE_SUFFIX.length());
-                    groups.computeIfAbsent(prefix, key -> new FileGroup()).midAceDocxPath = path;
-                } else if (fileName.endsWith(DOM_SUFFIX) || fileName.endsWith(ALT_DOM_SUFFIX)) {
-                    final int suffixLength = fileName.endsWith(DOM_SUFFIX)
-                        ? DOM_SUFFIX.length()
-                        : ALT_DOM_SUFFIX.length();
-                    final String prefix = createGroupKey(path, suffixLength);
-                    groups.computeIfAbsent(prefix, key -> new FileGroup()).decisionXmlPath = path;
+    private static List<CheckpointJournal.Row> toJournalRows(final List<DecisionRecord> records) {
+        final List<CheckpointJournal.Row> rows = new ArrayList<>(records.size());
+        for (final DecisionRecord record : records) {
+            rows.add(new CheckpointJournal.Row(toFields(record), record.bufferPosition()));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the field values of a record in CSV column order.
+     */
+    private static String[] toFields(final DecisionRecord record) {
+        return new String[] {
+            record.fileName(),
+            record.rule(),
+            record.highlight(),
+            record.paraStyle(),
+            record.charStyle(),
+            record.find(),
+            record.replace(),
+            record.input(),
+            record.output(),
+            record.stage(),
+            record.status(),
+            record.suggestion(),
+            record.instanceText(),
+            record.bookMarkName()
+        };
+    }
+
+    /**
+     * Rebuilds a record from its field values in CSV column order.
+     */
+    private static DecisionRecord toRecord(final String[] fields, final int bufferPosition) {
+        return new DecisionRecord(
+            fields[0],
+            fields[1],
+            fields[2],
+            fields[3],
+            fields[4],
+            fields[5],
+            fields[6],
+            fields[7],
+            fields[8],
+            fields[9],
+            fields[10],
+            fields[11],
+            fields[12],
+            fields[13],
+            bufferPosition
+        );
+    }
+
+    /**
+     * Rebuilds journaled records, or returns {@code null} when there are no
+     * rows or they do not have the current CSV columns.
+     */
+    private static List<DecisionRecord> fromJournalRows(final List<CheckpointJournal.Row> rows) {
+        if (rows == null) {
+            return null;
+        }
+        final List<DecisionRecord> records = new ArrayList<>(rows.size());
+        for (final CheckpointJournal.Row row : rows) {
+            final String[] fields = row.fields();
+            if (fields.length != HEADERS.size()) {
+                return null;
+            }
+            records.add(toRecord(fields, row.bufferPosition()));
+        }
+        return records;
+    }
+
+    /**
+     * Runs the groups produced by {@code source} through extraction,
+     * derivation and per-group sorting, collecting each group's sorted
+     * records in {@code runs} and handing each to {@code completed}. A
+     * group whose extraction runs out of its time budget is dropped and
+     * quarantined. Groups enter extraction through an
+     * {@link AdmissionController}, which adapts the number of groups in
+     * flight to their estimated memory cost and to heap pressure; a group
+     * keeps its admission until its last extraction attempt has returned,
+     * abandoned attempts included. The run fails once every extraction
+     * thread is held by an abandoned attempt.
+     */
+    private List<StagedPipeline.StageStatistics> runGroupPipeline(
+        final StagedPipeline.Source<GroupTask> source,
+        final GroupCostModel costModel,
+        final GroupTimeBudget budget,
+        final GroupQuarantine quarantine,
+        final List<GroupRecords> runs,
+        final StagedPipeline.Sink<GroupRecords> completed,
+        final RunMetrics metrics
+    ) throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        try (AdmissionController admission = new AdmissionController(
+            options.workerThreads(),
+            options.maxExtractionThreads(),
+            options.heapBudgetPercent(),
+            metrics
+        )) {
+            return StagedPipeline
+                .from("discovery", source)
+                .then("extraction", options.maxExtractionThreads(), options.queueCapacity(), task -> {
+                    final FileGroup group = task.group();
+                    final long cost = AdmissionController.estimate(group.preAceBytes, group.midAceBytes, group.decisionBytes);
+                    final AdmissionController.Permit permit = admission.acquire(cost);
+                    return extractWithinBudget(task, budget, quarantine, costModel, metrics, permit);
+                })
+                .then("derivation", options.workerThreads(), options.queueCapacity(),
+                    extracted -> parseGroupDecisions(extracted, costModel, metrics))
+                .drainTo("sort", options.queueCapacity(), groupRecords -> {
+                    final RunMetrics.Sample sortSample = metrics.start(RunMetrics.Stage.SORT);
+                    sortRecords(groupRecords.records());
+                    sortSample.stop();
+                    completed.accept(groupRecords);
+                    runs.add(groupRecords);
+                });
+        } catch (final StagedPipeline.PipelineException ex) {
+            throw rethrowPipelineFailure(ex);
+        }
+    }
+
+    /**
+     * Extracts a group's texts within the time budget. A group that keeps
+     * running out of time is quarantined and {@code null} is returned, which
+     * drops it from the pipeline; a group that completes is released from
+     * the quarantine. The group's {@code permit} is released once no
+     * extraction attempt of the group is running anymore, which for an
+     * abandoned attempt may be after this method has returned.
+     */
+    private ExtractedGroup extractWithinBudget(
+        final GroupTask task,
+        final GroupTimeBudget budget,
+        final GroupQuarantine quarantine,
+        final GroupCostModel costModel,
+        final RunMetrics metrics,
+        final AdmissionController.Permit permit
+    ) throws Exception {
+        try {
+            final ExtractedGroup extracted = budget.call(
+                () -> extractGroupTexts(task, costModel, metrics),
+                permit::abandon,
+                permit::release
+            );
+            quarantine.release(task.prefix());
+            return extracted;
+        } catch (final GroupTimeBudget.ExceededException ex) {
+            System.err.printf(Locale.ROOT, GROUP_QUARANTINED_MESSAGE, task.prefix(), ex.getMessage());
+            quarantine.add(task.prefix(), groupFingerprint(task.group()), ex.attempts(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private GroupQuarantine loadQuarantine() throws IOException {
+        final Path quarantinePath = options.quarantinePath() != null
+            ? options.quarantinePath()
+            : outputDirectory.resolve(GroupQuarantine.FILE_NAME);
+        return GroupQuarantine.load(quarantinePath, options.retryQuarantined());
+    }
+
+    /**
+     * Passes on the groups that are not quarantined with unchanged files.
+     */
+    private static StagedPipeline.Emitter<GroupTask> skippingQuarantined(
+        final GroupQuarantine quarantine,
+        final StagedPipeline.Emitter<GroupTask> emitter
+    ) {
+        return task -> {
+            if (quarantine.skips(task.prefix(), groupFingerprint(task.group()))) {
+                System.err.printf(Locale.ROOT, QUARANTINED_GROUP_MESSAGE, task.prefix());
+                return;
+            }
+            emitter.emit(task);
+        };
+    }
+
+    /**
+     * Parses the group's decision DOM and extracts only the documents its
+     * decisions point into: the preACE text for midprocess decisions and the
+     * midACE text for all others. A group without decisions extracts
+     * nothing. Texts that are not needed are passed on as empty strings.
+     */
+    private ExtractedGroup extractGroupTexts(
+        final GroupTask task,
+        final GroupCostModel costModel,
+        final RunMetrics metrics
+    ) throws IOException, ParserConfigurationException, SAXException {
+        final long started = System.nanoTime();
+        final RunMetrics.Sample parseSample = metrics.start(RunMetrics.Stage.DOM_PARSE);
+        final Document document = parseXml(task.group().decisionXmlPath);
+        parseSample.stop();
+        final StageDemand demand = determineStageDemand(document);
+
+        final PipelineEvents.GroupExtractionEvent event = new PipelineEvents.GroupExtractionEvent();
+        event.begin();
+        final String preAceTextContent = demand.preAce()
+            ? extractStageText(task.group().preAceDocxPath, metrics)
+            : "";
+        final String midAceTextContent = demand.midAce()
+            ? extractStageText(task.group().midAceDocxPath, metrics)
+            : "";
+        event.end();
+        if (event.shouldCommit()) {
+            event.prefix = task.prefix();
+            event.characters = (long) preAceTextContent.length() + midAceTextContent.length();
+            event.skippedDocuments = (demand.preAce() ? 0 : 1) + (demand.midAce() ? 0 : 1);
+            event.commit();
+        }
+        costModel.record(task.prefix(), task.group().totalBytes(), System.nanoTime() - started);
+        return new ExtractedGroup(task, document, preAceTextContent, midAceTextContent);
+    }
+
+    /**
+     * Extracts a stage text and keeps a {@code .txt} copy next to the DOCX,
+     * except for DOCX files read from an archive, which is never written to.
+     */
+    private String extractStageText(final Path docxPath, final RunMetrics metrics) throws IOException {
+        final Path textPath = docxPath.getFileSystem() == FileSystems.getDefault()
+            ? replaceExtension(docxPath, ".txt")
+            : null;
+        return caches.extractionCache().extractText(docxPath, textPath, metrics);
+    }
+
+    /**
+     * Determines which stage texts the decisions of a DOM refer to, using the
+     * same stage resolution as {@link #extractRecords}.
+     */
+    private static StageDemand determineStageDemand(final Document document) {
+        boolean preAce = false;
+        boolean midAce = false;
+        final NodeList decisionNodes = document.getElementsByTagName("Decision");
+        for (int i = 0; i < decisionNodes.getLength() && !(preAce && midAce); i++) {
+            final Node node = decisionNodes.item(i);
+            if (node.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            final Element element = (Element) node;
+            final String stageAttribute = sanitizeText(
+                element.hasAttribute("stage") ? element.getAttribute("stage").trim() : ""
+            );
+            if (stageAttribute.equalsIgnoreCase(MID_PROCESS_STAGE)) {
+                preAce = true;
+            } else {
+                midAce = true;
+            }
+        }
+        return new StageDemand(preAce, midAce);
+    }
+
+    private GroupRecords parseGroupDecisions(
+        final ExtractedGroup extracted,
+        final GroupCostModel costModel,
+        final RunMetrics metrics
+    ) {
+        final long started = System.nanoTime();
+        final GroupTask task = extracted.task();
+        final Document document = extracted.document();
+        final PipelineEvents.GroupDecisionEvent event = new PipelineEvents.GroupDecisionEvent();
+        event.begin();
+        final RunMetrics.Sample derivationSample = metrics.start(RunMetrics.Stage.RECORD_DERIVATION);
+        final List<DecisionRecord> records = extractRecords(
+            document,
+            extracted.preAceTextContent(),
+            extracted.midAceTextContent(),
+            task.prefix()
+        );
+        derivationSample.stop();
+        event.end();
+        if (event.shouldCommit()) {
+            event.prefix = task.prefix();
+            event.decisionCount = document.getElementsByTagName("Decision").getLength();
+            event.recordCount = records.size();
+            event.commit();
+        }
+        costModel.record(task.prefix(), task.group().totalBytes(), System.nanoTime() - started);
+        return new GroupRecords(task.prefix(), new ArrayList<>(records));
+    }
+
+    /**
+     * Merges per-group runs that are already sorted by {@link #RECORD_COMPARATOR}.
+     * Runs are visited in prefix order and ties are broken by run order, so the
+     * result matches a stable sort of the concatenated runs.
+     */
+    private static List<DecisionRecord> mergeSortedRuns(final List<GroupRecords> runs) {
+        return mergeSortedRuns(runs, null);
+    }
+
+    /**
+     * Merges like {@link #mergeSortedRuns(List)} and, unless
+     * {@code prefixes} is {@code null}, adds the key of each merged record's
+     * group to it.
+     */
+    private static List<DecisionRecord> mergeSortedRuns(final List<GroupRecords> runs, final List<String> prefixes) {
+        final List<GroupRecords> orderedRuns = new ArrayList<>(runs);
+        orderedRuns.sort(Comparator.comparing(GroupRecords::prefix));
+        int total = 0;
+        for (final GroupRecords run : orderedRuns) {
+            total += run.records().size();
+        }
+        final List<DecisionRecord> merged = new ArrayList<>(total);
+        final PriorityQueue<RunCursor> heads = new PriorityQueue<>(
+            Comparator.<RunCursor, DecisionRecord>comparing(RunCursor::head, RECORD_COMPARATOR)
+                .thenComparingInt(RunCursor::runIndex)
+        );
+        for (int i = 0; i < orderedRuns.size(); i++) {
+            final List<DecisionRecord> records = orderedRuns.get(i).records();
+            if (!records.isEmpty()) {
+                heads.add(new RunCursor(records, i, 0));
+            }
+        }
+        while (!heads.isEmpty()) {
+            final RunCursor cursor = heads.poll();
+            merged.add(cursor.head());
+            if (prefixes != null) {
+                prefixes.add(orderedRuns.get(cursor.runIndex()).prefix());
+            }
+            if (cursor.position() + 1 < cursor.records().size()) {
+                heads.add(new RunCursor(cursor.records(), cursor.runIndex(), cursor.position() + 1));
+            }
+        }
+        return merged;
+    }
+
+    private static IOException rethrowPipelineFailure(final StagedPipeline.PipelineException ex)
+        throws IOException, ParserConfigurationException, SAXException, DocxExtractorException {
+        final Throwable cause = ex.getCause();
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause instanceof ParserConfigurationException) {
+            throw (ParserConfigurationException) cause;
+        }
+        if (cause instanceof SAXException) {
+            throw (SAXException) cause;
+        }
+        if (cause instanceof DocxExtractorException) {
+            throw (DocxExtractorException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException("File group processing failed", cause);
+    }
+
+    /**
+     * Scans the input directory with a fork/join pool, one task per
+     * directory, and emits each group once all three of its files have been
+     * seen, so extraction starts while discovery is still running. Complete
+     * groups wait in a {@link GroupScheduler} and are emitted largest first by
+     * the estimate of the {@link GroupCostModel}, which keeps a few large
+     * manuscripts from being dispatched last. The map receives every group,
+     * including incomplete ones. When a report will be written, every entry
+     * seen is also recorded in the {@link FileIndex} used to resolve report
+     * links.
+     */
+    private void discoverFileGroups(
+        final Map<String, FileGroup> groups,
+        final StagedPipeline.Emitter<GroupTask> emitter,
+        final GroupCostModel costModel,
+        final RunMetrics metrics
+    ) throws Exception {
+        final Discovery discovery = new Discovery(
+            groups,
+            generateExpectedOnly ? null : new FileIndex(inputDirectory),
+            new GroupScheduler<>(),
+            costModel,
+            metrics
+        );
+        final ForkJoinPool pool = new ForkJoinPool(options.discoveryThreads());
+        final Thread walker = new Thread(() -> scanInputDirectory(pool, discovery), "discovery-walker");
+        walker.setDaemon(true);
+        walker.start();
+        try {
+            GroupTask task = discovery.scheduler().take();
+            while (task != null) {
+                emitter.emit(task);
+                task = discovery.scheduler().take();
+            }
+        } finally {
+            discovery.scheduler().cancel();
+            walker.join();
+            pool.shutdown();
+        }
+        if (discovery.index() != null) {
+            discovery.index().markComplete();
+            fileIndex = discovery.index();
+        }
+    }
+
+    private void scanInputDirectory(final ForkJoinPool pool, final Discovery discovery) {
+        try {
+            if (discovery.index() != null) {
+                discovery.index().add(inputDirectory);
+            }
+            pool.invoke(new DirectoryScan(inputDirectory, "", discovery));
+            discovery.scheduler().close();
+        } catch (final UncheckedIOException ex) {
+            discovery.scheduler().fail(ex.getCause());
+        } catch (final RuntimeException ex) {
+            discovery.scheduler().fail(ex);
+        }
+    }
+
+    /**
+     * State shared by the directory scans of one discovery.
+     */
+    private record Discovery(
+        Map<String, FileGroup> groups,
+        FileIndex index,
+        GroupScheduler<GroupTask> scheduler,
+        GroupCostModel costModel,
+        RunMetrics metrics
+    ) {
+    }
+
+    /**
+     * Lists one directory, forks a scan for every subdirectory as soon as it
+     * is listed and registers the group members among its files. The three
+     * members of a group share a directory, so each group is only ever
+     * updated by the scan of that directory. Group keys are built from the
+     * directory's key and the raw file name instead of relativizing every
+     * path. Symbolic links are resolved the way {@link Files#isRegularFile}
+     * and {@link Files#isDirectory} resolve them, and linked directories are
+     * not descended into.
+     */
+    private final class DirectoryScan extends RecursiveAction {
+
+        private final Path directory;
+        private final String directoryKey;
+        private final Discovery discovery;
+
+        private DirectoryScan(final Path directory, final String directoryKey, final Discovery discovery) {
+            this.directory = directory;
+            this.directoryKey = directoryKey;
+            this.discovery = discovery;
+        }
+
+        @Override
+        protected void compute() {
+            if (discovery.scheduler().isCancelled()) {
+                return;
+            }
+            final FileIndex index = discovery.index();
+            final List<DirectoryScan> subdirectories = new ArrayList<>();
+            final RunMetrics.Sample discoverySample = discovery.metrics().start(RunMetrics.Stage.DISCOVERY);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (final Path entry : entries) {
+                    if (discovery.scheduler().isCancelled()) {
+                        break;
+                    }
+                    final String fileName = entry.getFileName().toString();
+                    final BasicFileAttributes attributes =
+                        Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isDirectory()) {
+                        if (index != null) {
+                            index.add(entry);
+                        }
+                        final DirectoryScan subdirectory = new DirectoryScan(entry, childKey(fileName), discovery);
+                        subdirectory.fork();
+                        subdirectories.add(subdirectory);
+                        continue;
+                    }
+                    final boolean link = attributes.isSymbolicLink();
+                    if (!attributes.isRegularFile() && !(link && Files.isRegularFile(entry))) {
+                        if (index != null && link && Files.isDirectory(entry)) {
+                            index.add(entry);
+                        }
+                        continue;
+                    }
+                    if (index != null) {
+                        index.add(entry);
+                    }
+                    final GroupMember member = GroupMember.match(fileName);
+                    if (member != null) {
+                        registerGroupMember(entry, fileName, member, link ? Files.size(entry) : attributes.size());
+                    }
                 }
-            });
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                discoverySample.stop();
+            }
+            for (final DirectoryScan subdirectory : subdirectories) {
+                subdirectory.join();
+            }
+        }
+
+        private void registerGroupMember(
+            final Path path,
+            final String fileName,
+            final GroupMember member,
+            final long size
+        ) {
+            final String prefix = groupKey(fileName.substring(0, fileName.length() - member.suffixLength()));
+            final FileGroup group = discovery.groups().computeIfAbsent(prefix, key -> new FileGroup());
+            switch (member) {
+                case PRE_ACE:
+                    group.preAceDocxPath = path;
+                    group.preAceBytes = size;
+                    break;
+                case MID_ACE:
+                    group.midAceDocxPath = path;
+                    group.midAceBytes = size;
+                    break;
+                default:
+                    group.decisionXmlPath = path;
+                    group.decisionBytes = size;
+                    break;
+            }
+            if (group.isComplete() && !group.emitted) {
+                group.emitted = true;
+                discovery.scheduler().offer(
+                    new GroupTask(prefix, group),
+                    discovery.costModel().estimate(prefix, group.totalBytes())
+                );
+            }
+        }
+
+        private String childKey(final String name) {
+            return directoryKey.isEmpty() ? name : directoryKey + '/' + name;
+        }
+
+        /**
+         * Returns the same key as resolving {@code groupName} against the
+         * directory's path relative to the input directory.
+         */
+        private String groupKey(final String groupName) {
+            final String key;
+            if (directoryKey.isEmpty()) {
+                key = groupName;
+            } else if (groupName.isEmpty()) {
+                key = directoryKey;
+            } else {
+                key = directoryKey + '/' + groupName;
+            }
+            return key.replace('\\', '/');
         }
-        return groups;
     }
 
-    private String createGroupKey(final Path path, final int suffixLength) {
-        final String fileName = path.getFileName().toString();
-        final String prefix = fileName.substring(0, fileName.length() - suffixLength);
-        final Path parentDirectory = path.getParent() == null ? inputDirectory : path.getParent();
-        final Path relativeParent = inputDirectory.relativize(parentDirectory);
-        final Path relativeGroupPath = relativeParent.resolve(prefix);
-        final String key = relativeGroupPath.toString();
-        return key.replace('\\', '/');
+    /**
+     * The file name suffixes that make a file a member of a group.
+     */
+    private enum GroupMember {
+        PRE_ACE(PRE_ACE_SUFFIX),
+        MID_ACE(MID_ACE_SUFFIX),
+        DECISION_XML(DOM_SUFFIX),
+        ALT_DECISION_XML(ALT_DOM_SUFFIX);
+
+        private final String suffix;
+
+        GroupMember(final String suffix) {
+            this.suffix = suffix;
+        }
+
+        private int suffixLength() {
+            return suffix.length();
+        }
+
+        /**
+         * Returns the member a file name denotes, or {@code null}. The last
+         * character picks the candidate suffixes, so most unrelated names are
+         * rejected with a single comparison.
+         */
+        private static GroupMember match(final String fileName) {
+            if (fileName.isEmpty()) {
+                return null;
+            }
+            final char last = fileName.charAt(fileName.length() - 1);
+            if (last == 'x') {
+                return firstMatch(fileName, PRE_ACE, MID_ACE);
+            }
+            if (last == 'm') {
+                return firstMatch(fileName, DECISION_XML, ALT_DECISION_XML);
+            }
+            return null;
+        }
+
+        private static GroupMember firstMatch(final String fileName, final GroupMember first, final GroupMember second) {
+            if (fileName.endsWith(first.suffix)) {
+                return first;
+            }
+            return fileName.endsWith(second.suffix) ? second : null;
+        }
     }
 
     private static StageContext determineStageContext(
         final String stageAttribute,
-        final String preAceTextContent,
-        final String midAceTextContent
+        final StageContext midProcessContext,
+        final StageContext mainProcessContext
     ) {
         if (stageAttribute != null && stageAttribute.equalsIgnoreCase(MID_PROCESS_STAGE)) {
-            return new StageContext(MID_PROCESS_STAGE, preAceTextContent);
+            return midProcessContext;
         }
-        return new StageContext(MAIN_PROCESS_STAGE, midAceTextContent);
+        return mainProcessContext;
     }
 
-    private static InputExtraction deriveInput(final String text, final int bufferPosition, final String find) {
+    /**
+     * Extracts the whitespace-delimited span around {@code bufferPosition},
+     * extended to cover at least {@code find}. Span edges are looked up in the
+     * stage text's {@link TokenBoundaryIndex}.
+     */
+    private static InputExtraction deriveInput(
+        final TokenBoundaryIndex boundaries,
+        final int bufferPosition,
+        final String find
+    ) {
+        final String text = boundaries.text();
         if (text == null || text.isEmpty()) {
             return new InputExtraction("", 0);
         }
         final int textLength = text.length();
         final int clampedPosition = Math.min(Math.max(bufferPosition, 0), textLength);
-        int start = clampedPosition;
-        while (start > 0 && !isSpaceOrNewLine(text.charAt(start - 1))) {
-            start--;
-        }
+        int start = boundaries.tokenStart(clampedPosition);
         int end = clampedPosition;
         final int expectedLength = find == null ? 0 : Math.max(find.length(), 0);
         if (expectedLength > 0) {
             end = Math.min(clampedPosition + expectedLength, textLength);
         }
-        while (end < textLength && !isSpaceOrNewLine(text.charAt(end))) {
-            end++;
-        }
+        end = boundaries.tokenEnd(end);
         if (start < 0) {
             start = 0;
         }
@@ -546,10 +1943,6 @@ public final class DecisionCsvGeneratorAppOri {
         return sanitizeText(replace);
     }
 
-    private static boolean isSpaceOrNewLine(final char ch) {
-        return ch == ' ' || ch == '\n' || ch == '\r';
-    }
-
     private record InputExtraction(String text, int start) {
     }
 
@@ -592,6 +1985,18 @@ public final class DecisionCsvGeneratorAppOri {
         Files.writeString(csvPath, builder.toString(), StandardCharsets.UTF_8);
     }
 
+    /**
+     * Sorts records in place by {@link #RECORD_COMPARATOR}. Large lists are
+     * sorted in parallel; the sort is stable either way.
+     */
+    private static void sortRecords(final List<DecisionRecord> records) {
+        final DecisionRecord[] sorted = records.toArray(new DecisionRecord[0]);
+        Arrays.parallelSort(sorted, RECORD_COMPARATOR);
+        for (int i = 0; i < sorted.length; i++) {
+            records.set(i, sorted[i]);
+        }
+    }
+
     private static List<DecisionRecord> deduplicateRecords(final List<DecisionRecord> records) {
         final Map<RecordIdentity, DecisionRecord> unique = new LinkedHashMap<>();
         for (final DecisionRecord record : records) {
@@ -683,11 +2088,11 @@ public final class DecisionCsvGeneratorAppOri {
                 sanitizeText(values.get(4)),
                 sanitizeText(values.get(5)),
                 sanitizeText(values.get(6)),
-                stripAllDoubleQuotes(sanitizeText(values.get(7))),
-                stripAllDoubleQuotes(sanitizeText(values.get(8))),
+                sanitizeTextWithoutDoubleQuotes(values.get(7)),
+                sanitizeTextWithoutDoubleQuotes(values.get(8)),
                 sanitizeText(values.get(9)),
                 sanitizeText(values.get(10)),
-                stripAllDoubleQuotes(sanitizeText(values.get(11))),
+                sanitizeTextWithoutDoubleQuotes(values.get(11)),
                 sanitizeText(values.get(12)),
                 sanitizeText(values.get(13)),
                 -1
@@ -756,6 +2161,8 @@ public final class DecisionCsvGeneratorAppOri {
         final List<DecisionRecord> expectedRecords,
         final List<DecisionRecord> actualRecords
     ) {
+        final PipelineEvents.CompareEvent event = new PipelineEvents.CompareEvent();
+        event.begin();
         final Map<ComparisonKey, List<DecisionRecord>> expectedGrouped = groupRecords(expectedRecords);
         final Map<ComparisonKey, List<DecisionRecord>> actualGrouped = groupRecords(actualRecords);
         final Set<ComparisonKey> keySet = new HashSet<>();
@@ -843,6 +2250,13 @@ public final class DecisionCsvGeneratorAppOri {
             .thenComparing(Difference::rule, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
             .thenComparing(Difference::type)
             .thenComparing(Difference::severity));
+        event.end();
+        if (event.shouldCommit()) {
+            event.expectedRecords = expectedRecords.size();
+            event.actualRecords = actualRecords.size();
+            event.differences = differences.size();
+            event.commit();
+        }
         return differences;
     }
 
@@ -851,6 +2265,8 @@ public final class DecisionCsvGeneratorAppOri {
         for (final DecisionRecord record : records) {
             grouped.computeIfAbsent(createKey(record), key -> new ArrayList<>()).add(record);
         }
+        // The run and comparison paths pass sorted lists, so the groups are already in order and
+        // the stable sort only confirms that with one key comparison per record.
         for (final List<DecisionRecord> group : grouped.values()) {
             group.sort(RECORD_COMPARATOR);
         }
@@ -958,27 +2374,22 @@ public final class DecisionCsvGeneratorAppOri {
         return 0L;
     }
 
-    private static long getUsedMemory() {
-        final Runtime runtime = Runtime.getRuntime();
-        return runtime.totalMemory() - runtime.freeMemory();
-    }
-
     private static void printRunSummary(
         final int discoveredGroups,
         final int processedGroups,
         final int incompleteGroups,
+        final List<GroupQuarantine.Entry> quarantined,
+        final List<StagedPipeline.StageStatistics> stageStatistics,
         final int recordCount,
         final List<Difference> differences,
         final Instant start,
         final Instant end,
         final long cpuStart,
         final long cpuEnd,
-        final long startingMemory
+        final RunMetrics metrics
     ) {
         final Duration duration = Duration.between(start, end);
         final long cpuDurationMillis = (cpuEnd - cpuStart) / 1_000_000L;
-        final long endingMemory = getUsedMemory();
-        final long memoryDeltaBytes = Math.max(0L, endingMemory - startingMemory);
 
         int newCount = 0;
         int missingCount = 0;
@@ -998,6 +2409,10 @@ public final class DecisionCsvGeneratorAppOri {
         System.out.printf(Locale.ROOT, "File groups discovered: %d%n", discoveredGroups);
         System.out.printf(Locale.ROOT, "File groups processed: %d%n", processedGroups);
         System.out.printf(Locale.ROOT, "File groups skipped (incomplete): %d%n", incompleteGroups);
+        System.out.printf(Locale.ROOT, "File groups quarantined: %d%n", quarantined.size());
+        for (final GroupQuarantine.Entry entry : quarantined) {
+            System.out.printf(Locale.ROOT, "  %s: %s%n", entry.prefix(), entry.reason());
+        }
         System.out.printf(Locale.ROOT, "Records processed: %d%n", recordCount);
         if (!differences.isEmpty()) {
             System.out.printf(Locale.ROOT, "Differences - New: %d, Missing: %d, Modified: %d%n", newCount, missingCount, modifiedCount);
@@ -1007,7 +2422,13 @@ public final class DecisionCsvGeneratorAppOri {
         System.out.println("--- Performance Summary ---");
         System.out.printf(Locale.ROOT, "Wall-clock time: %d ms%n", duration.toMillis());
         System.out.printf(Locale.ROOT, "CPU time: %d ms%n", cpuDurationMillis);
-        System.out.printf(Locale.ROOT, "Additional memory used: %d MB%n", memoryDeltaBytes / (1024 * 1024));
+
+        System.out.println();
+        System.out.println("--- Pipeline Stages ---");
+        for (final StagedPipeline.StageStatistics statistics : stageStatistics) {
+            System.out.println(statistics.describe());
+        }
+        metrics.printSummary(System.out);
     }
 
 
@@ -1018,12 +2439,10 @@ public final class DecisionCsvGeneratorAppOri {
         final Instant end,
         final long cpuStart,
         final long cpuEnd,
-        final long startingMemory
+        final RunMetrics metrics
     ) {
         final Duration duration = Duration.between(start, end);
         final long cpuDurationMillis = (cpuEnd - cpuStart) / 1_000_000L;
-        final long endingMemory = getUsedMemory();
-        final long memoryDeltaBytes = Math.max(0L, endingMemory - startingMemory);
 
         int newCount = 0;
         int missingCount = 0;
@@ -1053,7 +2472,7 @@ public final class DecisionCsvGeneratorAppOri {
         System.out.println("--- Performance Summary ---");
         System.out.printf(Locale.ROOT, "Wall-clock time: %d ms%n", duration.toMillis());
         System.out.printf(Locale.ROOT, "CPU time: %d ms%n", cpuDurationMillis);
-        System.out.printf(Locale.ROOT, "Additional memory used: %d MB%n", memoryDeltaBytes / (1024 * 1024));
+        metrics.printSummary(System.out);
     }
 
 
@@ -1063,6 +2482,18 @@ public final class DecisionCsvGeneratorAppOri {
         final Path expectedCsv,
         final Path actualCsv
     ) throws IOException {
+        writeHtmlReport(reportPath, differences, expectedCsv, actualCsv, List.of());
+    }
+
+    private void writeHtmlReport(
+        final Path reportPath,
+        final List<Difference> differences,
+        final Path expectedCsv,
+        final Path actualCsv,
+        final List<GroupQuarantine.Entry> quarantined
+    ) throws IOException {
+        final PipelineEvents.HtmlReportEvent event = new PipelineEvents.HtmlReportEvent();
+        event.begin();
         final StringBuilder html = new StringBuilder();
         html.append("<!DOCTYPE html>\n");
         html.append("<html lang=\"en\">\n");
@@ -1173,6 +2604,25 @@ public final class DecisionCsvGeneratorAppOri {
         html.append("      font-size: 1rem;\n");
         html.append("      box-shadow: 0 16px 30px rgba(14, 159, 110, 0.15);\n");
         html.append("    }\n");
+        html.append("    .quarantine {\n");
+        html.append("      margin-bottom: 28px;\n");
+        html.append("      padding: 20px;\n");
+        html.append("      border-radius: 14px;\n");
+        html.append("      background: #fffbeb;\n");
+        html.append("      border: 1px solid #fde68a;\n");
+        html.append("      color: #92400e;\n");
+        html.append("    }\n");
+        html.append("    .quarantine h2 {\n");
+        html.append("      margin: 0 0 8px;\n");
+        html.append("      font-size: 1.1rem;\n");
+        html.append("    }\n");
+        html.append("    .quarantine p {\n");
+        html.append("      margin: 0 0 8px;\n");
+        html.append("    }\n");
+        html.append("    .quarantine ul {\n");
+        html.append("      margin: 0;\n");
+        html.append("      padding-left: 20px;\n");
+        html.append("    }\n");
         html.append("    .rules {\n");
         html.append("      display: flex;\n");
         html.append("      flex-direction: column;\n");
@@ -1349,6 +2799,24 @@ public final class DecisionCsvGeneratorAppOri {
             .append("</code>.</p>\n");
         html.append("    </header>\n");
 
+        if (!quarantined.isEmpty()) {
+            html.append("    <section class=\"quarantine\">\n");
+            html.append("      <h2>Quarantined Groups</h2>\n");
+            html.append("      <p>These groups ran out of their time budget and were not processed, so their records")
+                .append(" are missing from the generated file. Run with <code>--retry-quarantined</code> to process")
+                .append(" them again.</p>\n");
+            html.append("      <ul>\n");
+            for (final GroupQuarantine.Entry entry : quarantined) {
+                html.append("        <li><code>")
+                    .append(escapeHtml(entry.prefix()))
+                    .append("</code> \u2013 ")
+                    .append(escapeHtml(entry.reason()))
+                    .append("</li>\n");
+            }
+            html.append("      </ul>\n");
+            html.append("    </section>\n");
+        }
+
         if (differences.isEmpty()) {
             html.append("    <div class=\"no-differences\">No differences detected.</div>\n");
         } else {
@@ -1510,6 +2978,13 @@ public final class DecisionCsvGeneratorAppOri {
         html.append("</html>\n");
 
         Files.writeString(reportPath, html.toString(), StandardCharsets.UTF_8);
+        event.end();
+        if (event.shouldCommit()) {
+            event.report = reportPath.toString();
+            event.differences = differences.size();
+            event.characters = html.length();
+            event.commit();
+        }
     }
 
     private String createFileLink(final Difference difference) {
@@ -1537,19 +3012,20 @@ public final class DecisionCsvGeneratorAppOri {
         final String normalizedStage = reference.stage() == null
             ? ""
             : reference.stage().trim().toLowerCase(Locale.ROOT);
+        final FileIndex index = fileIndex();
         String docSuffix = determineDocSuffix(normalizedStage);
         Path docPath = parentDirectory.resolve(baseIdentifier + docSuffix);
-        if (!Files.exists(docPath)) {
+        if (!index.exists(docPath)) {
             final Path alternateDoc = parentDirectory.resolve(baseIdentifier + alternateDocSuffix(docSuffix));
-            if (Files.exists(alternateDoc)) {
+            if (index.exists(alternateDoc)) {
                 docPath = alternateDoc;
             }
         }
 
         Path domPath = parentDirectory.resolve(baseIdentifier + DOM_SUFFIX);
-        if (!Files.exists(domPath)) {
+        if (!index.exists(domPath)) {
             final Path alternateDom = parentDirectory.resolve(baseIdentifier + ALT_DOM_SUFFIX);
-            if (Files.exists(alternateDom)) {
+            if (index.exists(alternateDom)) {
                 domPath = alternateDom;
             }
         }
@@ -1572,6 +3048,17 @@ public final class DecisionCsvGeneratorAppOri {
         return builder.toString();
     }
 
+    /**
+     * Returns the index built during discovery or, when only CSV files are
+     * compared, builds one with a single walk of the input directory.
+     */
+    private FileIndex fileIndex() {
+        if (fileIndex == null) {
+            fileIndex = FileIndex.scan(inputDirectory);
+        }
+        return fileIndex;
+    }
+
     private Path resolveBasePath(final String baseName) {
         if (baseName == null || baseName.isBlank()) {
             return null;
@@ -1596,7 +3083,7 @@ public final class DecisionCsvGeneratorAppOri {
             candidate = inputDirectory.resolve(baseName);
         }
         if (!candidate.isAbsolute() && inputDirectory != null) {
-            candidate = inputDirectory.resolve(candidate);
+            candidate = inputDirectory.resolve(candidate.toString());
         }
         return candidate;
     }
@@ -1621,30 +3108,15 @@ public final class DecisionCsvGeneratorAppOri {
     }
 
     private static String sanitizeText(final String value) {
-        if (value == null || value.isEmpty()) {
-            return value == null ? "" : value;
-        }
-        String result = stripEnclosingQuotes(value);
-        result = stripBoundaryQuote(result, true);
-        result = stripBoundaryQuote(result, false);
-        result = normalizeWhitespace(result);
-        return result;
+        return FieldSanitizer.sanitize(FieldSanitizer.FieldKind.TEXT, value);
+    }
+
+    private static String sanitizeTextWithoutDoubleQuotes(final String value) {
+        return FieldSanitizer.sanitize(FieldSanitizer.FieldKind.TEXT_WITHOUT_DOUBLE_QUOTES, value);
     }
 
     private static String sanitizeFileReference(final String value) {
-        if (value == null) {
-            return "";
-        }
-        String sanitized = sanitizeText(value);
-        if (sanitized.isEmpty()) {
-            return sanitized;
-        }
-        sanitized = sanitized.replace("%22", "");
-        sanitized = sanitized.replace('"', ' ');
-        sanitized = sanitized.replace('\'', ' ');
-        sanitized = normalizeWhitespace(sanitized);
-        sanitized = collapseDuplicateFileScheme(sanitized);
-        return stripOuterQuotes(sanitized);
+        return FieldSanitizer.sanitize(FieldSanitizer.FieldKind.FILE_REFERENCE, value);
     }
 
     private static String stripAllDoubleQuotes(final String value) {
@@ -1657,136 +3129,6 @@ public final class DecisionCsvGeneratorAppOri {
         return value.replace("\"", "");
     }
 
-    private static String normalizeWhitespace(final String value) {
-        if (value == null) {
-            return "";
-        }
-        if (value.isEmpty()) {
-            return "";
-        }
-        final StringBuilder builder = new StringBuilder(value.length());
-        boolean previousWhitespace = false;
-        for (int i = 0; i < value.length(); i++) {
-            final char ch = value.charAt(i);
-            if (isWhitespaceCharacter(ch)) {
-                if (!previousWhitespace) {
-                    builder.append(' ');
-                    previousWhitespace = true;
-                }
-            } else {
-                builder.append(ch);
-                previousWhitespace = false;
-            }
-        }
-        int start = 0;
-        int end = builder.length();
-        while (start < end && builder.charAt(start) == ' ') {
-            start++;
-        }
-        while (end > start && builder.charAt(end - 1) == ' ') {
-            end--;
-        }
-        if (start >= end) {
-            return "";
-        }
-        return builder.substring(start, end);
-    }
-
-    private static boolean isWhitespaceCharacter(final char ch) {
-        return Character.isWhitespace(ch)
-            || ch == '\u00A0'
-            || ch == '\u2007'
-            || ch == '\u202F'
-            || ch == '\u200B'
-            || ch == '\u2060'
-            || ch == '\uFEFF';
-    }
-
-    private static String collapseDuplicateFileScheme(final String value) {
-        String result = value;
-        final String duplicate = "file:///file:///";
-        while (result.contains(duplicate)) {
-            result = result.replace(duplicate, "file:///");
-        }
-        final String prefix = "file:///";
-        if (result.startsWith(prefix)) {
-            final int lastIndex = result.lastIndexOf(prefix);
-            if (lastIndex > 0) {
-                result = result.substring(lastIndex);
-            }
-        }
-        final String alternateDuplicate = "file://file://";
-        while (result.contains(alternateDuplicate)) {
-            result = result.replace(alternateDuplicate, "file://");
-        }
-        return result;
-    }
-
-    private static String stripEnclosingQuotes(final String value) {
-        final int first = firstNonWhitespaceIndex(value);
-        final int last = lastNonWhitespaceIndex(value);
-        if (first >= 0 && last >= first && value.charAt(first) == '"' && value.charAt(last) == '"') {
-            final String withoutTrailing = removeCharAt(value, last);
-            return removeCharAt(withoutTrailing, first);
-        }
-        return value;
-    }
-
-    private static String stripBoundaryQuote(final String value, final boolean leading) {
-        final int index = leading ? firstNonWhitespaceIndex(value) : lastNonWhitespaceIndex(value);
-        if (index < 0 || value.charAt(index) != '"') {
-            return value;
-        }
-        final int adjacent = leading ? index + 1 : index - 1;
-        if (adjacent >= 0 && adjacent < value.length() && value.charAt(adjacent) == '"') {
-            return value;
-        }
-        return removeCharAt(value, index);
-    }
-
-    private static int firstNonWhitespaceIndex(final String value) {
-        for (int i = 0; i < value.length(); i++) {
-            if (!Character.isWhitespace(value.charAt(i))) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    private static int lastNonWhitespaceIndex(final String value) {
-        for (int i = value.length() - 1; i >= 0; i--) {
-            if (!Character.isWhitespace(value.charAt(i))) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    private static String removeCharAt(final String value, final int index) {
-        if (index < 0 || index >= value.length()) {
-            return value;
-        }
-        return value.substring(0, index) + value.substring(index + 1);
-    }
-
-    private static String stripOuterQuotes(final String value) {
-        if (value == null) {
-            return null;
-        }
-        String result = value.trim();
-        while (result.length() >= 6 && result.startsWith("%22") && result.endsWith("%22")) {
-            result = result.substring(3, result.length() - 3).trim();
-        }
-        if (result.length() >= 2) {
-            final char first = result.charAt(0);
-            final char last = result.charAt(result.length() - 1);
-            if ((first == '"' && last == '"') || (first == '\'' && last == '\'')) {
-                result = result.substring(1, result.length() - 1).trim();
-            }
-        }
-        return result;
-    }
-
     private static boolean isWindowsAbsolutePath(final String value) {
         return value.length() > 2
             && Character.isLetter(value.charAt(0))
@@ -1833,11 +3175,11 @@ public final class DecisionCsvGeneratorAppOri {
         if (value == null) {
             return "";
         }
-        String sanitized = stripOuterQuotes(value);
+        String sanitized = FieldSanitizer.stripOuterQuotes(value);
         sanitized = sanitized.replace("\"", "");
         sanitized = sanitized.replace("%22", "");
         sanitized = sanitized.replace("'", "");
-        sanitized = collapseDuplicateFileScheme(sanitized);
+        sanitized = FieldSanitizer.collapseDuplicateFileScheme(sanitized);
         return sanitized;
     }
 
@@ -1984,9 +3326,62 @@ public final class DecisionCsvGeneratorAppOri {
         String suggestion,
         String instanceText,
         String bookMarkName,
-        int bufferPosition
-        
+        int bufferPosition,
+        RecordSortKey sortKey
     ) {
+
+        private DecisionRecord(
+            final String fileName,
+            final String rule,
+            final String highlight,
+            final String paraStyle,
+            final String charStyle,
+            final String find,
+            final String replace,
+            final String input,
+            final String output,
+            final String stage,
+            final String status,
+            final String suggestion,
+            final String instanceText,
+            final String bookMarkName,
+            final int bufferPosition
+        ) {
+            this(
+                fileName,
+                rule,
+                highlight,
+                paraStyle,
+                charStyle,
+                find,
+                replace,
+                input,
+                output,
+                stage,
+                status,
+                suggestion,
+                instanceText,
+                bookMarkName,
+                bufferPosition,
+                new RecordSortKey(
+                    fileName,
+                    rule,
+                    bufferPosition,
+                    input,
+                    find,
+                    stage,
+                    output,
+                    highlight,
+                    paraStyle,
+                    charStyle,
+                    replace,
+                    status,
+                    suggestion,
+                    instanceText,
+                    bookMarkName
+                )
+            );
+        }
     }
 
     private record RecordIdentity(
@@ -2035,7 +3430,220 @@ public final class DecisionCsvGeneratorAppOri {
     ) {
     }
 
-    private record StageContext(String stageLabel, String textContent) {
+    private record StageContext(String stageLabel, TokenBoundaryIndex boundaries) {
+    }
+
+    /**
+     * Outcome of a single run, reported back to service clients.
+     */
+    record RunResult(
+        int discoveredGroups,
+        int processedGroups,
+        int recordCount,
+        int differenceCount,
+        Path csvPath,
+        Path reportPath
+    ) {
+    }
+
+    private record BaselineKey(Path path, long size, long lastModified) {
+    }
+
+    private record GroupTask(String prefix, FileGroup group) {
+    }
+
+    private record ExtractedGroup(
+        GroupTask task,
+        Document document,
+        String preAceTextContent,
+        String midAceTextContent
+    ) {
+    }
+
+    private record StageDemand(boolean preAce, boolean midAce) {
+    }
+
+    private record GroupRecords(String prefix, List<DecisionRecord> records) {
+    }
+
+    private record ShardCursor(ShardPartial.Reader reader, String prefix, DecisionRecord record) {
+
+        /**
+         * Reads the next row of {@code reader}, or returns {@code null} at
+         * its end.
+         */
+        private static ShardCursor next(final ShardPartial.Reader reader) throws IOException {
+            final ShardPartial.Row row = reader.next();
+            if (row == null) {
+                return null;
+            }
+            if (row.fields().length != HEADERS.size()) {
+                throw new IOException("Shard partial row does not match the CSV columns: " + row.fields().length + " fields");
+            }
+            return new ShardCursor(reader, row.prefix(), toRecord(row.fields(), row.bufferPosition()));
+        }
+    }
+
+    private record RunCursor(List<DecisionRecord> records, int runIndex, int position) {
+
+        private DecisionRecord head() {
+            return records.get(position);
+        }
+    }
+
+    private record GroupRunResult(
+        int discoveredGroups,
+        int processedGroups,
+        int incompleteGroups,
+        List<DecisionRecord> sortedRecords,
+        List<StagedPipeline.StageStatistics> stageStatistics,
+        List<GroupRecords> runs,
+        Map<String, FileGroup> groups,
+        List<GroupQuarantine.Entry> quarantined
+    ) {
+    }
+
+    /**
+     * Where a group's files live: its directory and the file name shared by
+     * its members without the member suffix.
+     */
+    private record GroupLocation(Path directory, String name) {
+
+        private static GroupLocation of(final Path member, final GroupMember kind) {
+            final String fileName = member.getFileName().toString();
+            final Path directory = member.getParent() == null ? Path.of("") : member.getParent();
+            return new GroupLocation(directory, fileName.substring(0, fileName.length() - kind.suffixLength()));
+        }
+
+        private static GroupLocation of(final FileGroup group) {
+            for (final Path member : new Path[] { group.preAceDocxPath, group.midAceDocxPath, group.decisionXmlPath }) {
+                if (member != null) {
+                    return of(member, GroupMember.match(member.getFileName().toString()));
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the members that exist now, or {@code null} when none does.
+         */
+        private FileGroup locate() throws IOException {
+            final FileGroup group = new FileGroup();
+            final Path preAce = directory.resolve(name + PRE_ACE_SUFFIX);
+            if (Files.isRegularFile(preAce)) {
+                group.preAceDocxPath = preAce;
+                group.preAceBytes = Files.size(preAce);
+            }
+            final Path midAce = directory.resolve(name + MID_ACE_SUFFIX);
+            if (Files.isRegularFile(midAce)) {
+                group.midAceDocxPath = midAce;
+                group.midAceBytes = Files.size(midAce);
+            }
+            for (final String suffix : new String[] { DOM_SUFFIX, ALT_DOM_SUFFIX }) {
+                final Path decisionXml = directory.resolve(name + suffix);
+                if (Files.isRegularFile(decisionXml)) {
+                    group.decisionXmlPath = decisionXml;
+                    group.decisionBytes = Files.size(decisionXml);
+                    break;
+                }
+            }
+            if (group.preAceDocxPath == null && group.midAceDocxPath == null && group.decisionXmlPath == null) {
+                return null;
+            }
+            return group;
+        }
+    }
+
+    /**
+     * What watch mode keeps between rounds: the sorted records of every
+     * processed group, where every known group lives and which groups are
+     * incomplete.
+     */
+    private static final class WatchState {
+
+        private final Map<String, GroupRecords> runs = new HashMap<>();
+        private final Map<String, GroupLocation> locations = new HashMap<>();
+        private final Set<String> incomplete = new HashSet<>();
+
+        private WatchState(final GroupRunResult groupRun) {
+            reset(groupRun);
+        }
+
+        private void reset(final GroupRunResult groupRun) {
+            runs.clear();
+            locations.clear();
+            incomplete.clear();
+            for (final GroupRecords run : groupRun.runs()) {
+                runs.put(run.prefix(), run);
+            }
+            for (final Map.Entry<String, FileGroup> entry : groupRun.groups().entrySet()) {
+                final GroupLocation location = GroupLocation.of(entry.getValue());
+                if (location != null) {
+                    locations.put(entry.getKey(), location);
+                }
+                if (!entry.getValue().isComplete()) {
+                    incomplete.add(entry.getKey());
+                }
+            }
+        }
+
+        private void forget(final String prefix) {
+            runs.remove(prefix);
+            locations.remove(prefix);
+            incomplete.remove(prefix);
+        }
+
+        private Map<String, GroupRecords> runs() {
+            return runs;
+        }
+
+        private Map<String, GroupLocation> locations() {
+            return locations;
+        }
+
+        private Set<String> incomplete() {
+            return incomplete;
+        }
+    }
+
+    /**
+     * Caches that can outlive a single run: extracted DOCX text and parsed
+     * expected CSV baselines. A one-shot CLI run uses a disabled instance.
+     */
+    static final class WarmCaches {
+
+        private final ExtractionCache extractionCache;
+
+        WarmCaches(final long maxCachedChars) {
+            this.extractionCache = new ExtractionCache(maxCachedChars);
+        }
+
+        ExtractionCache extractionCache() {
+            return extractionCache;
+        }
+
+        int baselineCount() {
+            return extractionCache.valueCount();
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<DecisionRecord> baseline(final BaselineKey key) {
+            return (List<DecisionRecord>) extractionCache.value(key);
+        }
+
+        /**
+         * Caches a parsed baseline, charged by the characters of its field
+         * values against the budget shared with the extracted texts.
+         */
+        private void storeBaseline(final BaselineKey key, final List<DecisionRecord> records) {
+            long chars = 0L;
+            for (final DecisionRecord record : records) {
+                for (final String field : toFields(record)) {
+                    chars += field == null ? 0 : field.length();
+                }
+            }
+            extractionCache.storeValue(key, records, chars);
+        }
     }
 
     private static Path replaceExtension(final Path path, final String newExtension) {
@@ -2049,9 +3657,17 @@ public final class DecisionCsvGeneratorAppOri {
         private Path preAceDocxPath;
         private Path midAceDocxPath;
         private Path decisionXmlPath;
+        private long preAceBytes;
+        private long midAceBytes;
+        private long decisionBytes;
+        private boolean emitted;
 
         private boolean isComplete() {
             return preAceDocxPath != null && midAceDocxPath != null && decisionXmlPath != null;
         }
+
+        private long totalBytes() {
+            return preAceBytes + midAceBytes + decisionBytes;
+        }
     }
 }
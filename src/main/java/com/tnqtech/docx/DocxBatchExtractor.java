@@ -0,0 +1,295 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Extracts many DOCX documents inside a single JVM so that docx4j/JAXB
+ * initialization is paid once per run instead of once per file.
+ */
+final class DocxBatchExtractor {
+
+    private static final String DOCX_EXTENSION = ".docx";
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final String MANIFEST_COMMENT = "#";
+    private static final String MANIFEST_SEPARATOR = "\t";
+    private static final String RECURSIVE_GLOB_PREFIX = "**/";
+
+    private final Path outputDirectory;
+    private final int parallelism;
+    private final ThreadLocal<DocxExtractor> extractors = ThreadLocal.withInitial(DocxExtractor::new);
+
+    DocxBatchExtractor(final Path outputDirectory, final int parallelism) {
+        this.outputDirectory = outputDirectory;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Resolves the documents addressed by a directory, a glob pattern or a
+     * manifest file. Manifest lines contain an input path, optionally followed
+     * by a tab and an explicit output path; relative paths are resolved against
+     * the manifest location, and inputs without an output path keep their
+     * path below it. A glob pattern starting with {@code **}{@code /} also
+     * matches files directly in its base directory.
+     *
+     * @throws IOException if two documents would be written to the same output
+     */
+    List<BatchItem> resolveItems(final String source) throws IOException {
+        final List<BatchItem> items;
+        final Path sourcePath = isGlob(source) ? null : Path.of(source);
+        if (sourcePath == null) {
+            items = resolveGlob(source);
+        } else if (Files.isDirectory(sourcePath)) {
+            items = resolveDirectory(sourcePath);
+        } else if (Files.isRegularFile(sourcePath)) {
+            items = resolveManifest(sourcePath);
+        } else {
+            throw new IOException("Batch source is neither a directory, a glob nor a manifest file: " + source);
+        }
+        requireDistinctOutputs(items);
+        return items;
+    }
+
+    private static void requireDistinctOutputs(final List<BatchItem> items) throws IOException {
+        final Map<Path, Path> inputsByOutput = new HashMap<>();
+        for (final BatchItem item : items) {
+            final Path previous = inputsByOutput.putIfAbsent(item.output().toAbsolutePath().normalize(), item.input());
+            if (previous != null) {
+                throw new IOException(String.format(Locale.ROOT, "%s and %s would both be written to %s",
+                    previous, item.input(), item.output()));
+            }
+        }
+    }
+
+    BatchSummary run(final List<BatchItem> items) throws DocxExtractorException {
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        final List<Future<ItemResult>> futures = new ArrayList<>(items.size());
+        try {
+            for (final BatchItem item : items) {
+                futures.add(executor.submit(() -> extract(item)));
+            }
+            final List<ItemResult> results = new ArrayList<>(items.size());
+            for (final Future<ItemResult> future : futures) {
+                results.add(future.get());
+            }
+            return new BatchSummary(results, System.nanoTime() - start, parallelism);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DocxExtractorException("Batch extraction interrupted", ex);
+        } catch (final ExecutionException ex) {
+            throw new DocxExtractorException("Batch extraction failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ItemResult extract(final BatchItem item) {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        final boolean cpuSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+        final long cpuStart = cpuSupported ? threadMXBean.getCurrentThreadCpuTime() : 0L;
+        final long start = System.nanoTime();
+        try {
+            final DocxExtractor.ExtractionResult result = extractors.get().extract(item.input());
+            writeAtomically(item.output(), result.getPlainText());
+            return new ItemResult(item, System.nanoTime() - start, elapsedCpu(threadMXBean, cpuSupported, cpuStart),
+                result.getNodes().size(), null);
+        } catch (final DocxExtractorException | IOException | RuntimeException ex) {
+            System.err.printf(Locale.ROOT, "Warning: Failed to extract text from %s: %s%n", item.input(), ex.getMessage());
+            return new ItemResult(item, System.nanoTime() - start, elapsedCpu(threadMXBean, cpuSupported, cpuStart),
+                0, ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+        }
+    }
+
+    private static long elapsedCpu(final ThreadMXBean threadMXBean, final boolean supported, final long cpuStart) {
+        return supported ? threadMXBean.getCurrentThreadCpuTime() - cpuStart : 0L;
+    }
+
+    /**
+     * Writes the text next to its final location and moves it into place, so
+     * readers never observe a partially written output file.
+     */
+    static void writeAtomically(final Path target, final String content) throws IOException {
+        final Path absoluteTarget = target.toAbsolutePath();
+        final Path parent = absoluteTarget.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path temporary = Files.createTempFile(parent, absoluteTarget.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temporary, absoluteTarget, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, absoluteTarget, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private List<BatchItem> resolveDirectory(final Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            return stream
+                .filter(Files::isRegularFile)
+                .filter(DocxBatchExtractor::isDocx)
+                .sorted()
+                .map(path -> new BatchItem(path, outputFor(directory.relativize(path))))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private List<BatchItem> resolveGlob(final String pattern) throws IOException {
+        final String normalized = pattern.replace('\\', '/');
+        final int firstGlobChar = indexOfGlobChar(normalized);
+        final int baseEnd = normalized.lastIndexOf('/', firstGlobChar);
+        final Path baseDirectory = baseEnd < 0 ? Path.of(".") : Path.of(normalized.substring(0, Math.max(baseEnd, 1)));
+        final String relativePattern = baseEnd < 0 ? normalized : normalized.substring(baseEnd + 1);
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + relativePattern);
+        final PathMatcher topLevelMatcher = relativePattern.startsWith(RECURSIVE_GLOB_PREFIX)
+            ? FileSystems.getDefault().getPathMatcher("glob:" + relativePattern.substring(RECURSIVE_GLOB_PREFIX.length()))
+            : matcher;
+        try (Stream<Path> stream = Files.walk(baseDirectory)) {
+            return stream
+                .filter(Files::isRegularFile)
+                .filter(path -> {
+                    final Path relative = baseDirectory.relativize(path);
+                    return matcher.matches(relative) || relative.getNameCount() == 1 && topLevelMatcher.matches(relative);
+                })
+                .sorted()
+                .map(path -> new BatchItem(path, outputFor(baseDirectory.relativize(path))))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private List<BatchItem> resolveManifest(final Path manifest) throws IOException {
+        final Path manifestDirectory = manifest.toAbsolutePath().normalize().getParent();
+        final List<BatchItem> items = new ArrayList<>();
+        for (final String rawLine : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            final String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith(MANIFEST_COMMENT)) {
+                continue;
+            }
+            final String[] parts = line.split(MANIFEST_SEPARATOR, 2);
+            final Path input = manifestDirectory.resolve(parts[0].trim()).normalize();
+            final Path output = parts.length > 1 && !parts[1].isBlank()
+                ? manifestDirectory.resolve(parts[1].trim())
+                : outputFor(input.startsWith(manifestDirectory) ? manifestDirectory.relativize(input) : input.getFileName());
+            items.add(new BatchItem(input, output));
+        }
+        return items;
+    }
+
+    private Path outputFor(final Path relativeInput) {
+        final String fileName = relativeInput.getFileName().toString();
+        final int dotIndex = fileName.lastIndexOf('.');
+        final String baseName = dotIndex >= 0 ? fileName.substring(0, dotIndex) : fileName;
+        final Path relativeOutput = relativeInput.resolveSibling(baseName + TEXT_EXTENSION);
+        return outputDirectory.resolve(relativeOutput.toString());
+    }
+
+    private static boolean isDocx(final Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(DOCX_EXTENSION);
+    }
+
+    private static boolean isGlob(final String source) {
+        return indexOfGlobChar(source) >= 0;
+    }
+
+    private static int indexOfGlobChar(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (ch == '*' || ch == '?' || ch == '[' || ch == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    record BatchItem(Path input, Path output) {
+    }
+
+    record ItemResult(BatchItem item, long latencyNanos, long cpuNanos, int nodeCount, String error) {
+
+        boolean succeeded() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Aggregated outcome of a batch run including per-file latency
+     * percentiles.
+     */
+    static final class BatchSummary {
+
+        private final List<ItemResult> results;
+        private final long wallNanos;
+        private final int parallelism;
+        private final long[] sortedLatencies;
+
+        BatchSummary(final List<ItemResult> results, final long wallNanos, final int parallelism) {
+            this.results = List.copyOf(results);
+            this.wallNanos = wallNanos;
+            this.parallelism = parallelism;
+            this.sortedLatencies = results.stream().mapToLong(ItemResult::latencyNanos).toArray();
+            Arrays.sort(sortedLatencies);
+        }
+
+        List<ItemResult> results() {
+            return results;
+        }
+
+        long failureCount() {
+            return results.stream().filter(result -> !result.succeeded()).count();
+        }
+
+        void print() {
+            final long succeeded = results.size() - failureCount();
+            final long totalCpu = results.stream().mapToLong(ItemResult::cpuNanos).sum();
+            final long totalNodes = results.stream().mapToLong(ItemResult::nodeCount).sum();
+            final double wallSeconds = wallNanos / 1_000_000_000d;
+            System.out.println();
+            System.out.println("--- Batch Performance Summary ---");
+            System.out.printf(Locale.ROOT, "Documents: %d (succeeded: %d, failed: %d)%n",
+                results.size(), succeeded, failureCount());
+            System.out.printf(Locale.ROOT, "Parallelism: %d%n", parallelism);
+            System.out.printf(Locale.ROOT, "Total Nodes: %d%n", totalNodes);
+            System.out.printf(Locale.ROOT, "Total Execution Time: %d ms%n", wallNanos / 1_000_000L);
+            System.out.printf(Locale.ROOT, "Total CPU Time: %d ms%n", totalCpu / 1_000_000L);
+            System.out.printf(Locale.ROOT, "Throughput: %.2f documents/s%n",
+                wallSeconds > 0 ? results.size() / wallSeconds : 0d);
+            System.out.printf(Locale.ROOT, "Latency p50: %d ms, p90: %d ms, p99: %d ms, max: %d ms%n",
+                percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+        }
+
+        long percentileMillis(final int percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0L;
+            }
+            final int rank = (int) Math.ceil(percentile / 100d * sortedLatencies.length);
+            final int index = Math.min(sortedLatencies.length - 1, Math.max(0, rank - 1));
+            return sortedLatencies[index] / 1_000_000L;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.tnqtech.docx;
 
 import jakarta.xml.bind.JAXBElement;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -11,6 +14,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.docx4j.openpackaging.exceptions.Docx4JException;
 import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
@@ -40,7 +46,7 @@ public class DocxExtractor {
 
     public static class Node {
 
-        private final int id;
+        private int id;
         private final String content;
         private String format;
         private final String paraStyle;
@@ -190,51 +196,112 @@ public class DocxExtractor {
         }
     }
 
+    /**
+     * Smallest number of body elements worth traversing on a separate thread.
+     */
+    private static final int DEFAULT_MIN_CHUNK_ELEMENTS = 512;
+
+    private final int minChunkElements;
     private final Map<Integer, Node> nodeMap = new LinkedHashMap<>();
     private final Map<String, List<Integer>> paraStyleMap = new LinkedHashMap<>();
     private final Map<String, List<Integer>> charStyleMap = new LinkedHashMap<>();
     private final List<BufferFragment> bufferFragments = new ArrayList<>();
     private int runningCharOffset;
 
+    public DocxExtractor() {
+        this(DEFAULT_MIN_CHUNK_ELEMENTS);
+    }
+
+    /**
+     * Creates an extractor that splits document bodies with at least twice
+     * {@code minChunkElements} elements into chunks traversed concurrently.
+     */
+    DocxExtractor(final int minChunkElements) {
+        if (minChunkElements < 1) {
+            throw new IllegalArgumentException("Minimum chunk size must be positive");
+        }
+        this.minChunkElements = minChunkElements;
+    }
+
     public ExtractionResult extract(final Path docxPath) throws DocxExtractorException {
+        return extract(docxPath, RunMetrics.disabled());
+    }
+
+    /**
+     * Extracts the document and records the unzip/unmarshal, traversal and
+     * text assembly timings into {@code metrics}. A JFR extraction event is
+     * committed for every successfully extracted file.
+     */
+    ExtractionResult extract(final Path docxPath, final RunMetrics metrics) throws DocxExtractorException {
         Objects.requireNonNull(docxPath, "DOCX path must not be null");
         if (!Files.exists(docxPath)) {
             throw new DocxExtractorException("DOCX file does not exist: " + docxPath);
         }
+        final PipelineEvents.ExtractionEvent event = new PipelineEvents.ExtractionEvent();
+        event.begin();
         resetState();
 
         try {
-            final WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.load(docxPath.toFile());
+            final RunMetrics.Sample loadSample = metrics.start(RunMetrics.Stage.ZIP_UNMARSHAL);
+            final WordprocessingMLPackage wordMLPackage = load(docxPath);
             final MainDocumentPart mainDocPart = wordMLPackage.getMainDocumentPart();
             final List<Object> bodyElements = mainDocPart.getContent();
-
-            int nodeId = 1;
-            int paragraphIndex = 0;
-
-            for (final Object bodyElement : bodyElements) {
-                final Object element = unwrap(bodyElement);
-                if (element instanceof P) {
-                    nodeId = processParagraph((P) element, paragraphIndex, nodeId, null, null, null, mainDocPart);
-                    appendParagraphBreak();
-                    paragraphIndex++;
-                } else if (element instanceof Tbl) {
-                    nodeId = processTable((Tbl) element, paragraphIndex, nodeId, mainDocPart, bodyElements,
-                            bodyElement);
-                    paragraphIndex++;
-                }
+            loadSample.stop();
+
+            final RunMetrics.Sample traversalSample = metrics.start(RunMetrics.Stage.TRAVERSAL);
+            final int chunkCount = Math.min(bodyElements.size() / minChunkElements,
+                    ForkJoinPool.getCommonPoolParallelism() + 1);
+            if (chunkCount > 1) {
+                traverseInChunks(bodyElements, chunkCount, mainDocPart);
+            } else {
+                traverse(bodyElements, 0, bodyElements.size(), 0, 1, mainDocPart);
             }
+            traversalSample.stop();
         } catch (final Docx4JException ex) {
             throw new DocxExtractorException("Unable to parse DOCX file", ex);
         }
 
+        final RunMetrics.Sample assemblySample = metrics.start(RunMetrics.Stage.TEXT_ASSEMBLY);
         final String plainText;
         try {
             plainText = buildPlainText();
         } catch (final IllegalStateException ex) {
             throw new DocxExtractorException("Unable to assemble plain text output", ex);
         }
-        return new ExtractionResult(new ArrayList<>(nodeMap.values()), new LinkedHashMap<>(paraStyleMap),
-                new LinkedHashMap<>(charStyleMap), plainText);
+        assemblySample.stop();
+        final ExtractionResult result = new ExtractionResult(new ArrayList<>(nodeMap.values()),
+                new LinkedHashMap<>(paraStyleMap), new LinkedHashMap<>(charStyleMap), plainText);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = docxPath.toString();
+            event.nodeCount = result.getNodes().size();
+            event.bytes = fileSize(docxPath);
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * Loads the package from the file, or streams it when the path lives in
+     * another filesystem such as a zip archive.
+     */
+    private static WordprocessingMLPackage load(final Path docxPath) throws Docx4JException, DocxExtractorException {
+        if (docxPath.getFileSystem() == FileSystems.getDefault()) {
+            return WordprocessingMLPackage.load(docxPath.toFile());
+        }
+        try (InputStream input = Files.newInputStream(docxPath)) {
+            return WordprocessingMLPackage.load(input);
+        } catch (final IOException ex) {
+            throw new DocxExtractorException("Unable to read DOCX file", ex);
+        }
+    }
+
+    private static long fileSize(final Path path) {
+        try {
+            return Files.size(path);
+        } catch (final IOException ex) {
+            return -1L;
+        }
     }
 
     private void resetState() {
@@ -245,8 +312,134 @@ public class DocxExtractor {
         runningCharOffset = 0;
     }
 
+    /**
+     * Traverses the body elements in {@code [from, to)}, numbering paragraphs
+     * from {@code firstParagraphIndex} and nodes from {@code startingNodeId}.
+     */
+    private int traverse(final List<Object> bodyElements, final int from, final int to,
+            final int firstParagraphIndex, final int startingNodeId, final MainDocumentPart mainDocPart)
+            throws DocxExtractorException {
+        int nodeId = startingNodeId;
+        int paragraphIndex = firstParagraphIndex;
+        for (int bodyIndex = from; bodyIndex < to; bodyIndex++) {
+            final Object element = unwrap(bodyElements.get(bodyIndex));
+            if (element instanceof P) {
+                nodeId = processParagraph((P) element, paragraphIndex, nodeId, null, null, null, mainDocPart);
+                appendParagraphBreak();
+                paragraphIndex++;
+            } else if (element instanceof Tbl) {
+                nodeId = processTable((Tbl) element, paragraphIndex, nodeId, mainDocPart, bodyElements, bodyIndex);
+                paragraphIndex++;
+            }
+        }
+        return nodeId;
+    }
+
+    /**
+     * Traverses contiguous chunks of the body concurrently, each into its own
+     * extractor with node ids from 1 and offsets from 0, then appends them in
+     * document order with their node ids and positions shifted by everything
+     * before them. Paragraph indices are known up front from the number of
+     * paragraphs and tables before each chunk. Tables still look at the
+     * following element of the whole body, so the result is identical to a
+     * sequential traversal, including which failure is reported first.
+     */
+    private void traverseInChunks(final List<Object> bodyElements, final int chunkCount,
+            final MainDocumentPart mainDocPart) throws DocxExtractorException {
+        final int[] bounds = new int[chunkCount + 1];
+        final int[] firstParagraphIndices = new int[chunkCount];
+        int paragraphCount = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            bounds[chunk + 1] = (int) ((long) bodyElements.size() * (chunk + 1) / chunkCount);
+            firstParagraphIndices[chunk] = paragraphCount;
+            for (int bodyIndex = bounds[chunk]; bodyIndex < bounds[chunk + 1]; bodyIndex++) {
+                final Object element = unwrap(bodyElements.get(bodyIndex));
+                if (element instanceof P || element instanceof Tbl) {
+                    paragraphCount++;
+                }
+            }
+        }
+
+        final List<Future<DocxExtractor>> chunks = new ArrayList<>(chunkCount - 1);
+        boolean completed = false;
+        try {
+            for (int chunk = 1; chunk < chunkCount; chunk++) {
+                final int from = bounds[chunk];
+                final int to = bounds[chunk + 1];
+                final int firstParagraphIndex = firstParagraphIndices[chunk];
+                chunks.add(ForkJoinPool.commonPool().submit(() -> {
+                    final DocxExtractor chunkExtractor = new DocxExtractor(minChunkElements);
+                    chunkExtractor.traverse(bodyElements, from, to, firstParagraphIndex, 1, mainDocPart);
+                    return chunkExtractor;
+                }));
+            }
+            int nodeId = traverse(bodyElements, 0, bounds[1], 0, 1, mainDocPart);
+            for (final Future<DocxExtractor> chunk : chunks) {
+                nodeId = appendChunk(awaitChunk(chunk), nodeId);
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                chunks.forEach(chunk -> chunk.cancel(false));
+            }
+        }
+    }
+
+    private static DocxExtractor awaitChunk(final Future<DocxExtractor> chunk) throws DocxExtractorException {
+        try {
+            return chunk.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DocxExtractorException("Document traversal interrupted", ex);
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof DocxExtractorException) {
+                throw (DocxExtractorException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DocxExtractorException("Document traversal failed", cause);
+        }
+    }
+
+    /**
+     * Appends a chunk traversed from node id 1 and offset 0 behind the
+     * current state and returns the next node id.
+     */
+    private int appendChunk(final DocxExtractor chunk, final int nextNodeId) {
+        final int idShift = nextNodeId - 1;
+        final int offsetShift = runningCharOffset;
+        for (final Node node : chunk.nodeMap.values()) {
+            node.id += idShift;
+            node.startPosition += offsetShift;
+            node.endPosition += offsetShift;
+            nodeMap.put(node.id, node);
+        }
+        appendShiftedIds(paraStyleMap, chunk.paraStyleMap, idShift);
+        appendShiftedIds(charStyleMap, chunk.charStyleMap, idShift);
+        for (final BufferFragment fragment : chunk.bufferFragments) {
+            bufferFragments.add(new BufferFragment(fragment.start + offsetShift, fragment.text));
+        }
+        runningCharOffset += chunk.runningCharOffset;
+        return nextNodeId + chunk.nodeMap.size();
+    }
+
+    private static void appendShiftedIds(final Map<String, List<Integer>> target,
+            final Map<String, List<Integer>> source, final int idShift) {
+        for (final Map.Entry<String, List<Integer>> entry : source.entrySet()) {
+            final List<Integer> ids = target.computeIfAbsent(entry.getKey(), key -> new ArrayList<>());
+            for (final Integer id : entry.getValue()) {
+                ids.add(id + idShift);
+            }
+        }
+    }
+
     private int processTable(final Tbl table, final int paragraphIndex, final int startingNodeId,
-            final MainDocumentPart mainDocPart, final List<Object> bodyElements, final Object tableObject)
+            final MainDocumentPart mainDocPart, final List<Object> bodyElements, final int bodyIndex)
             throws DocxExtractorException {
         int nodeId = startingNodeId;
         final List<Object> rows = table.getContent();
@@ -284,8 +477,7 @@ public class DocxExtractor {
             rowIndex++;
         }
 
-        final int tableIndex = bodyElements.indexOf(tableObject);
-        final int nextIndex = tableIndex + 1;
+        final int nextIndex = bodyIndex + 1;
         if (nextIndex < bodyElements.size()) {
             final Object nextElement = unwrap(bodyElements.get(nextIndex));
             if (!(nextElement instanceof P)) {
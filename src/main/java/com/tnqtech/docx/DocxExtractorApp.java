@@ -7,6 +7,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -14,14 +15,25 @@ import java.util.Locale;
  */
 public final class DocxExtractorApp {
 
+    private static final String BATCH_OPTION = "--batch";
+    private static final String THREADS_OPTION = "--threads";
+    private static final String USAGE_MESSAGE =
+        "Usage:\n"
+            + "  java -jar docx-extractor.jar <input.docx> <output.txt>\n"
+            + "  java -jar docx-extractor.jar --batch <directory|glob|manifest> <output-directory> [--threads <n>]";
+
     private DocxExtractorApp() {
         // utility class
     }
 
     public static void main(final String[] args) throws DocxExtractorException {
         System.setProperty("log4j.defaultInitOverride", "true");
+        if (args.length > 0 && BATCH_OPTION.equals(args[0])) {
+            runBatch(args);
+            return;
+        }
         if (args.length != 2) {
-            System.err.println("Usage: java -jar docx-extractor.jar <input.docx> <output.txt>");
+            System.err.println(USAGE_MESSAGE);
             System.exit(1);
         }
         final Path inputPath = Path.of(args[0]);
@@ -29,10 +41,11 @@ public final class DocxExtractorApp {
 
         final Instant programStart = Instant.now();
         final long cpuStart = getCpuTime();
+        final RunMetrics metrics = new RunMetrics();
 
         final DocxExtractor extractor = new DocxExtractor();
         try {
-            final DocxExtractor.ExtractionResult result = extractor.extract(inputPath);
+            final DocxExtractor.ExtractionResult result = extractor.extract(inputPath, metrics);
             createParentDirectory(textOutputPath);
             Files.writeString(textOutputPath, result.getPlainText());
             printSummary(result);
@@ -42,7 +55,35 @@ public final class DocxExtractorApp {
 
         final Instant programEnd = Instant.now();
         final long cpuEnd = getCpuTime();
-        printPerformance(programStart, programEnd, cpuStart, cpuEnd);
+        printPerformance(programStart, programEnd, cpuStart, cpuEnd, metrics);
+    }
+
+    private static void runBatch(final String[] args) throws DocxExtractorException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        if (args.length == 5 && THREADS_OPTION.equals(args[3])) {
+            try {
+                parallelism = Integer.parseInt(args[4]);
+            } catch (final NumberFormatException ex) {
+                System.err.println(USAGE_MESSAGE);
+                System.exit(1);
+            }
+        } else if (args.length != 3) {
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+        }
+
+        final DocxBatchExtractor batchExtractor = new DocxBatchExtractor(Path.of(args[2]), parallelism);
+        final List<DocxBatchExtractor.BatchItem> items;
+        try {
+            items = batchExtractor.resolveItems(args[1]);
+        } catch (final IOException ex) {
+            throw new DocxExtractorException("Unable to resolve batch input", ex);
+        }
+        final DocxBatchExtractor.BatchSummary summary = batchExtractor.run(items);
+        summary.print();
+        if (summary.failureCount() > 0) {
+            System.exit(1);
+        }
     }
 
     private static void printSummary(final DocxExtractor.ExtractionResult result) {
@@ -51,15 +92,15 @@ public final class DocxExtractorApp {
         System.out.printf(Locale.ROOT, "Character Styles: %s%n", result.getCharacterStyles().keySet());
     }
 
-    private static void printPerformance(final Instant start, final Instant end, final long cpuStart, final long cpuEnd) {
+    private static void printPerformance(final Instant start, final Instant end, final long cpuStart, final long cpuEnd,
+            final RunMetrics metrics) {
         final Duration duration = Duration.between(start, end);
         final long cpuDurationMillis = (cpuEnd - cpuStart) / 1_000_000;
-        final long usedMemoryBytes = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
         System.out.println();
         System.out.println("--- Performance Summary ---");
         System.out.printf(Locale.ROOT, "Total Execution Time: %d ms%n", duration.toMillis());
         System.out.printf(Locale.ROOT, "Total CPU Time: %d ms%n", cpuDurationMillis);
-        System.out.printf(Locale.ROOT, "Memory Usage: %d MB%n", usedMemoryBytes / (1024 * 1024));
+        metrics.printSummary(System.out);
     }
 
     private static long getCpuTime() {
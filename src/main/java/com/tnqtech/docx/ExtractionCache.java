@@ -0,0 +1,177 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Extracts DOCX plain text for the regression pipeline and keeps recent
+ * results in a size-bounded LRU cache keyed by path, size and modification
+ * time. Each thread reuses its own {@link DocxExtractor}.
+ *
+ * <p>Other values derived from input files, such as parsed baselines, can be
+ * kept in the same cache; they are charged against the same character budget
+ * and evicted in the same least recently used order as the texts.</p>
+ */
+final class ExtractionCache {
+
+    private final long maxCachedChars;
+    private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ThreadLocal<DocxExtractor> extractors = ThreadLocal.withInitial(DocxExtractor::new);
+    private long cachedChars;
+    private int valueCount;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache that holds at most the given number of characters.
+     *
+     * @param maxCachedChars the character budget; {@code 0} disables caching
+     */
+    ExtractionCache(final long maxCachedChars) {
+        this.maxCachedChars = Math.max(0L, maxCachedChars);
+    }
+
+    /**
+     * Returns the plain text of the DOCX file and writes it to
+     * {@code textPath} unless that is {@code null}. Extraction failures are
+     * reported as warnings and yield an empty text so that the caller can
+     * continue with the remaining groups.
+     */
+    String extractText(final Path docxPath, final Path textPath, final RunMetrics metrics) throws IOException {
+        final Key key = createKey(docxPath);
+        final String cached = key == null ? null : lookup(key);
+        if (cached != null) {
+            if (textPath != null && !Files.exists(textPath)) {
+                Files.writeString(textPath, cached, StandardCharsets.UTF_8);
+            }
+            return cached;
+        }
+
+        String text;
+        try {
+            text = extractors.get().extract(docxPath, metrics).getPlainText();
+        } catch (final DocxExtractorException ex) {
+            System.err.printf(Locale.ROOT, "Warning: Failed to extract text from %s: %s%n", docxPath, ex.getMessage());
+            writeText(textPath, "");
+            return "";
+        } catch (final RuntimeException ex) {
+            System.err.printf(Locale.ROOT, "Warning: Error processing %s: %s%n", docxPath, ex.getMessage());
+            writeText(textPath, "");
+            return "";
+        }
+        writeText(textPath, text);
+        if (key != null) {
+            store(key, text);
+        }
+        return text;
+    }
+
+    private static void writeText(final Path textPath, final String text) throws IOException {
+        if (textPath != null) {
+            Files.writeString(textPath, text, StandardCharsets.UTF_8);
+        }
+    }
+
+    synchronized long hits() {
+        return hits;
+    }
+
+    synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of cached texts.
+     */
+    synchronized int size() {
+        return entries.size() - valueCount;
+    }
+
+    /**
+     * Returns the number of cached derived values.
+     */
+    synchronized int valueCount() {
+        return valueCount;
+    }
+
+    synchronized long cachedChars() {
+        return cachedChars;
+    }
+
+    /**
+     * Returns a derived value stored under {@code key}, or {@code null}.
+     */
+    synchronized Object value(final Object key) {
+        final Entry entry = entries.get(key);
+        return entry == null ? null : entry.value();
+    }
+
+    /**
+     * Stores a derived value that is charged as {@code chars} characters
+     * against the budget. The key must include whatever identifies the
+     * version of the input the value was derived from.
+     */
+    synchronized void storeValue(final Object key, final Object value, final long chars) {
+        put(key, new Entry(value, chars));
+    }
+
+    private synchronized String lookup(final Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (String) entry.value();
+    }
+
+    private synchronized void store(final Key key, final String text) {
+        put(key, new Entry(text, text.length()));
+    }
+
+    private void put(final Object key, final Entry entry) {
+        if (entry.chars() > maxCachedChars) {
+            return;
+        }
+        final Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            cachedChars -= previous.chars();
+        } else if (!(key instanceof Key)) {
+            valueCount++;
+        }
+        cachedChars += entry.chars();
+        final Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (cachedChars > maxCachedChars && iterator.hasNext()) {
+            final Map.Entry<Object, Entry> eldest = iterator.next();
+            cachedChars -= eldest.getValue().chars();
+            if (!(eldest.getKey() instanceof Key)) {
+                valueCount--;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static Key createKey(final Path docxPath) {
+        try {
+            return new Key(
+                docxPath.toAbsolutePath().normalize(),
+                Files.size(docxPath),
+                Files.getLastModifiedTime(docxPath).toMillis()
+            );
+        } catch (final IOException ex) {
+            return null;
+        }
+    }
+
+    private record Key(Path path, long size, long lastModified) {
+    }
+
+    private record Entry(Object value, long chars) {
+    }
+}
@@ -0,0 +1,328 @@
+package com.tnqtech.docx;
+
+/**
+ * Single-pass field sanitizers for the decision CSV fields.
+ *
+ * <p>Each {@link FieldKind} performs the quote stripping, whitespace
+ * normalization and quote removal that used to be chained string by string
+ * in one scan over the value, writing into a per-thread buffer that is reused
+ * across calls. File references take a second, in-place pass over the same
+ * buffer for the {@code %22} and quote rules. When a value is already clean
+ * the original instance is returned and nothing is allocated.</p>
+ */
+final class FieldSanitizer {
+
+    /** The field kinds that share a sanitizer. */
+    enum FieldKind {
+        /** Enclosing and boundary quotes stripped, whitespace collapsed and trimmed. */
+        TEXT,
+        /** {@link #TEXT} followed by the removal of every remaining double quote. */
+        TEXT_WITHOUT_DOUBLE_QUOTES,
+        /** {@link #TEXT} followed by quote and {@code %22} removal and file scheme clean-up. */
+        FILE_REFERENCE
+    }
+
+    private static final ThreadLocal<FieldSanitizer> SANITIZERS = ThreadLocal.withInitial(FieldSanitizer::new);
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+    private static final int MAX_REMOVED_QUOTES = 4;
+
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private final int[] removed = new int[MAX_REMOVED_QUOTES];
+    private int removedCount;
+
+    private FieldSanitizer() {
+    }
+
+    /**
+     * Sanitizes {@code value} as a field of the given kind. {@code null}
+     * becomes the empty string.
+     */
+    static String sanitize(final FieldKind kind, final String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.isEmpty()) {
+            return value;
+        }
+        return SANITIZERS.get().apply(kind, value);
+    }
+
+    /**
+     * Collapses every run of whitespace, including non-breaking and zero width
+     * spaces, into a single space and trims the result.
+     */
+    static String normalizeWhitespace(final String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        final StringBuilder builder = new StringBuilder(value.length());
+        boolean previousWhitespace = false;
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (isWhitespaceCharacter(ch)) {
+                if (!previousWhitespace) {
+                    builder.append(' ');
+                    previousWhitespace = true;
+                }
+            } else {
+                builder.append(ch);
+                previousWhitespace = false;
+            }
+        }
+        int start = 0;
+        int end = builder.length();
+        while (start < end && builder.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && builder.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start >= end) {
+            return "";
+        }
+        return builder.substring(start, end);
+    }
+
+    static boolean isWhitespaceCharacter(final char ch) {
+        return Character.isWhitespace(ch)
+            || ch == '\u00A0'
+            || ch == '\u2007'
+            || ch == '\u202F'
+            || ch == '\u200B'
+            || ch == '\u2060'
+            || ch == '\uFEFF';
+    }
+
+    static String collapseDuplicateFileScheme(final String value) {
+        String result = value;
+        final String duplicate = "file:///file:///";
+        while (result.contains(duplicate)) {
+            result = result.replace(duplicate, "file:///");
+        }
+        final String prefix = "file:///";
+        if (result.startsWith(prefix)) {
+            final int lastIndex = result.lastIndexOf(prefix);
+            if (lastIndex > 0) {
+                result = result.substring(lastIndex);
+            }
+        }
+        final String alternateDuplicate = "file://file://";
+        while (result.contains(alternateDuplicate)) {
+            result = result.replace(alternateDuplicate, "file://");
+        }
+        return result;
+    }
+
+    static String stripOuterQuotes(final String value) {
+        if (value == null) {
+            return null;
+        }
+        String result = value.trim();
+        while (result.length() >= 6 && result.startsWith("%22") && result.endsWith("%22")) {
+            result = result.substring(3, result.length() - 3).trim();
+        }
+        if (result.length() >= 2) {
+            final char first = result.charAt(0);
+            final char last = result.charAt(result.length() - 1);
+            if ((first == '"' && last == '"') || (first == '\'' && last == '\'')) {
+                result = result.substring(1, result.length() - 1).trim();
+            }
+        }
+        return result;
+    }
+
+    private String apply(final FieldKind kind, final String value) {
+        final int length = value.length();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        try {
+            locateQuoteRemovals(value);
+            final int size = normalize(value, kind == FieldKind.TEXT_WITHOUT_DOUBLE_QUOTES);
+            if (kind != FieldKind.FILE_REFERENCE) {
+                return size < 0 ? value : new String(buffer, 0, size);
+            }
+            if (size == 0) {
+                return "";
+            }
+            final int cleanedSize = cleanFileReference(size < 0 ? copyToBuffer(value) : size);
+            final String cleaned;
+            if (cleanedSize < 0) {
+                cleaned = size < 0 ? value : new String(buffer, 0, size);
+            } else {
+                cleaned = new String(buffer, 0, cleanedSize);
+            }
+            return stripOuterQuotes(collapseDuplicateFileScheme(cleaned));
+        } finally {
+            if (buffer.length > MAX_RETAINED_CAPACITY) {
+                buffer = new char[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    /**
+     * Records which quotes the enclosing and boundary quote rules remove. The
+     * rules are applied in order, each one seeing the value as left by the
+     * previous rule, and boundaries are found with
+     * {@link Character#isWhitespace(char)}.
+     */
+    private void locateQuoteRemovals(final String value) {
+        removedCount = 0;
+        final int first = nextNonWhitespace(value, 0);
+        if (first < 0) {
+            return;
+        }
+        final int last = previousNonWhitespace(value, value.length() - 1);
+        if (value.charAt(first) == '"' && value.charAt(last) == '"') {
+            // A lone quote also takes the whitespace after it, which normalization drops anyway.
+            markRemoved(last);
+            if (first != last) {
+                markRemoved(first);
+            }
+        }
+        final int leading = nextNonWhitespace(value, 0);
+        if (leading >= 0 && value.charAt(leading) == '"') {
+            final int adjacent = nextRetained(value, leading + 1);
+            if (adjacent < 0 || value.charAt(adjacent) != '"') {
+                markRemoved(leading);
+            }
+        }
+        final int trailing = previousNonWhitespace(value, value.length() - 1);
+        if (trailing >= 0 && value.charAt(trailing) == '"') {
+            final int adjacent = previousRetained(trailing - 1);
+            if (adjacent < 0 || value.charAt(adjacent) != '"') {
+                markRemoved(trailing);
+            }
+        }
+    }
+
+    /**
+     * Writes the retained characters with whitespace runs collapsed and
+     * trimmed into the buffer and returns the size, or {@code -1} when the
+     * result equals {@code value}. Dropped double quotes still separate
+     * whitespace runs, as they did when they were removed after normalization.
+     */
+    private int normalize(final String value, final boolean dropDoubleQuotes) {
+        final int length = value.length();
+        final char[] target = buffer;
+        int size = 0;
+        boolean content = false;
+        boolean pendingSpace = false;
+        boolean rewritten = false;
+        for (int i = 0; i < length; i++) {
+            final char ch = value.charAt(i);
+            if (isWhitespaceCharacter(ch)) {
+                if (ch != ' ') {
+                    rewritten = true;
+                }
+                pendingSpace = content;
+                continue;
+            }
+            if (removedCount > 0 && isRemoved(i)) {
+                continue;
+            }
+            if (pendingSpace) {
+                target[size++] = ' ';
+                pendingSpace = false;
+            }
+            content = true;
+            if (dropDoubleQuotes && ch == '"') {
+                continue;
+            }
+            target[size++] = ch;
+        }
+        return size == length && !rewritten ? -1 : size;
+    }
+
+    /**
+     * Removes {@code %22}, turns quotes into spaces and collapses the spaces
+     * of the normalized value in the buffer, in place. Returns the new size,
+     * or {@code -1} when nothing changed.
+     */
+    private int cleanFileReference(final int size) {
+        final char[] target = buffer;
+        int write = 0;
+        boolean content = false;
+        boolean pendingSpace = false;
+        boolean rewritten = false;
+        int read = 0;
+        while (read < size) {
+            if (read + 2 < size && target[read] == '%' && target[read + 1] == '2' && target[read + 2] == '2') {
+                read += 3;
+                rewritten = true;
+                continue;
+            }
+            char ch = target[read++];
+            if (ch == '"' || ch == '\'') {
+                ch = ' ';
+                rewritten = true;
+            }
+            if (isWhitespaceCharacter(ch)) {
+                pendingSpace = content;
+                continue;
+            }
+            if (pendingSpace) {
+                target[write++] = ' ';
+                pendingSpace = false;
+            }
+            content = true;
+            target[write++] = ch;
+        }
+        return write == size && !rewritten ? -1 : write;
+    }
+
+    private int copyToBuffer(final String value) {
+        value.getChars(0, value.length(), buffer, 0);
+        return value.length();
+    }
+
+    private void markRemoved(final int index) {
+        removed[removedCount++] = index;
+    }
+
+    private boolean isRemoved(final int index) {
+        for (int i = 0; i < removedCount; i++) {
+            if (removed[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int nextNonWhitespace(final String value, final int from) {
+        for (int i = from; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i)) && !isRemoved(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int previousNonWhitespace(final String value, final int from) {
+        for (int i = from; i >= 0; i--) {
+            if (!Character.isWhitespace(value.charAt(i)) && !isRemoved(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int nextRetained(final String value, final int from) {
+        for (int i = from; i < value.length(); i++) {
+            if (!isRemoved(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int previousRetained(final int from) {
+        for (int i = from; i >= 0; i--) {
+            if (!isRemoved(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
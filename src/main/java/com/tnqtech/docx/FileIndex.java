@@ -0,0 +1,122 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory record of the files and directories below an input directory,
+ * used to answer {@link Files#exists} questions for report links without a
+ * filesystem probe per difference.
+ *
+ * <p>The index is filled while the input directory is walked. Once it is
+ * {@linkplain #markComplete() complete}, a path below the root is known to
+ * exist when it was recorded and known to be missing when not even a
+ * case-insensitive match was recorded. Anything else (paths outside the
+ * root or containing {@code .}/{@code ..} segments, case-only mismatches that
+ * a case-insensitive filesystem would resolve, or an incomplete index) is
+ * probed on the filesystem once and the answer is remembered.</p>
+ */
+final class FileIndex {
+
+    private final Path root;
+    private final Set<Path> entries = ConcurrentHashMap.newKeySet();
+    private final Set<String> foldedEntries = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Boolean> probes = new ConcurrentHashMap<>();
+    private volatile boolean complete;
+
+    FileIndex(final Path root) {
+        this.root = root.toAbsolutePath();
+    }
+
+    /**
+     * Builds a complete index with a single walk of {@code root}. When the
+     * walk fails the returned index probes the filesystem for every path.
+     */
+    static FileIndex scan(final Path root) {
+        final FileIndex index = new FileIndex(root);
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.forEach(path -> {
+                if (Files.isRegularFile(path) || Files.isDirectory(path)) {
+                    index.add(path);
+                }
+            });
+            index.markComplete();
+        } catch (final IOException | UncheckedIOException ex) {
+            index.entries.clear();
+            index.foldedEntries.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Records an existing file or directory.
+     */
+    void add(final Path path) {
+        final Path absolute = path.toAbsolutePath();
+        entries.add(absolute);
+        foldedEntries.add(fold(absolute));
+        probes.remove(absolute);
+    }
+
+    /**
+     * Forgets an entry that no longer exists. Its case-folded form is kept,
+     * so later questions about the path are answered by a probe.
+     */
+    void remove(final Path path) {
+        final Path absolute = path.toAbsolutePath();
+        entries.remove(absolute);
+        probes.remove(absolute);
+    }
+
+    /**
+     * Declares that every entry below the root has been recorded.
+     */
+    void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * Returns what {@link Files#exists} would return for {@code path}.
+     */
+    boolean exists(final Path path) {
+        final Path absolute = path.toAbsolutePath();
+        if (!complete || !isIndexed(absolute)) {
+            return probe(absolute);
+        }
+        if (entries.contains(absolute)) {
+            return true;
+        }
+        if (!foldedEntries.contains(fold(absolute))) {
+            return false;
+        }
+        return probe(absolute);
+    }
+
+    private boolean isIndexed(final Path absolute) {
+        if (!absolute.startsWith(root)) {
+            return false;
+        }
+        for (int i = root.getNameCount(); i < absolute.getNameCount(); i++) {
+            final String name = absolute.getName(i).toString();
+            if (".".equals(name) || "..".equals(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean probe(final Path absolute) {
+        return probes.computeIfAbsent(absolute, Files::exists);
+    }
+
+    private static String fold(final Path absolute) {
+        return absolute.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,142 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the processing cost of a file group for largest-first
+ * scheduling.
+ *
+ * <p>Without history the estimate is the combined size in bytes of the
+ * group's {@code _preACE.docx}, {@code _midACE.docx} and {@code .dom}. With a
+ * history file from earlier runs, a group whose files still have the same
+ * size is estimated by the time it took last time, and every other group by
+ * its size times the average time per byte over the history, so all
+ * estimates are in nanoseconds. The time spent on each group in this run is
+ * recorded and can be written back to the history file.</p>
+ */
+final class GroupCostModel {
+
+    private static final String HEADER = "prefix\tbytes\tnanos";
+    private static final char SEPARATOR = '\t';
+
+    private final Path historyPath;
+    private final Map<String, Timing> history;
+    private final Map<String, Timing> current = new ConcurrentHashMap<>();
+    private final double nanosPerByte;
+
+    private GroupCostModel(final Path historyPath, final Map<String, Timing> history) {
+        this.historyPath = historyPath;
+        this.history = history;
+        long bytes = 0L;
+        long nanos = 0L;
+        for (final Timing timing : history.values()) {
+            bytes += timing.bytes();
+            nanos += timing.nanos();
+        }
+        this.nanosPerByte = bytes > 0L ? (double) nanos / bytes : 0d;
+    }
+
+    /**
+     * Returns a model that estimates by size only and keeps no history.
+     */
+    static GroupCostModel sizeOnly() {
+        return new GroupCostModel(null, Map.of());
+    }
+
+    /**
+     * Loads the timings stored in {@code historyPath}; a missing file starts
+     * an empty history. Malformed lines are ignored.
+     */
+    static GroupCostModel load(final Path historyPath) throws IOException {
+        if (historyPath == null) {
+            return sizeOnly();
+        }
+        final Map<String, Timing> history = new HashMap<>();
+        if (Files.isRegularFile(historyPath)) {
+            final List<String> lines = Files.readAllLines(historyPath, StandardCharsets.UTF_8);
+            for (final String line : lines) {
+                final Timing timing = parseLine(line);
+                if (timing != null) {
+                    history.put(line.substring(0, line.indexOf(SEPARATOR)), timing);
+                }
+            }
+        }
+        return new GroupCostModel(historyPath, history);
+    }
+
+    /**
+     * Returns the estimated cost of the group with the given key and total
+     * file size.
+     */
+    long estimate(final String prefix, final long bytes) {
+        final Timing previous = history.get(prefix);
+        if (previous != null && previous.bytes() == bytes) {
+            return previous.nanos();
+        }
+        if (nanosPerByte > 0d) {
+            return (long) (bytes * nanosPerByte);
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds time spent on a group in this run.
+     */
+    void record(final String prefix, final long bytes, final long nanos) {
+        current.merge(prefix, new Timing(bytes, nanos), (left, right) -> new Timing(right.bytes(), left.nanos() + right.nanos()));
+    }
+
+    /**
+     * Writes the history merged with this run's timings back to the history
+     * file, if there is one.
+     */
+    void save() throws IOException {
+        if (historyPath == null) {
+            return;
+        }
+        final Map<String, Timing> merged = new TreeMap<>(history);
+        merged.putAll(current);
+        final StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (final Map.Entry<String, Timing> entry : merged.entrySet()) {
+            builder.append(entry.getKey())
+                .append(SEPARATOR)
+                .append(entry.getValue().bytes())
+                .append(SEPARATOR)
+                .append(entry.getValue().nanos())
+                .append('\n');
+        }
+        final Path parent = historyPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path temporary = historyPath.resolveSibling(historyPath.getFileName() + ".tmp");
+        Files.writeString(temporary, builder.toString(), StandardCharsets.UTF_8);
+        Files.move(temporary, historyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Timing parseLine(final String line) {
+        final String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+        if (fields.length != 3 || HEADER.equals(line)) {
+            return null;
+        }
+        try {
+            final long bytes = Long.parseLong(fields[1].trim());
+            final long nanos = Long.parseLong(fields[2].trim());
+            return bytes >= 0L && nanos >= 0L ? new Timing(bytes, nanos) : null;
+        } catch (final NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private record Timing(long bytes, long nanos) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Groups that exceeded their time budget in an earlier run, kept in a tab
+ * separated file so that later runs skip them instead of stalling on them
+ * again.
+ *
+ * <p>Each entry records the fingerprint of the group's files when it was
+ * quarantined. A group whose files have changed since is processed again, as
+ * is every quarantined group when a retry is requested; a group that then
+ * completes is released from the quarantine.</p>
+ */
+final class GroupQuarantine {
+
+    static final String FILE_NAME = "quarantine.tsv";
+
+    private static final String HEADER = "prefix\tfingerprint\tattempts\treason";
+    private static final char SEPARATOR = '\t';
+
+    private final Path path;
+    private final boolean retry;
+    private final Map<String, Entry> entries;
+    private boolean changed;
+
+    private GroupQuarantine(final Path path, final boolean retry, final Map<String, Entry> entries) {
+        this.path = path;
+        this.retry = retry;
+        this.entries = entries;
+    }
+
+    /**
+     * Loads the quarantine stored in {@code path}; a missing file starts an
+     * empty quarantine. Malformed lines are ignored. With {@code retry} set,
+     * no group is skipped.
+     */
+    static GroupQuarantine load(final Path path, final boolean retry) throws IOException {
+        final Map<String, Entry> entries = new TreeMap<>();
+        if (Files.isRegularFile(path)) {
+            for (final String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                final Entry entry = parseLine(line);
+                if (entry != null) {
+                    entries.put(entry.prefix(), entry);
+                }
+            }
+        }
+        return new GroupQuarantine(path, retry, entries);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Returns whether the group with the given key and file fingerprint is
+     * to be skipped.
+     */
+    synchronized boolean skips(final String prefix, final String fingerprint) {
+        final Entry entry = entries.get(prefix);
+        return !retry && entry != null && Objects.equals(entry.fingerprint(), fingerprint);
+    }
+
+    /**
+     * Quarantines a group.
+     */
+    synchronized void add(final String prefix, final String fingerprint, final int attempts, final String reason) {
+        entries.put(prefix, new Entry(prefix, fingerprint, attempts, clean(reason)));
+        changed = true;
+    }
+
+    /**
+     * Releases a group that has completed.
+     */
+    synchronized void release(final String prefix) {
+        changed |= entries.remove(prefix) != null;
+    }
+
+    /**
+     * Replaces the quarantined groups, as when merging the quarantines
+     * reported by the shards of a sharded run.
+     */
+    synchronized void replaceWith(final List<Entry> replacement) {
+        final Map<String, Entry> updated = new TreeMap<>();
+        for (final Entry entry : replacement) {
+            updated.put(entry.prefix(), entry);
+        }
+        if (!updated.equals(entries)) {
+            entries.clear();
+            entries.putAll(updated);
+            changed = true;
+        }
+    }
+
+    /**
+     * Returns the quarantined groups ordered by key.
+     */
+    synchronized List<Entry> entries() {
+        return List.copyOf(entries.values());
+    }
+
+    /**
+     * Writes the quarantine back if it changed during the run; an empty
+     * quarantine removes the file.
+     */
+    synchronized void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+        if (entries.isEmpty()) {
+            Files.deleteIfExists(path);
+            changed = false;
+            return;
+        }
+        final StringBuilder builder = new StringBuilder(HEADER).append('\n');
+        for (final Entry entry : entries.values()) {
+            builder.append(entry.prefix())
+                .append(SEPARATOR)
+                .append(entry.fingerprint() == null ? "" : entry.fingerprint())
+                .append(SEPARATOR)
+                .append(entry.attempts())
+                .append(SEPARATOR)
+                .append(entry.reason())
+                .append('\n');
+        }
+        final Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temporary, builder.toString(), StandardCharsets.UTF_8);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        changed = false;
+    }
+
+    private static Entry parseLine(final String line) {
+        final String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+        if (fields.length != 4 || HEADER.equals(line) || fields[0].isEmpty()) {
+            return null;
+        }
+        try {
+            final int attempts = Integer.parseInt(fields[2].trim());
+            return new Entry(fields[0], fields[1].isEmpty() ? null : fields[1], attempts, fields[3]);
+        } catch (final NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static String clean(final String reason) {
+        return reason == null ? "" : reason.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * One quarantined group: its key, the fingerprint of its files, the
+     * number of attempts it was given and why it was quarantined.
+     */
+    record Entry(String prefix, String fingerprint, int attempts, String reason) {
+    }
+}
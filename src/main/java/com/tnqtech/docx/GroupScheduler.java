@@ -0,0 +1,85 @@
+package com.tnqtech.docx;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Hand-off between a producer that discovers work items and a consumer that
+ * dispatches them, always releasing the most expensive item offered so far.
+ * Items of equal cost leave in the order they were offered.
+ *
+ * <p>The consumer blocks in {@link #take()} while nothing is pending, so
+ * dispatch starts with the first item found and every later dispatch picks
+ * the largest item discovered by then.</p>
+ *
+ * @param <T> the item type
+ */
+final class GroupScheduler<T> {
+
+    private final PriorityQueue<Scheduled<T>> pending = new PriorityQueue<>(
+        Comparator.<Scheduled<T>>comparingLong(Scheduled::cost).reversed()
+            .thenComparingLong(Scheduled::sequence)
+    );
+    private long sequence;
+    private boolean closed;
+    private boolean cancelled;
+    private Exception failure;
+
+    /**
+     * Offers an item with its estimated cost.
+     */
+    synchronized void offer(final T item, final long cost) {
+        pending.add(new Scheduled<>(item, cost, sequence++));
+        notifyAll();
+    }
+
+    /**
+     * Declares that no more items will be offered.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Ends the hand-off with a failure that {@link #take()} rethrows.
+     */
+    synchronized void fail(final Exception exception) {
+        failure = exception;
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Tells the producer to stop; pending items are discarded.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        pending.clear();
+        notifyAll();
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the most expensive pending item, waiting for one if necessary,
+     * or {@code null} once the producer is done and nothing is pending.
+     *
+     * @throws Exception the producer failure passed to {@link #fail}
+     */
+    synchronized T take() throws Exception {
+        while (pending.isEmpty() && !closed && !cancelled) {
+            wait();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        final Scheduled<T> next = pending.poll();
+        return next == null ? null : next.item();
+    }
+
+    private record Scheduled<T>(T item, long cost, long sequence) {
+    }
+}
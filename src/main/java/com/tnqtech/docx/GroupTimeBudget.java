@@ -0,0 +1,233 @@
+package com.tnqtech.docx;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs per-group work as cancellable tasks with a time limit and a bounded
+ * number of retries.
+ *
+ * <p>Work that overruns its limit is cancelled by interrupting its thread,
+ * and a retry starts only once the cancelled attempt has actually returned,
+ * so two attempts never load the same files at once. Code that ignores
+ * interrupts, such as a docx4j load stuck in a pathological document, may
+ * not return within another limit; the work is then abandoned without
+ * further retries and keeps its daemon thread busy until it returns, but the
+ * caller moves on. Callers learn through callbacks when an attempt is
+ * abandoned and when no attempt is running anymore, which is when the
+ * resources held for the work may be given back. Once every thread is held
+ * by an abandoned attempt no work can run, and further calls fail at once.
+ * A limit of zero runs the work inline without a limit.</p>
+ */
+final class GroupTimeBudget implements Closeable {
+
+    private final long timeoutMillis;
+    private final int retries;
+    private final int threads;
+    private final AtomicInteger abandonedAttempts = new AtomicInteger();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Creates a budget whose work runs on at most {@code maxThreads}
+     * threads, abandoned attempts included.
+     */
+    GroupTimeBudget(final long timeoutMillis, final int retries, final int maxThreads) {
+        this.timeoutMillis = timeoutMillis;
+        this.retries = retries;
+        this.threads = Math.max(1, maxThreads);
+        if (timeoutMillis > 0L) {
+            executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                1L,
+                TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(),
+                new BudgetThreadFactory()
+            );
+            executor.allowCoreThreadTimeOut(true);
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Runs {@code work}, starting it afresh after each timeout until the
+     * retries are used up. {@code abandoned} runs when an attempt is
+     * abandoned, and {@code settled} once no attempt is running anymore:
+     * before returning or throwing, or later, when an abandoned attempt
+     * returns.
+     *
+     * @throws ExceededException if every attempt ran out of time
+     * @throws ExhaustedException if every thread is held by an abandoned
+     *     attempt
+     */
+    <T> T call(final Callable<T> work, final Runnable abandoned, final Runnable settled) throws Exception {
+        if (executor == null) {
+            try {
+                return work.call();
+            } finally {
+                settled.run();
+            }
+        }
+        if (abandonedAttempts.get() >= threads) {
+            settled.run();
+            throw new ExhaustedException(threads);
+        }
+        for (int attempt = 1; ; attempt++) {
+            final AtomicBoolean started = new AtomicBoolean();
+            final CountDownLatch exited = new CountDownLatch(1);
+            final Future<T> future;
+            try {
+                future = executor.submit(() -> {
+                    if (!started.compareAndSet(false, true)) {
+                        return null;
+                    }
+                    try {
+                        return work.call();
+                    } finally {
+                        exited.countDown();
+                    }
+                });
+            } catch (final RuntimeException ex) {
+                settled.run();
+                throw ex;
+            }
+            try {
+                final T result = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                settled.run();
+                return result;
+            } catch (final TimeoutException ex) {
+                future.cancel(true);
+                if (!awaitExit(started, exited)) {
+                    abandon(exited, abandoned, settled);
+                    throw new ExceededException(attempt, timeoutMillis);
+                }
+                if (attempt > retries) {
+                    settled.run();
+                    throw new ExceededException(attempt, timeoutMillis);
+                }
+            } catch (final InterruptedException ex) {
+                future.cancel(true);
+                if (started.compareAndSet(false, true)) {
+                    settled.run();
+                } else {
+                    abandon(exited, abandoned, settled);
+                }
+                throw ex;
+            } catch (final ExecutionException ex) {
+                settled.run();
+                final Throwable cause = ex.getCause();
+                if (cause instanceof Exception exception) {
+                    throw exception;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Waits up to another time limit for a cancelled attempt to return;
+     * an attempt that has not started yet is kept from starting.
+     */
+    private boolean awaitExit(final AtomicBoolean started, final CountDownLatch exited) {
+        if (started.compareAndSet(false, true)) {
+            return true;
+        }
+        try {
+            return exited.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Runs {@code settled} once an attempt that may still be running has
+     * returned, without waiting for it here.
+     */
+    private void abandon(final CountDownLatch exited, final Runnable abandoned, final Runnable settled) {
+        abandonedAttempts.incrementAndGet();
+        abandoned.run();
+        final Thread watcher = new Thread(() -> {
+            try {
+                exited.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                abandonedAttempts.decrementAndGet();
+                settled.run();
+            }
+        }, "group-budget-abandoned");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops accepting work and interrupts work still running.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Raised when every attempt at a piece of work ran out of time.
+     */
+    static final class ExceededException extends Exception {
+
+        private final int attempts;
+
+        ExceededException(final int attempts, final long timeoutMillis) {
+            super(String.format(Locale.ROOT, "exceeded %d ms in %d attempt(s)", timeoutMillis, attempts));
+            this.attempts = attempts;
+        }
+
+        int attempts() {
+            return attempts;
+        }
+    }
+
+    /**
+     * Raised when every thread is held by an abandoned attempt, so that no
+     * further work can run.
+     */
+    static final class ExhaustedException extends IOException {
+
+        ExhaustedException(final int threads) {
+            super(String.format(
+                Locale.ROOT,
+                "All %d extraction thread(s) are held by abandoned attempts",
+                threads
+            ));
+        }
+    }
+
+    private static final class BudgetThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "group-budget-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
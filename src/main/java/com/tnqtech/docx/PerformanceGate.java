@@ -0,0 +1,749 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Guards the tool's own performance. {@code save} stores JMH results and the
+ * scaling curve written by {@link ScalabilityHarness} as a baseline file;
+ * {@code compare} checks a fresh run against that baseline with separate
+ * tolerances for time and memory metrics, writes an HTML and a markdown diff
+ * and reports a regression through a non-zero exit code.
+ */
+final class PerformanceGate {
+
+    static final String GATE_OPTION = "--perf-gate";
+    static final int REGRESSION_EXIT_CODE = 2;
+    static final String HTML_REPORT_FILE_NAME = "performance_report.html";
+    static final String MARKDOWN_REPORT_FILE_NAME = "performance_report.md";
+
+    private static final String SAVE_ACTION = "save";
+    private static final String COMPARE_ACTION = "compare";
+    private static final double DEFAULT_TIME_TOLERANCE_PERCENT = 10d;
+    private static final double DEFAULT_MEMORY_TOLERANCE_PERCENT = 15d;
+    private static final String BASELINE_HEADER = "metric,kind,better,unit,value";
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /**
+     * Whether a metric measures speed or memory, which selects its tolerance.
+     */
+    enum Kind {
+        TIME,
+        MEMORY
+    }
+
+    /**
+     * Outcome of comparing one metric with its baseline.
+     */
+    enum Verdict {
+        REGRESSION,
+        IMPROVEMENT,
+        UNCHANGED,
+        MISSING,
+        NEW
+    }
+
+    private final boolean save;
+    private final Path baselinePath;
+    private final Path jmhResults;
+    private final Path scalingResults;
+    private final double timeTolerancePercent;
+    private final double memoryTolerancePercent;
+    private final Path reportDirectory;
+
+    private PerformanceGate(
+        final boolean save,
+        final Path baselinePath,
+        final Path jmhResults,
+        final Path scalingResults,
+        final double timeTolerancePercent,
+        final double memoryTolerancePercent,
+        final Path reportDirectory
+    ) {
+        this.save = save;
+        this.baselinePath = baselinePath;
+        this.jmhResults = jmhResults;
+        this.scalingResults = scalingResults;
+        this.timeTolerancePercent = timeTolerancePercent;
+        this.memoryTolerancePercent = memoryTolerancePercent;
+        this.reportDirectory = reportDirectory;
+    }
+
+    /**
+     * Parses {@code --perf-gate save|compare --baseline <file> [--jmh <json>]
+     * [--scaling <csv>] [--time-tolerance <pct>] [--memory-tolerance <pct>]
+     * [--report-dir <dir>]}.
+     *
+     * @throws IllegalArgumentException if the arguments are incomplete or malformed
+     */
+    static PerformanceGate fromArguments(final String[] args) {
+        if (args.length < 2 || !SAVE_ACTION.equals(args[1]) && !COMPARE_ACTION.equals(args[1])) {
+            throw new IllegalArgumentException("Expected 'save' or 'compare' after " + GATE_OPTION);
+        }
+        Path baselinePath = null;
+        Path jmhResults = null;
+        Path scalingResults = null;
+        double timeTolerance = DEFAULT_TIME_TOLERANCE_PERCENT;
+        double memoryTolerance = DEFAULT_MEMORY_TOLERANCE_PERCENT;
+        Path reportDirectory = null;
+        for (int i = 2; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option " + args[i]);
+            }
+            final String option = args[i];
+            final String value = args[++i];
+            switch (option) {
+                case "--baseline":
+                    baselinePath = Path.of(value);
+                    break;
+                case "--jmh":
+                    jmhResults = Path.of(value);
+                    break;
+                case "--scaling":
+                    scalingResults = Path.of(value);
+                    break;
+                case "--time-tolerance":
+                    timeTolerance = parsePercent(option, value);
+                    break;
+                case "--memory-tolerance":
+                    memoryTolerance = parsePercent(option, value);
+                    break;
+                case "--report-dir":
+                    reportDirectory = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown performance gate option: " + option);
+            }
+        }
+        if (baselinePath == null) {
+            throw new IllegalArgumentException("Missing --baseline <file>");
+        }
+        if (jmhResults == null && scalingResults == null) {
+            throw new IllegalArgumentException("Provide --jmh <json> and/or --scaling <csv>");
+        }
+        if (reportDirectory == null) {
+            final Path parent = baselinePath.toAbsolutePath().getParent();
+            reportDirectory = parent == null ? Path.of(".") : parent;
+        }
+        return new PerformanceGate(
+            SAVE_ACTION.equals(args[1]),
+            baselinePath,
+            jmhResults,
+            scalingResults,
+            timeTolerance,
+            memoryTolerance,
+            reportDirectory
+        );
+    }
+
+    /**
+     * Saves the baseline or compares against it and returns the process exit
+     * code: zero unless a metric regressed beyond its tolerance.
+     */
+    int execute() throws IOException {
+        final List<Metric> current = collect();
+        if (save) {
+            writeBaseline(baselinePath, current);
+            System.out.printf(Locale.ROOT, "Saved %d performance metrics to %s%n", current.size(), baselinePath);
+            return 0;
+        }
+        if (!Files.isRegularFile(baselinePath)) {
+            throw new IOException("Performance baseline does not exist: " + baselinePath);
+        }
+        final List<Comparison> comparisons = compare(readBaseline(baselinePath), current);
+        Files.createDirectories(reportDirectory);
+        final Path htmlPath = reportDirectory.resolve(HTML_REPORT_FILE_NAME);
+        final Path markdownPath = reportDirectory.resolve(MARKDOWN_REPORT_FILE_NAME);
+        Files.writeString(htmlPath, toHtml(comparisons), StandardCharsets.UTF_8);
+        Files.writeString(markdownPath, toMarkdown(comparisons), StandardCharsets.UTF_8);
+        final int regressions = count(comparisons, Verdict.REGRESSION);
+        System.out.printf(
+            Locale.ROOT,
+            "Performance gate: %d metrics, %d regressions, %d improvements, %d missing, %d new%n",
+            comparisons.size(),
+            regressions,
+            count(comparisons, Verdict.IMPROVEMENT),
+            count(comparisons, Verdict.MISSING),
+            count(comparisons, Verdict.NEW)
+        );
+        for (final Comparison comparison : comparisons) {
+            if (comparison.verdict() == Verdict.REGRESSION) {
+                System.out.printf(
+                    Locale.ROOT,
+                    "  REGRESSION %s: %s -> %s %s (%+.1f%%)%n",
+                    comparison.name(),
+                    formatValue(comparison.baseline().value()),
+                    formatValue(comparison.current().value()),
+                    comparison.current().unit(),
+                    comparison.changePercent()
+                );
+            }
+        }
+        System.out.printf(Locale.ROOT, "Created performance reports: %s, %s%n", htmlPath, markdownPath);
+        return regressions > 0 ? REGRESSION_EXIT_CODE : 0;
+    }
+
+    private List<Metric> collect() throws IOException {
+        final List<Metric> metrics = new ArrayList<>();
+        if (jmhResults != null) {
+            metrics.addAll(readJmh(jmhResults));
+        }
+        if (scalingResults != null) {
+            metrics.addAll(readScaling(scalingResults));
+        }
+        return metrics;
+    }
+
+    /**
+     * Reads a JMH JSON result file. Primary scores become time metrics, with
+     * the direction taken from the score unit, and the normalized allocation
+     * rate from {@code -prof gc} becomes a memory metric.
+     */
+    static List<Metric> readJmh(final Path path) throws IOException {
+        final Object root = new JsonParser(Files.readString(path, StandardCharsets.UTF_8)).parse();
+        if (!(root instanceof List)) {
+            throw new IOException("Unexpected JMH result format in " + path);
+        }
+        final List<Metric> metrics = new ArrayList<>();
+        for (final Object entry : (List<?>) root) {
+            if (!(entry instanceof Map)) {
+                continue;
+            }
+            final Map<?, ?> result = (Map<?, ?>) entry;
+            final StringBuilder name = new StringBuilder("jmh ").append(result.get("benchmark"));
+            if (result.get("params") instanceof Map) {
+                final Map<String, Object> params = new TreeMap<>();
+                for (final Map.Entry<?, ?> param : ((Map<?, ?>) result.get("params")).entrySet()) {
+                    params.put(String.valueOf(param.getKey()), param.getValue());
+                }
+                name.append(' ').append(params.toString().replace(", ", ";"));
+            }
+            final Map<?, ?> primary = (Map<?, ?>) result.get("primaryMetric");
+            final String unit = String.valueOf(primary.get("scoreUnit"));
+            metrics.add(new Metric(name.toString(), Kind.TIME, unit.startsWith("ops/"), unit, number(primary.get("score"))));
+            if (result.get("secondaryMetrics") instanceof Map) {
+                for (final Map.Entry<?, ?> secondary : ((Map<?, ?>) result.get("secondaryMetrics")).entrySet()) {
+                    if (String.valueOf(secondary.getKey()).endsWith(ALLOCATION_METRIC)) {
+                        final Map<?, ?> allocation = (Map<?, ?>) secondary.getValue();
+                        metrics.add(new Metric(
+                            name + " " + ALLOCATION_METRIC,
+                            Kind.MEMORY,
+                            false,
+                            String.valueOf(allocation.get("scoreUnit")),
+                            number(allocation.get("score"))
+                        ));
+                    }
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Reads the successful rows of a {@code scaling.csv}: throughput and GC
+     * time per cell as time metrics and peak RSS as a memory metric.
+     */
+    static List<Metric> readScaling(final Path path) throws IOException {
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        final Map<String, Integer> columns = new LinkedHashMap<>();
+        final String[] header = lines.get(0).split(",", -1);
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim(), i);
+        }
+        final List<Metric> metrics = new ArrayList<>();
+        for (final String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            final String[] values = line.split(",", -1);
+            if (!"ok".equals(value(values, columns, "status"))) {
+                continue;
+            }
+            final String cell = String.format(
+                Locale.ROOT,
+                "scaling %s groups=%s threads=%s heap=%s",
+                value(values, columns, "flow"),
+                value(values, columns, "groups"),
+                value(values, columns, "threads"),
+                value(values, columns, "heap")
+            );
+            addScalingMetric(metrics, cell, "groups_per_second", Kind.TIME, true, "groups/s", values, columns);
+            addScalingMetric(metrics, cell, "records_per_second", Kind.TIME, true, "records/s", values, columns);
+            addScalingMetric(metrics, cell, "gc_seconds", Kind.TIME, false, "s", values, columns);
+            addScalingMetric(metrics, cell, "peak_rss_mb", Kind.MEMORY, false, "MB", values, columns);
+        }
+        return metrics;
+    }
+
+    private static void addScalingMetric(
+        final List<Metric> metrics,
+        final String cell,
+        final String column,
+        final Kind kind,
+        final boolean higherIsBetter,
+        final String unit,
+        final String[] values,
+        final Map<String, Integer> columns
+    ) {
+        final String value = value(values, columns, column);
+        if (value.isEmpty()) {
+            return;
+        }
+        try {
+            metrics.add(new Metric(cell + " " + column, kind, higherIsBetter, unit, Double.parseDouble(value)));
+        } catch (final NumberFormatException ex) {
+            // non-numeric cells, e.g. a missing RSS reading, are not compared
+        }
+    }
+
+    private static String value(final String[] values, final Map<String, Integer> columns, final String column) {
+        final Integer index = columns.get(column);
+        return index == null || index >= values.length ? "" : values[index].trim();
+    }
+
+    static void writeBaseline(final Path path, final List<Metric> metrics) throws IOException {
+        final StringBuilder csv = new StringBuilder(BASELINE_HEADER).append('\n');
+        for (final Metric metric : metrics) {
+            csv.append(metric.name().replace(',', ';')).append(',')
+                .append(metric.kind().name().toLowerCase(Locale.ROOT)).append(',')
+                .append(metric.higherIsBetter() ? "higher" : "lower").append(',')
+                .append(metric.unit().replace(',', ';')).append(',')
+                .append(metric.value()).append('\n');
+        }
+        final Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(path, csv, StandardCharsets.UTF_8);
+    }
+
+    static List<Metric> readBaseline(final Path path) throws IOException {
+        final List<Metric> metrics = new ArrayList<>();
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (int i = 1; i < lines.size(); i++) {
+            final String line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            final String[] values = line.split(",", -1);
+            if (values.length != 5) {
+                throw new IOException(String.format(Locale.ROOT, "Malformed baseline line %d in %s", i + 1, path));
+            }
+            try {
+                metrics.add(new Metric(
+                    values[0],
+                    Kind.valueOf(values[1].toUpperCase(Locale.ROOT)),
+                    "higher".equals(values[2]),
+                    values[3],
+                    Double.parseDouble(values[4])
+                ));
+            } catch (final IllegalArgumentException ex) {
+                throw new IOException(String.format(Locale.ROOT, "Malformed baseline line %d in %s", i + 1, path), ex);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Pairs metrics by name. A metric regresses when it is worse than the
+     * baseline by more than the tolerance of its kind and improves when it is
+     * better by more than that tolerance.
+     */
+    List<Comparison> compare(final List<Metric> baseline, final List<Metric> current) {
+        final Map<String, Metric> currentByName = new LinkedHashMap<>();
+        for (final Metric metric : current) {
+            currentByName.put(metric.name().replace(',', ';'), metric);
+        }
+        final List<Comparison> comparisons = new ArrayList<>();
+        for (final Metric expected : baseline) {
+            final Metric actual = currentByName.remove(expected.name());
+            if (actual == null) {
+                comparisons.add(new Comparison(expected.name(), expected, null, 0d, Verdict.MISSING));
+                continue;
+            }
+            final double change = expected.value() == 0d
+                ? (actual.value() == 0d ? 0d : 100d)
+                : (actual.value() - expected.value()) / Math.abs(expected.value()) * 100d;
+            final double worsening = expected.higherIsBetter() ? -change : change;
+            final double tolerance = expected.kind() == Kind.MEMORY ? memoryTolerancePercent : timeTolerancePercent;
+            final Verdict verdict;
+            if (worsening > tolerance) {
+                verdict = Verdict.REGRESSION;
+            } else if (worsening < -tolerance) {
+                verdict = Verdict.IMPROVEMENT;
+            } else {
+                verdict = Verdict.UNCHANGED;
+            }
+            comparisons.add(new Comparison(expected.name(), expected, actual, change, verdict));
+        }
+        for (final Map.Entry<String, Metric> entry : currentByName.entrySet()) {
+            comparisons.add(new Comparison(entry.getKey(), null, entry.getValue(), 0d, Verdict.NEW));
+        }
+        return comparisons;
+    }
+
+    private String toMarkdown(final List<Comparison> comparisons) {
+        final StringBuilder markdown = new StringBuilder();
+        markdown.append("# Performance Gate\n\n");
+        markdown.append(String.format(
+            Locale.ROOT,
+            "Tolerances: time %.1f%%, memory %.1f%%. Regressions: %d, improvements: %d, missing: %d, new: %d.%n%n",
+            timeTolerancePercent,
+            memoryTolerancePercent,
+            count(comparisons, Verdict.REGRESSION),
+            count(comparisons, Verdict.IMPROVEMENT),
+            count(comparisons, Verdict.MISSING),
+            count(comparisons, Verdict.NEW)
+        ));
+        markdown.append("| Verdict | Metric | Kind | Baseline | Current | Change |\n");
+        markdown.append("|---|---|---|---:|---:|---:|\n");
+        for (final Comparison comparison : sortedForReport(comparisons)) {
+            markdown.append("| ").append(comparison.verdict().name().toLowerCase(Locale.ROOT))
+                .append(" | ").append(comparison.name().replace("|", "\\|"))
+                .append(" | ").append(comparison.kindLabel())
+                .append(" | ").append(comparison.baseline() == null ? "" : formatMetric(comparison.baseline()))
+                .append(" | ").append(comparison.current() == null ? "" : formatMetric(comparison.current()))
+                .append(" | ").append(comparison.changeLabel())
+                .append(" |\n");
+        }
+        return markdown.toString();
+    }
+
+    private String toHtml(final List<Comparison> comparisons) {
+        final StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n  <meta charset=\"UTF-8\">\n");
+        html.append("  <title>ACE Regression Performance Gate</title>\n  <style>\n");
+        html.append("    * { box-sizing: border-box; }\n");
+        html.append("    body { margin: 0; font-family: 'Segoe UI', Tahoma, sans-serif; background: #eef2f7;"
+            + " color: #1f2933; font-size: 14px; line-height: 1.5; }\n");
+        html.append("    .page { max-width: 1180px; margin: 0 auto; padding: 32px 20px 64px; }\n");
+        html.append("    .page-header { display: flex; flex-direction: column; gap: 6px; margin-bottom: 28px; }\n");
+        html.append("    .page-header h1 { margin: 0; font-size: 1.8rem; font-weight: 600; color: #0f172a; }\n");
+        html.append("    .page-header p { margin: 0; color: #475569; font-size: 0.95rem; }\n");
+        html.append("    .stat-grid { display: grid; grid-template-columns: repeat(auto-fit, minmax(180px, 1fr));"
+            + " gap: 16px; margin-bottom: 28px; }\n");
+        html.append("    .stat-card { background: #ffffff; border: 1px solid #dbe5f3; border-radius: 14px;"
+            + " padding: 18px 20px; box-shadow: 0 16px 32px rgba(15, 23, 42, 0.08); }\n");
+        html.append("    .stat-label { font-size: 0.72rem; text-transform: uppercase; letter-spacing: 0.09em;"
+            + " color: #64748b; }\n");
+        html.append("    .stat-value { font-size: 1.9rem; font-weight: 600; color: #1d4ed8; }\n");
+        html.append("    .stat-value.regression { color: #b91c1c; }\n");
+        html.append("    .stat-value.improvement { color: #047857; }\n");
+        html.append("    .rule { background: #ffffff; border: 1px solid #dbe5f3; border-radius: 14px;"
+            + " box-shadow: 0 18px 36px rgba(15, 23, 42, 0.07); overflow: hidden; }\n");
+        html.append("    table { border-collapse: collapse; width: 100%; }\n");
+        html.append("    th, td { padding: 10px 14px; border-bottom: 1px solid #e2e8f0; text-align: left; }\n");
+        html.append("    th { font-size: 0.72rem; text-transform: uppercase; letter-spacing: 0.09em; color: #64748b;"
+            + " background: #f8fafc; }\n");
+        html.append("    td.number { text-align: right; font-variant-numeric: tabular-nums; }\n");
+        html.append("    .pill { padding: 4px 10px; border-radius: 999px; font-size: 0.75rem; font-weight: 600; }\n");
+        html.append("    .pill.regression { background: #fee2e2; color: #b91c1c; }\n");
+        html.append("    .pill.improvement { background: #dcfce7; color: #047857; }\n");
+        html.append("    .pill.unchanged { background: #e2e8f0; color: #475569; }\n");
+        html.append("    .pill.missing, .pill.new { background: #e0f2fe; color: #0369a1; }\n");
+        html.append("    .no-differences { padding: 20px; border-radius: 14px; background: #ecfdf5;"
+            + " border: 1px solid #bbf7d0; color: #047857; font-size: 1rem; margin-bottom: 28px; }\n");
+        html.append("  </style>\n</head>\n<body>\n<div class=\"page\">\n");
+        html.append("  <header class=\"page-header\">\n    <h1>ACE Regression Performance Gate</h1>\n");
+        html.append(String.format(
+            Locale.ROOT,
+            "    <p>Baseline <code>%s</code>; tolerances: time %.1f%%, memory %.1f%%.</p>%n",
+            escapeHtml(baselinePath.toString()),
+            timeTolerancePercent,
+            memoryTolerancePercent
+        ));
+        html.append("  </header>\n  <section class=\"stat-grid\">\n");
+        appendStat(html, "Metrics", comparisons.size(), "");
+        appendStat(html, "Regressions", count(comparisons, Verdict.REGRESSION), " regression");
+        appendStat(html, "Improvements", count(comparisons, Verdict.IMPROVEMENT), " improvement");
+        appendStat(html, "Missing", count(comparisons, Verdict.MISSING), "");
+        appendStat(html, "New", count(comparisons, Verdict.NEW), "");
+        html.append("  </section>\n");
+        if (count(comparisons, Verdict.REGRESSION) == 0) {
+            html.append("  <div class=\"no-differences\">No metric regressed beyond its tolerance.</div>\n");
+        }
+        html.append("  <div class=\"rule\">\n    <table>\n");
+        html.append("      <tr><th>Verdict</th><th>Metric</th><th>Kind</th><th>Baseline</th><th>Current</th>"
+            + "<th>Change</th></tr>\n");
+        for (final Comparison comparison : sortedForReport(comparisons)) {
+            final String verdict = comparison.verdict().name().toLowerCase(Locale.ROOT);
+            html.append("      <tr><td><span class=\"pill ").append(verdict).append("\">").append(verdict)
+                .append("</span></td><td>").append(escapeHtml(comparison.name()))
+                .append("</td><td>").append(comparison.kindLabel())
+                .append("</td><td class=\"number\">")
+                .append(comparison.baseline() == null ? "" : escapeHtml(formatMetric(comparison.baseline())))
+                .append("</td><td class=\"number\">")
+                .append(comparison.current() == null ? "" : escapeHtml(formatMetric(comparison.current())))
+                .append("</td><td class=\"number\">").append(comparison.changeLabel()).append("</td></tr>\n");
+        }
+        html.append("    </table>\n  </div>\n</div>\n</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static void appendStat(final StringBuilder html, final String label, final int value, final String modifier) {
+        html.append("    <div class=\"stat-card\"><span class=\"stat-label\">").append(label)
+            .append("</span><span class=\"stat-value").append(value > 0 ? modifier : "").append("\">")
+            .append(value).append("</span></div>\n");
+    }
+
+    private static List<Comparison> sortedForReport(final List<Comparison> comparisons) {
+        final List<Comparison> sorted = new ArrayList<>(comparisons);
+        sorted.sort((left, right) -> {
+            final int byVerdict = Integer.compare(left.verdict().ordinal(), right.verdict().ordinal());
+            return byVerdict != 0 ? byVerdict : left.name().compareTo(right.name());
+        });
+        return sorted;
+    }
+
+    private static int count(final List<Comparison> comparisons, final Verdict verdict) {
+        int count = 0;
+        for (final Comparison comparison : comparisons) {
+            if (comparison.verdict() == verdict) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String formatMetric(final Metric metric) {
+        return formatValue(metric.value()) + " " + metric.unit();
+    }
+
+    private static String formatValue(final double value) {
+        return String.format(Locale.ROOT, Math.abs(value) >= 100d ? "%.0f" : "%.3f", value);
+    }
+
+    private static double number(final Object value) {
+        return value instanceof Double ? (Double) value : Double.NaN;
+    }
+
+    private static double parsePercent(final String option, final String value) {
+        try {
+            final double percent = Double.parseDouble(value);
+            if (percent < 0d || Double.isNaN(percent)) {
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value);
+            }
+            return percent;
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for option " + option + ": " + value, ex);
+        }
+    }
+
+    private static String escapeHtml(final String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * One measured value; {@code higherIsBetter} is true for throughput.
+     */
+    record Metric(String name, Kind kind, boolean higherIsBetter, String unit, double value) {
+    }
+
+    /**
+     * A baseline metric paired with its fresh value; either side may be
+     * {@code null} for missing and new metrics.
+     */
+    record Comparison(String name, Metric baseline, Metric current, double changePercent, Verdict verdict) {
+
+        String kindLabel() {
+            final Metric metric = baseline != null ? baseline : current;
+            return metric.kind().name().toLowerCase(Locale.ROOT);
+        }
+
+        String changeLabel() {
+            return baseline == null || current == null ? "" : String.format(Locale.ROOT, "%+.1f%%", changePercent);
+        }
+    }
+
+    /**
+     * Minimal JSON reader for JMH result files: objects become maps, arrays
+     * lists, numbers doubles.
+     */
+    private static final class JsonParser {
+
+        private final String text;
+        private int position;
+
+        JsonParser(final String text) {
+            this.text = text;
+        }
+
+        Object parse() throws IOException {
+            final Object value = readValue();
+            skipWhitespace();
+            if (position != text.length()) {
+                throw error("Trailing content");
+            }
+            return value;
+        }
+
+        private Object readValue() throws IOException {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            final char ch = text.charAt(position);
+            switch (ch) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case 't':
+                    return readLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return readLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return readLiteral("null", null);
+                default:
+                    return readNumber();
+            }
+        }
+
+        private Map<String, Object> readObject() throws IOException {
+            final Map<String, Object> object = new LinkedHashMap<>();
+            position++;
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                final String key = readString();
+                skipWhitespace();
+                expect(':');
+                object.put(key, readValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    position++;
+                    continue;
+                }
+                expect('}');
+                return object;
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            final List<Object> array = new ArrayList<>();
+            position++;
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                return array;
+            }
+            while (true) {
+                array.add(readValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    position++;
+                    continue;
+                }
+                expect(']');
+                return array;
+            }
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            final StringBuilder builder = new StringBuilder();
+            while (position < text.length()) {
+                final char ch = text.charAt(position++);
+                if (ch == '"') {
+                    return builder.toString();
+                }
+                if (ch != '\\') {
+                    builder.append(ch);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                final char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Truncated unicode escape");
+                        }
+                        builder.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        builder.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Object readLiteral(final String literal, final Object value) throws IOException {
+            if (!text.startsWith(literal, position)) {
+                throw error("Unexpected token");
+            }
+            position += literal.length();
+            return value;
+        }
+
+        private Double readNumber() throws IOException {
+            final int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            try {
+                return Double.valueOf(text.substring(start, position));
+            } catch (final NumberFormatException ex) {
+                throw error("Invalid number");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() throws IOException {
+            if (position >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            return text.charAt(position);
+        }
+
+        private void expect(final char expected) throws IOException {
+            if (peek() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+            position++;
+        }
+
+        private IOException error(final String message) {
+            return new IOException(String.format(Locale.ROOT, "%s at offset %d of JMH result", message, position));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+/**
+ * Java Flight Recorder events emitted by the extraction and regression
+ * pipelines, plus helpers to record a whole run into a {@code .jfr} file.
+ * The events cost next to nothing unless a recording is running.
+ */
+final class PipelineEvents {
+
+    private static final String CATEGORY = "ACE Regression";
+    private static final String RECORDING_NAME = "ace-regression";
+    private static final String RECORDING_CONFIGURATION = "profile";
+
+    private PipelineEvents() {
+        // utility class
+    }
+
+    /**
+     * Starts a recording with the JDK {@code profile} settings that is written
+     * to {@code destination} when it is stopped.
+     */
+    static Recording startRecording(final Path destination) throws IOException {
+        final Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(RECORDING_CONFIGURATION);
+        } catch (final ParseException ex) {
+            throw new IOException("Unable to load JFR configuration '" + RECORDING_CONFIGURATION + "'", ex);
+        }
+        final Recording recording = new Recording(configuration);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setDestination(destination);
+        recording.enable(ExtractionEvent.class);
+        recording.enable(GroupExtractionEvent.class);
+        recording.enable(GroupDecisionEvent.class);
+        recording.enable(CompareEvent.class);
+        recording.enable(HtmlReportEvent.class);
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Stops the recording, which dumps it to its destination, and releases
+     * its resources.
+     */
+    static void stopRecording(final Recording recording) {
+        try {
+            recording.stop();
+            System.out.printf(Locale.ROOT, "Created flight recording: %s%n", recording.getDestination());
+        } finally {
+            recording.close();
+        }
+    }
+
+    @Name("com.tnqtech.docx.Extraction")
+    @Label("DOCX Extraction")
+    @Category({CATEGORY, "Extraction"})
+    @Description("Plain text extraction of one DOCX file")
+    static final class ExtractionEvent extends Event {
+
+        @Label("File")
+        String file;
+
+        @Label("Node Count")
+        int nodeCount;
+
+        @Label("File Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.tnqtech.docx.GroupExtraction")
+    @Label("File Group Extraction")
+    @Category({CATEGORY, "File Group"})
+    @Description("Extraction of the preACE and midACE documents that the decisions of one file group refer to")
+    static final class GroupExtractionEvent extends Event {
+
+        @Label("Prefix")
+        String prefix;
+
+        @Label("Extracted Characters")
+        long characters;
+
+        @Label("Skipped Documents")
+        int skippedDocuments;
+    }
+
+    @Name("com.tnqtech.docx.GroupDecisions")
+    @Label("File Group Decisions")
+    @Category({CATEGORY, "File Group"})
+    @Description("Derivation of the records of one file group from its parsed decision DOM")
+    static final class GroupDecisionEvent extends Event {
+
+        @Label("Prefix")
+        String prefix;
+
+        @Label("Decision Count")
+        int decisionCount;
+
+        @Label("Record Count")
+        int recordCount;
+    }
+
+    @Name("com.tnqtech.docx.Compare")
+    @Label("Record Comparison")
+    @Category({CATEGORY, "Report"})
+    static final class CompareEvent extends Event {
+
+        @Label("Expected Records")
+        int expectedRecords;
+
+        @Label("Actual Records")
+        int actualRecords;
+
+        @Label("Differences")
+        int differences;
+    }
+
+    @Name("com.tnqtech.docx.HtmlReport")
+    @Label("HTML Report")
+    @Category({CATEGORY, "Report"})
+    static final class HtmlReportEvent extends Event {
+
+        @Label("Report")
+        String report;
+
+        @Label("Differences")
+        int differences;
+
+        @Label("Characters")
+        long characters;
+    }
+}
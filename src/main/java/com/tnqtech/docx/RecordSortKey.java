@@ -0,0 +1,157 @@
+package com.tnqtech.docx;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Precomputed sort key for a decision record.
+ *
+ * <p>Keys order by file name, rule, buffer position and then the remaining
+ * fields in the order they were given, comparing strings case-insensitively
+ * with {@code null} first, exactly like a chain of
+ * {@link String#CASE_INSENSITIVE_ORDER} comparators. The case folding is done
+ * once when the key is built, and the first four folded characters of the
+ * file name are packed into a {@code long} so that most comparisons between
+ * different files end after one integer comparison.</p>
+ *
+ * <p>Strings with surrogate characters are compared by code point by
+ * {@link String#CASE_INSENSITIVE_ORDER}, which a folded UTF-16 comparison does
+ * not reproduce, so keys holding such strings fall back to comparing the
+ * original values.</p>
+ */
+final class RecordSortKey implements Comparable<RecordSortKey> {
+
+    private static final Comparator<String> ORIGINAL_ORDER = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+    private static final int PACKED_CHARACTERS = 4;
+    private static final int POSITION_SLOT = 2;
+
+    private final String[] originals;
+    private final String[] folded;
+    private final int bufferPosition;
+    private final long packedPrefix;
+    private final boolean foldable;
+
+    /**
+     * Builds the key for the given file name, rule, buffer position and
+     * tie-break fields.
+     */
+    RecordSortKey(final String fileName, final String rule, final int bufferPosition, final String... tieBreaks) {
+        this.originals = new String[tieBreaks.length + 2];
+        originals[0] = fileName;
+        originals[1] = rule;
+        System.arraycopy(tieBreaks, 0, originals, 2, tieBreaks.length);
+        this.folded = new String[originals.length];
+        boolean allFoldable = true;
+        for (int i = 0; i < originals.length; i++) {
+            folded[i] = fold(originals[i]);
+            allFoldable &= folded[i] != null || originals[i] == null;
+        }
+        this.bufferPosition = bufferPosition;
+        this.foldable = allFoldable;
+        this.packedPrefix = allFoldable ? pack(folded[0]) : 0L;
+    }
+
+    @Override
+    public int compareTo(final RecordSortKey other) {
+        if (!foldable || !other.foldable) {
+            return compareOriginals(other);
+        }
+        if (packedPrefix != other.packedPrefix) {
+            return Long.compareUnsigned(packedPrefix, other.packedPrefix);
+        }
+        for (int i = 0; i < folded.length; i++) {
+            if (i == POSITION_SLOT) {
+                final int position = Integer.compare(bufferPosition, other.bufferPosition);
+                if (position != 0) {
+                    return position;
+                }
+            }
+            final int result = compareFolded(folded[i], other.folded[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return folded.length <= POSITION_SLOT ? Integer.compare(bufferPosition, other.bufferPosition) : 0;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RecordSortKey)) {
+            return false;
+        }
+        final RecordSortKey key = (RecordSortKey) other;
+        return bufferPosition == key.bufferPosition && Arrays.equals(originals, key.originals);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(originals) + bufferPosition;
+    }
+
+    private int compareOriginals(final RecordSortKey other) {
+        for (int i = 0; i < originals.length; i++) {
+            if (i == POSITION_SLOT) {
+                final int position = Integer.compare(bufferPosition, other.bufferPosition);
+                if (position != 0) {
+                    return position;
+                }
+            }
+            final int result = ORIGINAL_ORDER.compare(originals[i], other.originals[i]);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return originals.length <= POSITION_SLOT ? Integer.compare(bufferPosition, other.bufferPosition) : 0;
+    }
+
+    private static int compareFolded(final String left, final String right) {
+        if (left == right) {
+            return 0;
+        }
+        if (left == null) {
+            return -1;
+        }
+        if (right == null) {
+            return 1;
+        }
+        return left.compareTo(right);
+    }
+
+    /**
+     * Folds every character the way {@link String#CASE_INSENSITIVE_ORDER}
+     * does before comparing it. Returns {@code value} itself when nothing
+     * changes and {@code null} when the value holds surrogates.
+     */
+    private static String fold(final String value) {
+        if (value == null) {
+            return null;
+        }
+        char[] chars = null;
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (Character.isSurrogate(ch)) {
+                return null;
+            }
+            final char foldedChar = Character.toLowerCase(Character.toUpperCase(ch));
+            if (foldedChar != ch) {
+                if (chars == null) {
+                    chars = value.toCharArray();
+                }
+                chars[i] = foldedChar;
+            }
+        }
+        return chars == null ? value : new String(chars);
+    }
+
+    private static long pack(final String value) {
+        long packed = 0L;
+        for (int i = 0; i < PACKED_CHARACTERS; i++) {
+            final char ch = value != null && i < value.length() ? value.charAt(i) : 0;
+            packed = (packed << Character.SIZE) | ch;
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,498 @@
+package com.tnqtech.docx;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running localhost HTTP front end for {@link DecisionCsvGeneratorApp}.
+ * Jobs run on a bounded executor and share one set of {@link
+ * DecisionCsvGeneratorApp.WarmCaches}, so JVM start-up, docx4j/JAXB warm-up,
+ * DOCX extraction and expected CSV parsing are paid once across jobs.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code POST /jobs?mode=generate&input=<dir>} regenerates
+ *   {@code output.csv} and {@code expected.csv};</li>
+ *   <li>{@code POST /jobs?mode=compare&input=<dir>&expected=<csv>} generates and
+ *   compares against a baseline;</li>
+ *   <li>{@code POST /jobs?mode=csv&expected=<csv>&actual=<csv>} compares two CSV
+ *   files;</li>
+ *   <li>{@code GET /jobs} and {@code GET /jobs/<id>} report job status and
+ *   timings, {@code GET /stats} reports cache statistics and
+ *   {@code POST /shutdown} stops the service.</li>
+ * </ul>
+ * Adding {@code wait=true} to a job submission delays the response until the
+ * job finishes. Requests are handled on a small pool of their own, and a
+ * waiting submission holds none of its threads, so status requests are
+ * answered while jobs run.
+ */
+final class RegressionService {
+
+    static final String SERVE_OPTION = "--serve";
+
+    private static final int DEFAULT_PORT = 8765;
+    private static final int DEFAULT_WORKERS = 1;
+    private static final int DEFAULT_QUEUE_CAPACITY = 32;
+    private static final long DEFAULT_CACHE_MB = 512L;
+    private static final int MAX_RETAINED_JOBS = 256;
+    private static final int REQUEST_THREADS = 2;
+    private static final int STOP_GRACE_SECONDS = 2;
+    private static final String STOPPED_ERROR = "Service stopped before the job started";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private enum JobStatus {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final int port;
+    private final int workers;
+    private final int queueCapacity;
+    private final DecisionCsvGeneratorApp.WarmCaches caches;
+    private final AtomicLong jobSequence = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<>();
+    private ThreadPoolExecutor executor;
+    private ExecutorService requestExecutor;
+    private HttpServer server;
+
+    private RegressionService(final int port, final int workers, final int queueCapacity, final long cacheMegabytes) {
+        this.port = port;
+        this.workers = Math.max(1, workers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.caches = new DecisionCsvGeneratorApp.WarmCaches(cacheMegabytes * 1024L * 1024L / Character.BYTES);
+    }
+
+    static RegressionService fromArguments(final String[] args) {
+        int port = DEFAULT_PORT;
+        int workers = DEFAULT_WORKERS;
+        int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        long cacheMegabytes = DEFAULT_CACHE_MB;
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option " + args[i]);
+            }
+            final String option = args[i];
+            final String value = args[++i];
+            switch (option) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "--queue":
+                    queueCapacity = Integer.parseInt(value);
+                    break;
+                case "--cache-mb":
+                    cacheMegabytes = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown service option: " + option);
+            }
+        }
+        return new RegressionService(port, workers, queueCapacity, cacheMegabytes);
+    }
+
+    synchronized void start() throws IOException {
+        executor = new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity)
+        );
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/jobs", this::handleJobs);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/shutdown", this::handleShutdown);
+        requestExecutor = Executors.newFixedThreadPool(REQUEST_THREADS);
+        server.setExecutor(requestExecutor);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+        System.out.printf(Locale.ROOT, "Regression service listening on http://%s:%d (workers: %d, queue: %d)%n",
+            InetAddress.getLoopbackAddress().getHostAddress(), server.getAddress().getPort(), workers, queueCapacity);
+    }
+
+    /**
+     * Stops the service. Jobs that are still queued are failed and running
+     * jobs are interrupted first, and the server gives submissions waiting
+     * for them a few seconds to be answered before it closes its
+     * connections.
+     */
+    private synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            for (final Job job : jobs.values()) {
+                job.cancelIfQueued();
+            }
+        }
+        if (server != null) {
+            server.stop(STOP_GRACE_SECONDS);
+            server = null;
+        }
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+            requestExecutor = null;
+        }
+    }
+
+    /**
+     * Returns the job executor, or {@code null} once the service is stopping.
+     */
+    private synchronized ThreadPoolExecutor jobExecutor() {
+        return executor;
+    }
+
+    private void handleJobs(final HttpExchange exchange) throws IOException {
+        try {
+            final String path = exchange.getRequestURI().getPath();
+            final String method = exchange.getRequestMethod();
+            if ("/jobs".equals(path) || "/jobs/".equals(path)) {
+                if ("POST".equalsIgnoreCase(method)) {
+                    submitJob(exchange);
+                } else if ("GET".equalsIgnoreCase(method)) {
+                    sendJson(exchange, 200, listJobs());
+                } else {
+                    sendJson(exchange, 405, errorJson("Unsupported method " + method));
+                }
+                return;
+            }
+            final long id = Long.parseLong(path.substring("/jobs/".length()));
+            final Job job = findJob(id);
+            if (job == null) {
+                sendJson(exchange, 404, errorJson("Unknown job " + id));
+            } else {
+                sendJson(exchange, 200, job.toJson());
+            }
+        } catch (final IllegalArgumentException ex) {
+            sendJson(exchange, 400, errorJson(ex.getMessage()));
+        }
+    }
+
+    private void submitJob(final HttpExchange exchange) throws IOException {
+        final Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        final Job job = createJob(parameters);
+        final ThreadPoolExecutor jobPool = jobExecutor();
+        if (jobPool == null) {
+            sendJson(exchange, 503, errorJson("Service is stopping"));
+            return;
+        }
+        final CompletableFuture<Void> completion;
+        try {
+            completion = CompletableFuture.runAsync(() -> runJob(job), jobPool);
+        } catch (final RejectedExecutionException ex) {
+            sendJson(exchange, 503, errorJson("Job queue is full"));
+            return;
+        }
+        job.attach(completion);
+        registerJob(job);
+        if (jobExecutor() == null) {
+            job.cancelIfQueued();
+        }
+        if (Boolean.parseBoolean(parameters.get("wait"))) {
+            // failure details are recorded on the job itself; only cancelled jobs complete exceptionally
+            completion.whenComplete((ignored, failure) -> sendFinished(exchange, failure == null ? 200 : 503, job));
+        } else {
+            sendJson(exchange, 202, job.toJson());
+        }
+    }
+
+    private Job createJob(final Map<String, String> parameters) {
+        final String mode = parameters.getOrDefault("mode", "compare").toLowerCase(Locale.ROOT);
+        final long id = jobSequence.incrementAndGet();
+        switch (mode) {
+            case "generate": {
+                final Path input = Path.of(require(parameters, "input"));
+                return new Job(id, mode, input, input.resolve("expected.csv"), true, null, false);
+            }
+            case "compare":
+                return new Job(id, mode, Path.of(require(parameters, "input")),
+                    Path.of(require(parameters, "expected")), false, null, false);
+            case "csv":
+                return new Job(id, mode, null, Path.of(require(parameters, "expected")), false,
+                    Path.of(require(parameters, "actual")), true);
+            default:
+                throw new IllegalArgumentException("Unknown job mode: " + mode);
+        }
+    }
+
+    private void runJob(final Job job) {
+        if (!job.markStarted()) {
+            return;
+        }
+        try {
+            final DecisionCsvGeneratorApp.RunResult result = DecisionCsvGeneratorApp.execute(
+                job.inputDirectory,
+                job.expectedCsvPath,
+                job.generateExpectedOnly,
+                job.actualCsvPath,
+                job.compareOnly,
+                caches
+            );
+            job.markFinished(result, null);
+        } catch (final Exception ex) {
+            job.markFinished(null, ex.getMessage() == null ? ex.getClass().getName() : ex.getMessage());
+        }
+    }
+
+    private static void sendFinished(final HttpExchange exchange, final int status, final Job job) {
+        try {
+            sendJson(exchange, status, job.toJson());
+        } catch (final IOException ex) {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(final HttpExchange exchange) throws IOException {
+        final ThreadPoolExecutor jobPool = jobExecutor();
+        if (jobPool == null) {
+            sendJson(exchange, 503, errorJson("Service is stopping"));
+            return;
+        }
+        final ExtractionCache extractionCache = caches.extractionCache();
+        final StringBuilder json = new StringBuilder();
+        json.append('{');
+        appendField(json, "extractionCacheEntries", extractionCache.size()).append(',');
+        appendField(json, "extractionCacheChars", extractionCache.cachedChars()).append(',');
+        appendField(json, "extractionCacheHits", extractionCache.hits()).append(',');
+        appendField(json, "extractionCacheMisses", extractionCache.misses()).append(',');
+        appendField(json, "cachedBaselines", caches.baselineCount()).append(',');
+        appendField(json, "activeJobs", jobPool.getActiveCount()).append(',');
+        appendField(json, "queuedJobs", jobPool.getQueue().size()).append(',');
+        appendField(json, "completedJobs", jobPool.getCompletedTaskCount());
+        json.append('}');
+        sendJson(exchange, 200, json.toString());
+    }
+
+    private void handleShutdown(final HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, errorJson("Use POST to shut down the service"));
+            return;
+        }
+        sendJson(exchange, 200, "{\"status\":\"stopping\"}");
+        new Thread(this::stop, "regression-service-shutdown").start();
+    }
+
+    private synchronized void registerJob(final Job job) {
+        jobs.put(job.id, job);
+        final Iterator<Job> iterator = jobs.values().iterator();
+        while (jobs.size() > MAX_RETAINED_JOBS && iterator.hasNext()) {
+            final Job eldest = iterator.next();
+            if (eldest.status == JobStatus.QUEUED || eldest.status == JobStatus.RUNNING) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private synchronized Job findJob(final long id) {
+        return jobs.get(id);
+    }
+
+    private synchronized String listJobs() {
+        final List<String> entries = new ArrayList<>(jobs.size());
+        for (final Job job : jobs.values()) {
+            entries.add(job.toJson());
+        }
+        return "[" + String.join(",", entries) + "]";
+    }
+
+    private static String require(final Map<String, String> parameters, final String name) {
+        final String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing required parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(final String rawQuery) {
+        final Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (final String pair : rawQuery.split("&")) {
+            final int separator = pair.indexOf('=');
+            final String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            final String value = separator >= 0 ? pair.substring(separator + 1) : "";
+            parameters.put(
+                URLDecoder.decode(name, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8)
+            );
+        }
+        return parameters;
+    }
+
+    private static void sendJson(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static String errorJson(final String message) {
+        final StringBuilder json = new StringBuilder("{");
+        appendField(json, "error", message);
+        return json.append('}').toString();
+    }
+
+    private static StringBuilder appendField(final StringBuilder json, final String name, final Object value) {
+        json.append('"').append(name).append("\":");
+        if (value == null) {
+            json.append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            json.append(value);
+        } else {
+            json.append('"');
+            final String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                final char ch = text.charAt(i);
+                if (ch == '"' || ch == '\\') {
+                    json.append('\\').append(ch);
+                } else if (ch < 0x20) {
+                    json.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+                } else {
+                    json.append(ch);
+                }
+            }
+            json.append('"');
+        }
+        return json;
+    }
+
+    /**
+     * A submitted job together with its queue and run timings.
+     */
+    private static final class Job {
+
+        private final long id;
+        private final String mode;
+        private final Path inputDirectory;
+        private final Path expectedCsvPath;
+        private final boolean generateExpectedOnly;
+        private final Path actualCsvPath;
+        private final boolean compareOnly;
+        private final long submittedNanos = System.nanoTime();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private volatile DecisionCsvGeneratorApp.RunResult result;
+        private volatile String error;
+        private volatile CompletableFuture<Void> completion;
+
+        Job(
+            final long id,
+            final String mode,
+            final Path inputDirectory,
+            final Path expectedCsvPath,
+            final boolean generateExpectedOnly,
+            final Path actualCsvPath,
+            final boolean compareOnly
+        ) {
+            this.id = id;
+            this.mode = mode;
+            this.inputDirectory = inputDirectory;
+            this.expectedCsvPath = expectedCsvPath;
+            this.generateExpectedOnly = generateExpectedOnly;
+            this.actualCsvPath = actualCsvPath;
+            this.compareOnly = compareOnly;
+        }
+
+        void attach(final CompletableFuture<Void> jobCompletion) {
+            completion = jobCompletion;
+        }
+
+        /**
+         * Marks the job as running unless it was cancelled while queued.
+         */
+        synchronized boolean markStarted() {
+            if (status != JobStatus.QUEUED) {
+                return false;
+            }
+            startedNanos = System.nanoTime();
+            status = JobStatus.RUNNING;
+            return true;
+        }
+
+        /**
+         * Fails the job if it has not started, completing its submission
+         * exceptionally.
+         */
+        void cancelIfQueued() {
+            synchronized (this) {
+                if (status != JobStatus.QUEUED) {
+                    return;
+                }
+                markFinished(null, STOPPED_ERROR);
+            }
+            final CompletableFuture<Void> jobCompletion = completion;
+            if (jobCompletion != null) {
+                jobCompletion.completeExceptionally(new CancellationException(STOPPED_ERROR));
+            }
+        }
+
+        void markFinished(final DecisionCsvGeneratorApp.RunResult runResult, final String failure) {
+            result = runResult;
+            error = failure;
+            finishedNanos = System.nanoTime();
+            status = failure == null ? JobStatus.SUCCEEDED : JobStatus.FAILED;
+        }
+
+        String toJson() {
+            final JobStatus currentStatus = status;
+            final long now = System.nanoTime();
+            final long started = startedNanos;
+            final long finished = finishedNanos;
+            final long queueNanos = (started == 0L ? now : started) - submittedNanos;
+            final long runNanos = started == 0L ? 0L : (finished == 0L ? now : finished) - started;
+            final StringBuilder json = new StringBuilder("{");
+            appendField(json, "id", id).append(',');
+            appendField(json, "mode", mode).append(',');
+            appendField(json, "status", currentStatus.name().toLowerCase(Locale.ROOT)).append(',');
+            appendField(json, "queueMillis", queueNanos / 1_000_000L).append(',');
+            appendField(json, "runMillis", runNanos / 1_000_000L);
+            final DecisionCsvGeneratorApp.RunResult runResult = result;
+            if (runResult != null) {
+                json.append(',');
+                appendField(json, "discoveredGroups", runResult.discoveredGroups()).append(',');
+                appendField(json, "processedGroups", runResult.processedGroups()).append(',');
+                appendField(json, "records", runResult.recordCount()).append(',');
+                appendField(json, "differences", runResult.differenceCount()).append(',');
+                appendField(json, "csv", runResult.csvPath()).append(',');
+                appendField(json, "report", runResult.reportPath());
+            }
+            if (error != null) {
+                json.append(',');
+                appendField(json, "error", error);
+            }
+            return json.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-stage latency histograms, per-thread allocated bytes and
+ * garbage collection totals for one run. The registry is thread-safe so that
+ * pipeline workers can record into it concurrently.
+ */
+final class RunMetrics {
+
+    static final String JSON_FILE_NAME = "metrics.json";
+    static final String PROMETHEUS_FILE_NAME = "metrics.prom";
+
+    /** Upper bucket bounds of the latency histograms, in seconds. */
+    private static final double[] BUCKET_BOUNDS = {
+        0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60,
+    };
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+    private static final RunMetrics DISABLED = new RunMetrics(false);
+    private static final Sample NO_OP_SAMPLE = new Sample(null, null, 0L, 0L);
+    private static final Path PROCESS_STATUS = Path.of("/proc/self/status");
+    private static final String PEAK_RESIDENT_FIELD = "VmHWM:";
+
+    /**
+     * Instrumented stages of the extraction and regression pipelines.
+     */
+    enum Stage {
+        DISCOVERY("discovery"),
+        ZIP_UNMARSHAL("zip_unmarshal"),
+        TRAVERSAL("traversal"),
+        TEXT_ASSEMBLY("text_assembly"),
+        DOM_PARSE("dom_parse"),
+        RECORD_DERIVATION("record_derivation"),
+        SORT("sort"),
+        DEDUPE("dedupe"),
+        COMPARE("compare"),
+        CSV_WRITE("csv_write"),
+        HTML_RENDER("html_render");
+
+        private final String label;
+
+        Stage(final String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    private final boolean enabled;
+    private final long startNanos;
+    private final Map<Stage, StageHistogram> histograms = new EnumMap<>(Stage.class);
+    private final Map<String, LongAdder> threadAllocations = new ConcurrentHashMap<>();
+    private final Map<String, long[]> gcBaseline;
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final AtomicLong groups = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong differences = new AtomicLong();
+    private final LongAdder admissions = new LongAdder();
+    private final LongAdder throttledAdmissions = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+    private final LongAdder heapPressureEvents = new LongAdder();
+    private final LongAdder admissionExpansions = new LongAdder();
+
+    RunMetrics() {
+        this(true);
+    }
+
+    private RunMetrics(final boolean enabled) {
+        this.enabled = enabled;
+        this.startNanos = System.nanoTime();
+        for (final Stage stage : Stage.values()) {
+            histograms.put(stage, new StageHistogram());
+        }
+        this.gcBaseline = enabled ? snapshotCollectors() : Map.of();
+        this.allocationBean = enabled ? resolveAllocationBean() : null;
+    }
+
+    /**
+     * Returns a shared registry that ignores every sample.
+     */
+    static RunMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Starts timing the given stage on the current thread. The sample is
+     * recorded when {@link Sample#stop()} is called on the same thread.
+     */
+    Sample start(final Stage stage) {
+        if (!enabled) {
+            return NO_OP_SAMPLE;
+        }
+        return new Sample(this, stage, System.nanoTime(), currentThreadAllocatedBytes());
+    }
+
+    /**
+     * Records the run totals that throughput is derived from.
+     */
+    void recordTotals(final long groupCount, final long recordCount, final long differenceCount) {
+        groups.set(groupCount);
+        records.set(recordCount);
+        differences.set(differenceCount);
+    }
+
+    /**
+     * Records a group admitted into extraction after waiting
+     * {@code waitedNanos} for memory or concurrency; zero means it was
+     * admitted at once.
+     */
+    void recordAdmission(final long waitedNanos) {
+        if (!enabled) {
+            return;
+        }
+        admissions.increment();
+        if (waitedNanos > 0L) {
+            throttledAdmissions.increment();
+            throttledNanos.add(waitedNanos);
+        }
+    }
+
+    /**
+     * Records a heap threshold notification that cut the admission limit.
+     */
+    void recordHeapPressure() {
+        if (enabled) {
+            heapPressureEvents.increment();
+        }
+    }
+
+    /**
+     * Records a raise of the admission limit.
+     */
+    void recordAdmissionExpansion() {
+        if (enabled) {
+            admissionExpansions.increment();
+        }
+    }
+
+    long totalAllocatedBytes() {
+        long total = 0L;
+        for (final LongAdder adder : threadAllocations.values()) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Prints one line per stage that received at least one sample, followed
+     * by allocation and GC totals.
+     */
+    void printSummary(final PrintStream out) {
+        out.println();
+        out.println("--- Stage Metrics ---");
+        for (final Map.Entry<Stage, StageHistogram> entry : histograms.entrySet()) {
+            final StageHistogram histogram = entry.getValue();
+            if (histogram.count.sum() == 0L) {
+                continue;
+            }
+            out.printf(
+                Locale.ROOT,
+                "%s: %d samples, total %d ms, max %d ms, allocated %d MB%n",
+                entry.getKey().label(),
+                histogram.count.sum(),
+                histogram.sumNanos.sum() / 1_000_000L,
+                histogram.maxNanos.get() / 1_000_000L,
+                histogram.allocatedBytes.sum() / BYTES_PER_MEGABYTE
+            );
+        }
+        final Map<String, long[]> gc = collectorDeltas();
+        long collections = 0L;
+        long pauseMillis = 0L;
+        for (final long[] values : gc.values()) {
+            collections += values[0];
+            pauseMillis += values[1];
+        }
+        if (allocationBean != null) {
+            out.printf(Locale.ROOT, "Allocated (instrumented stages): %d MB%n", totalAllocatedBytes() / BYTES_PER_MEGABYTE);
+        }
+        if (admissions.sum() > 0L) {
+            out.printf(
+                Locale.ROOT,
+                "Admission: %d groups, %d throttled for %d ms, %d heap pressure events, %d expansions%n",
+                admissions.sum(),
+                throttledAdmissions.sum(),
+                throttledNanos.sum() / 1_000_000L,
+                heapPressureEvents.sum(),
+                admissionExpansions.sum()
+            );
+        }
+        out.printf(Locale.ROOT, "GC: %d collections, %d ms%n", collections, pauseMillis);
+    }
+
+    /**
+     * Writes {@value #JSON_FILE_NAME} and {@value #PROMETHEUS_FILE_NAME} into
+     * the given directory.
+     */
+    void write(final Path directory) throws IOException {
+        final Map<String, long[]> gc = collectorDeltas();
+        final long wallNanos = System.nanoTime() - startNanos;
+        Files.writeString(directory.resolve(JSON_FILE_NAME), toJson(gc, wallNanos), StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve(PROMETHEUS_FILE_NAME), toPrometheus(gc, wallNanos), StandardCharsets.UTF_8);
+    }
+
+    private void record(final Stage stage, final long startedNanos, final long startedAllocatedBytes) {
+        final long elapsed = System.nanoTime() - startedNanos;
+        final StageHistogram histogram = histograms.get(stage);
+        histogram.record(elapsed);
+        if (allocationBean != null) {
+            final long allocated = Math.max(0L, currentThreadAllocatedBytes() - startedAllocatedBytes);
+            histogram.allocatedBytes.add(allocated);
+            threadAllocations.computeIfAbsent(Thread.currentThread().getName(), name -> new LongAdder()).add(allocated);
+        }
+    }
+
+    private long currentThreadAllocatedBytes() {
+        return allocationBean == null ? 0L : allocationBean.getCurrentThreadAllocatedBytes();
+    }
+
+    private String toJson(final Map<String, long[]> gc, final long wallNanos) {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"wallSeconds\": ").append(formatSeconds(wallNanos)).append(",\n");
+        json.append("  \"allocationTracking\": ").append(allocationBean != null).append(",\n");
+        json.append("  \"groups\": ").append(groups.get()).append(",\n");
+        json.append("  \"records\": ").append(records.get()).append(",\n");
+        json.append("  \"differences\": ").append(differences.get()).append(",\n");
+        json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+        json.append("  \"peakRssBytes\": ").append(peakResidentBytes()).append(",\n");
+        json.append("  \"admission\": {");
+        json.append("\"admitted\": ").append(admissions.sum());
+        json.append(", \"throttled\": ").append(throttledAdmissions.sum());
+        json.append(", \"throttledSeconds\": ").append(formatSeconds(throttledNanos.sum()));
+        json.append(", \"heapPressureEvents\": ").append(heapPressureEvents.sum());
+        json.append(", \"expansions\": ").append(admissionExpansions.sum()).append("},\n");
+        json.append("  \"stages\": {");
+        boolean first = true;
+        for (final Map.Entry<Stage, StageHistogram> entry : histograms.entrySet()) {
+            final StageHistogram histogram = entry.getValue();
+            json.append(first ? "\n" : ",\n");
+            first = false;
+            json.append("    \"").append(entry.getKey().label()).append("\": {");
+            json.append("\"count\": ").append(histogram.count.sum());
+            json.append(", \"sumSeconds\": ").append(formatSeconds(histogram.sumNanos.sum()));
+            json.append(", \"maxSeconds\": ").append(formatSeconds(histogram.maxNanos.get()));
+            json.append(", \"allocatedBytes\": ").append(histogram.allocatedBytes.sum());
+            json.append(", \"buckets\": {");
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                json.append(i == 0 ? "" : ", ");
+                json.append('"').append(formatBound(BUCKET_BOUNDS[i])).append("\": ").append(histogram.cumulative(i));
+            }
+            json.append(", \"+Inf\": ").append(histogram.count.sum()).append("}}");
+        }
+        json.append("\n  },\n");
+        json.append("  \"threadAllocatedBytes\": {");
+        first = true;
+        for (final Map.Entry<String, Long> entry : sortedThreadAllocations().entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            first = false;
+            json.append("    \"").append(escapeJson(entry.getKey())).append("\": ").append(entry.getValue());
+        }
+        json.append("\n  },\n");
+        json.append("  \"garbageCollectors\": {");
+        first = true;
+        for (final Map.Entry<String, long[]> entry : gc.entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            first = false;
+            json.append("    \"").append(escapeJson(entry.getKey())).append("\": {");
+            json.append("\"collections\": ").append(entry.getValue()[0]);
+            json.append(", \"pauseMillis\": ").append(entry.getValue()[1]).append('}');
+        }
+        json.append("\n  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private String toPrometheus(final Map<String, long[]> gc, final long wallNanos) {
+        final StringBuilder text = new StringBuilder();
+        text.append("# HELP ace_stage_duration_seconds Latency of instrumented ACE regression stages.\n");
+        text.append("# TYPE ace_stage_duration_seconds histogram\n");
+        for (final Map.Entry<Stage, StageHistogram> entry : histograms.entrySet()) {
+            final String label = entry.getKey().label();
+            final StageHistogram histogram = entry.getValue();
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                text.append("ace_stage_duration_seconds_bucket{stage=\"").append(label)
+                    .append("\",le=\"").append(formatBound(BUCKET_BOUNDS[i])).append("\"} ")
+                    .append(histogram.cumulative(i)).append('\n');
+            }
+            text.append("ace_stage_duration_seconds_bucket{stage=\"").append(label).append("\",le=\"+Inf\"} ")
+                .append(histogram.count.sum()).append('\n');
+            text.append("ace_stage_duration_seconds_sum{stage=\"").append(label).append("\"} ")
+                .append(formatSeconds(histogram.sumNanos.sum())).append('\n');
+            text.append("ace_stage_duration_seconds_count{stage=\"").append(label).append("\"} ")
+                .append(histogram.count.sum()).append('\n');
+        }
+        text.append("# HELP ace_stage_allocated_bytes_total Bytes allocated by threads while inside a stage.\n");
+        text.append("# TYPE ace_stage_allocated_bytes_total counter\n");
+        for (final Map.Entry<Stage, StageHistogram> entry : histograms.entrySet()) {
+            text.append("ace_stage_allocated_bytes_total{stage=\"").append(entry.getKey().label()).append("\"} ")
+                .append(entry.getValue().allocatedBytes.sum()).append('\n');
+        }
+        text.append("# HELP ace_thread_allocated_bytes_total Bytes allocated per thread inside instrumented stages.\n");
+        text.append("# TYPE ace_thread_allocated_bytes_total counter\n");
+        for (final Map.Entry<String, Long> entry : sortedThreadAllocations().entrySet()) {
+            text.append("ace_thread_allocated_bytes_total{thread=\"").append(escapePrometheus(entry.getKey()))
+                .append("\"} ").append(entry.getValue()).append('\n');
+        }
+        text.append("# HELP ace_gc_collections_total Garbage collections during the run.\n");
+        text.append("# TYPE ace_gc_collections_total counter\n");
+        for (final Map.Entry<String, long[]> entry : gc.entrySet()) {
+            text.append("ace_gc_collections_total{collector=\"").append(escapePrometheus(entry.getKey()))
+                .append("\"} ").append(entry.getValue()[0]).append('\n');
+        }
+        text.append("# HELP ace_gc_pause_seconds_total Accumulated garbage collection time during the run.\n");
+        text.append("# TYPE ace_gc_pause_seconds_total counter\n");
+        for (final Map.Entry<String, long[]> entry : gc.entrySet()) {
+            text.append("ace_gc_pause_seconds_total{collector=\"").append(escapePrometheus(entry.getKey()))
+                .append("\"} ").append(formatSeconds(entry.getValue()[1] * 1_000_000L)).append('\n');
+        }
+        text.append("# HELP ace_run_wall_seconds Wall-clock duration of the run.\n");
+        text.append("# TYPE ace_run_wall_seconds gauge\n");
+        text.append("ace_run_wall_seconds ").append(formatSeconds(wallNanos)).append('\n');
+        text.append("# HELP ace_run_groups_total File groups processed by the run.\n");
+        text.append("# TYPE ace_run_groups_total counter\n");
+        text.append("ace_run_groups_total ").append(groups.get()).append('\n');
+        text.append("# HELP ace_run_records_total Unique records produced by the run.\n");
+        text.append("# TYPE ace_run_records_total counter\n");
+        text.append("ace_run_records_total ").append(records.get()).append('\n');
+        text.append("# HELP ace_run_differences_total Differences found by the comparison.\n");
+        text.append("# TYPE ace_run_differences_total counter\n");
+        text.append("ace_run_differences_total ").append(differences.get()).append('\n');
+        text.append("# HELP ace_admission_groups_total File groups admitted into extraction.\n");
+        text.append("# TYPE ace_admission_groups_total counter\n");
+        text.append("ace_admission_groups_total ").append(admissions.sum()).append('\n');
+        text.append("# HELP ace_admission_throttled_total File groups that waited for memory or concurrency.\n");
+        text.append("# TYPE ace_admission_throttled_total counter\n");
+        text.append("ace_admission_throttled_total ").append(throttledAdmissions.sum()).append('\n');
+        text.append("# HELP ace_admission_throttled_seconds_total Time file groups waited to be admitted.\n");
+        text.append("# TYPE ace_admission_throttled_seconds_total counter\n");
+        text.append("ace_admission_throttled_seconds_total ").append(formatSeconds(throttledNanos.sum())).append('\n');
+        text.append("# HELP ace_heap_pressure_events_total Heap threshold notifications that cut the admission limit.\n");
+        text.append("# TYPE ace_heap_pressure_events_total counter\n");
+        text.append("ace_heap_pressure_events_total ").append(heapPressureEvents.sum()).append('\n');
+        text.append("# HELP ace_admission_expansions_total Raises of the admission limit.\n");
+        text.append("# TYPE ace_admission_expansions_total counter\n");
+        text.append("ace_admission_expansions_total ").append(admissionExpansions.sum()).append('\n');
+        final long peakResident = peakResidentBytes();
+        if (peakResident >= 0L) {
+            text.append("# HELP ace_process_peak_resident_bytes Peak resident set size of the process.\n");
+            text.append("# TYPE ace_process_peak_resident_bytes gauge\n");
+            text.append("ace_process_peak_resident_bytes ").append(peakResident).append('\n');
+        }
+        return text.toString();
+    }
+
+    private Map<String, Long> sortedThreadAllocations() {
+        final Map<String, Long> sorted = new TreeMap<>();
+        for (final Map.Entry<String, LongAdder> entry : threadAllocations.entrySet()) {
+            sorted.put(entry.getKey(), entry.getValue().sum());
+        }
+        return sorted;
+    }
+
+    private Map<String, long[]> collectorDeltas() {
+        final Map<String, long[]> deltas = new LinkedHashMap<>();
+        if (!enabled) {
+            return deltas;
+        }
+        for (final Map.Entry<String, long[]> entry : snapshotCollectors().entrySet()) {
+            final long[] baseline = gcBaseline.getOrDefault(entry.getKey(), new long[2]);
+            deltas.put(entry.getKey(), new long[] {
+                Math.max(0L, entry.getValue()[0] - baseline[0]),
+                Math.max(0L, entry.getValue()[1] - baseline[1]),
+            });
+        }
+        return deltas;
+    }
+
+    private static Map<String, long[]> snapshotCollectors() {
+        final Map<String, long[]> snapshot = new LinkedHashMap<>();
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            snapshot.put(collector.getName(), new long[] {
+                Math.max(0L, collector.getCollectionCount()),
+                Math.max(0L, collector.getCollectionTime()),
+            });
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the peak resident set size reported by {@code /proc/self/status},
+     * or {@code -1} where that file is not available.
+     */
+    static long peakResidentBytes() {
+        if (!Files.isReadable(PROCESS_STATUS)) {
+            return -1L;
+        }
+        try {
+            for (final String line : Files.readAllLines(PROCESS_STATUS, StandardCharsets.US_ASCII)) {
+                if (line.startsWith(PEAK_RESIDENT_FIELD)) {
+                    final String value = line.substring(PEAK_RESIDENT_FIELD.length()).trim();
+                    final int unit = value.indexOf(' ');
+                    return Long.parseLong(unit < 0 ? value : value.substring(0, unit)) * 1024L;
+                }
+            }
+        } catch (final IOException | NumberFormatException ex) {
+            return -1L;
+        }
+        return -1L;
+    }
+
+    private static com.sun.management.ThreadMXBean resolveAllocationBean() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    private static String formatSeconds(final long nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / NANOS_PER_SECOND);
+    }
+
+    private static String formatBound(final double bound) {
+        return BigDecimal.valueOf(bound).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escapeJson(final String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                escaped.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+            } else {
+                escaped.append(ch);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String escapePrometheus(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * An in-flight timing of one stage on one thread.
+     */
+    static final class Sample {
+
+        private final RunMetrics owner;
+        private final Stage stage;
+        private final long startedNanos;
+        private final long startedAllocatedBytes;
+
+        private Sample(
+            final RunMetrics owner,
+            final Stage stage,
+            final long startedNanos,
+            final long startedAllocatedBytes
+        ) {
+            this.owner = owner;
+            this.stage = stage;
+            this.startedNanos = startedNanos;
+            this.startedAllocatedBytes = startedAllocatedBytes;
+        }
+
+        void stop() {
+            if (owner != null) {
+                owner.record(stage, startedNanos, startedAllocatedBytes);
+            }
+        }
+    }
+
+    private static final class StageHistogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private void record(final long nanos) {
+            final double seconds = nanos / NANOS_PER_SECOND;
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                if (seconds <= BUCKET_BOUNDS[i]) {
+                    buckets.incrementAndGet(i);
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private long cumulative(final int bucketIndex) {
+            long total = 0L;
+            for (int i = 0; i <= bucketIndex; i++) {
+                total += buckets.get(i);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.tnqtech.docx;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Optional {@code --name value} settings accepted by
+ * {@link DecisionCsvGeneratorApp} after its positional arguments.
+ */
+final class RunOptions {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+    private static final int MIN_DEFAULT_DISCOVERY_THREADS = 4;
+    private static final long DEFAULT_WATCH_DEBOUNCE_MILLIS = 500L;
+    private static final int DEFAULT_GROUP_RETRIES = 1;
+    private static final int DEFAULT_HEAP_BUDGET_PERCENT = 60;
+    private static final int MAX_PERCENT = 100;
+    /** Options a shard coordinator does not pass on to its workers; all take a value. */
+    private static final Set<String> COORDINATOR_OPTIONS =
+        Set.of("--shards", "--merge-shards", "--shard-heap", "--shard", "--jfr", "--watch-debounce-ms");
+
+    private int workerThreads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int discoveryThreads = Math.max(MIN_DEFAULT_DISCOVERY_THREADS, Runtime.getRuntime().availableProcessors());
+    private Path recordingPath;
+    private Path scheduleHistoryPath;
+    private boolean watch;
+    private long watchDebounceMillis = DEFAULT_WATCH_DEBOUNCE_MILLIS;
+    private boolean checkpoint;
+    private boolean resume;
+    private long groupTimeoutMillis;
+    private int groupRetries = DEFAULT_GROUP_RETRIES;
+    private Path quarantinePath;
+    private boolean retryQuarantined;
+    private int maxExtractionThreads;
+    private int heapBudgetPercent = DEFAULT_HEAP_BUDGET_PERCENT;
+    private int shardIndex = -1;
+    private int shardCount;
+    private boolean launchShards;
+    private String shardHeap;
+    private List<String> workerArguments = List.of();
+
+    private RunOptions() {
+    }
+
+    static RunOptions defaults() {
+        return new RunOptions();
+    }
+
+    /**
+     * Removes the recognized options from {@code arguments}, leaving only the
+     * positional arguments behind.
+     *
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    static RunOptions extract(final List<String> arguments) {
+        final RunOptions options = new RunOptions();
+        options.workerArguments = workerArguments(arguments);
+        final List<String> positional = new ArrayList<>();
+        final Iterator<String> iterator = arguments.iterator();
+        while (iterator.hasNext()) {
+            final String argument = iterator.next();
+            if (!argument.startsWith("--")) {
+                positional.add(argument);
+                continue;
+            }
+            switch (argument) {
+                case "--threads":
+                    options.workerThreads = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--queue-capacity":
+                    options.queueCapacity = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--jfr":
+                    options.recordingPath = Path.of(nextValue(argument, iterator));
+                    break;
+                case "--discovery-threads":
+                    options.discoveryThreads = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--schedule-history":
+                    options.scheduleHistoryPath = Path.of(nextValue(argument, iterator));
+                    break;
+                case "--watch":
+                    options.watch = true;
+                    break;
+                case "--watch-debounce-ms":
+                    options.watchDebounceMillis = Math.max(0, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--checkpoint":
+                    options.checkpoint = true;
+                    break;
+                case "--resume":
+                    options.resume = true;
+                    break;
+                case "--group-timeout-ms":
+                    options.groupTimeoutMillis = Math.max(0, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--group-retries":
+                    options.groupRetries = Math.max(0, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--quarantine":
+                    options.quarantinePath = Path.of(nextValue(argument, iterator));
+                    break;
+                case "--retry-quarantined":
+                    options.retryQuarantined = true;
+                    break;
+                case "--max-extraction-threads":
+                    options.maxExtractionThreads = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--heap-budget-percent":
+                    options.heapBudgetPercent = Math.min(
+                        MAX_PERCENT,
+                        Math.max(1, parseInt(argument, nextValue(argument, iterator)))
+                    );
+                    break;
+                case "--shards":
+                    options.shardCount = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                    options.launchShards = true;
+                    break;
+                case "--merge-shards":
+                    options.shardCount = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                    break;
+                case "--shard":
+                    parseShard(options, argument, nextValue(argument, iterator));
+                    break;
+                case "--shard-heap":
+                    options.shardHeap = nextValue(argument, iterator);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + argument);
+            }
+        }
+        arguments.clear();
+        arguments.addAll(positional);
+        return options;
+    }
+
+    int workerThreads() {
+        return workerThreads;
+    }
+
+    int queueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Returns the number of threads that list input directories. Directory
+     * listing mostly waits on the filesystem, so the default is at least
+     * four even on small machines.
+     */
+    int discoveryThreads() {
+        return discoveryThreads;
+    }
+
+    /**
+     * Returns the file that receives a flight recording of the whole run, or
+     * {@code null} when no recording was requested.
+     */
+    Path recordingPath() {
+        return recordingPath;
+    }
+
+    /**
+     * Returns the file holding per-group timings from earlier runs that
+     * refine the largest-first schedule, or {@code null} to schedule by file
+     * size only.
+     */
+    Path scheduleHistoryPath() {
+        return scheduleHistoryPath;
+    }
+
+    /**
+     * Returns whether the input directory should be watched and changed
+     * groups reprocessed after the first run.
+     */
+    boolean watch() {
+        return watch;
+    }
+
+    /**
+     * Returns how long the input directory must stay quiet before a burst
+     * of changes is processed.
+     */
+    long watchDebounceMillis() {
+        return watchDebounceMillis;
+    }
+
+    /**
+     * Returns whether completed groups are journaled so that an interrupted
+     * run can be resumed. Resuming journals as well.
+     */
+    boolean checkpoint() {
+        return checkpoint || resume;
+    }
+
+    /**
+     * Returns whether groups journaled by an interrupted run are taken from
+     * the journal instead of being processed again.
+     */
+    boolean resume() {
+        return resume;
+    }
+
+    /**
+     * Returns how long one attempt at extracting a group may take before it
+     * is cancelled, or {@code 0} for no limit.
+     */
+    long groupTimeoutMillis() {
+        return groupTimeoutMillis;
+    }
+
+    /**
+     * Returns how many more attempts a group gets after running out of
+     * time before it is quarantined.
+     */
+    int groupRetries() {
+        return groupRetries;
+    }
+
+    /**
+     * Returns the quarantine file, or {@code null} to keep
+     * {@code quarantine.tsv} next to {@code output.csv}.
+     */
+    Path quarantinePath() {
+        return quarantinePath;
+    }
+
+    /**
+     * Returns whether quarantined groups should be processed again.
+     */
+    boolean retryQuarantined() {
+        return retryQuarantined;
+    }
+
+    /**
+     * Returns the most groups that may be in extraction at once while the
+     * heap allows it, never fewer than {@link #workerThreads()}.
+     */
+    int maxExtractionThreads() {
+        return Math.max(workerThreads, maxExtractionThreads);
+    }
+
+    /**
+     * Returns the share of the maximum heap, in percent, that the estimated
+     * memory cost of the groups in extraction may add up to.
+     */
+    int heapBudgetPercent() {
+        return heapBudgetPercent;
+    }
+
+    /**
+     * Returns the index of the shard this process runs, from {@code 0} to
+     * {@link #shardCount()} {@code - 1}, or {@code -1} when it does not run
+     * a single shard.
+     */
+    int shardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Returns the number of shards the groups are partitioned into, or
+     * {@code 0} for an unsharded run.
+     */
+    int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns whether this process starts the shard workers itself, as
+     * local processes, before merging their partials.
+     */
+    boolean launchShards() {
+        return launchShards;
+    }
+
+    /**
+     * Returns the maximum heap, as given to {@code -Xmx}, of locally started
+     * shard workers, or {@code null} to use the JVM default.
+     */
+    String shardHeap() {
+        return shardHeap;
+    }
+
+    /**
+     * Returns the command line arguments to start a shard worker with,
+     * without the shard selection: the positional arguments and every option
+     * that is not specific to the coordinator.
+     */
+    List<String> workerArguments() {
+        return workerArguments;
+    }
+
+    private static List<String> workerArguments(final List<String> arguments) {
+        final List<String> forwarded = new ArrayList<>();
+        final Iterator<String> iterator = arguments.iterator();
+        while (iterator.hasNext()) {
+            final String argument = iterator.next();
+            if (COORDINATOR_OPTIONS.contains(argument)) {
+                if (iterator.hasNext()) {
+                    iterator.next();
+                }
+            } else if (!"--watch".equals(argument)) {
+                forwarded.add(argument);
+            }
+        }
+        return List.copyOf(forwarded);
+    }
+
+    private static void parseShard(final RunOptions options, final String option, final String value) {
+        final int slash = value.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Invalid value for option " + option + " (expected <index>/<count>): " + value);
+        }
+        final int index = parseInt(option, value.substring(0, slash));
+        final int count = parseInt(option, value.substring(slash + 1));
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid value for option " + option + " (expected <index>/<count>): " + value);
+        }
+        options.shardIndex = index;
+        options.shardCount = count;
+    }
+
+    private static String nextValue(final String option, final Iterator<String> iterator) {
+        if (!iterator.hasNext()) {
+            throw new IllegalArgumentException("Missing value for option " + option);
+        }
+        return iterator.next();
+    }
+
+    private static int parseInt(final String option, final String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid value for option " + option + ": " + value, ex);
+        }
+    }
+}
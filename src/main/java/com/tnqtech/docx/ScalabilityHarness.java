@@ -0,0 +1,546 @@
+package com.tnqtech.docx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures how the end-to-end throughput of {@link DecisionCsvGeneratorApp}
+ * scales. A synthetic corpus is generated once per group count; the generate
+ * and compare flows then run in a fresh JVM for every combination of worker
+ * threads and {@code -Xmx} setting, and the {@code metrics.json} each run
+ * writes is collected into a scaling-curve CSV and an HTML chart.
+ */
+public final class ScalabilityHarness {
+
+    private static final String USAGE_MESSAGE =
+        "Usage: java -cp <jar> com.tnqtech.docx.ScalabilityHarness <work-directory>\n"
+            + "  Options: [--groups <n,n,...>] [--threads <n,n,...>] [--heap <size,size,...>]\n"
+            + "           [--flows generate,compare] [--seed <n>] [--decisions <n>] [--paragraphs <n>]\n"
+            + "  Heap sizes are -Xmx values such as 512m or 2g; 'default' leaves -Xmx unset.\n";
+    static final String RESULTS_CSV = "scaling.csv";
+    static final String RESULTS_HTML = "scaling.html";
+    static final String DEFAULT_HEAP = "default";
+    static final String GENERATE_FLOW = "generate";
+    static final String COMPARE_FLOW = "compare";
+    private static final String CORPUS_GROUPS_DIRECTORY = "groups";
+    private static final String CORPUS_EXPECTED_CSV = "expected.csv";
+    private static final String LOG_DIRECTORY = "logs";
+    private static final String OUT_OF_MEMORY_MARKER = "OutOfMemoryError";
+    private static final Pattern GC_COLLECTIONS = Pattern.compile("\"collections\":\\s*(\\d+)");
+    private static final Pattern GC_PAUSE = Pattern.compile("\"pauseMillis\":\\s*(\\d+)");
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+    private static final String[] SERIES_COLORS = {
+        "#1d4ed8", "#dc2626", "#059669", "#d97706", "#7c3aed", "#0891b2", "#db2777", "#4b5563",
+    };
+    static final List<String> CSV_COLUMNS = List.of(
+        "flow",
+        "groups",
+        "threads",
+        "heap",
+        "status",
+        "wall_seconds",
+        "process_seconds",
+        "groups_per_second",
+        "records_per_second",
+        "records",
+        "differences",
+        "peak_rss_mb",
+        "gc_collections",
+        "gc_seconds",
+        "thread_efficiency"
+    );
+
+    private final Path workDirectory;
+    private final List<Integer> groupCounts;
+    private final List<Integer> threadCounts;
+    private final List<String> heapSizes;
+    private final List<String> flows;
+    private final List<String> corpusOptions;
+
+    private ScalabilityHarness(
+        final Path workDirectory,
+        final List<Integer> groupCounts,
+        final List<Integer> threadCounts,
+        final List<String> heapSizes,
+        final List<String> flows,
+        final List<String> corpusOptions
+    ) {
+        this.workDirectory = workDirectory;
+        this.groupCounts = groupCounts;
+        this.threadCounts = threadCounts;
+        this.heapSizes = heapSizes;
+        this.flows = flows;
+        this.corpusOptions = corpusOptions;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final ScalabilityHarness harness;
+        try {
+            harness = fromArguments(args);
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE_MESSAGE);
+            System.exit(1);
+            return;
+        }
+        final List<Measurement> measurements = harness.run();
+        final Path csvPath = harness.workDirectory.resolve(RESULTS_CSV);
+        final Path htmlPath = harness.workDirectory.resolve(RESULTS_HTML);
+        writeCsv(csvPath, measurements);
+        writeHtml(htmlPath, measurements);
+        System.out.printf(Locale.ROOT, "Created scaling curve: %s%n", csvPath);
+        System.out.printf(Locale.ROOT, "Created scaling chart: %s%n", htmlPath);
+    }
+
+    static ScalabilityHarness fromArguments(final String[] args) {
+        List<Integer> groupCounts = List.of(100, 1000);
+        List<Integer> threadCounts = List.of(1, Runtime.getRuntime().availableProcessors());
+        List<String> heapSizes = List.of(DEFAULT_HEAP);
+        List<String> flows = List.of(GENERATE_FLOW, COMPARE_FLOW);
+        final List<String> corpusOptions = new ArrayList<>();
+        Path workDirectory = null;
+        final Iterator<String> iterator = Arrays.asList(args).iterator();
+        while (iterator.hasNext()) {
+            final String argument = iterator.next();
+            if (!argument.startsWith("--")) {
+                if (workDirectory != null) {
+                    throw new IllegalArgumentException("Unexpected argument: " + argument);
+                }
+                workDirectory = Path.of(argument).toAbsolutePath().normalize();
+                continue;
+            }
+            switch (argument) {
+                case "--groups":
+                    groupCounts = parseCounts(argument, nextValue(argument, iterator));
+                    break;
+                case "--threads":
+                    threadCounts = parseCounts(argument, nextValue(argument, iterator));
+                    break;
+                case "--heap":
+                    heapSizes = parseList(argument, nextValue(argument, iterator));
+                    break;
+                case "--flows":
+                    flows = parseList(argument, nextValue(argument, iterator));
+                    for (final String flow : flows) {
+                        if (!GENERATE_FLOW.equals(flow) && !COMPARE_FLOW.equals(flow)) {
+                            throw new IllegalArgumentException("Unknown flow: " + flow);
+                        }
+                    }
+                    break;
+                case "--seed":
+                case "--decisions":
+                case "--paragraphs":
+                    corpusOptions.add(argument);
+                    corpusOptions.add(nextValue(argument, iterator));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + argument);
+            }
+        }
+        if (workDirectory == null) {
+            throw new IllegalArgumentException("Missing work directory");
+        }
+        return new ScalabilityHarness(workDirectory, groupCounts, threadCounts, heapSizes, flows, corpusOptions);
+    }
+
+    /**
+     * Generates the corpora and runs every matrix cell in its own JVM. A cell
+     * that fails, for example with an {@link OutOfMemoryError} at a small heap,
+     * is recorded with its status instead of aborting the matrix.
+     */
+    List<Measurement> run() throws IOException, InterruptedException {
+        Files.createDirectories(workDirectory.resolve(LOG_DIRECTORY));
+        final List<String> rules = SyntheticCorpusGenerator.loadRules(null);
+        final List<Measurement> measurements = new ArrayList<>();
+        for (final int groups : groupCounts) {
+            final Path corpus = workDirectory.resolve(String.format(Locale.ROOT, "corpus-%d", groups));
+            final List<String> generatorArguments = new ArrayList<>(corpusOptions);
+            generatorArguments.add("--groups");
+            generatorArguments.add(Integer.toString(groups));
+            final SyntheticCorpusGenerator.Settings settings =
+                SyntheticCorpusGenerator.Settings.extract(generatorArguments);
+            System.out.printf(Locale.ROOT, "Generating corpus with %d groups in %s%n", groups, corpus);
+            new SyntheticCorpusGenerator(corpus, settings, rules).generate();
+            for (final String heap : heapSizes) {
+                for (final int threads : threadCounts) {
+                    for (final String flow : flows) {
+                        final Measurement measurement = runCell(corpus, flow, groups, threads, heap);
+                        measurements.add(measurement);
+                        System.out.println(measurement.describe());
+                    }
+                }
+            }
+        }
+        return measurements;
+    }
+
+    private Measurement runCell(
+        final Path corpus,
+        final String flow,
+        final int groups,
+        final int threads,
+        final String heap
+    ) throws IOException, InterruptedException {
+        final Path groupsDirectory = corpus.resolve(CORPUS_GROUPS_DIRECTORY);
+        final Path metricsPath = groupsDirectory.resolve(RunMetrics.JSON_FILE_NAME);
+        Files.deleteIfExists(metricsPath);
+
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!DEFAULT_HEAP.equals(heap)) {
+            command.add("-Xmx" + heap);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DecisionCsvGeneratorApp.class.getName());
+        if (COMPARE_FLOW.equals(flow)) {
+            command.add(corpus.resolve(CORPUS_EXPECTED_CSV).toString());
+        }
+        command.add(groupsDirectory.toString());
+        command.add("--threads");
+        command.add(Integer.toString(threads));
+
+        final Path logPath = workDirectory.resolve(LOG_DIRECTORY)
+            .resolve(String.format(Locale.ROOT, "%s-%d-groups-%d-threads-%s.log", flow, groups, threads, heap));
+        final ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(logPath.toFile());
+        final long start = System.nanoTime();
+        final int exitCode = builder.start().waitFor();
+        final double processSeconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+        String status = "ok";
+        if (exitCode != 0) {
+            final String log = Files.readString(logPath, StandardCharsets.UTF_8);
+            status = log.contains(OUT_OF_MEMORY_MARKER) ? "out-of-memory" : "failed (exit " + exitCode + ")";
+        } else if (!Files.isRegularFile(metricsPath)) {
+            status = "no metrics";
+        }
+        if (!"ok".equals(status)) {
+            return new Measurement(flow, groups, threads, heap, status, processSeconds, 0d, 0, 0L, 0L, -1L, 0L, 0L);
+        }
+        final String json = Files.readString(metricsPath, StandardCharsets.UTF_8);
+        return new Measurement(
+            flow,
+            groups,
+            threads,
+            heap,
+            status,
+            processSeconds,
+            jsonNumber(json, "wallSeconds"),
+            (int) jsonNumber(json, "groups"),
+            (long) jsonNumber(json, "records"),
+            (long) jsonNumber(json, "differences"),
+            (long) jsonNumber(json, "peakRssBytes"),
+            sum(GC_COLLECTIONS, json),
+            sum(GC_PAUSE, json)
+        );
+    }
+
+    /**
+     * Writes one row per matrix cell. Thread efficiency is the speedup over the
+     * smallest thread count of the same flow, group count and heap, divided by
+     * the increase in threads; values well below one show sublinear scaling.
+     */
+    static void writeCsv(final Path target, final List<Measurement> measurements) throws IOException {
+        final StringBuilder csv = new StringBuilder();
+        csv.append(String.join(",", CSV_COLUMNS)).append('\n');
+        for (final Measurement measurement : measurements) {
+            final double efficiency = threadEfficiency(measurement, measurements);
+            csv.append(String.format(
+                Locale.ROOT,
+                "%s,%d,%d,%s,%s,%.3f,%.3f,%.2f,%.2f,%d,%d,%s,%d,%.3f,%s%n",
+                measurement.flow(),
+                measurement.groups(),
+                measurement.threads(),
+                measurement.heap(),
+                measurement.status(),
+                measurement.wallSeconds(),
+                measurement.processSeconds(),
+                measurement.groupsPerSecond(),
+                measurement.recordsPerSecond(),
+                measurement.records(),
+                measurement.differences(),
+                measurement.peakRssBytes() < 0L ? "" : Long.toString(measurement.peakRssBytes() / BYTES_PER_MEGABYTE),
+                measurement.gcCollections(),
+                measurement.gcMillis() / 1000d,
+                Double.isNaN(efficiency) ? "" : String.format(Locale.ROOT, "%.2f", efficiency)
+            ));
+        }
+        Files.writeString(target, csv, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes two line charts, throughput and peak RSS against the group count,
+     * with one series per flow, thread count and heap, followed by the table
+     * of measurements.
+     */
+    static void writeHtml(final Path target, final List<Measurement> measurements) throws IOException {
+        final Map<String, List<Measurement>> series = new LinkedHashMap<>();
+        for (final Measurement measurement : measurements) {
+            if ("ok".equals(measurement.status())) {
+                series.computeIfAbsent(measurement.seriesName(), key -> new ArrayList<>()).add(measurement);
+            }
+        }
+        final StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n  <meta charset=\"UTF-8\">\n");
+        html.append("  <title>ACE Regression Scaling</title>\n  <style>\n");
+        html.append("    body { margin: 0; font-family: 'Segoe UI', Tahoma, sans-serif; background: #eef2f7;"
+            + " color: #1f2933; font-size: 14px; }\n");
+        html.append("    .page { max-width: 1180px; margin: 0 auto; padding: 32px 20px 64px; }\n");
+        html.append("    h1 { margin: 0 0 6px; font-size: 1.8rem; font-weight: 600; color: #0f172a; }\n");
+        html.append("    .card { background: #ffffff; border: 1px solid #dbe5f3; border-radius: 14px; padding: 18px 20px;"
+            + " margin-bottom: 20px; box-shadow: 0 16px 32px rgba(15, 23, 42, 0.08); }\n");
+        html.append("    .card h2 { margin: 0 0 12px; font-size: 1rem; color: #0f172a; }\n");
+        html.append("    table { border-collapse: collapse; width: 100%; font-size: 0.85rem; }\n");
+        html.append("    th, td { padding: 6px 8px; border-bottom: 1px solid #e2e8f0; text-align: right; }\n");
+        html.append("    th:first-child, td:first-child { text-align: left; }\n");
+        html.append("    th { color: #64748b; font-weight: 600; text-transform: uppercase; font-size: 0.72rem; }\n");
+        html.append("    .legend { display: flex; flex-wrap: wrap; gap: 12px; margin-top: 8px; font-size: 0.8rem; }\n");
+        html.append("    .swatch { display: inline-block; width: 12px; height: 12px; border-radius: 3px;"
+            + " margin-right: 4px; vertical-align: middle; }\n");
+        html.append("  </style>\n</head>\n<body>\n<div class=\"page\">\n");
+        html.append("  <h1>ACE Regression Scaling</h1>\n");
+        appendChart(html, "Groups per second", series, Measurement::groupsPerSecond);
+        appendChart(html, "Peak RSS (MB)", series, m -> Math.max(0L, m.peakRssBytes()) / (double) BYTES_PER_MEGABYTE);
+        html.append("  <div class=\"card\">\n    <h2>Measurements</h2>\n    <table>\n      <tr>");
+        for (final String column : CSV_COLUMNS) {
+            html.append("<th>").append(column.replace('_', ' ')).append("</th>");
+        }
+        html.append("</tr>\n");
+        for (final Measurement measurement : measurements) {
+            final double efficiency = threadEfficiency(measurement, measurements);
+            html.append("      <tr>");
+            appendCells(
+                html,
+                measurement.flow(),
+                Integer.toString(measurement.groups()),
+                Integer.toString(measurement.threads()),
+                measurement.heap(),
+                measurement.status(),
+                String.format(Locale.ROOT, "%.2f", measurement.wallSeconds()),
+                String.format(Locale.ROOT, "%.2f", measurement.processSeconds()),
+                String.format(Locale.ROOT, "%.1f", measurement.groupsPerSecond()),
+                String.format(Locale.ROOT, "%.0f", measurement.recordsPerSecond()),
+                Long.toString(measurement.records()),
+                Long.toString(measurement.differences()),
+                measurement.peakRssBytes() < 0L ? "" : Long.toString(measurement.peakRssBytes() / BYTES_PER_MEGABYTE),
+                Long.toString(measurement.gcCollections()),
+                String.format(Locale.ROOT, "%.2f", measurement.gcMillis() / 1000d),
+                Double.isNaN(efficiency) ? "" : String.format(Locale.ROOT, "%.2f", efficiency)
+            );
+            html.append("</tr>\n");
+        }
+        html.append("    </table>\n  </div>\n</div>\n</body>\n</html>\n");
+        Files.writeString(target, html, StandardCharsets.UTF_8);
+    }
+
+    private static void appendChart(
+        final StringBuilder html,
+        final String title,
+        final Map<String, List<Measurement>> series,
+        final ToDoubleFunction<Measurement> value
+    ) {
+        final int width = 720;
+        final int height = 280;
+        final int margin = 48;
+        int minGroups = Integer.MAX_VALUE;
+        int maxGroups = 1;
+        double maxValue = 0d;
+        for (final List<Measurement> points : series.values()) {
+            for (final Measurement point : points) {
+                minGroups = Math.min(minGroups, point.groups());
+                maxGroups = Math.max(maxGroups, point.groups());
+                maxValue = Math.max(maxValue, value.applyAsDouble(point));
+            }
+        }
+        if (maxValue <= 0d) {
+            maxValue = 1d;
+        }
+        final double logMin = Math.log10(Math.max(1, minGroups == Integer.MAX_VALUE ? 1 : minGroups));
+        final double logSpan = Math.max(Math.log10(maxGroups) - logMin, 1e-9);
+        html.append("  <div class=\"card\">\n    <h2>").append(title).append(" by group count</h2>\n");
+        html.append(String.format(
+            Locale.ROOT,
+            "    <svg width=\"%d\" height=\"%d\" role=\"img\" aria-label=\"%s\">%n",
+            width,
+            height,
+            title
+        ));
+        html.append(String.format(
+            Locale.ROOT,
+            "      <line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#94a3b8\"/>%n"
+                + "      <line x1=\"%d\" y1=\"%d\" x2=\"%d\" y2=\"%d\" stroke=\"#94a3b8\"/>%n",
+            margin, height - margin, width - margin, height - margin,
+            margin, margin / 2, margin, height - margin
+        ));
+        html.append(String.format(
+            Locale.ROOT,
+            "      <text x=\"4\" y=\"%d\" font-size=\"11\" fill=\"#64748b\">%.1f</text>%n",
+            margin / 2 + 4,
+            maxValue
+        ));
+        int colorIndex = 0;
+        final StringBuilder legend = new StringBuilder();
+        for (final Map.Entry<String, List<Measurement>> entry : series.entrySet()) {
+            final String color = SERIES_COLORS[colorIndex++ % SERIES_COLORS.length];
+            final StringBuilder points = new StringBuilder();
+            for (final Measurement point : entry.getValue()) {
+                final double x = margin + (Math.log10(point.groups()) - logMin) / logSpan * (width - 2 * margin);
+                final double y = height - margin - value.applyAsDouble(point) / maxValue * (height - 1.5 * margin);
+                points.append(String.format(Locale.ROOT, "%.1f,%.1f ", x, y));
+                html.append(String.format(
+                    Locale.ROOT,
+                    "      <circle cx=\"%.1f\" cy=\"%.1f\" r=\"3\" fill=\"%s\"/>%n"
+                        + "      <text x=\"%.1f\" y=\"%d\" font-size=\"11\" fill=\"#64748b\""
+                        + " text-anchor=\"middle\">%d</text>%n",
+                    x, y, color, x, height - margin + 16, point.groups()
+                ));
+            }
+            html.append(String.format(
+                Locale.ROOT,
+                "      <polyline fill=\"none\" stroke=\"%s\" stroke-width=\"2\" points=\"%s\"/>%n",
+                color,
+                points.toString().trim()
+            ));
+            legend.append("<span><span class=\"swatch\" style=\"background:").append(color).append("\"></span>")
+                .append(escapeHtml(entry.getKey())).append("</span>");
+        }
+        html.append("    </svg>\n    <div class=\"legend\">").append(legend).append("</div>\n  </div>\n");
+    }
+
+    private static void appendCells(final StringBuilder html, final String... values) {
+        for (final String value : values) {
+            html.append("<td>").append(escapeHtml(value)).append("</td>");
+        }
+    }
+
+    private static double threadEfficiency(final Measurement measurement, final List<Measurement> measurements) {
+        Measurement reference = null;
+        for (final Measurement candidate : measurements) {
+            if (candidate.flow().equals(measurement.flow())
+                && candidate.groups() == measurement.groups()
+                && candidate.heap().equals(measurement.heap())
+                && "ok".equals(candidate.status())
+                && (reference == null || candidate.threads() < reference.threads())) {
+                reference = candidate;
+            }
+        }
+        if (reference == null || !"ok".equals(measurement.status()) || reference.groupsPerSecond() <= 0d) {
+            return Double.NaN;
+        }
+        final double speedup = measurement.groupsPerSecond() / reference.groupsPerSecond();
+        return speedup / ((double) measurement.threads() / reference.threads());
+    }
+
+    private static double jsonNumber(final String json, final String key) {
+        final Matcher matcher = Pattern.compile("\"" + Pattern.quote(key) + "\":\\s*(-?[0-9.]+)").matcher(json);
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : 0d;
+    }
+
+    private static long sum(final Pattern pattern, final String json) {
+        final Matcher matcher = pattern.matcher(json);
+        long total = 0L;
+        while (matcher.find()) {
+            total += Long.parseLong(matcher.group(1));
+        }
+        return total;
+    }
+
+    private static String escapeHtml(final String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static String nextValue(final String option, final Iterator<String> iterator) {
+        if (!iterator.hasNext()) {
+            throw new IllegalArgumentException("Missing value for option " + option);
+        }
+        return iterator.next();
+    }
+
+    private static List<String> parseList(final String option, final String value) {
+        final List<String> values = new ArrayList<>();
+        for (final String part : value.split(",")) {
+            if (!part.isBlank()) {
+                values.add(part.trim());
+            }
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Invalid value for option " + option + ": " + value);
+        }
+        return values;
+    }
+
+    private static List<Integer> parseCounts(final String option, final String value) {
+        final List<Integer> counts = new ArrayList<>();
+        for (final String part : parseList(option, value)) {
+            try {
+                counts.add(Math.max(1, Integer.parseInt(part)));
+            } catch (final NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value, ex);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The outcome of one flow at one group count, thread count and heap size.
+     */
+    record Measurement(
+        String flow,
+        int groups,
+        int threads,
+        String heap,
+        String status,
+        double processSeconds,
+        double wallSeconds,
+        int processedGroups,
+        long records,
+        long differences,
+        long peakRssBytes,
+        long gcCollections,
+        long gcMillis
+    ) {
+
+        double groupsPerSecond() {
+            return wallSeconds > 0d ? processedGroups / wallSeconds : 0d;
+        }
+
+        double recordsPerSecond() {
+            return wallSeconds > 0d ? records / wallSeconds : 0d;
+        }
+
+        String seriesName() {
+            return String.format(Locale.ROOT, "%s, %d thread(s), heap %s", flow, threads, heap);
+        }
+
+        String describe() {
+            return String.format(
+                Locale.ROOT,
+                "%s: %d groups, %d thread(s), heap %s: %s, %.2f s, %.1f groups/s, %.0f records/s, peak RSS %s, GC %d ms",
+                flow,
+                groups,
+                threads,
+                heap,
+                status,
+                wallSeconds,
+                groupsPerSecond(),
+                recordsPerSecond(),
+                peakRssBytes < 0L ? "n/a" : (peakRssBytes / BYTES_PER_MEGABYTE) + " MB",
+                gcMillis
+            );
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.tnqtech.docx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The result of one shard of a sharded run: the shard's group counts and
+ * quarantined groups, followed by its sorted, deduplicated records, each
+ * with the key of the group it came from so that the partials of all shards
+ * can be merged into the order of a single run.
+ *
+ * <p>Groups are assigned to shards by the CRC-32 of their normalized key,
+ * so every process that is given the same shard count assigns every group
+ * to the same shard. Shard {@code i} of {@code n} keeps its files in
+ * {@code shards/shard-i-of-n} next to {@code output.csv}.</p>
+ *
+ * <p>The file ends with the CRC-32 of everything before it, so a partial
+ * that was cut short or damaged is rejected instead of being merged.</p>
+ */
+final class ShardPartial {
+
+    static final String FILE_NAME = "output.partial";
+    static final String LOG_FILE_NAME = "shard.log";
+
+    private static final String DIRECTORY_NAME = "shards";
+    private static final byte[] MAGIC = "ACEPART2".getBytes(StandardCharsets.US_ASCII);
+    private static final int NULL_LENGTH = -1;
+
+    private ShardPartial() {
+    }
+
+    /**
+     * Returns the shard, from {@code 0} to {@code shardCount - 1}, that the
+     * group with the given normalized key belongs to.
+     */
+    static int shardOf(final String prefix, final int shardCount) {
+        final CRC32 crc = new CRC32();
+        crc.update(prefix.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    /**
+     * Returns the directory that holds the files of one shard.
+     */
+    static Path directory(final Path outputDirectory, final int shardIndex, final int shardCount) {
+        return outputDirectory.resolve(DIRECTORY_NAME)
+            .resolve(String.format(Locale.ROOT, "shard-%d-of-%d", shardIndex, shardCount));
+    }
+
+    /**
+     * Writes a partial atomically; {@code rows} must already be in merge
+     * order.
+     */
+    static void write(
+        final Path path,
+        final int shardIndex,
+        final int shardCount,
+        final Header header,
+        final List<Row> rows
+    ) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        final CRC32 crc = new CRC32();
+        try (DataOutputStream output = new DataOutputStream(new CheckedOutputStream(new DeflaterOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary))), crc))) {
+            output.write(MAGIC);
+            output.writeInt(shardIndex);
+            output.writeInt(shardCount);
+            output.writeInt(header.discoveredGroups());
+            output.writeInt(header.processedGroups());
+            output.writeInt(header.incompleteGroups());
+            output.writeInt(header.quarantined().size());
+            for (final GroupQuarantine.Entry entry : header.quarantined()) {
+                writeString(output, entry.prefix());
+                writeString(output, entry.fingerprint());
+                output.writeInt(entry.attempts());
+                writeString(output, entry.reason());
+            }
+            output.writeInt(rows.size());
+            for (final Row row : rows) {
+                writeString(output, row.prefix());
+                output.writeInt(row.bufferPosition());
+                output.writeInt(row.fields().length);
+                for (final String field : row.fields()) {
+                    writeString(output, field);
+                }
+            }
+            output.writeLong(crc.getValue());
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        final byte[] bytes = input.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException();
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Streams the rows of a partial, so that merging holds only one row per
+     * shard besides the merged result.
+     */
+    static final class Reader implements Closeable {
+
+        private final Path path;
+        private final CRC32 crc;
+        private final DataInputStream input;
+        private final Header header;
+        private int remainingRows;
+
+        private Reader(
+            final Path path,
+            final CRC32 crc,
+            final DataInputStream input,
+            final Header header,
+            final int rowCount
+        ) {
+            this.path = path;
+            this.crc = crc;
+            this.input = input;
+            this.header = header;
+            this.remainingRows = rowCount;
+        }
+
+        /**
+         * Opens the partial of shard {@code shardIndex} of
+         * {@code shardCount}.
+         *
+         * @throws IOException if the file is missing, truncated, corrupt
+         *     or was written for another shard
+         */
+        static Reader open(final Path path, final int shardIndex, final int shardCount) throws IOException {
+            final CRC32 crc = new CRC32();
+            final DataInputStream input = new DataInputStream(new CheckedInputStream(
+                new InflaterInputStream(new BufferedInputStream(Files.newInputStream(path))), crc));
+            try {
+                final byte[] magic = new byte[MAGIC.length];
+                input.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IOException("Not a shard partial: " + path);
+                }
+                final int index = input.readInt();
+                final int count = input.readInt();
+                if (index != shardIndex || count != shardCount) {
+                    throw new IOException(String.format(
+                        Locale.ROOT,
+                        "%s holds shard %d of %d, expected shard %d of %d",
+                        path,
+                        index,
+                        count,
+                        shardIndex,
+                        shardCount
+                    ));
+                }
+                final int discoveredGroups = input.readInt();
+                final int processedGroups = input.readInt();
+                final int incompleteGroups = input.readInt();
+                final int quarantinedCount = input.readInt();
+                final List<GroupQuarantine.Entry> quarantined = new ArrayList<>();
+                for (int i = 0; i < quarantinedCount; i++) {
+                    quarantined.add(new GroupQuarantine.Entry(
+                        readString(input),
+                        readString(input),
+                        input.readInt(),
+                        readString(input)
+                    ));
+                }
+                final Header header = new Header(discoveredGroups, processedGroups, incompleteGroups, quarantined);
+                final int rowCount = input.readInt();
+                if (quarantinedCount < 0 || rowCount < 0) {
+                    throw new IOException("Corrupt shard partial: " + path);
+                }
+                final Reader reader = new Reader(path, crc, input, header, rowCount);
+                if (rowCount == 0) {
+                    reader.verifyChecksum();
+                }
+                return reader;
+            } catch (final EOFException ex) {
+                input.close();
+                throw new IOException("Truncated shard partial: " + path, ex);
+            } catch (final IOException | RuntimeException ex) {
+                input.close();
+                throw ex;
+            }
+        }
+
+        Header header() {
+            return header;
+        }
+
+        /**
+         * Returns the next row, or {@code null} after the last one. The
+         * checksum is verified when the last row is read.
+         */
+        Row next() throws IOException {
+            if (remainingRows == 0) {
+                return null;
+            }
+            try {
+                final String prefix = readString(input);
+                final int bufferPosition = input.readInt();
+                final int fieldCount = input.readInt();
+                if (fieldCount < 0) {
+                    throw new IOException("Corrupt shard partial: " + path);
+                }
+                final List<String> fields = new ArrayList<>();
+                for (int i = 0; i < fieldCount; i++) {
+                    fields.add(readString(input));
+                }
+                if (--remainingRows == 0) {
+                    verifyChecksum();
+                }
+                return new Row(prefix, fields.toArray(new String[0]), bufferPosition);
+            } catch (final EOFException ex) {
+                throw new IOException("Truncated shard partial: " + path, ex);
+            }
+        }
+
+        private void verifyChecksum() throws IOException {
+            final long expected = crc.getValue();
+            if (input.readLong() != expected) {
+                throw new IOException("Corrupt shard partial: " + path);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    /**
+     * The group counts and quarantined groups of one shard.
+     */
+    record Header(
+        int discoveredGroups,
+        int processedGroups,
+        int incompleteGroups,
+        List<GroupQuarantine.Entry> quarantined
+    ) {
+    }
+
+    /**
+     * One record with the key of its group, its field values in CSV column
+     * order and its buffer position.
+     */
+    record Row(String prefix, String[] fields, int bufferPosition) {
+    }
+}
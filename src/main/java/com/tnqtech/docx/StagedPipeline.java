@@ -0,0 +1,390 @@
+package com.tnqtech.docx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a source, a chain of multi-threaded transformation stages and a
+ * single-threaded sink connected by bounded queues. A full queue blocks its
+ * producer, which bounds the number of in-flight items and therefore memory.
+ * Each stage records item counts, busy time and the deepest queue it observed.
+ *
+ * @param <T> the type of the items produced by the last stage added so far
+ */
+final class StagedPipeline<T> {
+
+    private static final Object END_OF_STREAM = new Object();
+    private static final long POLL_INTERVAL_MILLIS = 50L;
+
+    /**
+     * Produces the pipeline input.
+     *
+     * @param <T> the produced item type
+     */
+    @FunctionalInterface
+    interface Source<T> {
+        void produce(Emitter<T> emitter) throws Exception;
+    }
+
+    /**
+     * Hands items to the next stage, blocking while its queue is full.
+     *
+     * @param <T> the emitted item type
+     */
+    @FunctionalInterface
+    interface Emitter<T> {
+        void emit(T item) throws InterruptedException;
+    }
+
+    /**
+     * Transforms one item; returning {@code null} drops the item.
+     *
+     * @param <I> the input type
+     * @param <O> the output type
+     */
+    @FunctionalInterface
+    interface StageFunction<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    /**
+     * Consumes the items leaving the last stage on the calling thread.
+     *
+     * @param <T> the consumed item type
+     */
+    @FunctionalInterface
+    interface Sink<T> {
+        void accept(T item) throws Exception;
+    }
+
+    private final List<StageDefinition> stages;
+
+    private StagedPipeline(final List<StageDefinition> stages) {
+        this.stages = stages;
+    }
+
+    static <T> StagedPipeline<T> from(final String name, final Source<T> source) {
+        final List<StageDefinition> stages = new ArrayList<>();
+        stages.add(new StageDefinition(name, 1, 0, source, null));
+        return new StagedPipeline<>(stages);
+    }
+
+    <O> StagedPipeline<O> then(
+        final String name,
+        final int workers,
+        final int queueCapacity,
+        final StageFunction<T, O> function
+    ) {
+        final List<StageDefinition> next = new ArrayList<>(stages);
+        next.add(new StageDefinition(name, Math.max(1, workers), Math.max(1, queueCapacity), null, function));
+        return new StagedPipeline<>(next);
+    }
+
+    /**
+     * Runs the pipeline until the source is exhausted and every item has
+     * reached the sink. The first failure in any stage aborts the pipeline
+     * and is rethrown.
+     */
+    List<StageStatistics> drainTo(final String name, final int queueCapacity, final Sink<T> sink)
+        throws PipelineException {
+        final List<StageDefinition> all = new ArrayList<>(stages);
+        all.add(new StageDefinition(name, 1, Math.max(1, queueCapacity), null, null));
+        final int stageCount = all.size();
+        final List<BlockingQueue<Object>> inputs = new ArrayList<>(stageCount);
+        final List<StageStatistics> statistics = new ArrayList<>(stageCount);
+        for (final StageDefinition stage : all) {
+            inputs.add(stage.queueCapacity > 0 ? new ArrayBlockingQueue<>(stage.queueCapacity) : null);
+            statistics.add(new StageStatistics(stage.name, stage.workers, stage.queueCapacity));
+        }
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        final Thread sourceThread = new Thread(
+            () -> runSource(all.get(0), inputs.get(1), all.get(1).workers, statistics.get(0), failure),
+            "pipeline-" + all.get(0).name
+        );
+        threads.add(sourceThread);
+        for (int index = 1; index < stageCount - 1; index++) {
+            final StageDefinition stage = all.get(index);
+            final AtomicInteger remainingWorkers = new AtomicInteger(stage.workers);
+            for (int worker = 0; worker < stage.workers; worker++) {
+                final int stageIndex = index;
+                threads.add(new Thread(
+                    () -> runWorker(
+                        stage,
+                        inputs.get(stageIndex),
+                        inputs.get(stageIndex + 1),
+                        all.get(stageIndex + 1).workers,
+                        remainingWorkers,
+                        statistics.get(stageIndex),
+                        failure
+                    ),
+                    "pipeline-" + stage.name + "-" + worker
+                ));
+            }
+        }
+        for (final Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        runSink(sink, inputs.get(stageCount - 1), statistics.get(stageCount - 1), failure);
+        for (final Thread thread : threads) {
+            if (failure.get() != null) {
+                thread.interrupt();
+            }
+            try {
+                thread.join();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, ex);
+                break;
+            }
+        }
+        final Throwable cause = failure.get();
+        if (cause != null) {
+            throw new PipelineException(cause);
+        }
+        return statistics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void runSource(
+        final StageDefinition stage,
+        final BlockingQueue<Object> output,
+        final int downstreamWorkers,
+        final StageStatistics statistics,
+        final AtomicReference<Throwable> failure
+    ) {
+        statistics.markStarted();
+        try {
+            ((Source<Object>) stage.source).produce(item -> {
+                put(output, item, failure);
+                statistics.recordItem(0L);
+            });
+        } catch (final Throwable ex) {
+            failure.compareAndSet(null, ex);
+        } finally {
+            statistics.markFinished();
+            signalEnd(output, downstreamWorkers, failure);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void runWorker(
+        final StageDefinition stage,
+        final BlockingQueue<Object> input,
+        final BlockingQueue<Object> output,
+        final int downstreamWorkers,
+        final AtomicInteger remainingWorkers,
+        final StageStatistics statistics,
+        final AtomicReference<Throwable> failure
+    ) {
+        statistics.markStarted();
+        final StageFunction<Object, Object> function = (StageFunction<Object, Object>) stage.function;
+        try {
+            while (failure.get() == null) {
+                final Object item = take(input, statistics, failure);
+                if (item == null || item == END_OF_STREAM) {
+                    break;
+                }
+                final long start = System.nanoTime();
+                final Object result = function.apply(item);
+                statistics.recordItem(System.nanoTime() - start);
+                if (result != null) {
+                    put(output, result, failure);
+                }
+            }
+        } catch (final Throwable ex) {
+            failure.compareAndSet(null, ex);
+        } finally {
+            statistics.markFinished();
+            if (remainingWorkers.decrementAndGet() == 0) {
+                signalEnd(output, downstreamWorkers, failure);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void runSink(
+        final Sink<T> sink,
+        final BlockingQueue<Object> input,
+        final StageStatistics statistics,
+        final AtomicReference<Throwable> failure
+    ) {
+        statistics.markStarted();
+        try {
+            while (failure.get() == null) {
+                final Object item = take(input, statistics, failure);
+                if (item == null || item == END_OF_STREAM) {
+                    break;
+                }
+                final long start = System.nanoTime();
+                sink.accept((T) item);
+                statistics.recordItem(System.nanoTime() - start);
+            }
+        } catch (final Throwable ex) {
+            failure.compareAndSet(null, ex);
+        } finally {
+            statistics.markFinished();
+        }
+    }
+
+    private static Object take(
+        final BlockingQueue<Object> queue,
+        final StageStatistics statistics,
+        final AtomicReference<Throwable> failure
+    ) throws InterruptedException {
+        while (failure.get() == null) {
+            statistics.observeQueueDepth(queue.size());
+            final Object item = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static void put(
+        final BlockingQueue<Object> queue,
+        final Object item,
+        final AtomicReference<Throwable> failure
+    ) throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(item, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+        throw new InterruptedException("Pipeline aborted");
+    }
+
+    private static void signalEnd(
+        final BlockingQueue<Object> queue,
+        final int consumers,
+        final AtomicReference<Throwable> failure
+    ) {
+        try {
+            for (int i = 0; i < consumers; i++) {
+                put(queue, END_OF_STREAM, failure);
+            }
+        } catch (final InterruptedException ex) {
+            failure.compareAndSet(null, ex);
+        }
+    }
+
+    private static final class StageDefinition {
+
+        private final String name;
+        private final int workers;
+        private final int queueCapacity;
+        private final Source<?> source;
+        private final StageFunction<?, ?> function;
+
+        StageDefinition(
+            final String name,
+            final int workers,
+            final int queueCapacity,
+            final Source<?> source,
+            final StageFunction<?, ?> function
+        ) {
+            this.name = name;
+            this.workers = workers;
+            this.queueCapacity = queueCapacity;
+            this.source = source;
+            this.function = function;
+        }
+    }
+
+    /**
+     * Counters of one pipeline stage.
+     */
+    static final class StageStatistics {
+
+        private final String name;
+        private final int workers;
+        private final int queueCapacity;
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastFinish = new AtomicLong();
+
+        StageStatistics(final String name, final int workers, final int queueCapacity) {
+            this.name = name;
+            this.workers = workers;
+            this.queueCapacity = queueCapacity;
+        }
+
+        String name() {
+            return name;
+        }
+
+        long items() {
+            return items.get();
+        }
+
+        long busyNanos() {
+            return busyNanos.get();
+        }
+
+        int maxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        long wallNanos() {
+            final long start = firstStart.get();
+            final long finish = lastFinish.get();
+            return start == Long.MAX_VALUE || finish < start ? 0L : finish - start;
+        }
+
+        String describe() {
+            final long wall = wallNanos();
+            final double throughput = wall > 0 ? items() / (wall / 1_000_000_000d) : 0d;
+            return String.format(
+                Locale.ROOT,
+                "%s: %d items, %d worker(s), busy %d ms, max queue %d/%d, %.1f items/s",
+                name,
+                items(),
+                workers,
+                busyNanos() / 1_000_000L,
+                maxQueueDepth(),
+                queueCapacity,
+                throughput
+            );
+        }
+
+        private void markStarted() {
+            firstStart.accumulateAndGet(System.nanoTime(), Math::min);
+        }
+
+        private void markFinished() {
+            lastFinish.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+
+        private void recordItem(final long nanos) {
+            items.incrementAndGet();
+            busyNanos.addAndGet(nanos);
+        }
+
+        private void observeQueueDepth(final int depth) {
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /**
+     * Wraps the first failure raised inside the pipeline.
+     */
+    static final class PipelineException extends Exception {
+
+        PipelineException(final Throwable cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
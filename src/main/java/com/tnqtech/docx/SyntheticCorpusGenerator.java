@@ -0,0 +1,852 @@
+package com.tnqtech.docx;
+
+import jakarta.xml.bind.JAXBException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.docx4j.XmlUtils;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.relationships.Relationship;
+import org.docx4j.wml.ObjectFactory;
+import org.docx4j.wml.P;
+import org.docx4j.wml.PPr;
+import org.docx4j.wml.PPrBase;
+import org.docx4j.wml.R;
+import org.docx4j.wml.Tbl;
+import org.docx4j.wml.Tc;
+import org.docx4j.wml.Text;
+import org.docx4j.wml.Tr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Generates synthetic file groups for scale testing the regression pipeline.
+ * Every group has a {@code _preACE.docx} and a {@code _midACE.docx} with
+ * paragraphs, tables, hyperlinks and OMML math plus an {@code _ACE.docx.dom}
+ * whose buffer positions point into the text {@link DocxExtractor} produces
+ * for those documents. {@code actual.csv} holds the records the pipeline is
+ * expected to derive from the groups and {@code expected.csv} the same records
+ * with differences injected at a configurable rate. The output depends only on
+ * the options, so a seed always yields the same corpus.
+ */
+public final class SyntheticCorpusGenerator {
+
+    private static final String USAGE_MESSAGE =
+        "Usage: java -cp <jar> com.tnqtech.docx.SyntheticCorpusGenerator <output-directory>\n"
+            + "  Options: [--groups <n>] [--seed <n>] [--paragraphs <n>] [--decisions <n>]\n"
+            + "           [--rules <n>] [--rule-skew <s>] [--rules-file <ace-rules.xml>]\n"
+            + "           [--midprocess-rate <r>] [--difference-rate <r>] [--threads <n>]\n";
+    private static final String RULES_RESOURCE = "rules/ace-rules.xml";
+    private static final String GROUPS_DIRECTORY = "groups";
+    private static final String EXPECTED_CSV = "expected.csv";
+    private static final String ACTUAL_CSV = "actual.csv";
+    private static final String PRE_ACE_SUFFIX = "_preACE.docx";
+    private static final String MID_ACE_SUFFIX = "_midACE.docx";
+    private static final String DOM_SUFFIX = "_ACE.docx.dom";
+    private static final String MID_PROCESS_STAGE = "midprocess";
+    private static final String MAIN_PROCESS_STAGE = "mainprocess";
+    private static final String DEFAULT_STYLE = "normal";
+    private static final String COLUMN_SEPARATOR = "$";
+    private static final List<String> HEADERS = List.of(
+        "FileName",
+        "Rule",
+        "Highlight",
+        "ParaStyle",
+        "CharStyle",
+        "Find",
+        "Replace",
+        "Input",
+        "Output",
+        "Stage",
+        "Status",
+        "Suggestion",
+        "InstanceText",
+        "BookMarkName"
+    );
+    private static final int OUTPUT_COLUMN = 8;
+    private static final int RULE_COLUMN = 1;
+    private static final String HYPERLINK_RELATIONSHIP =
+        "http://schemas.openxmlformats.org/officeDocument/2006/relationships/hyperlink";
+    private static final String MATH_XML =
+        "<m:oMath xmlns:m=\"http://schemas.openxmlformats.org/officeDocument/2006/math\">"
+            + "<m:r><m:t>%s</m:t></m:r></m:oMath>";
+    private static final int GROUPS_PER_DIRECTORY = 500;
+    private static final int TABLE_INTERVAL = 20;
+    private static final double LINK_RATE = 0.15d;
+    private static final double MATH_RATE = 0.1d;
+    private static final double INSERT_RATE = 0.1d;
+    private static final long GROUP_SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long DIFFERENCE_SEED_MASK = 0x5DEECE66DL;
+
+    private static final String[] WORDS = {
+        "the", "European", "Union", "analysis", "protein", "cell", "journal", "figure", "table", "equation",
+        "Fig.", "data", "sample", "colour", "behaviour", "centre", "analyse", "modelling", "per", "cent",
+        "versus", "results", "were", "significant", "(2019)", "(n", "=", "12)", "and", "in", "of", "with",
+        "authors", "reported", "measured", "cohort", "baseline", "mean", "95%", "CI", "p-value", "et", "al.",
+    };
+    private static final String[][] SPELLINGS = {
+        {"colour", "color"},
+        {"behaviour", "behavior"},
+        {"centre", "center"},
+        {"analyse", "analyze"},
+        {"modelling", "modeling"},
+        {"Fig.", "Figure"},
+        {"versus", "vs."},
+        {"al.", "al"},
+    };
+    private static final String[] INSERTIONS = {"(", "[", "*", "\u2013"};
+    private static final String[] MATH_SNIPPETS = {"x=1", "a+b=c", "E=mc2", "f(x)", "n-1", "2\u03c0r"};
+    private static final String[] PARAGRAPH_STYLES = {"Para", "bibitem", "Heading1", "Abstract", "Caption"};
+    private static final String[] CHARACTER_STYLES = {DEFAULT_STYLE, "stl"};
+    private static final String[] SUGGESTIONS = {"", "", "", "Check spelling", "Verify reference", "Apply house style"};
+
+    private final Path outputDirectory;
+    private final Settings settings;
+    private final RuleMix ruleMix;
+    private final ThreadLocal<ObjectFactory> factories = ThreadLocal.withInitial(ObjectFactory::new);
+
+    SyntheticCorpusGenerator(final Path outputDirectory, final Settings settings, final List<String> rules) {
+        this.outputDirectory = outputDirectory;
+        this.settings = settings;
+        this.ruleMix = new RuleMix(rules, settings.ruleCount, settings.ruleSkew, settings.seed);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        final Settings settings;
+        try {
+            settings = Settings.extract(arguments);
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(USAGE_MESSAGE);
+            System.exit(1);
+            return;
+        }
+        if (arguments.size() != 1) {
+            System.err.print(USAGE_MESSAGE);
+            System.exit(1);
+            return;
+        }
+        final List<String> rules = loadRules(settings.rulesFile);
+        if (rules.isEmpty()) {
+            System.err.println("No rules found in " + (settings.rulesFile == null ? RULES_RESOURCE : settings.rulesFile));
+            System.exit(1);
+            return;
+        }
+        final long start = System.nanoTime();
+        final Path outputDirectory = Path.of(arguments.get(0)).toAbsolutePath().normalize();
+        final CorpusSummary summary = new SyntheticCorpusGenerator(outputDirectory, settings, rules).generate();
+        final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        System.out.printf(
+            Locale.ROOT,
+            "Generated %d file groups with %d decisions (%d midprocess) from %d rules in %.2f s%n",
+            summary.groups(),
+            summary.decisions(),
+            summary.midprocessDecisions(),
+            summary.rules(),
+            seconds
+        );
+        System.out.printf(
+            Locale.ROOT,
+            "Injected %d differences into %s: %d modified, %d missing, %d new%n",
+            summary.modified() + summary.missing() + summary.added(),
+            EXPECTED_CSV,
+            summary.modified(),
+            summary.missing(),
+            summary.added()
+        );
+        System.out.printf(Locale.ROOT, "File groups: %s%n", outputDirectory.resolve(GROUPS_DIRECTORY));
+        System.out.printf(
+            Locale.ROOT,
+            "CSV files: %s, %s%n",
+            outputDirectory.resolve(EXPECTED_CSV),
+            outputDirectory.resolve(ACTUAL_CSV)
+        );
+    }
+
+    /**
+     * Writes every file group and both CSV files. Groups are generated in
+     * parallel; each draws from its own seed so the result does not depend on
+     * the thread count.
+     */
+    CorpusSummary generate() throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory.resolve(GROUPS_DIRECTORY));
+        final ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+        final List<Future<List<String[]>>> futures = new ArrayList<>(settings.groups);
+        final List<String[]> rows = new ArrayList<>(settings.groups * settings.decisions);
+        try {
+            for (int index = 0; index < settings.groups; index++) {
+                final int groupIndex = index;
+                futures.add(executor.submit(() -> generateGroup(groupIndex)));
+            }
+            for (final Future<List<String[]>> future : futures) {
+                rows.addAll(future.get());
+            }
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Unable to generate file group", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int midprocessDecisions = 0;
+        for (final String[] row : rows) {
+            if (MID_PROCESS_STAGE.equals(row[9])) {
+                midprocessDecisions++;
+            }
+        }
+        writeCsv(outputDirectory.resolve(ACTUAL_CSV), rows);
+        final Random random = new Random(settings.seed ^ DIFFERENCE_SEED_MASK);
+        final List<String[]> expected = new ArrayList<>(rows.size());
+        int modified = 0;
+        int missing = 0;
+        int added = 0;
+        for (final String[] row : rows) {
+            if (random.nextDouble() >= settings.differenceRate) {
+                expected.add(row);
+                continue;
+            }
+            final double kind = random.nextDouble();
+            if (kind < 0.6d) {
+                final String[] changed = row.clone();
+                changed[OUTPUT_COLUMN] = changed[OUTPUT_COLUMN] + WORDS[random.nextInt(WORDS.length)];
+                expected.add(changed);
+                modified++;
+            } else if (kind < 0.8d) {
+                expected.add(row);
+                final String[] extra = row.clone();
+                extra[RULE_COLUMN] = ruleMix.unused(random);
+                expected.add(extra);
+                missing++;
+            } else {
+                added++;
+            }
+        }
+        writeCsv(outputDirectory.resolve(EXPECTED_CSV), expected);
+        return new CorpusSummary(
+            settings.groups,
+            rows.size(),
+            midprocessDecisions,
+            ruleMix.size(),
+            modified,
+            missing,
+            added
+        );
+    }
+
+    private List<String[]> generateGroup(final int index) throws IOException, Docx4JException, JAXBException {
+        final Random random = new Random(settings.seed ^ ((index + 1L) * GROUP_SEED_MULTIPLIER));
+        final String prefix = String.format(Locale.ROOT, "SYN_%06d", index);
+        final String directory = String.format(Locale.ROOT, "batch-%03d", index / GROUPS_PER_DIRECTORY);
+        final Path groupDirectory = outputDirectory.resolve(GROUPS_DIRECTORY).resolve(directory);
+        Files.createDirectories(groupDirectory);
+
+        final List<Block> preBlocks = createBlocks(random);
+        final List<Slot> preSlots = layout(preBlocks);
+        final List<Block> midBlocks = copy(preBlocks);
+        final Decision[] decisions = new Decision[settings.decisions];
+        final boolean[] midprocess = new boolean[settings.decisions];
+        for (int i = 0; i < decisions.length; i++) {
+            midprocess[i] = random.nextDouble() < settings.midprocessRate;
+        }
+
+        // midprocess decisions point into the preACE text and their edits turn it into the midACE text
+        final Set<Slot> edited = new HashSet<>();
+        for (int i = 0; i < decisions.length; i++) {
+            if (midprocess[i] && !preSlots.isEmpty()) {
+                final Slot slot = preSlots.get(random.nextInt(preSlots.size()));
+                decisions[i] = createDecision(random, MID_PROCESS_STAGE, slot, wordAt(preBlocks, slot), i);
+                if (edited.add(slot)) {
+                    midBlocks.get(slot.block()).parts().get(slot.part()).words()[slot.word()] = decisions[i].output();
+                }
+            }
+        }
+        final List<Slot> midSlots = layout(midBlocks);
+        for (int i = 0; i < decisions.length; i++) {
+            if (!midprocess[i] && !midSlots.isEmpty()) {
+                final Slot slot = midSlots.get(random.nextInt(midSlots.size()));
+                decisions[i] = createDecision(random, MAIN_PROCESS_STAGE, slot, wordAt(midBlocks, slot), i);
+            }
+        }
+
+        writeDocx(groupDirectory.resolve(prefix + PRE_ACE_SUFFIX), preBlocks);
+        writeDocx(groupDirectory.resolve(prefix + MID_ACE_SUFFIX), midBlocks);
+        writeDom(groupDirectory.resolve(prefix + DOM_SUFFIX), decisions);
+
+        final String fileName = directory + "/" + prefix;
+        final List<String[]> rows = new ArrayList<>(decisions.length);
+        for (final Decision decision : decisions) {
+            if (decision != null) {
+                rows.add(decision.toRow(fileName));
+            }
+        }
+        return rows;
+    }
+
+    private List<Block> createBlocks(final Random random) {
+        final List<Block> blocks = new ArrayList<>(settings.paragraphs + settings.paragraphs / TABLE_INTERVAL);
+        for (int i = 0; i < settings.paragraphs; i++) {
+            if (i > 0 && i % TABLE_INTERVAL == 0) {
+                final int columns = 2 + random.nextInt(2);
+                final int cells = columns * (2 + random.nextInt(3));
+                final List<Part> parts = new ArrayList<>(cells);
+                for (int cell = 0; cell < cells; cell++) {
+                    parts.add(new Part(PartKind.TEXT, words(random, 1 + random.nextInt(3)), null));
+                }
+                blocks.add(new Block(null, parts, columns));
+            }
+            final List<Part> parts = new ArrayList<>(5);
+            parts.add(new Part(PartKind.TEXT, words(random, 6 + random.nextInt(15)), null));
+            if (random.nextDouble() < LINK_RATE) {
+                final String target = String.format(
+                    Locale.ROOT,
+                    "https://doi.org/10.%04d/%06d",
+                    1000 + random.nextInt(9000),
+                    random.nextInt(1_000_000)
+                );
+                parts.add(new Part(PartKind.LINK, words(random, 1 + random.nextInt(3)), target));
+                parts.add(new Part(PartKind.TEXT, words(random, 2 + random.nextInt(8)), null));
+            }
+            if (random.nextDouble() < MATH_RATE) {
+                parts.add(new Part(PartKind.MATH, new String[] {MATH_SNIPPETS[random.nextInt(MATH_SNIPPETS.length)]}, null));
+                parts.add(new Part(PartKind.TEXT, words(random, 2 + random.nextInt(8)), null));
+            }
+            blocks.add(new Block(PARAGRAPH_STYLES[random.nextInt(PARAGRAPH_STYLES.length)], parts, 0));
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the text position of every word, laid out exactly like
+     * {@link DocxExtractor}: one node per run, a line break after every
+     * paragraph and table cell, and an extra break after a table that is not
+     * followed by a paragraph. Math is not a decision target, so it takes up
+     * text but has no slots.
+     */
+    private static List<Slot> layout(final List<Block> blocks) {
+        final StringBuilder text = new StringBuilder();
+        final List<Slot> slots = new ArrayList<>();
+        for (int b = 0; b < blocks.size(); b++) {
+            final Block block = blocks.get(b);
+            final List<Part> parts = block.parts();
+            if (block.isTable()) {
+                for (int p = 0; p < parts.size(); p++) {
+                    appendWords(text, slots, b, p, parts.get(p).words(), DEFAULT_STYLE);
+                    text.append('\n');
+                }
+                if (b + 1 < blocks.size() && blocks.get(b + 1).isTable()) {
+                    text.append('\n');
+                }
+                continue;
+            }
+            for (int p = 0; p < parts.size(); p++) {
+                if (p > 0) {
+                    text.append(' ');
+                }
+                final Part part = parts.get(p);
+                if (part.kind() == PartKind.MATH) {
+                    text.append(part.words()[0]);
+                } else {
+                    appendWords(text, slots, b, p, part.words(), block.style());
+                }
+            }
+            text.append('\n');
+        }
+        return slots;
+    }
+
+    private static void appendWords(
+        final StringBuilder text,
+        final List<Slot> slots,
+        final int block,
+        final int part,
+        final String[] words,
+        final String style
+    ) {
+        for (int w = 0; w < words.length; w++) {
+            if (w > 0) {
+                text.append(' ');
+            }
+            slots.add(new Slot(text.length(), block, part, w, style));
+            text.append(words[w]);
+        }
+    }
+
+    /**
+     * Creates a decision on the word at {@code slot}. Words never contain the
+     * separators {@code DecisionCsvGeneratorApp} expands the input to, so the
+     * derived input is the word itself and the output is the word with the
+     * find text replaced or, for insertions, prefixed with the replacement.
+     */
+    private Decision createDecision(
+        final Random random,
+        final String stage,
+        final Slot slot,
+        final String word,
+        final int index
+    ) {
+        final boolean insertion = random.nextDouble() < INSERT_RATE;
+        final String find = insertion ? "" : word;
+        final String replace = insertion ? INSERTIONS[random.nextInt(INSERTIONS.length)] : replacementFor(word);
+        return new Decision(
+            ruleMix.next(random),
+            stage,
+            random.nextBoolean() ? "TRUE" : "FALSE",
+            slot.style(),
+            CHARACTER_STYLES[random.nextInt(CHARACTER_STYLES.length)],
+            find,
+            replace,
+            word,
+            insertion ? replace + word : replace,
+            SUGGESTIONS[random.nextInt(SUGGESTIONS.length)],
+            String.format(Locale.ROOT, "BM_%d", index + 1),
+            slot.position()
+        );
+    }
+
+    private static String replacementFor(final String word) {
+        for (final String[] spelling : SPELLINGS) {
+            if (spelling[0].equals(word)) {
+                return spelling[1];
+            }
+        }
+        final char first = word.charAt(0);
+        if (Character.isUpperCase(first)) {
+            return Character.toLowerCase(first) + word.substring(1);
+        }
+        if (Character.isLowerCase(first)) {
+            return Character.toUpperCase(first) + word.substring(1);
+        }
+        return word + word.charAt(word.length() - 1);
+    }
+
+    private void writeDocx(final Path target, final List<Block> blocks) throws Docx4JException, JAXBException {
+        final ObjectFactory factory = factories.get();
+        final WordprocessingMLPackage pkg = WordprocessingMLPackage.createPackage();
+        final MainDocumentPart mainPart = pkg.getMainDocumentPart();
+        for (final Block block : blocks) {
+            if (block.isTable()) {
+                mainPart.getContent().add(createTable(factory, block));
+            } else {
+                mainPart.getContent().add(createParagraph(factory, mainPart, block));
+            }
+        }
+        pkg.save(target.toFile());
+    }
+
+    private static P createParagraph(final ObjectFactory factory, final MainDocumentPart mainPart, final Block block)
+        throws JAXBException {
+        final P paragraph = factory.createP();
+        final PPr properties = factory.createPPr();
+        final PPrBase.PStyle style = factory.createPPrBasePStyle();
+        style.setVal(block.style());
+        properties.setPStyle(style);
+        paragraph.setPPr(properties);
+        final List<Part> parts = block.parts();
+        for (int p = 0; p < parts.size(); p++) {
+            if (p > 0) {
+                paragraph.getContent().add(createRun(factory, " "));
+            }
+            final Part part = parts.get(p);
+            if (part.kind() == PartKind.MATH) {
+                paragraph.getContent().add(XmlUtils.unmarshalString(String.format(Locale.ROOT, MATH_XML, part.words()[0])));
+            } else if (part.kind() == PartKind.LINK) {
+                final Relationship relationship = new org.docx4j.relationships.ObjectFactory().createRelationship();
+                relationship.setType(HYPERLINK_RELATIONSHIP);
+                relationship.setTarget(part.target());
+                relationship.setTargetMode("External");
+                mainPart.getRelationshipsPart().addRelationship(relationship);
+                final P.Hyperlink hyperlink = factory.createPHyperlink();
+                hyperlink.setId(relationship.getId());
+                hyperlink.getContent().add(createRun(factory, String.join(" ", part.words())));
+                paragraph.getContent().add(hyperlink);
+            } else {
+                paragraph.getContent().add(createRun(factory, String.join(" ", part.words())));
+            }
+        }
+        return paragraph;
+    }
+
+    private static Tbl createTable(final ObjectFactory factory, final Block block) {
+        final Tbl table = factory.createTbl();
+        Tr row = null;
+        final List<Part> parts = block.parts();
+        for (int p = 0; p < parts.size(); p++) {
+            if (p % block.columns() == 0) {
+                row = factory.createTr();
+                table.getContent().add(row);
+            }
+            final P paragraph = factory.createP();
+            paragraph.getContent().add(createRun(factory, String.join(" ", parts.get(p).words())));
+            final Tc cell = factory.createTc();
+            cell.getContent().add(paragraph);
+            row.getContent().add(cell);
+        }
+        return table;
+    }
+
+    private static R createRun(final ObjectFactory factory, final String value) {
+        final Text text = factory.createText();
+        text.setValue(value);
+        text.setSpace("preserve");
+        final R run = factory.createR();
+        run.getContent().add(text);
+        return run;
+    }
+
+    private static void writeDom(final Path target, final Decision[] decisions) throws IOException {
+        final StringBuilder xml = new StringBuilder(decisions.length * 400);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Decisions>\n");
+        for (final Decision decision : decisions) {
+            if (decision == null) {
+                continue;
+            }
+            xml.append("  <Decision status=\"done\" stage=\"").append(decision.stage()).append("\">\n");
+            appendElement(xml, "Rule", decision.rule());
+            appendElement(xml, "Highlight", decision.highlight());
+            appendElement(xml, "ParaStyle", decision.paraStyle());
+            appendElement(xml, "CharStyle", decision.charStyle());
+            appendElement(xml, "Find", decision.find());
+            appendElement(xml, "Replace", decision.replace());
+            appendElement(xml, "InstanceText", decision.input());
+            appendElement(xml, "BookMarkName", decision.bookmark());
+            appendElement(xml, "Suggestion", decision.suggestion());
+            appendElement(xml, "BufferPosition", Integer.toString(decision.position()));
+            xml.append("  </Decision>\n");
+        }
+        xml.append("</Decisions>\n");
+        Files.writeString(target, xml, StandardCharsets.UTF_8);
+    }
+
+    private static void appendElement(final StringBuilder xml, final String name, final String value) {
+        xml.append("    <").append(name).append('>');
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            switch (ch) {
+                case '&':
+                    xml.append("&amp;");
+                    break;
+                case '<':
+                    xml.append("&lt;");
+                    break;
+                case '>':
+                    xml.append("&gt;");
+                    break;
+                default:
+                    xml.append(ch);
+            }
+        }
+        xml.append("</").append(name).append(">\n");
+    }
+
+    private static void writeCsv(final Path target, final List<String[]> rows) throws IOException {
+        final StringBuilder builder = new StringBuilder(rows.size() * 160);
+        builder.append(String.join(COLUMN_SEPARATOR, HEADERS)).append(System.lineSeparator());
+        for (final String[] row : rows) {
+            builder.append(String.join(COLUMN_SEPARATOR, row)).append(System.lineSeparator());
+        }
+        Files.writeString(target, builder, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the rule names of an {@code ace-rules.xml} file, or of the bundled
+     * copy when {@code rulesFile} is {@code null}.
+     */
+    static List<String> loadRules(final Path rulesFile) throws IOException {
+        try (InputStream input = rulesFile == null
+            ? SyntheticCorpusGenerator.class.getClassLoader().getResourceAsStream(RULES_RESOURCE)
+            : Files.newInputStream(rulesFile)) {
+            if (input == null) {
+                throw new IOException("Rules resource not found: " + RULES_RESOURCE);
+            }
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            final Document document = factory.newDocumentBuilder().parse(input);
+            final NodeList nodes = document.getElementsByTagName("rule");
+            final List<String> rules = new ArrayList<>(nodes.getLength());
+            for (int i = 0; i < nodes.getLength(); i++) {
+                final String name = ((Element) nodes.item(i)).getAttribute("name").trim();
+                if (!name.isEmpty() && !rules.contains(name)) {
+                    rules.add(name);
+                }
+            }
+            return rules;
+        } catch (final ParserConfigurationException | SAXException ex) {
+            throw new IOException("Unable to read rules from " + (rulesFile == null ? RULES_RESOURCE : rulesFile), ex);
+        }
+    }
+
+    private static String[] words(final Random random, final int count) {
+        final String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = WORDS[random.nextInt(WORDS.length)];
+        }
+        return words;
+    }
+
+    private static String wordAt(final List<Block> blocks, final Slot slot) {
+        return blocks.get(slot.block()).parts().get(slot.part()).words()[slot.word()];
+    }
+
+    private static List<Block> copy(final List<Block> blocks) {
+        final List<Block> copies = new ArrayList<>(blocks.size());
+        for (final Block block : blocks) {
+            final List<Part> parts = new ArrayList<>(block.parts().size());
+            for (final Part part : block.parts()) {
+                parts.add(new Part(part.kind(), part.words().clone(), part.target()));
+            }
+            copies.add(new Block(block.style(), parts, block.columns()));
+        }
+        return copies;
+    }
+
+    /**
+     * Picks rules with a Zipf-like skew: the rule at rank {@code k} is drawn
+     * with a weight of {@code 1 / k^skew}, so a skew of zero is uniform.
+     */
+    private static final class RuleMix {
+
+        private final List<String> selected;
+        private final List<String> unused;
+        private final double[] cumulativeWeights;
+
+        RuleMix(final List<String> rules, final int count, final double skew, final long seed) {
+            final List<String> shuffled = new ArrayList<>(rules);
+            Collections.shuffle(shuffled, new Random(seed));
+            final int size = Math.max(1, Math.min(count, shuffled.size()));
+            this.selected = List.copyOf(shuffled.subList(0, size));
+            this.unused = size < shuffled.size() ? List.copyOf(shuffled.subList(size, shuffled.size())) : selected;
+            this.cumulativeWeights = new double[size];
+            double total = 0d;
+            for (int rank = 0; rank < size; rank++) {
+                total += 1d / Math.pow(rank + 1d, skew);
+                cumulativeWeights[rank] = total;
+            }
+        }
+
+        int size() {
+            return selected.size();
+        }
+
+        String next(final Random random) {
+            final double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+            int index = Arrays.binarySearch(cumulativeWeights, target);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return selected.get(Math.min(index, selected.size() - 1));
+        }
+
+        /**
+         * Returns a rule the generated decisions never use, which makes an
+         * injected extra record show up as a missed rule.
+         */
+        String unused(final Random random) {
+            return unused.get(random.nextInt(unused.size()));
+        }
+    }
+
+    /**
+     * Generator options given after the output directory.
+     */
+    static final class Settings {
+
+        private int groups = 100;
+        private long seed = 1L;
+        private int paragraphs = 120;
+        private int decisions = 40;
+        private int ruleCount = 40;
+        private double ruleSkew = 1.0d;
+        private Path rulesFile;
+        private double midprocessRate = 0.25d;
+        private double differenceRate = 0.05d;
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        private Settings() {
+        }
+
+        /**
+         * Removes the recognized options from {@code arguments}, leaving only
+         * the positional arguments behind.
+         *
+         * @throws IllegalArgumentException if an option is unknown or malformed
+         */
+        static Settings extract(final List<String> arguments) {
+            final Settings settings = new Settings();
+            final List<String> positional = new ArrayList<>();
+            final Iterator<String> iterator = arguments.iterator();
+            while (iterator.hasNext()) {
+                final String argument = iterator.next();
+                if (!argument.startsWith("--")) {
+                    positional.add(argument);
+                    continue;
+                }
+                switch (argument) {
+                    case "--groups":
+                        settings.groups = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                        break;
+                    case "--seed":
+                        settings.seed = parseLong(argument, nextValue(argument, iterator));
+                        break;
+                    case "--paragraphs":
+                        settings.paragraphs = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                        break;
+                    case "--decisions":
+                        settings.decisions = Math.max(0, parseInt(argument, nextValue(argument, iterator)));
+                        break;
+                    case "--rules":
+                        settings.ruleCount = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                        break;
+                    case "--rule-skew":
+                        settings.ruleSkew = Math.max(0d, parseRate(argument, nextValue(argument, iterator), false));
+                        break;
+                    case "--rules-file":
+                        settings.rulesFile = Path.of(nextValue(argument, iterator));
+                        break;
+                    case "--midprocess-rate":
+                        settings.midprocessRate = parseRate(argument, nextValue(argument, iterator), true);
+                        break;
+                    case "--difference-rate":
+                        settings.differenceRate = parseRate(argument, nextValue(argument, iterator), true);
+                        break;
+                    case "--threads":
+                        settings.threads = Math.max(1, parseInt(argument, nextValue(argument, iterator)));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + argument);
+                }
+            }
+            arguments.clear();
+            arguments.addAll(positional);
+            return settings;
+        }
+
+        private static String nextValue(final String option, final Iterator<String> iterator) {
+            if (!iterator.hasNext()) {
+                throw new IllegalArgumentException("Missing value for option " + option);
+            }
+            return iterator.next();
+        }
+
+        private static int parseInt(final String option, final String value) {
+            try {
+                return Integer.parseInt(value);
+            } catch (final NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value, ex);
+            }
+        }
+
+        private static long parseLong(final String option, final String value) {
+            try {
+                return Long.parseLong(value);
+            } catch (final NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value, ex);
+            }
+        }
+
+        private static double parseRate(final String option, final String value, final boolean fraction) {
+            final double parsed;
+            try {
+                parsed = Double.parseDouble(value);
+            } catch (final NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value, ex);
+            }
+            if (Double.isNaN(parsed) || fraction && (parsed < 0d || parsed > 1d)) {
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value);
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * Counts reported after a corpus has been written.
+     */
+    record CorpusSummary(
+        int groups,
+        int decisions,
+        int midprocessDecisions,
+        int rules,
+        int modified,
+        int missing,
+        int added
+    ) {
+    }
+
+    private enum PartKind {
+        TEXT,
+        LINK,
+        MATH
+    }
+
+    private record Part(PartKind kind, String[] words, String target) {
+    }
+
+    private record Block(String style, List<Part> parts, int columns) {
+
+        boolean isTable() {
+            return columns > 0;
+        }
+    }
+
+    private record Slot(int position, int block, int part, int word, String style) {
+    }
+
+    private record Decision(
+        String rule,
+        String stage,
+        String highlight,
+        String paraStyle,
+        String charStyle,
+        String find,
+        String replace,
+        String input,
+        String output,
+        String suggestion,
+        String bookmark,
+        int position
+    ) {
+
+        String[] toRow(final String fileName) {
+            return new String[] {
+                fileName,
+                rule,
+                highlight,
+                paraStyle,
+                charStyle,
+                find,
+                replace,
+                input,
+                output,
+                stage,
+                "done",
+                suggestion,
+                input,
+                bookmark,
+            };
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.tnqtech.docx;
+
+import java.util.Arrays;
+
+/**
+ * Positions of the token separators (space, line feed and carriage return)
+ * in an extracted stage text.
+ *
+ * <p>The positions are collected on first use in one scan and kept as a
+ * sorted {@code int} array, so every decision that points into the same
+ * text finds the word around its buffer position with two binary searches
+ * instead of walking the text character by character.</p>
+ */
+final class TokenBoundaryIndex {
+
+    private static final int[] NO_BOUNDARIES = new int[0];
+
+    private final String text;
+    private int[] boundaries;
+
+    TokenBoundaryIndex(final String text) {
+        this.text = text;
+    }
+
+    String text() {
+        return text;
+    }
+
+    /**
+     * Returns whether {@code ch} separates tokens.
+     */
+    static boolean isSpaceOrNewLine(final char ch) {
+        return ch == ' ' || ch == '\n' || ch == '\r';
+    }
+
+    /**
+     * Returns the start of the token that ends at {@code position}: one past
+     * the last separator before {@code position}, or {@code 0}.
+     */
+    int tokenStart(final int position) {
+        final int[] index = boundaries();
+        final int insertion = search(index, position);
+        return insertion == 0 ? 0 : index[insertion - 1] + 1;
+    }
+
+    /**
+     * Returns the end of the token that continues at {@code position}: the
+     * first separator at or after {@code position}, or the text length.
+     */
+    int tokenEnd(final int position) {
+        final int[] index = boundaries();
+        final int insertion = search(index, position);
+        return insertion == index.length ? text.length() : index[insertion];
+    }
+
+    /**
+     * Returns the number of boundaries below {@code position}.
+     */
+    private static int search(final int[] index, final int position) {
+        final int found = Arrays.binarySearch(index, position);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private int[] boundaries() {
+        int[] index = boundaries;
+        if (index == null) {
+            index = collect(text);
+            boundaries = index;
+        }
+        return index;
+    }
+
+    private static int[] collect(final String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_BOUNDARIES;
+        }
+        int[] positions = new int[Math.max(16, text.length() / 6)];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isSpaceOrNewLine(text.charAt(i))) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = i;
+            }
+        }
+        return count == positions.length ? positions : Arrays.copyOf(positions, count);
+    }
+}
@@ -0,0 +1,262 @@
+package com.tnqtech.tools.navigator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Position-sorted index of the decisions stored in an ACE decision file
+ * ({@code _ACE.docx.dom}). Positions are kept in a primitive array so that the
+ * next/previous lookups and visible-range queries used by the navigator are
+ * plain binary searches, even for tens of thousands of decisions.
+ */
+public final class DecisionIndex {
+
+    private static final DecisionIndex EMPTY = new DecisionIndex(List.of());
+
+    private final List<Decision> decisions;
+    private final int[] positions;
+
+    private DecisionIndex(final List<Decision> sortedDecisions) {
+        this.decisions = List.copyOf(sortedDecisions);
+        this.positions = new int[sortedDecisions.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = sortedDecisions.get(i).position();
+        }
+    }
+
+    /**
+     * Returns an index without any decisions.
+     *
+     * @return the shared empty index
+     */
+    public static DecisionIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Parses the provided decision file and builds an index ordered by buffer
+     * position. Decisions without a valid {@code BufferPosition} are skipped.
+     *
+     * @param path the decision file to read
+     * @return the populated index
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public static DecisionIndex load(final Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        final Document document;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            document = createDocumentBuilder().parse(inputStream);
+        } catch (final ParserConfigurationException | SAXException ex) {
+            throw new IOException("Unable to parse decision file: " + path, ex);
+        }
+        final NodeList decisionNodes = document.getElementsByTagName("Decision");
+        final List<Decision> decisions = new ArrayList<>(decisionNodes.getLength());
+        for (int i = 0; i < decisionNodes.getLength(); i++) {
+            final Node node = decisionNodes.item(i);
+            if (node.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            final Element element = (Element) node;
+            final int position = parsePosition(getChildText(element, "BufferPosition"));
+            if (position < 0) {
+                continue;
+            }
+            decisions.add(new Decision(
+                position,
+                getChildText(element, "Rule").trim(),
+                getChildText(element, "Find"),
+                getChildText(element, "Replace"),
+                element.getAttribute("stage").trim()
+            ));
+        }
+        return fromDecisions(decisions);
+    }
+
+    /**
+     * Builds an index from an arbitrary collection of decisions.
+     *
+     * @param decisions the decisions to index
+     * @return the populated index
+     */
+    public static DecisionIndex fromDecisions(final List<Decision> decisions) {
+        Objects.requireNonNull(decisions, "decisions");
+        if (decisions.isEmpty()) {
+            return EMPTY;
+        }
+        final List<Decision> sorted = new ArrayList<>(decisions);
+        sorted.sort(Comparator.comparingInt(Decision::position));
+        return new DecisionIndex(sorted);
+    }
+
+    /**
+     * Returns the number of indexed decisions.
+     *
+     * @return the decision count
+     */
+    public int size() {
+        return decisions.size();
+    }
+
+    /**
+     * Checks whether the index contains any decision.
+     *
+     * @return {@code true} when no decisions are indexed
+     */
+    public boolean isEmpty() {
+        return decisions.isEmpty();
+    }
+
+    /**
+     * Returns the decision stored at the supplied index.
+     *
+     * @param index the zero-based index in position order
+     * @return the decision
+     */
+    public Decision get(final int index) {
+        return decisions.get(index);
+    }
+
+    /**
+     * Returns the distinct rule names in alphabetical order.
+     *
+     * @return the rule names
+     */
+    public Set<String> rules() {
+        final Set<String> rules = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (final Decision decision : decisions) {
+            rules.add(decision.rule());
+        }
+        return rules;
+    }
+
+    /**
+     * Creates a new index containing only decisions of the supplied rule.
+     *
+     * @param rule the rule to keep; {@code null} keeps every decision
+     * @return the filtered index
+     */
+    public DecisionIndex filterByRule(final String rule) {
+        if (rule == null) {
+            return this;
+        }
+        final List<Decision> filtered = new ArrayList<>();
+        for (final Decision decision : decisions) {
+            if (decision.rule().equalsIgnoreCase(rule)) {
+                filtered.add(decision);
+            }
+        }
+        return filtered.isEmpty() ? EMPTY : new DecisionIndex(filtered);
+    }
+
+    /**
+     * Finds the first decision positioned strictly after the supplied buffer
+     * position.
+     *
+     * @param position the current buffer position
+     * @return the decision index or {@code -1} if there is none
+     */
+    public int nextAfter(final int position) {
+        final int index = lowerBound(position + 1L);
+        return index < positions.length ? index : -1;
+    }
+
+    /**
+     * Finds the last decision positioned strictly before the supplied buffer
+     * position.
+     *
+     * @param position the current buffer position
+     * @return the decision index or {@code -1} if there is none
+     */
+    public int previousBefore(final int position) {
+        return lowerBound(position) - 1;
+    }
+
+    /**
+     * Returns the index of the first decision whose position is greater than or
+     * equal to the supplied value. Used to walk the decisions that fall inside
+     * a visible range.
+     *
+     * @param position the inclusive lower bound
+     * @return the first matching index, or {@link #size()} if none matches
+     */
+    public int firstAtOrAfter(final int position) {
+        return lowerBound(position);
+    }
+
+    private int lowerBound(final long position) {
+        if (position > Integer.MAX_VALUE) {
+            return positions.length;
+        }
+        final int key = (int) Math.max(position, Integer.MIN_VALUE);
+        int index = Arrays.binarySearch(positions, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && positions[index - 1] == key) {
+            index--;
+        }
+        return index;
+    }
+
+    private static DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        factory.setNamespaceAware(false);
+        factory.setExpandEntityReferences(false);
+        return factory.newDocumentBuilder();
+    }
+
+    private static String getChildText(final Element parent, final String tagName) {
+        final NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            final Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE && tagName.equals(child.getNodeName())) {
+                final String value = child.getTextContent();
+                return value == null ? "" : value;
+            }
+        }
+        return "";
+    }
+
+    private static int parsePosition(final String value) {
+        final String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(trimmed);
+        } catch (final NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * A single decision taken from the decision file.
+     *
+     * @param position the buffer position referenced by the decision
+     * @param rule the rule that produced the decision
+     * @param find the text the rule searched for
+     * @param replace the replacement text
+     * @param stage the processing stage attribute
+     */
+    public record Decision(int position, String rule, String find, String replace, String stage) {
+    }
+}
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -15,6 +17,8 @@ public final class TextBufferNavigator {
 
     private String buffer = "";
     private Path sourcePath;
+    private DecisionIndex decisionIndex = DecisionIndex.empty();
+    private Path decisionPath;
 
     /**
      * Loads the content of the provided text file into memory.
@@ -56,6 +60,37 @@ public final class TextBufferNavigator {
         return sourcePath != null;
     }
 
+    /**
+     * Loads the decisions of an ACE decision file so that their buffer
+     * positions can be highlighted and navigated.
+     *
+     * @param path the path to the {@code _ACE.docx.dom} decision file
+     * @throws IOException if the file cannot be read or parsed
+     */
+    public void loadDecisions(final Path path) throws IOException {
+        Objects.requireNonNull(path, "path");
+        decisionIndex = DecisionIndex.load(path);
+        decisionPath = path;
+    }
+
+    /**
+     * Returns the decisions loaded alongside the buffer.
+     *
+     * @return the decision index, empty when no decision file has been loaded
+     */
+    public DecisionIndex getDecisionIndex() {
+        return decisionIndex;
+    }
+
+    /**
+     * Returns the path of the currently loaded decision file, if any.
+     *
+     * @return the decision file path or {@code null} when none has been loaded
+     */
+    public Path getDecisionPath() {
+        return decisionPath;
+    }
+
     /**
      * Finds the first occurrence of the provided search text in the buffer and
      * returns its zero-based position.
@@ -75,6 +110,28 @@ public final class TextBufferNavigator {
         return Optional.of(index);
     }
 
+    /**
+     * Finds every occurrence of the provided search text in the buffer.
+     * Occurrences may overlap; the scan advances one character past each
+     * match start.
+     *
+     * @param searchText the text to search for
+     * @return the zero-based positions of all matches in ascending order
+     */
+    public List<Integer> findAllPositions(final String searchText) {
+        Objects.requireNonNull(searchText, "searchText");
+        if (buffer.isEmpty() || searchText.isEmpty()) {
+            return List.of();
+        }
+        final List<Integer> positions = new ArrayList<>();
+        int index = buffer.indexOf(searchText);
+        while (index >= 0) {
+            positions.add(index);
+            index = buffer.indexOf(searchText, index + 1);
+        }
+        return positions;
+    }
+
     /**
      * Extracts the token (word) located at the supplied buffer position. The
      * method walks backwards and forwards until it reaches a whitespace
@@ -3,14 +3,22 @@ package com.tnqtech.tools.navigator;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.FlowLayout;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -26,6 +34,10 @@ import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.event.CaretEvent;
 import javax.swing.event.CaretListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
 
 /**
  * Desktop UI that allows navigating the plain text output produced by the DOCX
@@ -52,6 +64,19 @@ public final class TextBufferNavigatorApp {
     private static final String POSITION_TEMPLATE = "Position %d to %d: '%s'";
     private static final String SELECTION_TEMPLATE = "Selection %d to %d: '%s'";
     private static final String CARET_TEMPLATE = "Caret at position %d";
+    private static final String LOAD_DECISIONS_BUTTON_LABEL = "Load Decisions";
+    private static final String LOAD_DECISIONS_DIALOG_TITLE = "Select ACE decision file";
+    private static final String DECISION_FILES_DESCRIPTION = "Decision Files";
+    private static final String DECISION_FILE_EXTENSION = "dom";
+    private static final String UNABLE_TO_LOAD_DECISIONS_MESSAGE = "Unable to load decision file";
+    private static final String ALL_RULES_OPTION = "All rules";
+    private static final String PREVIOUS_DECISION_LABEL = "< Previous Decision";
+    private static final String NEXT_DECISION_LABEL = "Next Decision >";
+    private static final String NO_DECISIONS_LOADED = "No decisions loaded";
+    private static final String NO_MORE_DECISIONS_MESSAGE = "No further decisions in this direction.";
+    private static final String DECISION_COUNT_TEMPLATE = "%d of %d decisions shown";
+    private static final String DECISION_TEMPLATE = "Decision %d/%d at %d [%s] '%s' -> '%s' (%s)";
+    private static final Color DECISION_HIGHLIGHT_COLOR = new Color(255, 200, 0, 90);
 
     private final TextBufferNavigator navigator = new TextBufferNavigator();
     private final JFrame frame = new JFrame(FRAME_TITLE);
@@ -59,6 +84,13 @@ public final class TextBufferNavigatorApp {
     private final JLabel fileLabel = new JLabel(NO_FILE_LOADED, SwingConstants.LEFT);
     private final JLabel selectionLabel = new JLabel(SELECTION_PROMPT, SwingConstants.LEFT);
     private final JTextField positionField = new JTextField();
+    private final JComboBox<String> ruleFilter = new JComboBox<>(new String[] {ALL_RULES_OPTION});
+    private final JLabel decisionCountLabel = new JLabel(NO_DECISIONS_LOADED, SwingConstants.LEFT);
+    private final Map<String, DecisionIndex> filteredIndexes = new HashMap<>();
+    private DecisionIndex activeDecisions = DecisionIndex.empty();
+    private Object decisionHighlightTag;
+    private int currentDecision = -1;
+    private boolean navigatingDecisions;
 
     private TextBufferNavigatorApp() {
         configureLookAndFeel();
@@ -96,11 +128,17 @@ public final class TextBufferNavigatorApp {
 
         final JButton loadButton = new JButton(LOAD_BUTTON_LABEL);
         loadButton.addActionListener(this::handleLoadFile);
+        final JButton loadDecisionsButton = new JButton(LOAD_DECISIONS_BUTTON_LABEL);
+        loadDecisionsButton.addActionListener(this::handleLoadDecisions);
+
+        final JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        buttonPanel.add(loadButton);
+        buttonPanel.add(loadDecisionsButton);
 
         fileLabel.setFont(fileLabel.getFont().deriveFont(Font.BOLD));
         fileLabel.setBorder(BorderFactory.createEmptyBorder(0, 12, 0, 12));
 
-        panel.add(loadButton, BorderLayout.WEST);
+        panel.add(buttonPanel, BorderLayout.WEST);
         panel.add(fileLabel, BorderLayout.CENTER);
         return panel;
     }
@@ -132,8 +170,20 @@ public final class TextBufferNavigatorApp {
         navigationPanel.add(positionField, BorderLayout.CENTER);
         navigationPanel.add(goButton, BorderLayout.EAST);
 
+        final JPanel decisionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        final JButton previousButton = new JButton(PREVIOUS_DECISION_LABEL);
+        previousButton.addActionListener(event -> navigateDecision(false));
+        final JButton nextButton = new JButton(NEXT_DECISION_LABEL);
+        nextButton.addActionListener(event -> navigateDecision(true));
+        ruleFilter.addActionListener(this::handleRuleFilter);
+        decisionPanel.add(ruleFilter);
+        decisionPanel.add(previousButton);
+        decisionPanel.add(nextButton);
+        decisionPanel.add(decisionCountLabel);
+
         panel.add(selectionLabel, BorderLayout.NORTH);
         panel.add(navigationPanel, BorderLayout.CENTER);
+        panel.add(decisionPanel, BorderLayout.SOUTH);
         return panel;
     }
 
@@ -152,12 +202,130 @@ public final class TextBufferNavigatorApp {
                 textArea.setCaretPosition(0);
                 fileLabel.setText(selectedFile.toAbsolutePath().toString());
                 selectionLabel.setText(SELECTION_PROMPT);
+                currentDecision = -1;
+                if (decisionHighlightTag != null) {
+                    installDecisionHighlight();
+                }
             } catch (final IOException ex) {
                 showError(UNABLE_TO_LOAD_FILE_MESSAGE, ex);
             }
         }
     }
 
+    private void handleLoadDecisions(final ActionEvent event) {
+        if (!navigator.isLoaded()) {
+            showMessage(LOAD_FILE_FIRST_MESSAGE);
+            return;
+        }
+        final JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(LOAD_DECISIONS_DIALOG_TITLE);
+        chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        chooser.setFileFilter(new FileNameExtensionFilter(DECISION_FILES_DESCRIPTION, DECISION_FILE_EXTENSION));
+        final Path textDirectory = navigator.getSourcePath().toAbsolutePath().getParent();
+        if (textDirectory != null) {
+            chooser.setCurrentDirectory(textDirectory.toFile());
+        }
+
+        final int result = chooser.showOpenDialog(frame);
+        if (result == JFileChooser.APPROVE_OPTION) {
+            try {
+                navigator.loadDecisions(chooser.getSelectedFile().toPath());
+            } catch (final IOException ex) {
+                showError(UNABLE_TO_LOAD_DECISIONS_MESSAGE, ex);
+                return;
+            }
+            filteredIndexes.clear();
+            ruleFilter.removeAllItems();
+            ruleFilter.addItem(ALL_RULES_OPTION);
+            for (final String rule : navigator.getDecisionIndex().rules()) {
+                ruleFilter.addItem(rule);
+            }
+            ruleFilter.setSelectedIndex(0);
+            applyDecisionIndex(navigator.getDecisionIndex());
+            installDecisionHighlight();
+        }
+    }
+
+    private void handleRuleFilter(final ActionEvent event) {
+        final Object selected = ruleFilter.getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        final DecisionIndex allDecisions = navigator.getDecisionIndex();
+        if (ALL_RULES_OPTION.equals(selected)) {
+            applyDecisionIndex(allDecisions);
+        } else {
+            applyDecisionIndex(filteredIndexes.computeIfAbsent(selected.toString(), allDecisions::filterByRule));
+        }
+    }
+
+    private void applyDecisionIndex(final DecisionIndex index) {
+        activeDecisions = index;
+        currentDecision = -1;
+        if (navigator.getDecisionIndex().isEmpty()) {
+            decisionCountLabel.setText(NO_DECISIONS_LOADED);
+        } else {
+            decisionCountLabel.setText(String.format(Locale.ROOT, DECISION_COUNT_TEMPLATE,
+                    index.size(), navigator.getDecisionIndex().size()));
+        }
+        textArea.repaint();
+    }
+
+    /**
+     * Registers a single highlight spanning the whole buffer whose painter only
+     * draws the decisions inside the visible region. This keeps repaints
+     * proportional to what is on screen instead of adding one highlight per
+     * decision.
+     */
+    private void installDecisionHighlight() {
+        final Highlighter highlighter = textArea.getHighlighter();
+        if (decisionHighlightTag != null) {
+            highlighter.removeHighlight(decisionHighlightTag);
+            decisionHighlightTag = null;
+        }
+        try {
+            decisionHighlightTag = highlighter.addHighlight(0, textArea.getDocument().getLength(),
+                    new DecisionHighlightPainter());
+        } catch (final BadLocationException ex) {
+            showError(UNABLE_TO_LOAD_DECISIONS_MESSAGE, ex);
+        }
+    }
+
+    private void navigateDecision(final boolean forward) {
+        if (activeDecisions.isEmpty()) {
+            showMessage(NO_DECISIONS_LOADED);
+            return;
+        }
+        final int caret = textArea.getCaretPosition();
+        final int target;
+        if (currentDecision >= 0) {
+            target = forward ? currentDecision + 1 : currentDecision - 1;
+        } else {
+            target = forward ? activeDecisions.nextAfter(caret - 1) : activeDecisions.previousBefore(caret);
+        }
+        if (target < 0 || target >= activeDecisions.size()) {
+            showMessage(NO_MORE_DECISIONS_MESSAGE);
+            return;
+        }
+        final DecisionIndex.Decision decision = activeDecisions.get(target);
+        final Optional<TextBufferNavigator.TextSelection> selection = navigator.extractTokenAt(decision.position());
+        if (selection.isEmpty()) {
+            showMessage(String.format(Locale.ROOT, NO_TEXT_FOUND_TEMPLATE, decision.position()));
+            return;
+        }
+        navigatingDecisions = true;
+        try {
+            textArea.requestFocusInWindow();
+            textArea.select(selection.get().start(), selection.get().end());
+        } finally {
+            navigatingDecisions = false;
+        }
+        currentDecision = target;
+        positionField.setText(String.valueOf(decision.position()));
+        selectionLabel.setText(String.format(Locale.ROOT, DECISION_TEMPLATE, target + 1, activeDecisions.size(),
+                decision.position(), decision.rule(), decision.find(), decision.replace(), decision.stage()));
+    }
+
     private void handleHighlightPosition(final ActionEvent event) {
         if (!navigator.isLoaded()) {
             showMessage(LOAD_FILE_FIRST_MESSAGE);
@@ -213,6 +381,10 @@ public final class TextBufferNavigatorApp {
         public void caretUpdate(final CaretEvent event) {
             final int start = Math.min(event.getDot(), event.getMark());
             final int end = Math.max(event.getDot(), event.getMark());
+            if (navigatingDecisions) {
+                return;
+            }
+            currentDecision = -1;
             showSelectionInfo(start, end);
             if (start != end) {
                 positionField.setText(String.valueOf(start));
@@ -220,6 +392,48 @@ public final class TextBufferNavigatorApp {
         }
     }
 
+    /**
+     * Paints the token of every active decision that lies inside the clip
+     * region in one pass. Decisions are located by binary search on the
+     * position index, starting at the token under the top of the clip so
+     * that a token cut by the clip is still painted; the cost depends on the
+     * visible text only.
+     */
+    private final class DecisionHighlightPainter implements Highlighter.HighlightPainter {
+
+        private final DefaultHighlighter.DefaultHighlightPainter delegate =
+                new DefaultHighlighter.DefaultHighlightPainter(DECISION_HIGHLIGHT_COLOR);
+
+        @Override
+        public void paint(final Graphics graphics, final int startOffset, final int endOffset, final Shape bounds,
+                final JTextComponent component) {
+            final DecisionIndex decisions = activeDecisions;
+            if (decisions.isEmpty()) {
+                return;
+            }
+            final Rectangle clip = graphics.getClipBounds();
+            if (clip == null) {
+                return;
+            }
+            final int visibleStart = component.viewToModel2D(new Point(clip.x, clip.y));
+            final int visibleEnd = component.viewToModel2D(new Point(clip.x + clip.width, clip.y + clip.height));
+            final int bufferLength = navigator.getBuffer().length();
+            final int firstTokenStart = navigator.extractTokenAt(visibleStart)
+                    .map(TextBufferNavigator.TextSelection::start)
+                    .orElse(visibleStart);
+            for (int i = decisions.firstAtOrAfter(firstTokenStart); i < decisions.size(); i++) {
+                final int position = decisions.get(i).position();
+                if (position > visibleEnd || position >= bufferLength) {
+                    break;
+                }
+                final Optional<TextBufferNavigator.TextSelection> token = navigator.extractTokenAt(position);
+                if (token.isPresent() && token.get().end() > token.get().start()) {
+                    delegate.paint(graphics, token.get().start(), token.get().end(), bounds, component);
+                }
+            }
+        }
+    }
+
     private void display() {
         frame.setVisible(true);
     }
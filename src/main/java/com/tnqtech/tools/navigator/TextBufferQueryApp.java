@@ -0,0 +1,261 @@
+package com.tnqtech.tools.navigator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Headless command line companion of {@link TextBufferNavigatorApp}. Loads an
+ * extractor text buffer once and answers a file of position or search queries
+ * in a single pass, streaming the results as CSV or NDJSON.
+ */
+public final class TextBufferQueryApp {
+
+    private static final String USAGE_MESSAGE =
+        "Usage:\n"
+            + "  java -cp <jar> com.tnqtech.tools.navigator.TextBufferQueryApp <buffer.txt> <queries.txt> [options]\n"
+            + "Options:\n"
+            + "  --format csv|ndjson        Output format (default: csv).\n"
+            + "  --mode auto|position|search\n"
+            + "                             How query lines are interpreted (default: auto, numeric lines are\n"
+            + "                             buffer positions, everything else is a search string).\n"
+            + "  --all                      Report every match of a search string instead of the first one.\n"
+            + "  --output <file>            Write results to a file instead of standard output.";
+    private static final String CSV_HEADER = "query,kind,found,start,end,text";
+    private static final String POSITION_KIND = "position";
+    private static final String SEARCH_KIND = "search";
+
+    private enum OutputFormat {
+        CSV,
+        NDJSON
+    }
+
+    private enum QueryMode {
+        AUTO,
+        POSITION,
+        SEARCH
+    }
+
+    private final TextBufferNavigator navigator = new TextBufferNavigator();
+    private final OutputFormat format;
+    private final QueryMode mode;
+    private final boolean allMatches;
+
+    private TextBufferQueryApp(final OutputFormat format, final QueryMode mode, final boolean allMatches) {
+        this.format = format;
+        this.mode = mode;
+        this.allMatches = allMatches;
+    }
+
+    /**
+     * Application entry point.
+     *
+     * @param args the buffer file, the query file and optional flags
+     * @throws IOException if the input files cannot be read or the output cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+        }
+        OutputFormat format = OutputFormat.CSV;
+        QueryMode mode = QueryMode.AUTO;
+        boolean allMatches = false;
+        Path outputPath = null;
+        try {
+            for (int i = 2; i < args.length; i++) {
+                final String option = args[i];
+                if ("--all".equals(option)) {
+                    allMatches = true;
+                } else if ("--format".equals(option) && i + 1 < args.length) {
+                    format = OutputFormat.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                } else if ("--mode".equals(option) && i + 1 < args.length) {
+                    mode = QueryMode.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                } else if ("--output".equals(option) && i + 1 < args.length) {
+                    outputPath = Path.of(args[++i]);
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + option);
+                }
+            }
+        } catch (final IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE_MESSAGE);
+            System.exit(1);
+        }
+
+        final TextBufferQueryApp app = new TextBufferQueryApp(format, mode, allMatches);
+        final Instant start = Instant.now();
+        final int queryCount;
+        if (outputPath == null) {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            queryCount = app.run(Path.of(args[0]), Path.of(args[1]), writer);
+            writer.flush();
+        } else {
+            try (Writer writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
+                queryCount = app.run(Path.of(args[0]), Path.of(args[1]), writer);
+            }
+        }
+        System.err.printf(Locale.ROOT, "Answered %d queries in %d ms%n", queryCount,
+            Duration.between(start, Instant.now()).toMillis());
+    }
+
+    private int run(final Path bufferPath, final Path queryPath, final Writer writer) throws IOException {
+        navigator.load(bufferPath);
+        if (format == OutputFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        int queryCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(queryPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                answer(line, writer);
+                queryCount++;
+            }
+        }
+        return queryCount;
+    }
+
+    private void answer(final String query, final Writer writer) throws IOException {
+        final Integer position = mode == QueryMode.SEARCH ? null : parsePosition(query);
+        if (position != null) {
+            final Optional<TextBufferNavigator.TextSelection> selection = navigator.extractTokenAt(position);
+            writeResult(writer, query, POSITION_KIND, selection.orElse(null));
+            return;
+        }
+        if (mode == QueryMode.POSITION) {
+            writeResult(writer, query, POSITION_KIND, null);
+            return;
+        }
+        if (!allMatches) {
+            final Optional<Integer> index = navigator.findPosition(query);
+            writeResult(writer, query, SEARCH_KIND, index.map(value -> toSelection(value, query)).orElse(null));
+            return;
+        }
+        final List<Integer> matches = navigator.findAllPositions(query);
+        if (matches.isEmpty()) {
+            writeResult(writer, query, SEARCH_KIND, null);
+            return;
+        }
+        for (final Integer match : matches) {
+            writeResult(writer, query, SEARCH_KIND, toSelection(match, query));
+        }
+    }
+
+    private TextBufferNavigator.TextSelection toSelection(final int start, final String query) {
+        return new TextBufferNavigator.TextSelection(start, start + query.length(), query);
+    }
+
+    private void writeResult(
+        final Writer writer,
+        final String query,
+        final String kind,
+        final TextBufferNavigator.TextSelection selection
+    ) throws IOException {
+        final boolean found = selection != null;
+        final String start = found ? String.valueOf(selection.start()) : "";
+        final String end = found ? String.valueOf(selection.end()) : "";
+        final String text = found ? selection.text() : "";
+        if (format == OutputFormat.CSV) {
+            writer.write(toCsvValue(query));
+            writer.write(',');
+            writer.write(kind);
+            writer.write(',');
+            writer.write(String.valueOf(found));
+            writer.write(',');
+            writer.write(start);
+            writer.write(',');
+            writer.write(end);
+            writer.write(',');
+            writer.write(toCsvValue(text));
+        } else {
+            writer.write("{\"query\":");
+            writer.write(toJsonString(query));
+            writer.write(",\"kind\":\"");
+            writer.write(kind);
+            writer.write("\",\"found\":");
+            writer.write(String.valueOf(found));
+            if (found) {
+                writer.write(",\"start\":");
+                writer.write(start);
+                writer.write(",\"end\":");
+                writer.write(end);
+                writer.write(",\"text\":");
+                writer.write(toJsonString(text));
+            }
+            writer.write('}');
+        }
+        writer.write('\n');
+    }
+
+    private static Integer parsePosition(final String value) {
+        final String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (!Character.isDigit(trimmed.charAt(i))) {
+                return null;
+            }
+        }
+        try {
+            return Integer.parseInt(trimmed);
+        } catch (final NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static String toCsvValue(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+            && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String toJsonString(final String value) {
+        final StringBuilder builder = new StringBuilder(value.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        builder.append(String.format(Locale.ROOT, "\\u%04x", (int) ch));
+                    } else {
+                        builder.append(ch);
+                    }
+            }
+        }
+        builder.append('"');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerTest {
+
+    private static final int WORKERS = 16;
+    private static final int ROUNDS = 25;
+    private static final long SMALL_COST = 1_000L;
+    private static final long WAIT_MILLIS = 200L;
+
+    @Test
+    void concurrencyStaysWithinTheConfiguredRange() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<>();
+        try (AdmissionController admission = new AdmissionController(2, 4, 1, RunMetrics.disabled())) {
+            for (int i = 0; i < WORKERS; i++) {
+                threads.add(new Thread(() -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        try {
+                            final AdmissionController.Permit permit = admission.acquire(SMALL_COST);
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.sleep(1L);
+                            running.decrementAndGet();
+                            permit.release();
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        assertTrue(maxRunning.get() >= 2, "max " + maxRunning.get());
+        assertTrue(maxRunning.get() <= 4, "max " + maxRunning.get());
+    }
+
+    @Test
+    void overBudgetGroupIsAdmittedOnlyWhenNothingElseRuns() throws Exception {
+        final long overBudget = Runtime.getRuntime().maxMemory();
+        try (AdmissionController admission = new AdmissionController(4, 4, 1, RunMetrics.disabled())) {
+            final AdmissionController.Permit first = admission.acquire(overBudget);
+            final CountDownLatch admitted = new CountDownLatch(1);
+            final Thread second = startAcquire(admission, overBudget, admitted);
+
+            assertFalse(admitted.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            first.release();
+            assertTrue(admitted.await(WAIT_MILLIS * 10, TimeUnit.MILLISECONDS));
+            second.join();
+        }
+    }
+
+    @Test
+    void abandonedGroupsDoNotHoldBackOthers() throws Exception {
+        try (AdmissionController admission = new AdmissionController(1, 1, 100, RunMetrics.disabled())) {
+            final AdmissionController.Permit stuck = admission.acquire(SMALL_COST);
+            final CountDownLatch admitted = new CountDownLatch(1);
+            final Thread next = startAcquire(admission, SMALL_COST, admitted);
+
+            assertFalse(admitted.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            stuck.abandon();
+            assertTrue(admitted.await(WAIT_MILLIS * 10, TimeUnit.MILLISECONDS));
+            next.join();
+            stuck.release();
+        }
+    }
+
+    @Test
+    void controllersShareTheThresholdsUntilTheLastCloses() {
+        final MemoryPoolMXBean pool = watchablePool();
+        if (pool == null) {
+            return;
+        }
+        final long original = pool.getUsageThreshold();
+        final AdmissionController first = new AdmissionController(1, 2, 50, RunMetrics.disabled());
+        final long installed = pool.getUsageThreshold();
+        assertTrue(installed > 0L);
+
+        final AdmissionController second = new AdmissionController(1, 2, 50, RunMetrics.disabled());
+        assertEquals(installed, pool.getUsageThreshold());
+        first.close();
+        assertEquals(installed, pool.getUsageThreshold());
+        second.close();
+        assertEquals(original, pool.getUsageThreshold());
+
+        try (AdmissionController reopened = new AdmissionController(1, 2, 50, RunMetrics.disabled())) {
+            assertEquals(installed, pool.getUsageThreshold());
+        }
+        assertEquals(original, pool.getUsageThreshold());
+    }
+
+    private static Thread startAcquire(
+        final AdmissionController admission,
+        final long cost,
+        final CountDownLatch admitted
+    ) {
+        final Thread thread = new Thread(() -> {
+            try {
+                final AdmissionController.Permit permit = admission.acquire(cost);
+                admitted.countDown();
+                permit.release();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static MemoryPoolMXBean watchablePool() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+                && pool.getUsage() != null && pool.getUsage().getMax() > 0L) {
+                return pool;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,223 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChangeWatcherTest {
+
+    private static final long DEBOUNCE_MILLIS = 300L;
+    private static final int BURST_FILES = 6;
+    private static final String APP = DecisionCsvGeneratorApp.class.getName();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void burstInsideTheDebounceWindowIsReportedOnce() throws Exception {
+        final Path root = Files.createDirectories(directory.resolve("watched"));
+        try (ChangeWatcher watcher = new ChangeWatcher(root, DEBOUNCE_MILLIS)) {
+            final Set<Path> written = new TreeSet<>();
+            final Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < BURST_FILES; i++) {
+                        written.add(Files.writeString(root.resolve("file-" + i + ".txt"), "burst " + i, StandardCharsets.UTF_8));
+                        Thread.sleep(DEBOUNCE_MILLIS / 6);
+                    }
+                } catch (final Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            writer.start();
+
+            final ChangeWatcher.Changes changes = watcher.awaitChanges();
+            writer.join();
+            assertFalse(changes.overflow());
+            assertEquals(written, changes.paths());
+            assertFalse(changesArriveWithin(watcher, DEBOUNCE_MILLIS * 3));
+        }
+    }
+
+    @Test
+    void filesInNewDirectoriesAreReportedAndWatched() throws Exception {
+        final Path root = Files.createDirectories(directory.resolve("watched"));
+        try (ChangeWatcher watcher = new ChangeWatcher(root, DEBOUNCE_MILLIS)) {
+            final Path staging = Files.createDirectories(directory.resolve("staging/batch-001"));
+            final Path copied = Files.writeString(staging.resolve("A_ACE.docx.dom"), "<Decisions/>", StandardCharsets.UTF_8);
+            final Path batch = Files.move(staging, root.resolve("batch-001"));
+
+            final Set<Path> paths = watcher.awaitChanges().paths();
+            assertTrue(paths.contains(batch), paths.toString());
+            assertTrue(paths.contains(batch.resolve(copied.getFileName())), paths.toString());
+
+            final Path added = Files.writeString(batch.resolve("A_preACE.docx"), "docx", StandardCharsets.UTF_8);
+            assertTrue(watcher.awaitChanges().paths().contains(added));
+        }
+    }
+
+    @Test
+    void onlyChangedGroupsAreReprocessed() throws Exception {
+        final Path corpus = generateCorpus(directory.resolve("corpus"));
+        final Path groups = corpus.resolve("groups");
+        final Path batch = groups.resolve("batch-000");
+        final WatchHarness harness = new WatchHarness(groups, corpus.resolve("expected.csv"));
+        final Object groupRun = harness.processGroups();
+        final Object state = harness.watchState(groupRun);
+
+        try (ChangeWatcher watcher = new ChangeWatcher(groups, DEBOUNCE_MILLIS)) {
+            rewrite(batch.resolve("SYN_000003_ACE.docx.dom"));
+            rewrite(batch.resolve("SYN_000007_preACE.docx"));
+            // the .txt copies of extracted stage texts are not group members
+            rewrite(batch.resolve("SYN_000005_preACE.txt"));
+
+            final Map<String, ?> affected = harness.affectedGroups(watcher.awaitChanges().paths(), state);
+            assertEquals(Set.of("batch-000/SYN_000003", "batch-000/SYN_000007"), affected.keySet());
+
+            final Object reprocessed = harness.reprocessGroups(affected, state);
+            final List<String> prefixes = new ArrayList<>();
+            for (final Object run : (List<?>) call(reprocessed, "runs")) {
+                prefixes.add((String) call(run, "prefix"));
+            }
+            prefixes.sort(null);
+            assertEquals(List.of("batch-000/SYN_000003", "batch-000/SYN_000007"), prefixes);
+            assertEquals(((List<?>) call(groupRun, "sortedRecords")).size(), ((List<?>) call(reprocessed, "sortedRecords")).size());
+        }
+    }
+
+    @Test
+    void writingTheResultsDoesNotTriggerAPass() throws Exception {
+        final Path corpus = generateCorpus(directory.resolve("corpus"));
+        final Path groups = corpus.resolve("groups");
+        final WatchHarness harness = new WatchHarness(groups, corpus.resolve("expected.csv"));
+        final Object groupRun = harness.processGroups();
+        final Object state = harness.watchState(groupRun);
+
+        try (ChangeWatcher watcher = new ChangeWatcher(groups, DEBOUNCE_MILLIS)) {
+            harness.writeResults(groupRun);
+            final Set<Path> paths = watcher.awaitChanges().paths();
+
+            assertTrue(paths.contains(groups.resolve("output.csv")), paths.toString());
+            assertTrue(paths.contains(groups.resolve("ACE_regression_report.html")), paths.toString());
+            assertTrue(harness.affectedGroups(paths, state).isEmpty(), paths.toString());
+        }
+    }
+
+    private static boolean changesArriveWithin(final ChangeWatcher watcher, final long millis) throws InterruptedException {
+        final CountDownLatch arrived = new CountDownLatch(1);
+        final Thread waiter = new Thread(() -> {
+            try {
+                watcher.awaitChanges();
+                arrived.countDown();
+            } catch (final Exception ex) {
+                // closed by the caller
+            }
+        });
+        waiter.setDaemon(true);
+        waiter.start();
+        return arrived.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void rewrite(final Path file) throws Exception {
+        Files.write(file, Files.readAllBytes(file));
+    }
+
+    private static Path generateCorpus(final Path corpus) throws Exception {
+        final List<String> arguments = new ArrayList<>(List.of(
+            "--groups", "10", "--paragraphs", "12", "--decisions", "6", "--seed", "45", "--threads", "2"
+        ));
+        new SyntheticCorpusGenerator(
+            corpus,
+            SyntheticCorpusGenerator.Settings.extract(arguments),
+            SyntheticCorpusGenerator.loadRules(null)
+        ).generate();
+        return corpus;
+    }
+
+    private static Object call(final Object target, final String name) throws Exception {
+        final Method method = target.getClass().getDeclaredMethod(name);
+        method.setAccessible(true);
+        return method.invoke(target);
+    }
+
+    /**
+     * Drives the private steps of watch mode on an app instance, so a test
+     * can feed them real change bursts without running the endless loop.
+     */
+    private static final class WatchHarness {
+
+        private final DecisionCsvGeneratorApp app;
+
+        WatchHarness(final Path groups, final Path expectedCsv) throws Exception {
+            final Constructor<DecisionCsvGeneratorApp> constructor = DecisionCsvGeneratorApp.class.getDeclaredConstructor(
+                Path.class, Path.class, boolean.class, Path.class, boolean.class
+            );
+            constructor.setAccessible(true);
+            app = constructor.newInstance(groups, expectedCsv, false, null, false);
+        }
+
+        Object processGroups() throws Exception {
+            return invoke("processGroups", new Class<?>[] {RunMetrics.class}, new RunMetrics());
+        }
+
+        Object watchState(final Object groupRun) throws Exception {
+            final Constructor<?> constructor = Class.forName(APP + "$WatchState")
+                .getDeclaredConstructor(Class.forName(APP + "$GroupRunResult"));
+            constructor.setAccessible(true);
+            return constructor.newInstance(groupRun);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, ?> affectedGroups(final Set<Path> paths, final Object state) throws Exception {
+            return (Map<String, ?>) invoke(
+                "affectedGroups",
+                new Class<?>[] {Set.class, Class.forName(APP + "$WatchState")},
+                paths,
+                state
+            );
+        }
+
+        Object reprocessGroups(final Map<String, ?> affected, final Object state) throws Exception {
+            return invoke(
+                "reprocessGroups",
+                new Class<?>[] {Map.class, Class.forName(APP + "$WatchState"), RunMetrics.class},
+                affected,
+                state,
+                new RunMetrics()
+            );
+        }
+
+        void writeResults(final Object groupRun) throws Exception {
+            invoke(
+                "writeResults",
+                new Class<?>[] {Class.forName(APP + "$GroupRunResult"), RunMetrics.class, Instant.class, long.class},
+                groupRun,
+                new RunMetrics(),
+                Instant.now(),
+                0L
+            );
+        }
+
+        private Object invoke(final String name, final Class<?>[] types, final Object... arguments) throws Exception {
+            final Method method = DecisionCsvGeneratorApp.class.getDeclaredMethod(name, types);
+            method.setAccessible(true);
+            return method.invoke(app, arguments);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointJournalTest {
+
+    private static final int FIELDS = 14;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumeReplaysIntactEntriesAndCutsOffTornTail() throws IOException {
+        final Path path = directory.resolve("output.csv.journal");
+        final long intactLength;
+        final long fullLength;
+        try (CheckpointJournal journal = CheckpointJournal.open(path, false)) {
+            journal.append("groupA", "a:1:1/", rows("A", 3));
+            journal.append("groupB", "b:1:1/", rows("B", 2));
+            intactLength = Files.size(path);
+            journal.append("groupC", "c:1:1/", rows("C", 40));
+            fullLength = Files.size(path);
+        }
+        truncate(path, intactLength + (fullLength - intactLength) / 2);
+
+        try (CheckpointJournal journal = CheckpointJournal.open(path, true)) {
+            assertEquals(2, journal.size());
+            assertEquals(fields(rows("A", 3)), fields(journal.replay("groupA", "a:1:1/")));
+            assertEquals(fields(rows("B", 2)), fields(journal.replay("groupB", "b:1:1/")));
+            assertNull(journal.replay("groupC", "c:1:1/"));
+            assertEquals(intactLength, Files.size(path));
+            journal.append("groupD", "d:1:1/", rows("D", 1));
+        }
+
+        try (CheckpointJournal journal = CheckpointJournal.open(path, true)) {
+            assertEquals(3, journal.size());
+            assertEquals(fields(rows("D", 1)), fields(journal.replay("groupD", "d:1:1/")));
+        }
+    }
+
+    @Test
+    void resumeStopsAtCorruptedEntry() throws IOException {
+        final Path path = directory.resolve("output.csv.journal");
+        final long intactLength;
+        try (CheckpointJournal journal = CheckpointJournal.open(path, false)) {
+            journal.append("groupA", "a:1:1/", rows("A", 3));
+            intactLength = Files.size(path);
+            journal.append("groupB", "b:1:1/", rows("B", 3));
+            journal.append("groupC", "c:1:1/", rows("C", 3));
+        }
+        assertTrue(Files.size(path) > intactLength);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            final long position = intactLength + Integer.BYTES * 2 + 1;
+            file.seek(position);
+            final int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0xFF);
+        }
+
+        try (CheckpointJournal journal = CheckpointJournal.open(path, true)) {
+            assertEquals(1, journal.size());
+            assertEquals(fields(rows("A", 3)), fields(journal.replay("groupA", "a:1:1/")));
+            assertNull(journal.replay("groupB", "b:1:1/"));
+            assertNull(journal.replay("groupC", "c:1:1/"));
+            assertEquals(intactLength, Files.size(path));
+        }
+    }
+
+    @Test
+    void changedFingerprintIsNotReplayed() throws IOException {
+        final Path path = directory.resolve("output.csv.journal");
+        try (CheckpointJournal journal = CheckpointJournal.open(path, false)) {
+            journal.append("groupA", "a:1:1/", rows("A", 2));
+        }
+
+        try (CheckpointJournal journal = CheckpointJournal.open(path, true)) {
+            assertEquals(fields(rows("A", 2)), fields(journal.replay("groupA", "a:1:1/")));
+            assertNull(journal.replay("groupA", "a:1:2/"));
+            assertNull(journal.replay("groupA", null));
+            assertNull(journal.replay("groupZ", "a:1:1/"));
+        }
+    }
+
+    @Test
+    void openingWithoutResumeStartsAfresh() throws IOException {
+        final Path path = directory.resolve("output.csv.journal");
+        try (CheckpointJournal journal = CheckpointJournal.open(path, false)) {
+            journal.append("groupA", "a:1:1/", rows("A", 2));
+        }
+
+        try (CheckpointJournal journal = CheckpointJournal.open(path, false)) {
+            assertEquals(0, journal.size());
+            assertNull(journal.replay("groupA", "a:1:1/"));
+        }
+    }
+
+    private static List<CheckpointJournal.Row> rows(final String group, final int count) {
+        final List<CheckpointJournal.Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String[] fields = new String[FIELDS];
+            for (int j = 0; j < fields.length; j++) {
+                fields[j] = j == 3 ? null : group + "-" + i + "-" + j + " \u00E9\u2013";
+            }
+            rows.add(new CheckpointJournal.Row(fields, i * 7));
+        }
+        return rows;
+    }
+
+    private static List<String> fields(final List<CheckpointJournal.Row> rows) {
+        final List<String> values = new ArrayList<>();
+        for (final CheckpointJournal.Row row : rows) {
+            values.add(row.bufferPosition() + ":" + Arrays.toString(row.fields()));
+        }
+        return values;
+    }
+
+    private static void truncate(final Path path, final long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(length);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DocxBatchExtractorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void manifestEntriesKeepTheirRelativeDirectory() throws IOException {
+        final Path input = directory.resolve("input");
+        final Path output = directory.resolve("output");
+        createFiles(input, "a/chapter.docx", "b/chapter.docx", "top.docx");
+        final Path outside = createFiles(directory.resolve("elsewhere"), "loose.docx").get(0);
+        final Path manifest = input.resolve("manifest.tsv");
+        Files.writeString(manifest, String.join("\n",
+            "# inputs",
+            "a/chapter.docx",
+            "b/chapter.docx",
+            "",
+            "top.docx\tcustom/top-text.txt",
+            outside.toString()
+        ), StandardCharsets.UTF_8);
+
+        final List<DocxBatchExtractor.BatchItem> items = new DocxBatchExtractor(output, 1).resolveItems(manifest.toString());
+
+        assertEquals(List.of(
+            output.resolve("a/chapter.txt"),
+            output.resolve("b/chapter.txt"),
+            input.toAbsolutePath().normalize().resolve("custom/top-text.txt"),
+            output.resolve("loose.txt")
+        ), outputs(items));
+    }
+
+    @Test
+    void duplicateOutputsAreRejected() throws IOException {
+        final Path input = directory.resolve("input");
+        createFiles(input, "a/chapter.docx", "b/other.docx");
+        final Path manifest = input.resolve("manifest.tsv");
+        Files.writeString(manifest, "a/chapter.docx\tsame.txt\nb/other.docx\tsame.txt\n", StandardCharsets.UTF_8);
+
+        final IOException thrown = assertThrows(IOException.class,
+            () -> new DocxBatchExtractor(directory.resolve("output"), 1).resolveItems(manifest.toString()));
+        assertTrue(thrown.getMessage().contains("same.txt"), thrown.getMessage());
+
+        final Path outside = createFiles(directory.resolve("elsewhere"), "chapter.docx").get(0);
+        final Path elsewhere = createFiles(directory.resolve("further"), "chapter.docx").get(0);
+        Files.writeString(manifest, outside + "\n" + elsewhere + "\n", StandardCharsets.UTF_8);
+        assertThrows(IOException.class,
+            () -> new DocxBatchExtractor(directory.resolve("output"), 1).resolveItems(manifest.toString()));
+    }
+
+    @Test
+    void recursiveGlobAlsoMatchesTopLevelFiles() throws IOException {
+        final Path input = directory.resolve("input");
+        final Path output = directory.resolve("output");
+        createFiles(input, "top.docx", "notes.txt", "a/nested.docx", "a/b/deeper.docx");
+        final DocxBatchExtractor extractor = new DocxBatchExtractor(output, 1);
+
+        assertEquals(List.of(
+            output.resolve("a/b/deeper.txt"),
+            output.resolve("a/nested.txt"),
+            output.resolve("top.txt")
+        ), outputs(extractor.resolveItems(input.toString().replace('\\', '/') + "/**/*.docx")));
+        assertEquals(List.of(output.resolve("top.txt")),
+            outputs(extractor.resolveItems(input.toString().replace('\\', '/') + "/*.docx")));
+    }
+
+    private static List<Path> createFiles(final Path base, final String... names) throws IOException {
+        final List<Path> files = new ArrayList<>(names.length);
+        for (final String name : names) {
+            final Path file = base.resolve(name);
+            Files.createDirectories(file.getParent());
+            files.add(Files.createFile(file));
+        }
+        return files;
+    }
+
+    private static List<Path> outputs(final List<DocxBatchExtractor.BatchItem> items) {
+        final List<Path> outputs = new ArrayList<>(items.size());
+        for (final DocxBatchExtractor.BatchItem item : items) {
+            outputs.add(item.output());
+        }
+        return outputs;
+    }
+}
@@ -135,6 +135,49 @@ class DocxExtractorTest {
         }
     }
 
+    @Test
+    void chunkedTraversalMatchesSequentialTraversal() throws Exception {
+        final Path docxFile = Files.createTempFile("docx-extractor-chunks", ".docx");
+        try {
+            final WordprocessingMLPackage pkg = WordprocessingMLPackage.createPackage();
+            final MainDocumentPart mainPart = pkg.getMainDocumentPart();
+            final ObjectFactory factory = new ObjectFactory();
+            for (int i = 0; i < 60; i++) {
+                if (i % 7 == 3) {
+                    mainPart.getContent().add(createTable("Cell" + i, "Next" + i));
+                } else if (i % 11 == 5) {
+                    mainPart.getContent().add(createTable("First" + i, "Second" + i));
+                    mainPart.getContent().add(createTable("Third" + i, "Fourth" + i));
+                } else if (i % 13 == 0) {
+                    mainPart.getContent().add(factory.createP());
+                } else {
+                    mainPart.addParagraphOfText("Paragraph " + i);
+                }
+            }
+            mainPart.getContent().add(createTable("Last", "Table"));
+            pkg.save(docxFile.toFile());
+
+            final DocxExtractor.ExtractionResult expected = new DocxExtractor(Integer.MAX_VALUE).extract(docxFile);
+            for (final int minChunkElements : new int[] {1, 2, 5, 9}) {
+                final DocxExtractor.ExtractionResult actual = new DocxExtractor(minChunkElements).extract(docxFile);
+                assertEquals(expected.getPlainText(), actual.getPlainText());
+                assertEquals(describe(expected.getNodes()), describe(actual.getNodes()));
+                assertEquals(expected.getParagraphStyles(), actual.getParagraphStyles());
+                assertEquals(expected.getCharacterStyles(), actual.getCharacterStyles());
+            }
+        } finally {
+            Files.deleteIfExists(docxFile);
+        }
+    }
+
+    private static List<String> describe(final List<DocxExtractor.Node> nodes) {
+        return nodes.stream()
+                .map(node -> node.getId() + "|" + node.getContent() + "|" + node.getStartPosition() + "|"
+                        + node.getEndPosition() + "|" + node.getOriginalXmlPath() + "|" + node.getTableId() + "|"
+                        + node.getRowIndex() + "|" + node.getCellIndex())
+                .toList();
+    }
+
     private Tbl createTable(final String leftCell, final String rightCell) {
         final ObjectFactory factory = new ObjectFactory();
         final Tbl table = factory.createTbl();
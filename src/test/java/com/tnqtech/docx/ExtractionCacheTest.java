@@ -0,0 +1,127 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExtractionCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void countsHitsAndMissesAndRewritesMissingTextFiles() throws Exception {
+        final Path docx = createDocx("a.docx", "Alpha paragraph", "Second");
+        final Path text = directory.resolve("a.txt");
+        final ExtractionCache cache = new ExtractionCache(1_000_000L);
+
+        final String extracted = cache.extractText(docx, text, RunMetrics.disabled());
+        assertEquals(extracted, Files.readString(text, StandardCharsets.UTF_8));
+        Files.delete(text);
+        assertSame(extracted, cache.extractText(docx, text, RunMetrics.disabled()));
+        assertEquals(extracted, Files.readString(text, StandardCharsets.UTF_8));
+        cache.extractText(docx, null, RunMetrics.disabled());
+
+        assertEquals(2L, cache.hits());
+        assertEquals(1L, cache.misses());
+        assertEquals(1, cache.size());
+        assertEquals((long) extracted.length(), cache.cachedChars());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTextsBeyondTheBudget() throws Exception {
+        final Path first = createDocx("first.docx", "first document text");
+        final Path second = createDocx("second.docx", "second document text");
+        final Path third = createDocx("third.docx", "third document text!");
+        final long length = new ExtractionCache(0L).extractText(first, null, RunMetrics.disabled()).length();
+        final ExtractionCache cache = new ExtractionCache(length * 2 + length / 2);
+
+        cache.extractText(first, null, RunMetrics.disabled());
+        cache.extractText(second, null, RunMetrics.disabled());
+        cache.extractText(first, null, RunMetrics.disabled());
+        cache.extractText(third, null, RunMetrics.disabled());
+        assertEquals(2, cache.size());
+        assertTrue(cache.cachedChars() <= length * 2 + length / 2);
+
+        final long misses = cache.misses();
+        cache.extractText(first, null, RunMetrics.disabled());
+        assertEquals(misses, cache.misses());
+        cache.extractText(second, null, RunMetrics.disabled());
+        assertEquals(misses + 1, cache.misses());
+    }
+
+    @Test
+    void textsLargerThanTheBudgetAreNotCached() throws Exception {
+        final Path docx = createDocx("large.docx", "a text that does not fit");
+        final ExtractionCache cache = new ExtractionCache(4L);
+
+        cache.extractText(docx, null, RunMetrics.disabled());
+        cache.extractText(docx, null, RunMetrics.disabled());
+
+        assertEquals(0, cache.size());
+        assertEquals(0L, cache.cachedChars());
+        assertEquals(2L, cache.misses());
+    }
+
+    @Test
+    void changedSizeOrModificationTimeInvalidates() throws Exception {
+        final Path docx = createDocx("changing.docx", "before");
+        final ExtractionCache cache = new ExtractionCache(1_000_000L);
+        final String before = cache.extractText(docx, null, RunMetrics.disabled());
+
+        Files.setLastModifiedTime(docx, FileTime.fromMillis(Files.getLastModifiedTime(docx).toMillis() - 60_000L));
+        assertEquals(before, cache.extractText(docx, null, RunMetrics.disabled()));
+        assertEquals(0L, cache.hits());
+        assertEquals(2L, cache.misses());
+
+        final FileTime modified = Files.getLastModifiedTime(docx);
+        createDocx("changing.docx", "after the change, with more text");
+        Files.setLastModifiedTime(docx, modified);
+        final String after = cache.extractText(docx, null, RunMetrics.disabled());
+        assertTrue(after.contains("after the change"), after);
+        assertEquals(3L, cache.misses());
+        assertSame(after, cache.extractText(docx, null, RunMetrics.disabled()));
+        assertEquals(1L, cache.hits());
+    }
+
+    @Test
+    void derivedValuesShareTheBudgetWithTexts() throws Exception {
+        final Path docx = createDocx("shared.docx", "shared budget text");
+        final long length = new ExtractionCache(0L).extractText(docx, null, RunMetrics.disabled()).length();
+        final ExtractionCache cache = new ExtractionCache(length * 2);
+        cache.extractText(docx, null, RunMetrics.disabled());
+
+        final Object value = new Object();
+        cache.storeValue("baseline", value, length);
+        assertSame(value, cache.value("baseline"));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.valueCount());
+        assertEquals(length * 2, cache.cachedChars());
+
+        cache.storeValue("larger", new Object(), length + 1);
+        assertEquals(0, cache.size());
+        assertNull(cache.value("baseline"));
+        assertEquals(1, cache.valueCount());
+        assertEquals(length + 1, cache.cachedChars());
+    }
+
+    private Path createDocx(final String name, final String... paragraphs) throws Exception {
+        final Path docx = directory.resolve(name);
+        final WordprocessingMLPackage pkg = WordprocessingMLPackage.createPackage();
+        for (final String paragraph : paragraphs) {
+            pkg.getMainDocumentPart().addParagraphOfText(paragraph);
+        }
+        pkg.save(docx.toFile());
+        return docx;
+    }
+}
@@ -0,0 +1,163 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class FieldSanitizerTest {
+
+    private static final int SAMPLES = 200_000;
+    private static final String[] FRAGMENTS = {
+        "\"", "\"", "\"\"", "'", "%22", "%2", "2", "%", " ", " ", "  ", "\t", "\r\n", "\n",
+        "\u00A0", "\u2007", "\u202F", "\u200B", "\u2060", "\uFEFF", "\u2009", "\u3000", "\u0001", "\u001F",
+        "file:///", "file://", "file:", "C:/", "/", "a", "b", "European", "Union", "<unlink>", ".",
+    };
+
+    @Test
+    void fusedSanitizersMatchTheChainedImplementation() {
+        final Random random = new Random(20240601L);
+        for (int i = 0; i < SAMPLES; i++) {
+            final String value = randomValue(random);
+            assertEquals(
+                ChainedSanitizer.sanitizeText(value),
+                FieldSanitizer.sanitize(FieldSanitizer.FieldKind.TEXT, value),
+                () -> "TEXT " + escape(value)
+            );
+            assertEquals(
+                ChainedSanitizer.stripAllDoubleQuotes(ChainedSanitizer.sanitizeText(value)),
+                FieldSanitizer.sanitize(FieldSanitizer.FieldKind.TEXT_WITHOUT_DOUBLE_QUOTES, value),
+                () -> "TEXT_WITHOUT_DOUBLE_QUOTES " + escape(value)
+            );
+            assertEquals(
+                ChainedSanitizer.sanitizeFileReference(value),
+                FieldSanitizer.sanitize(FieldSanitizer.FieldKind.FILE_REFERENCE, value),
+                () -> "FILE_REFERENCE " + escape(value)
+            );
+        }
+    }
+
+    @Test
+    void cleanValuesAreReturnedUnchanged() {
+        final String text = "European Union \"per cent\" versus";
+        assertSame(text, FieldSanitizer.sanitize(FieldSanitizer.FieldKind.TEXT, text));
+        final String reference = "file:///C:/corpus/MOLP_17106_tud_ACE.docx.dom";
+        assertSame(reference, FieldSanitizer.sanitize(FieldSanitizer.FieldKind.FILE_REFERENCE, reference));
+        assertEquals("", FieldSanitizer.sanitize(FieldSanitizer.FieldKind.TEXT, null));
+    }
+
+    private static String randomValue(final Random random) {
+        final StringBuilder builder = new StringBuilder();
+        final int fragments = random.nextInt(12);
+        for (int i = 0; i < fragments; i++) {
+            builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String escape(final String value) {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < value.length(); i++) {
+            final char ch = value.charAt(i);
+            if (ch < 0x20 || ch > 0x7E) {
+                builder.append(String.format(Locale.ROOT, "\\u%04X", (int) ch));
+            } else {
+                builder.append(ch);
+            }
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * The string-by-string sanitizer chain the fused implementation replaces,
+     * kept as the reference for the equivalence check.
+     */
+    private static final class ChainedSanitizer {
+
+        private ChainedSanitizer() {
+        }
+
+        static String sanitizeText(final String value) {
+            if (value == null || value.isEmpty()) {
+                return value == null ? "" : value;
+            }
+            String result = stripEnclosingQuotes(value);
+            result = stripBoundaryQuote(result, true);
+            result = stripBoundaryQuote(result, false);
+            return FieldSanitizer.normalizeWhitespace(result);
+        }
+
+        static String sanitizeFileReference(final String value) {
+            if (value == null) {
+                return "";
+            }
+            String sanitized = sanitizeText(value);
+            if (sanitized.isEmpty()) {
+                return sanitized;
+            }
+            sanitized = sanitized.replace("%22", "");
+            sanitized = sanitized.replace('"', ' ');
+            sanitized = sanitized.replace('\'', ' ');
+            sanitized = FieldSanitizer.normalizeWhitespace(sanitized);
+            sanitized = FieldSanitizer.collapseDuplicateFileScheme(sanitized);
+            return FieldSanitizer.stripOuterQuotes(sanitized);
+        }
+
+        static String stripAllDoubleQuotes(final String value) {
+            if (value == null) {
+                return "";
+            }
+            return value.isEmpty() ? value : value.replace("\"", "");
+        }
+
+        private static String stripEnclosingQuotes(final String value) {
+            final int first = firstNonWhitespaceIndex(value);
+            final int last = lastNonWhitespaceIndex(value);
+            if (first >= 0 && last >= first && value.charAt(first) == '"' && value.charAt(last) == '"') {
+                final String withoutTrailing = removeCharAt(value, last);
+                return removeCharAt(withoutTrailing, first);
+            }
+            return value;
+        }
+
+        private static String stripBoundaryQuote(final String value, final boolean leading) {
+            final int index = leading ? firstNonWhitespaceIndex(value) : lastNonWhitespaceIndex(value);
+            if (index < 0 || value.charAt(index) != '"') {
+                return value;
+            }
+            final int adjacent = leading ? index + 1 : index - 1;
+            if (adjacent >= 0 && adjacent < value.length() && value.charAt(adjacent) == '"') {
+                return value;
+            }
+            return removeCharAt(value, index);
+        }
+
+        private static int firstNonWhitespaceIndex(final String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!Character.isWhitespace(value.charAt(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int lastNonWhitespaceIndex(final String value) {
+            for (int i = value.length() - 1; i >= 0; i--) {
+                if (!Character.isWhitespace(value.charAt(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static String removeCharAt(final String value, final int index) {
+            if (index < 0 || index >= value.length()) {
+                return value;
+            }
+            return value.substring(0, index) + value.substring(index + 1);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileIndexTest {
+
+    private static final int FIELDS = 14;
+    private static final int STAGE_FIELD = 9;
+    private static final String[] STAGES = {"MidProcess", "MainProcess", "", "other"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void indexAnswersLikeTheFilesystem() throws IOException {
+        final Path input = createInput();
+        final FileIndex index = FileIndex.scan(input);
+
+        for (final Path path : candidates(input)) {
+            assertEquals(Files.exists(path), index.exists(path), path.toString());
+        }
+        final Path added = Files.createFile(input.resolve("batch/ADDED_preACE.docx"));
+        index.add(added);
+        assertTrue(index.exists(added));
+        Files.delete(added);
+        index.remove(added);
+        assertFalse(index.exists(added));
+    }
+
+    @Test
+    void fileLinksMatchWithAndWithoutTheIndex() throws Exception {
+        final Path input = createInput();
+        final Constructor<DecisionCsvGeneratorApp> constructor =
+            DecisionCsvGeneratorApp.class.getDeclaredConstructor(Path.class, Path.class, boolean.class);
+        constructor.setAccessible(true);
+        final DecisionCsvGeneratorApp indexed = constructor.newInstance(input, input.resolve("expected.csv"), false);
+        final DecisionCsvGeneratorApp probing = constructor.newInstance(input, input.resolve("expected.csv"), false);
+        final Field fileIndex = DecisionCsvGeneratorApp.class.getDeclaredField("fileIndex");
+        fileIndex.setAccessible(true);
+        fileIndex.set(indexed, FileIndex.scan(input));
+        // an index that is never marked complete answers every question with Files.exists
+        fileIndex.set(probing, new FileIndex(input));
+
+        final Method createFileLink = DecisionCsvGeneratorApp.class.getDeclaredMethod(
+            "createFileLink",
+            Class.forName(DecisionCsvGeneratorApp.class.getName() + "$Difference")
+        );
+        createFileLink.setAccessible(true);
+        final String[] fileNames = {
+            "batch/EXACT", "batch/exact", "batch/MIDONLY", "batch/ALTDOM", "batch/Folded", "batch/MISSING",
+            "missing-directory/EXACT", input.resolve("batch/EXACT").toString(), "batch/EXACT_preACE.docx",
+        };
+        for (final String fileName : fileNames) {
+            for (final String stage : STAGES) {
+                final Object difference = difference(fileName, stage);
+                final String link = (String) createFileLink.invoke(indexed, difference);
+                assertEquals(createFileLink.invoke(probing, difference), link, fileName + " " + stage);
+                assertTrue(link.contains("file-link"), link);
+            }
+        }
+    }
+
+    private Path createInput() throws IOException {
+        final Path input = directory.resolve("input");
+        final Path batch = Files.createDirectories(input.resolve("batch"));
+        for (final String name : new String[] {
+            "EXACT_preACE.docx", "EXACT_midACE.docx", "EXACT_ACE.docx.dom",
+            "MIDONLY_midACE.docx", "MIDONLY_ACE.docx.dom",
+            "ALTDOM_preACE.docx", "ALTDOM_ACE_docx.dom",
+            "folded_preace.docx", "FOLDED_midACE.docx", "folded_ace.docx.dom",
+        }) {
+            Files.createFile(batch.resolve(name));
+        }
+        return input;
+    }
+
+    private static List<Path> candidates(final Path input) {
+        return List.of(
+            input,
+            input.resolve("batch"),
+            input.resolve("batch/EXACT_preACE.docx"),
+            input.resolve("batch/exact_preace.docx"),
+            input.resolve("batch/Folded_preACE.docx"),
+            input.resolve("batch/MISSING_preACE.docx"),
+            input.resolve("BATCH"),
+            input.resolve("batch/../batch/EXACT_midACE.docx"),
+            input.resolve("batch/./MIDONLY_midACE.docx"),
+            input.getParent().resolve("outside.docx")
+        );
+    }
+
+    private static Object difference(final String fileName, final String stage) throws Exception {
+        final Method toRecord = DecisionCsvGeneratorApp.class.getDeclaredMethod("toRecord", String[].class, int.class);
+        toRecord.setAccessible(true);
+        final String[] fields = new String[FIELDS];
+        fields[0] = fileName;
+        fields[1] = "Rule";
+        fields[STAGE_FIELD] = stage;
+        final Object record = toRecord.invoke(null, fields, 0);
+
+        final Class<?> differenceClass = Class.forName(DecisionCsvGeneratorApp.class.getName() + "$Difference");
+        final Class<?> typeClass = Class.forName(DecisionCsvGeneratorApp.class.getName() + "$DifferenceType");
+        final Class<?> severityClass = Class.forName(DecisionCsvGeneratorApp.class.getName() + "$Severity");
+        final Constructor<?> constructor = differenceClass.getDeclaredConstructors()[0];
+        constructor.setAccessible(true);
+        return constructor.newInstance(
+            "Rule",
+            fileName,
+            typeClass.getEnumConstants()[0],
+            severityClass.getEnumConstants()[0],
+            null,
+            record,
+            List.of()
+        );
+    }
+}
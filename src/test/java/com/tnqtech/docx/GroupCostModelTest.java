@@ -0,0 +1,75 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GroupCostModelTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void missingHistoryEstimatesBySize() throws Exception {
+        final Path history = directory.resolve("history.tsv");
+        final GroupCostModel model = GroupCostModel.load(history);
+
+        assertEquals(4_096L, model.estimate("batch/A", 4_096L));
+        model.record("batch/A", 4_096L, 1_000L);
+        assertEquals(4_096L, model.estimate("batch/A", 4_096L));
+        assertTrue(Files.notExists(history));
+        assertEquals(12_345L, GroupCostModel.sizeOnly().estimate("batch/A", 12_345L));
+    }
+
+    @Test
+    void historyRoundTripsWithSummedTimings() throws Exception {
+        final Path history = directory.resolve("nested/history.tsv");
+        final GroupCostModel first = GroupCostModel.load(history);
+        // the extraction and derivation stages each record their share of a group's time
+        first.record("batch/A", 100L, 10L);
+        first.record("batch/A", 100L, 15L);
+        first.record("batch/B", 200L, 40L);
+        first.save();
+
+        assertEquals(List.of("prefix\tbytes\tnanos", "batch/A\t100\t25", "batch/B\t200\t40"),
+            Files.readAllLines(history, StandardCharsets.UTF_8));
+        final GroupCostModel second = GroupCostModel.load(history);
+        assertEquals(25L, second.estimate("batch/A", 100L));
+        assertEquals(40L, second.estimate("batch/B", 200L));
+        // changed or unknown groups are scaled by the average time per byte, 65 ns over 300 bytes
+        assertEquals(10L, second.estimate("batch/A", 50L));
+        assertEquals(65L, second.estimate("batch/C", 300L));
+
+        second.record("batch/B", 400L, 80L);
+        second.save();
+        final GroupCostModel third = GroupCostModel.load(history);
+        assertEquals(25L, third.estimate("batch/A", 100L));
+        assertEquals(80L, third.estimate("batch/B", 400L));
+    }
+
+    @Test
+    void malformedHistoryLinesAreIgnored() throws Exception {
+        final Path history = directory.resolve("history.tsv");
+        Files.writeString(history, String.join("\n",
+            "prefix\tbytes\tnanos",
+            "batch/A\t100\t50",
+            "batch/B\tmany\t10",
+            "batch/C\t-5\t10",
+            "batch/D\t100",
+            ""
+        ), StandardCharsets.UTF_8, StandardOpenOption.CREATE);
+
+        final GroupCostModel model = GroupCostModel.load(history);
+        assertEquals(50L, model.estimate("batch/A", 100L));
+        assertEquals(100L, model.estimate("batch/B", 200L));
+        assertEquals(50L, model.estimate("batch/D", 100L));
+    }
+}
@@ -0,0 +1,82 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class GroupSchedulerTest {
+
+    @Test
+    void releasesTheLargestPendingItemFirst() throws Exception {
+        final GroupScheduler<String> scheduler = new GroupScheduler<>();
+        scheduler.offer("small", 10L);
+        scheduler.offer("large", 1_000L);
+        scheduler.offer("medium", 100L);
+        scheduler.offer("also-large", 1_000L);
+        scheduler.close();
+
+        assertEquals(List.of("large", "also-large", "medium", "small"), drain(scheduler));
+    }
+
+    @Test
+    void dispatchStartsWithTheFirstItemFound() throws Exception {
+        final GroupScheduler<String> scheduler = new GroupScheduler<>();
+        final CountDownLatch firstTaken = new CountDownLatch(1);
+        final CountDownLatch moreOffered = new CountDownLatch(1);
+        final List<String> taken = new ArrayList<>();
+        final Thread consumer = new Thread(() -> {
+            try {
+                taken.add(scheduler.take());
+                firstTaken.countDown();
+                moreOffered.await();
+                String item;
+                while ((item = scheduler.take()) != null) {
+                    taken.add(item);
+                }
+            } catch (final Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        consumer.start();
+
+        scheduler.offer("first", 1L);
+        firstTaken.await();
+        scheduler.offer("small", 5L);
+        scheduler.offer("large", 50L);
+        scheduler.close();
+        moreOffered.countDown();
+        consumer.join();
+
+        assertEquals(List.of("first", "large", "small"), taken);
+    }
+
+    @Test
+    void failureIsRethrownAndCancelDiscardsPendingItems() throws Exception {
+        final GroupScheduler<String> failed = new GroupScheduler<>();
+        final Exception failure = new IllegalStateException("discovery");
+        failed.offer("pending", 1L);
+        failed.fail(failure);
+        assertSame(failure, assertThrows(IllegalStateException.class, failed::take));
+
+        final GroupScheduler<String> cancelled = new GroupScheduler<>();
+        cancelled.offer("pending", 1L);
+        cancelled.cancel();
+        assertNull(cancelled.take());
+    }
+
+    private static List<String> drain(final GroupScheduler<String> scheduler) throws Exception {
+        final List<String> items = new ArrayList<>();
+        String item;
+        while ((item = scheduler.take()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,136 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GroupTimeBudgetTest {
+
+    private static final long TIMEOUT_MILLIS = 100L;
+    private static final long WAIT_SECONDS = 10L;
+    private static final Runnable NOTHING = () -> { };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void retryStartsOnlyAfterTheCancelledAttemptHasExited() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger attempts = new AtomicInteger();
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch settled = new CountDownLatch(1);
+        try (GroupTimeBudget budget = new GroupTimeBudget(TIMEOUT_MILLIS, 1, 4)) {
+            final String result = budget.call(() -> {
+                final int attempt = attempts.incrementAndGet();
+                assertEquals(1, running.incrementAndGet());
+                events.add("start " + attempt);
+                try {
+                    if (attempt == 1) {
+                        // ignores the interrupt for a while, as a stuck load would
+                        busyWait(TIMEOUT_MILLIS * 3 / 2);
+                    }
+                    return "done";
+                } finally {
+                    events.add("exit " + attempt);
+                    running.decrementAndGet();
+                }
+            }, NOTHING, settled::countDown);
+
+            assertEquals("done", result);
+            assertEquals(List.of("start 1", "exit 1", "start 2", "exit 2"), events);
+            assertEquals(0L, settled.getCount());
+        }
+    }
+
+    @Test
+    void abandonedAttemptSettlesOnceItReturns() throws Exception {
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final CountDownLatch abandoned = new CountDownLatch(1);
+        final CountDownLatch settled = new CountDownLatch(1);
+        try (GroupTimeBudget budget = new GroupTimeBudget(TIMEOUT_MILLIS, 3, 2)) {
+            final GroupTimeBudget.ExceededException exceeded = assertThrows(
+                GroupTimeBudget.ExceededException.class,
+                () -> budget.call(() -> awaitUninterruptibly(unblock), abandoned::countDown, settled::countDown)
+            );
+
+            assertEquals(1, exceeded.attempts());
+            assertEquals(0L, abandoned.getCount());
+            assertEquals(1L, settled.getCount());
+            unblock.countDown();
+            assertTrue(settled.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void callsFailOnceEveryThreadIsAbandoned() throws Exception {
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final CountDownLatch settled = new CountDownLatch(2);
+        try (GroupTimeBudget budget = new GroupTimeBudget(TIMEOUT_MILLIS, 0, 1)) {
+            assertThrows(
+                GroupTimeBudget.ExceededException.class,
+                () -> budget.call(() -> awaitUninterruptibly(unblock), NOTHING, settled::countDown)
+            );
+            assertThrows(GroupTimeBudget.ExhaustedException.class, () -> budget.call(() -> "late", NOTHING, settled::countDown));
+            assertEquals(1L, settled.getCount());
+
+            unblock.countDown();
+            assertTrue(settled.await(WAIT_SECONDS, TimeUnit.SECONDS));
+            assertEquals("again", budget.call(() -> "again", NOTHING, NOTHING));
+        }
+    }
+
+    @Test
+    void quarantineSkipsUntilRetriedOrChanged() throws IOException {
+        final Path path = directory.resolve(GroupQuarantine.FILE_NAME);
+        final GroupQuarantine first = GroupQuarantine.load(path, false);
+        first.add("batch-000/SLOW", "slow:1:2/", 2, "exceeded 100 ms\tin 2 attempt(s)");
+        first.save();
+
+        final GroupQuarantine skipping = GroupQuarantine.load(path, false);
+        assertTrue(skipping.skips("batch-000/SLOW", "slow:1:2/"));
+        assertFalse(skipping.skips("batch-000/SLOW", "slow:1:3/"));
+        assertFalse(skipping.skips("batch-000/FAST", "slow:1:2/"));
+        assertEquals(
+            List.of(new GroupQuarantine.Entry("batch-000/SLOW", "slow:1:2/", 2, "exceeded 100 ms in 2 attempt(s)")),
+            skipping.entries()
+        );
+
+        final GroupQuarantine retrying = GroupQuarantine.load(path, true);
+        assertFalse(retrying.skips("batch-000/SLOW", "slow:1:2/"));
+        retrying.release("batch-000/SLOW");
+        retrying.save();
+        assertFalse(Files.exists(path));
+        assertFalse(GroupQuarantine.load(path, false).skips("batch-000/SLOW", "slow:1:2/"));
+    }
+
+    private static void busyWait(final long millis) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static String awaitUninterruptibly(final CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return "finished";
+            } catch (final InterruptedException ex) {
+                // ignored, as a stuck load would
+            }
+        }
+    }
+}
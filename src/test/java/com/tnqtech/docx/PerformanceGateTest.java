@@ -0,0 +1,265 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PerformanceGateTest {
+
+    private static final String EXTRACT = "com.tnqtech.docx.bench.ExtractionBenchmark.extract";
+    private static final String MERGE = "com.tnqtech.docx.bench.MergeBenchmark.merge";
+
+    // laid out like a JMH 1.37 "-rf json" result with "-prof gc", trimmed to two benchmarks
+    private static final String JMH_RESULT = """
+        [
+            {
+                "jmhVersion" : "1.37",
+                "benchmark" : "%s",
+                "mode" : "avgt",
+                "threads" : 1,
+                "forks" : 2,
+                "jvm" : "C:\\\\Program Files\\\\Java\\\\jdk-17\\\\bin\\\\java.exe",
+                "jvmArgs" : [
+                    "-Xmx2g",
+                    "-Dfile.encoding=UTF-8"
+                ],
+                "jdkVersion" : "17.0.10",
+                "vmName" : "OpenJDK 64-Bit Server VM",
+                "vmVersion" : "17.0.10+7",
+                "warmupIterations" : 3,
+                "warmupTime" : "1 s",
+                "warmupBatchSize" : 1,
+                "measurementIterations" : 5,
+                "measurementTime" : "1 s",
+                "measurementBatchSize" : 1,
+                "params" : {
+                    "paragraphs" : "200",
+                    "style" : "tables, links"
+                },
+                "primaryMetric" : {
+                    "score" : %s,
+                    "scoreError" : 1.2345E-1,
+                    "scoreConfidence" : [
+                        1.1,
+                        1.3
+                    ],
+                    "scorePercentiles" : {
+                        "0.0" : 1.1,
+                        "50.0" : 1.2,
+                        "100.0" : 1.3
+                    },
+                    "scoreUnit" : "ms/op",
+                    "rawData" : [
+                        [
+                            1.1,
+                            1.2
+                        ]
+                    ]
+                },
+                "secondaryMetrics" : {
+                    "\\u00b7gc.alloc.rate" : {
+                        "score" : 950.5,
+                        "scoreError" : "NaN",
+                        "scoreConfidence" : [
+                            "NaN",
+                            "NaN"
+                        ],
+                        "scoreUnit" : "MB/sec",
+                        "rawData" : [ ]
+                    },
+                    "\u00b7gc.alloc.rate.norm" : {
+                        "score" : %s,
+                        "scoreError" : 0.0,
+                        "scoreConfidence" : [
+                            1048576.0,
+                            1048576.0
+                        ],
+                        "scoreUnit" : "B/op",
+                        "rawData" : [
+                            [
+                                1048576.0
+                            ]
+                        ]
+                    },
+                    "\u00b7gc.count" : {
+                        "score" : 3.0,
+                        "scoreError" : "NaN",
+                        "scoreUnit" : "counts",
+                        "rawData" : [ ]
+                    }
+                }
+            },
+            {
+                "jmhVersion" : "1.37",
+                "benchmark" : "%s",
+                "mode" : "thrpt",
+                "threads" : 1,
+                "forks" : 1,
+                "params" : null,
+                "primaryMetric" : {
+                    "score" : %s,
+                    "scoreError" : 12.5,
+                    "scoreUnit" : "ops/s",
+                    "rawData" : [ ]
+                },
+                "secondaryMetrics" : { }
+            }
+        ]
+        """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsTheJmhJsonFormat() throws Exception {
+        final List<PerformanceGate.Metric> metrics = PerformanceGate.readJmh(writeJmh("jmh.json", 1.25d, 1_048_576d, 4_000d));
+
+        assertEquals(3, metrics.size());
+        final PerformanceGate.Metric time = metrics.get(0);
+        assertEquals("jmh " + EXTRACT + " {paragraphs=200;style=tables;links}", time.name());
+        assertEquals(PerformanceGate.Kind.TIME, time.kind());
+        assertFalse(time.higherIsBetter());
+        assertEquals("ms/op", time.unit());
+        assertEquals(1.25d, time.value(), 0d);
+
+        final PerformanceGate.Metric allocation = metrics.get(1);
+        assertEquals(time.name() + " gc.alloc.rate.norm", allocation.name());
+        assertEquals(PerformanceGate.Kind.MEMORY, allocation.kind());
+        assertEquals("B/op", allocation.unit());
+        assertEquals(1_048_576d, allocation.value(), 0d);
+
+        final PerformanceGate.Metric throughput = metrics.get(2);
+        assertEquals("jmh " + MERGE, throughput.name());
+        assertTrue(throughput.higherIsBetter());
+        assertEquals(4_000d, throughput.value(), 0d);
+    }
+
+    @Test
+    void regressionsBeyondTheToleranceFailTheGate() throws Exception {
+        final PerformanceGate gate = gate();
+        final List<PerformanceGate.Comparison> comparisons = gate.compare(
+            List.of(
+                metric("slower", PerformanceGate.Kind.TIME, false, 100d),
+                metric("fewer ops", PerformanceGate.Kind.TIME, true, 1_000d),
+                metric("more memory", PerformanceGate.Kind.MEMORY, false, 100d)
+            ),
+            List.of(
+                metric("slower", PerformanceGate.Kind.TIME, false, 111d),
+                metric("fewer ops", PerformanceGate.Kind.TIME, true, 880d),
+                metric("more memory", PerformanceGate.Kind.MEMORY, false, 116d)
+            )
+        );
+
+        assertEquals(3, comparisons.size());
+        for (final PerformanceGate.Comparison comparison : comparisons) {
+            assertEquals(PerformanceGate.Verdict.REGRESSION, comparison.verdict(), comparison.name());
+        }
+        assertEquals(11d, comparisons.get(0).changePercent(), 1e-9);
+        assertEquals(-12d, comparisons.get(1).changePercent(), 1e-9);
+    }
+
+    @Test
+    void changesWithinTheToleranceAreUnchanged() throws Exception {
+        final PerformanceGate gate = gate();
+        final List<PerformanceGate.Comparison> comparisons = gate.compare(
+            List.of(
+                metric("time", PerformanceGate.Kind.TIME, false, 100d),
+                metric("memory", PerformanceGate.Kind.MEMORY, false, 100d),
+                metric("faster", PerformanceGate.Kind.TIME, false, 100d),
+                metric("zero", PerformanceGate.Kind.TIME, false, 0d)
+            ),
+            List.of(
+                metric("time", PerformanceGate.Kind.TIME, false, 109d),
+                // within the memory tolerance although beyond the time tolerance
+                metric("memory", PerformanceGate.Kind.MEMORY, false, 114d),
+                metric("faster", PerformanceGate.Kind.TIME, false, 80d),
+                metric("zero", PerformanceGate.Kind.TIME, false, 0d)
+            )
+        );
+
+        assertEquals(PerformanceGate.Verdict.UNCHANGED, comparisons.get(0).verdict());
+        assertEquals(PerformanceGate.Verdict.UNCHANGED, comparisons.get(1).verdict());
+        assertEquals(PerformanceGate.Verdict.IMPROVEMENT, comparisons.get(2).verdict());
+        assertEquals(PerformanceGate.Verdict.UNCHANGED, comparisons.get(3).verdict());
+    }
+
+    @Test
+    void missingBenchmarksAreReportedWithoutFailingTheGate() throws Exception {
+        final Path baseline = directory.resolve("perf/baseline.csv");
+        final Path reports = directory.resolve("reports");
+        final Path saved = writeJmh("saved.json", 1.25d, 1_048_576d, 4_000d);
+        assertEquals(0, PerformanceGate.fromArguments(new String[] {
+            PerformanceGate.GATE_OPTION, "save", "--baseline", baseline.toString(), "--jmh", saved.toString(),
+        }).execute());
+
+        final Path renamed = writeJmh("renamed.json", 1.25d, 1_048_576d, 4_000d, MERGE + "Renamed");
+        final PerformanceGate gate = PerformanceGate.fromArguments(new String[] {
+            PerformanceGate.GATE_OPTION, "compare", "--baseline", baseline.toString(), "--jmh", renamed.toString(),
+            "--report-dir", reports.toString(),
+        });
+        final List<PerformanceGate.Comparison> comparisons =
+            gate.compare(PerformanceGate.readBaseline(baseline), PerformanceGate.readJmh(renamed));
+
+        assertEquals(4, comparisons.size());
+        assertEquals(PerformanceGate.Verdict.UNCHANGED, comparisons.get(0).verdict());
+        assertEquals(PerformanceGate.Verdict.UNCHANGED, comparisons.get(1).verdict());
+        assertEquals("jmh " + MERGE, comparisons.get(2).name());
+        assertEquals(PerformanceGate.Verdict.MISSING, comparisons.get(2).verdict());
+        assertNull(comparisons.get(2).current());
+        assertEquals(PerformanceGate.Verdict.NEW, comparisons.get(3).verdict());
+        assertEquals(0, gate.execute());
+        final String markdown = Files.readString(reports.resolve(PerformanceGate.MARKDOWN_REPORT_FILE_NAME), StandardCharsets.UTF_8);
+        assertTrue(markdown.contains("missing: 1, new: 1"), markdown);
+
+        final Path slower = writeJmh("slower.json", 1.5d, 1_048_576d, 4_000d);
+        assertEquals(PerformanceGate.REGRESSION_EXIT_CODE, PerformanceGate.fromArguments(new String[] {
+            PerformanceGate.GATE_OPTION, "compare", "--baseline", baseline.toString(), "--jmh", slower.toString(),
+            "--report-dir", reports.toString(),
+        }).execute());
+    }
+
+    private PerformanceGate gate() {
+        // compare() only uses the tolerances; the files are read by execute()
+        return PerformanceGate.fromArguments(new String[] {
+            PerformanceGate.GATE_OPTION, "compare", "--baseline", directory.resolve("baseline.csv").toString(),
+            "--jmh", directory.resolve("jmh.json").toString(), "--time-tolerance", "10", "--memory-tolerance", "15",
+        });
+    }
+
+    private Path writeJmh(final String name, final double score, final double allocation, final double throughput)
+        throws Exception {
+        return writeJmh(name, score, allocation, throughput, MERGE);
+    }
+
+    private Path writeJmh(
+        final String name,
+        final double score,
+        final double allocation,
+        final double throughput,
+        final String second
+    ) throws Exception {
+        final Path path = directory.resolve(name);
+        Files.writeString(path, String.format(Locale.ROOT, JMH_RESULT, EXTRACT, score, allocation, second, throughput),
+            StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static PerformanceGate.Metric metric(
+        final String name,
+        final PerformanceGate.Kind kind,
+        final boolean higherIsBetter,
+        final double value
+    ) {
+        return new PerformanceGate.Metric(name, kind, higherIsBetter, "unit", value);
+    }
+}
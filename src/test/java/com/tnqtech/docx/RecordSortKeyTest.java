@@ -0,0 +1,78 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RecordSortKeyTest {
+
+    private static final int RECORDS = 20_000;
+    private static final int TIE_BREAKS = 12;
+    private static final Comparator<String> STRING_COMPARATOR = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+    private static final String[] WORDS = {
+        "", "a", "A", "ab", "aB", "Ab", "abc", "ABD", "JOURNAL_00001", "journal_00001", "JOURNAL_0001",
+        "Stra\u00DFe", "STRASSE", "\u00FF", "\u0178", "\u00B5", "\u039C", "\u03BC", "\u0130", "i", "I", "\u0131",
+        "\uD801\uDC00", "\uD801\uDC28", "\uE000", "\uFF21", "\uFF41", "z", "Z",
+    };
+
+    @Test
+    void sortKeysOrderLikeTheChainedComparator() {
+        final Random random = new Random(20240601L);
+        final List<Row> rows = new ArrayList<>(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            final String[] tieBreaks = new String[TIE_BREAKS];
+            for (int j = 0; j < TIE_BREAKS; j++) {
+                tieBreaks[j] = value(random);
+            }
+            rows.add(new Row(value(random), value(random), random.nextInt(3), tieBreaks, i));
+        }
+
+        Comparator<Row> chained = Comparator.comparing(Row::fileName, STRING_COMPARATOR)
+            .thenComparing(Row::rule, STRING_COMPARATOR)
+            .thenComparingInt(Row::bufferPosition);
+        for (int j = 0; j < TIE_BREAKS; j++) {
+            final int index = j;
+            chained = chained.thenComparing(row -> row.tieBreaks()[index], STRING_COMPARATOR);
+        }
+        final List<Row> expected = new ArrayList<>(rows);
+        expected.sort(chained);
+
+        final Row[] actual = rows.toArray(new Row[0]);
+        Arrays.parallelSort(actual, Comparator.comparing(Row::key));
+
+        assertEquals(ids(expected), ids(Arrays.asList(actual)));
+    }
+
+    private static String value(final Random random) {
+        if (random.nextInt(20) == 0) {
+            return null;
+        }
+        final StringBuilder builder = new StringBuilder();
+        final int parts = random.nextInt(3);
+        for (int i = 0; i < parts; i++) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static List<Integer> ids(final List<Row> rows) {
+        final List<Integer> ids = new ArrayList<>(rows.size());
+        for (final Row row : rows) {
+            ids.add(row.id());
+        }
+        return ids;
+    }
+
+    private record Row(String fileName, String rule, int bufferPosition, String[] tieBreaks, int id, RecordSortKey key) {
+
+        private Row(final String fileName, final String rule, final int bufferPosition, final String[] tieBreaks, final int id) {
+            this(fileName, rule, bufferPosition, tieBreaks, id, new RecordSortKey(fileName, rule, bufferPosition, tieBreaks));
+        }
+    }
+}
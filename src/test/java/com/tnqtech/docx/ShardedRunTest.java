@@ -0,0 +1,210 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardedRunTest {
+
+    private static final int SHARDS = 3;
+    private static final int FIELDS = 14;
+    private static final String GROUP = "SYN_000000";
+    private static final String CASE_VARIANT = "syn_000000";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mergedShardPartialsMatchAnUnshardedRun() throws Exception {
+        final Path corpus = generateCorpus(directory.resolve("corpus"));
+        final Path groups = corpus.resolve("groups");
+        final Path expected = corpus.resolve("expected.csv");
+        final Path output = groups.resolve("output.csv");
+
+        final DecisionCsvGeneratorApp.RunResult unsharded = run(groups, expected);
+        final String unshardedCsv = Files.readString(output, StandardCharsets.UTF_8);
+        Files.delete(output);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            run(groups, expected, "--shard", shard + "/" + SHARDS);
+        }
+        assertTrue(Files.notExists(output));
+        final DecisionCsvGeneratorApp.RunResult merged = run(groups, expected, "--merge-shards", Integer.toString(SHARDS));
+
+        assertEquals(unshardedCsv, Files.readString(output, StandardCharsets.UTF_8));
+        assertEquals(unsharded.discoveredGroups(), merged.discoveredGroups());
+        assertEquals(unsharded.recordCount(), merged.recordCount());
+        assertEquals(unsharded.differenceCount(), merged.differenceCount());
+    }
+
+    @Test
+    void groupsDifferingOnlyByCaseShareAShardAndDeduplicateOnce() throws Exception {
+        final Method shardOf = DecisionCsvGeneratorApp.class.getDeclaredMethod("shardOf", String.class, int.class);
+        shardOf.setAccessible(true);
+        for (int shardCount = 1; shardCount <= 16; shardCount++) {
+            final Object shard = shardOf.invoke(null, "batch-000/SYN_000042", shardCount);
+            for (final String variant : new String[] {
+                "batch-000/syn_000042", "BATCH-000/Syn_000042", " batch-000/SYN_000042 ", "\"batch-000/SYN_000042\"",
+            }) {
+                assertEquals(shard, shardOf.invoke(null, variant, shardCount), variant + " of " + shardCount);
+            }
+        }
+
+        final Path corpus = generateCorpus(directory.resolve("corpus"));
+        final Path groups = corpus.resolve("groups");
+        final Path expected = corpus.resolve("expected.csv");
+        final Path output = groups.resolve("output.csv");
+        final int recordsWithoutVariant = run(groups, expected).recordCount();
+        copyGroup(groups.resolve("batch-000"), GROUP, CASE_VARIANT);
+
+        final DecisionCsvGeneratorApp.RunResult unsharded = run(groups, expected);
+        final String unshardedCsv = Files.readString(output, StandardCharsets.UTF_8);
+        assertEquals(recordsWithoutVariant, unsharded.recordCount());
+        for (int shardCount = 2; shardCount <= 5; shardCount++) {
+            Files.delete(output);
+            for (int shard = 0; shard < shardCount; shard++) {
+                run(groups, expected, "--shard", shard + "/" + shardCount);
+            }
+            run(groups, expected, "--merge-shards", Integer.toString(shardCount));
+            assertEquals(unshardedCsv, Files.readString(output, StandardCharsets.UTF_8), "merge of " + shardCount);
+        }
+    }
+
+    @Test
+    void partialRoundTripsHeaderAndRows() throws IOException {
+        final Path path = directory.resolve("output.partial");
+        final ShardPartial.Header header = new ShardPartial.Header(12, 10, 2, List.of(
+            new GroupQuarantine.Entry("batch-000/SLOW", "a:1:2/", 2, "exceeded 1000 ms in 2 attempt(s)"),
+            new GroupQuarantine.Entry("batch-000/NOPRINT", null, 1, "")
+        ));
+        final List<ShardPartial.Row> rows = rows(50);
+        ShardPartial.write(path, 1, SHARDS, header, rows);
+
+        try (ShardPartial.Reader reader = ShardPartial.Reader.open(path, 1, SHARDS)) {
+            assertEquals(header, reader.header());
+            final List<ShardPartial.Row> read = new ArrayList<>();
+            for (ShardPartial.Row row = reader.next(); row != null; row = reader.next()) {
+                read.add(row);
+            }
+            assertEquals(describe(rows), describe(read));
+        }
+        assertThrows(IOException.class, () -> ShardPartial.Reader.open(path, 0, SHARDS).close());
+        assertThrows(IOException.class, () -> ShardPartial.Reader.open(path, 1, SHARDS + 1).close());
+    }
+
+    @Test
+    void truncatedOrCorruptPartialIsRejected() throws IOException {
+        final Path path = directory.resolve("output.partial");
+        ShardPartial.write(path, 0, 1, new ShardPartial.Header(1, 1, 0, List.of()), rows(200));
+        final byte[] intact = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(intact, intact.length / 2));
+        assertThrows(IOException.class, () -> readAll(path));
+
+        final byte[] corrupt = intact.clone();
+        corrupt[corrupt.length / 2] ^= (byte) 0xFF;
+        Files.write(path, corrupt);
+        assertThrows(IOException.class, () -> readAll(path));
+
+        Files.write(path, "not a partial".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> readAll(path));
+    }
+
+    @Test
+    void mergeFailsOnTruncatedPartial() throws Exception {
+        final Path corpus = generateCorpus(directory.resolve("corpus"));
+        final Path groups = corpus.resolve("groups");
+        final Path expected = corpus.resolve("expected.csv");
+        for (int shard = 0; shard < SHARDS; shard++) {
+            run(groups, expected, "--shard", shard + "/" + SHARDS);
+        }
+        final Path partial = ShardPartial.directory(groups, 1, SHARDS).resolve(ShardPartial.FILE_NAME);
+        try (RandomAccessFile file = new RandomAccessFile(partial.toFile(), "rw")) {
+            file.setLength(file.length() - 8);
+        }
+
+        assertThrows(IOException.class, () -> run(groups, expected, "--merge-shards", Integer.toString(SHARDS)));
+        assertTrue(Files.notExists(groups.resolve("output.csv")));
+    }
+
+    private static DecisionCsvGeneratorApp.RunResult run(final Path groups, final Path expected, final String... options)
+        throws Exception {
+        final List<String> arguments = new ArrayList<>(Arrays.asList(options));
+        arguments.add("--threads");
+        arguments.add("2");
+        return DecisionCsvGeneratorApp.execute(
+            groups,
+            expected,
+            false,
+            null,
+            false,
+            new DecisionCsvGeneratorApp.WarmCaches(0L),
+            RunOptions.extract(arguments)
+        );
+    }
+
+    private static Path generateCorpus(final Path corpus) throws Exception {
+        final List<String> arguments = new ArrayList<>(List.of(
+            "--groups", "12", "--paragraphs", "20", "--decisions", "8", "--seed", "7", "--threads", "2"
+        ));
+        new SyntheticCorpusGenerator(
+            corpus,
+            SyntheticCorpusGenerator.Settings.extract(arguments),
+            SyntheticCorpusGenerator.loadRules(null)
+        ).generate();
+        return corpus;
+    }
+
+    private static void copyGroup(final Path groupDirectory, final String prefix, final String copy) throws IOException {
+        try (Stream<Path> files = Files.list(groupDirectory)) {
+            for (final Path file : files.toList()) {
+                final String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && !name.endsWith(".txt")) {
+                    Files.copy(file, groupDirectory.resolve(copy + name.substring(prefix.length())));
+                }
+            }
+        }
+    }
+
+    private static List<ShardPartial.Row> rows(final int count) {
+        final List<ShardPartial.Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String[] fields = new String[FIELDS];
+            for (int j = 0; j < fields.length; j++) {
+                fields[j] = j == 5 ? null : "value-" + i + "-" + j + " é–\"|,\n";
+            }
+            rows.add(new ShardPartial.Row("batch-000/SYN_" + i / 10, fields, i * 3));
+        }
+        return rows;
+    }
+
+    private static List<String> describe(final List<ShardPartial.Row> rows) {
+        final List<String> values = new ArrayList<>(rows.size());
+        for (final ShardPartial.Row row : rows) {
+            values.add(row.prefix() + ":" + row.bufferPosition() + ":" + Arrays.toString(row.fields()));
+        }
+        return values;
+    }
+
+    private static void readAll(final Path path) throws IOException {
+        try (ShardPartial.Reader reader = ShardPartial.Reader.open(path, 0, 1)) {
+            while (reader.next() != null) {
+                // drain
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class StagedPipelineTest {
+
+    private static final int ITEMS = 5_000;
+    private static final int FIELDS = 14;
+    private static final long MAX_ABORT_MILLIS = 5_000L;
+    private static final String[] NAMES = {"a", "B", "c", "journal_1", "JOURNAL_1", "z"};
+
+    @Test
+    void singleWorkersKeepTheSourceOrder() throws Exception {
+        final List<Integer> output = new ArrayList<>();
+        StagedPipeline
+            .from("source", StagedPipelineTest::emitItems)
+            .then("double", 1, 4, item -> item * 2)
+            .then("increment", 1, 4, item -> item + 1)
+            .drainTo("sink", 4, output::add);
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            expected.add(i * 2 + 1);
+        }
+        assertEquals(expected, output);
+    }
+
+    @Test
+    void severalWorkersDeliverEveryItemOnce() throws Exception {
+        final List<Integer> output = new ArrayList<>();
+        final List<StagedPipeline.StageStatistics> statistics = StagedPipeline
+            .from("source", StagedPipelineTest::emitItems)
+            .then("double", 3, 2, item -> item * 2)
+            .then("increment", 5, 1, item -> item + 1)
+            .then("identity", 2, 8, item -> item)
+            .drainTo("sink", 3, output::add);
+
+        Collections.sort(output);
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            expected.add(i * 2 + 1);
+        }
+        assertEquals(expected, output);
+        assertEquals(5, statistics.size());
+        for (final StagedPipeline.StageStatistics stage : statistics) {
+            assertEquals((long) ITEMS, stage.items(), stage.name());
+        }
+    }
+
+    @Test
+    void nullResultsAreDropped() throws Exception {
+        final List<Integer> output = new ArrayList<>();
+        final List<StagedPipeline.StageStatistics> statistics = StagedPipeline
+            .from("source", StagedPipelineTest::emitItems)
+            .then("odd", 4, 4, item -> item % 2 == 0 ? null : item)
+            .drainTo("sink", 4, output::add);
+
+        Collections.sort(output);
+        assertEquals(ITEMS / 2, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i * 2 + 1, output.get(i));
+        }
+        assertEquals((long) ITEMS, statistics.get(1).items());
+        assertEquals((long) ITEMS / 2, statistics.get(2).items());
+    }
+
+    @Test
+    void firstFailureStopsEveryStage() {
+        final IllegalStateException failure = new IllegalStateException("item 100");
+        final long started = System.nanoTime();
+        final StagedPipeline.PipelineException thrown = assertThrows(StagedPipeline.PipelineException.class, () ->
+            StagedPipeline
+                .<Integer>from("endless", emitter -> {
+                    for (int i = 0; ; i++) {
+                        emitter.emit(i);
+                    }
+                })
+                .then("fail", 3, 2, item -> {
+                    if (item == 100) {
+                        throw failure;
+                    }
+                    return item;
+                })
+                .then("slow", 2, 2, item -> {
+                    Thread.sleep(1L);
+                    return item;
+                })
+                .drainTo("sink", 2, item -> { })
+        );
+
+        assertSame(failure, thrown.getCause());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < MAX_ABORT_MILLIS);
+    }
+
+    @Test
+    void sinkFailureStopsTheSource() {
+        final long started = System.nanoTime();
+        final StagedPipeline.PipelineException thrown = assertThrows(StagedPipeline.PipelineException.class, () ->
+            StagedPipeline
+                .<Integer>from("endless", emitter -> {
+                    for (int i = 0; ; i++) {
+                        emitter.emit(i);
+                    }
+                })
+                .then("identity", 2, 2, item -> item)
+                .drainTo("sink", 2, item -> {
+                    if (item > 50) {
+                        throw new IllegalArgumentException("sink");
+                    }
+                })
+        );
+
+        assertEquals("sink", thrown.getCause().getMessage());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < MAX_ABORT_MILLIS);
+    }
+
+    @Test
+    void mergedRunsEqualAGlobalStableSort() throws Exception {
+        final Method toRecord = DecisionCsvGeneratorApp.class.getDeclaredMethod("toRecord", String[].class, int.class);
+        final Method sortRecords = DecisionCsvGeneratorApp.class.getDeclaredMethod("sortRecords", List.class);
+        final Method mergeSortedRuns = DecisionCsvGeneratorApp.class.getDeclaredMethod("mergeSortedRuns", List.class);
+        final Constructor<?> groupRecords = Class.forName(DecisionCsvGeneratorApp.class.getName() + "$GroupRecords")
+            .getDeclaredConstructor(String.class, List.class);
+        toRecord.setAccessible(true);
+        sortRecords.setAccessible(true);
+        mergeSortedRuns.setAccessible(true);
+        groupRecords.setAccessible(true);
+
+        final Random random = new Random(20240601L);
+        final List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            prefixes.add(String.format(Locale.ROOT, "batch-%03d/SYN_%06d", random.nextInt(3), i));
+        }
+        final List<Object> runs = new ArrayList<>();
+        for (final String prefix : prefixes) {
+            final List<Object> records = new ArrayList<>();
+            final int count = random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                final String[] fields = new String[FIELDS];
+                for (int j = 0; j < fields.length; j++) {
+                    fields[j] = random.nextInt(10) == 0 ? null : NAMES[random.nextInt(NAMES.length)];
+                }
+                records.add(toRecord.invoke(null, fields, random.nextInt(5)));
+            }
+            sortRecords.invoke(null, records);
+            runs.add(groupRecords.newInstance(prefix, records));
+        }
+        Collections.shuffle(runs, random);
+
+        final List<String> orderedPrefixes = new ArrayList<>(prefixes);
+        Collections.sort(orderedPrefixes);
+        final List<Object> expected = new ArrayList<>();
+        for (final String prefix : orderedPrefixes) {
+            for (final Object run : runs) {
+                if (prefix.equals(run.getClass().getDeclaredMethod("prefix").invoke(run))) {
+                    expected.addAll((List<?>) run.getClass().getDeclaredMethod("records").invoke(run));
+                }
+            }
+        }
+        sortRecords.invoke(null, expected);
+
+        final List<?> merged = (List<?>) mergeSortedRuns.invoke(null, runs);
+        assertEquals(expected.size(), merged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), merged.get(i));
+        }
+    }
+
+    private static void emitItems(final StagedPipeline.Emitter<Integer> emitter) throws InterruptedException {
+        for (int i = 0; i < ITEMS; i++) {
+            emitter.emit(i);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SyntheticCorpusGeneratorTest {
+
+    private static final int GROUPS = 6;
+    private static final Pattern DECISION = Pattern.compile(
+        "<Decision status=\"done\" stage=\"([^\"]*)\">.*?<Find>(.*?)</Find>.*?<InstanceText>(.*?)</InstanceText>"
+            + ".*?<BufferPosition>(\\d+)</BufferPosition>",
+        Pattern.DOTALL
+    );
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bufferPositionsLandOnTheirWords() throws Exception {
+        final Path corpus = generate(directory.resolve("corpus"), "7");
+        final ExtractionCache extractor = new ExtractionCache(0L);
+        int checked = 0;
+        for (int group = 0; group < GROUPS; group++) {
+            final Path prefix = groupPrefix(corpus, group);
+            final String preText = extractor.extractText(sibling(prefix, "_preACE.docx"), null, RunMetrics.disabled());
+            final String midText = extractor.extractText(sibling(prefix, "_midACE.docx"), null, RunMetrics.disabled());
+            final String dom = Files.readString(sibling(prefix, "_ACE.docx.dom"), StandardCharsets.UTF_8);
+
+            final Matcher decision = DECISION.matcher(dom);
+            while (decision.find()) {
+                final String text = "midprocess".equals(decision.group(1)) ? preText : midText;
+                final String find = unescape(decision.group(2));
+                final String word = unescape(decision.group(3));
+                final int position = Integer.parseInt(decision.group(4));
+                final String context = prefix.getFileName() + " " + decision.group(1) + " " + word + " @" + position;
+
+                assertTrue(find.isEmpty() || find.equals(word), context);
+                assertTrue(text.startsWith(word, position), context);
+                assertTrue(position == 0 || !Character.isLetterOrDigit(text.charAt(position - 1)), context);
+                final int end = position + word.length();
+                assertTrue(end == text.length() || !Character.isLetterOrDigit(text.charAt(end)), context);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    void sameSeedGeneratesTheSameCorpus() throws Exception {
+        final Path first = generate(directory.resolve("first"), "11");
+        final Path second = generate(directory.resolve("second"), "11");
+        final Path other = generate(directory.resolve("other"), "12");
+
+        assertArrayEquals(Files.readAllBytes(first.resolve("expected.csv")), Files.readAllBytes(second.resolve("expected.csv")));
+        assertArrayEquals(Files.readAllBytes(first.resolve("actual.csv")), Files.readAllBytes(second.resolve("actual.csv")));
+        assertFalse(Files.readString(first.resolve("actual.csv"), StandardCharsets.UTF_8)
+            .equals(Files.readString(other.resolve("actual.csv"), StandardCharsets.UTF_8)));
+
+        // docx zips carry entry timestamps, so the documents are compared by their extracted text
+        final ExtractionCache extractor = new ExtractionCache(0L);
+        for (int group = 0; group < GROUPS; group++) {
+            final Path firstPrefix = groupPrefix(first, group);
+            final Path secondPrefix = groupPrefix(second, group);
+            assertArrayEquals(
+                Files.readAllBytes(sibling(firstPrefix, "_ACE.docx.dom")),
+                Files.readAllBytes(sibling(secondPrefix, "_ACE.docx.dom"))
+            );
+            for (final String suffix : new String[] {"_preACE.docx", "_midACE.docx"}) {
+                assertEquals(
+                    extractor.extractText(sibling(firstPrefix, suffix), null, RunMetrics.disabled()),
+                    extractor.extractText(sibling(secondPrefix, suffix), null, RunMetrics.disabled()),
+                    firstPrefix.getFileName() + suffix
+                );
+            }
+        }
+    }
+
+    private static Path generate(final Path corpus, final String seed) throws Exception {
+        // several threads, so the result must not depend on which thread wrote which group
+        final List<String> arguments = new ArrayList<>(List.of(
+            "--groups", Integer.toString(GROUPS), "--paragraphs", "24", "--decisions", "12", "--seed", seed,
+            "--midprocess-rate", "0.5", "--threads", "3"
+        ));
+        new SyntheticCorpusGenerator(
+            corpus,
+            SyntheticCorpusGenerator.Settings.extract(arguments),
+            SyntheticCorpusGenerator.loadRules(null)
+        ).generate();
+        return corpus;
+    }
+
+    private static Path groupPrefix(final Path corpus, final int group) {
+        return corpus.resolve("groups/batch-000").resolve(String.format(Locale.ROOT, "SYN_%06d", group));
+    }
+
+    private static Path sibling(final Path prefix, final String suffix) {
+        return prefix.resolveSibling(prefix.getFileName() + suffix);
+    }
+
+    private static String unescape(final String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,82 @@
+package com.tnqtech.docx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBoundaryIndexTest {
+
+    private static final int SAMPLES = 20_000;
+    private static final String[] FRAGMENTS = {
+        " ", " ", "  ", "   ", "\n", "\r", "\r\n", "\n\n", "\t", "\u00A0", "\u2009",
+        "a", "b", "European", "Union", "per-cent", ".", ",", "\"", "\u00E9", "\uD801\uDC00",
+    };
+
+    @Test
+    void boundariesMatchTheCharacterWalk() {
+        final Random random = new Random(20240601L);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertMatchesWalk(randomText(random));
+        }
+    }
+
+    @Test
+    void boundariesMatchTheCharacterWalkOnEdgeCases() {
+        final String[] texts = {
+            "", " ", "\n", "\r\n", "a", "ab", "   ", " \r\n\n ", "a ", " a", "a  b", "a\r\n\r\nb",
+            "European Union", "  European   Union  ", "\nEuropean\rUnion\n",
+        };
+        for (final String text : texts) {
+            assertMatchesWalk(text);
+        }
+    }
+
+    private static void assertMatchesWalk(final String text) {
+        final TokenBoundaryIndex index = new TokenBoundaryIndex(text);
+        for (int position = 0; position <= text.length(); position++) {
+            final int at = position;
+            assertEquals(walkStart(text, position), index.tokenStart(position),
+                () -> "tokenStart(" + at + ") in " + escape(text));
+            assertEquals(walkEnd(text, position), index.tokenEnd(position),
+                () -> "tokenEnd(" + at + ") in " + escape(text));
+        }
+    }
+
+    /**
+     * The walk {@code deriveInput} used before the index.
+     */
+    private static int walkStart(final String text, final int position) {
+        int start = position;
+        while (start > 0 && !isSpaceOrNewLine(text.charAt(start - 1))) {
+            start--;
+        }
+        return start;
+    }
+
+    private static int walkEnd(final String text, final int position) {
+        int end = position;
+        while (end < text.length() && !isSpaceOrNewLine(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isSpaceOrNewLine(final char ch) {
+        return ch == ' ' || ch == '\n' || ch == '\r';
+    }
+
+    private static String randomText(final Random random) {
+        final StringBuilder builder = new StringBuilder();
+        final int fragments = random.nextInt(40);
+        for (int i = 0; i < fragments; i++) {
+            builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\r", "\\r").replace("\n", "\\n");
+    }
+}
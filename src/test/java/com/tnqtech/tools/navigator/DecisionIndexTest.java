@@ -0,0 +1,132 @@
+package com.tnqtech.tools.navigator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class DecisionIndexTest {
+
+    private static final int SAMPLES = 500;
+
+    @Test
+    void lookupsSkipOverDuplicatePositions() {
+        final DecisionIndex index = index(5, 10, 5, 20, 10, 5);
+
+        assertEquals(0, index.nextAfter(4));
+        assertEquals(3, index.nextAfter(5));
+        assertEquals(5, index.nextAfter(10));
+        assertEquals(-1, index.previousBefore(5));
+        assertEquals(2, index.previousBefore(6));
+        assertEquals(2, index.previousBefore(10));
+        assertEquals(4, index.previousBefore(20));
+        assertEquals(0, index.firstAtOrAfter(5));
+        assertEquals(3, index.firstAtOrAfter(6));
+        assertEquals(3, index.firstAtOrAfter(10));
+        assertEquals(5, index.firstAtOrAfter(11));
+    }
+
+    @Test
+    void lookupsHandleTheFirstAndLastDecision() {
+        final DecisionIndex index = index(0, 7, Integer.MAX_VALUE);
+
+        assertEquals(0, index.nextAfter(-1));
+        assertEquals(1, index.nextAfter(0));
+        assertEquals(-1, index.nextAfter(Integer.MAX_VALUE));
+        assertEquals(-1, index.previousBefore(0));
+        assertEquals(-1, index.previousBefore(Integer.MIN_VALUE));
+        assertEquals(1, index.previousBefore(Integer.MAX_VALUE));
+        assertEquals(0, index.firstAtOrAfter(Integer.MIN_VALUE));
+        assertEquals(2, index.firstAtOrAfter(8));
+        assertEquals(2, index.firstAtOrAfter(Integer.MAX_VALUE));
+        assertEquals(-1, DecisionIndex.empty().nextAfter(0));
+        assertEquals(-1, DecisionIndex.empty().previousBefore(0));
+        assertEquals(0, DecisionIndex.empty().firstAtOrAfter(0));
+    }
+
+    @Test
+    void lookupsMatchALinearScan() {
+        final Random random = new Random(20240601L);
+        for (int sample = 0; sample < SAMPLES; sample++) {
+            final int[] positions = new int[random.nextInt(20)];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = random.nextInt(30);
+            }
+            final DecisionIndex index = index(positions);
+            for (int position = -2; position < 33; position++) {
+                assertEquals(linearNextAfter(index, position), index.nextAfter(position));
+                assertEquals(linearPreviousBefore(index, position), index.previousBefore(position));
+                assertEquals(linearFirstAtOrAfter(index, position), index.firstAtOrAfter(position));
+            }
+        }
+    }
+
+    @Test
+    void filterByRuleKeepsMatchingDecisionsInOrder() {
+        final DecisionIndex index = DecisionIndex.fromDecisions(List.of(
+            decision(30, "Spelling"),
+            decision(10, "spelling"),
+            decision(20, "Grammar"),
+            decision(10, "Grammar")
+        ));
+
+        assertSame(index, index.filterByRule(null));
+        final DecisionIndex spelling = index.filterByRule("SPELLING");
+        assertEquals(2, spelling.size());
+        assertEquals(10, spelling.get(0).position());
+        assertEquals(30, spelling.get(1).position());
+        assertEquals(1, spelling.nextAfter(10));
+        assertEquals(0, spelling.previousBefore(30));
+
+        final DecisionIndex none = index.filterByRule("Punctuation");
+        assertTrue(none.isEmpty());
+        assertEquals(-1, none.nextAfter(0));
+        assertEquals(-1, none.previousBefore(100));
+        assertEquals(0, none.firstAtOrAfter(0));
+        assertTrue(none.filterByRule("Spelling").isEmpty());
+    }
+
+    private static DecisionIndex index(final int... positions) {
+        final List<DecisionIndex.Decision> decisions = new ArrayList<>(positions.length);
+        for (final int position : positions) {
+            decisions.add(decision(position, "Rule"));
+        }
+        return DecisionIndex.fromDecisions(decisions);
+    }
+
+    private static DecisionIndex.Decision decision(final int position, final String rule) {
+        return new DecisionIndex.Decision(position, rule, "find", "replace", "preACE");
+    }
+
+    private static int linearNextAfter(final DecisionIndex index, final int position) {
+        for (int i = 0; i < index.size(); i++) {
+            if (index.get(i).position() > position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int linearPreviousBefore(final DecisionIndex index, final int position) {
+        for (int i = index.size() - 1; i >= 0; i--) {
+            if (index.get(i).position() < position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int linearFirstAtOrAfter(final DecisionIndex index, final int position) {
+        for (int i = 0; i < index.size(); i++) {
+            if (index.get(i).position() >= position) {
+                return i;
+            }
+        }
+        return index.size();
+    }
+}
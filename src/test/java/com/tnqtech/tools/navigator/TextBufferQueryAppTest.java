@@ -0,0 +1,91 @@
+package com.tnqtech.tools.navigator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TextBufferQueryAppTest {
+
+    private static final String BUFFER = "say \"hi\", aaa\nx,y\tend";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findAllPositionsReportsOverlappingMatches() throws IOException {
+        final TextBufferNavigator navigator = navigator("aaaa banana aa");
+
+        assertEquals(List.of(0, 1, 2, 12), navigator.findAllPositions("aa"));
+        assertEquals(List.of(6, 8), navigator.findAllPositions("ana"));
+        assertEquals(List.of(0), navigator.findAllPositions("aaaa banana aa"));
+        assertEquals(List.of(), navigator.findAllPositions("nab"));
+        assertEquals(List.of(), navigator.findAllPositions("aaaa banana aa "));
+        assertEquals(List.of(), navigator.findAllPositions(""));
+        assertEquals(List.of(), navigator("").findAllPositions("a"));
+    }
+
+    @Test
+    void csvOutputQuotesCommasQuotesAndNewlines() throws Exception {
+        final List<String> lines = query("csv", "\"hi\",", "aa", "x,y", "missing", "5");
+
+        assertEquals(List.of(
+            "query,kind,found,start,end,text",
+            "\"\"\"hi\"\",\",search,true,4,9,\"\"\"hi\"\",\"",
+            "aa,search,true,10,12,aa",
+            "aa,search,true,11,13,aa",
+            "\"x,y\",search,true,14,17,\"x,y\"",
+            "missing,search,false,,,",
+            "5,position,true,4,9,\"\"\"hi\"\",\""
+        ), lines);
+
+        final Method toCsvValue = TextBufferQueryApp.class.getDeclaredMethod("toCsvValue", String.class);
+        toCsvValue.setAccessible(true);
+        assertEquals("plain", toCsvValue.invoke(null, "plain"));
+        assertEquals("\"two\nlines\"", toCsvValue.invoke(null, "two\nlines"));
+        assertEquals("\"cr\rlf\"", toCsvValue.invoke(null, "cr\rlf"));
+        assertEquals("\"a \"\"b\"\" c\"", toCsvValue.invoke(null, "a \"b\" c"));
+    }
+
+    @Test
+    void ndjsonOutputEscapesStrings() throws Exception {
+        final List<String> lines = query("ndjson", "\"hi\",", "y\tend", "missing");
+
+        assertEquals(List.of(
+            "{\"query\":\"\\\"hi\\\",\",\"kind\":\"search\",\"found\":true,\"start\":4,\"end\":9,\"text\":\"\\\"hi\\\",\"}",
+            "{\"query\":\"y\\tend\",\"kind\":\"search\",\"found\":true,\"start\":16,\"end\":21,\"text\":\"y\\tend\"}",
+            "{\"query\":\"missing\",\"kind\":\"search\",\"found\":false}"
+        ), lines);
+
+        final Method toJsonString = TextBufferQueryApp.class.getDeclaredMethod("toJsonString", String.class);
+        toJsonString.setAccessible(true);
+        assertEquals("\"a\\nb\\r\\\\c\\u0001\"", toJsonString.invoke(null, "a\nb\r\\c\u0001"));
+    }
+
+    private List<String> query(final String format, final String... queries) throws IOException {
+        final Path buffer = directory.resolve("buffer.txt");
+        final Path queryFile = directory.resolve("queries.txt");
+        final Path output = directory.resolve("results." + format);
+        Files.writeString(buffer, BUFFER, StandardCharsets.UTF_8);
+        Files.write(queryFile, List.of(queries), StandardCharsets.UTF_8);
+        TextBufferQueryApp.main(new String[] {
+            buffer.toString(), queryFile.toString(), "--format", format, "--all", "--output", output.toString(),
+        });
+        return Files.readAllLines(output, StandardCharsets.UTF_8);
+    }
+
+    private TextBufferNavigator navigator(final String text) throws IOException {
+        final Path buffer = directory.resolve("navigator.txt");
+        Files.writeString(buffer, text, StandardCharsets.UTF_8);
+        final TextBufferNavigator navigator = new TextBufferNavigator();
+        navigator.load(buffer);
+        return navigator;
+    }
+}